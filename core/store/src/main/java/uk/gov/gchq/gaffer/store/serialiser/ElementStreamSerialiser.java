@@ -0,0 +1,446 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.store.serialiser;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.data.element.Edge;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.id.EdgeId.MatchedVertex;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.serialisation.ToBytesSerialiser;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
+import uk.gov.gchq.gaffer.store.schema.TypeDefinition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Serialiser to write and read a stream of {@link Element}s in a compact
+ * binary representation, using an {@link ElementSerialiser} and so the
+ * {@link ToBytesSerialiser}s in the {@link Schema}.
+ * <p>
+ * The stream starts with a version byte. Each element is then written as its
+ * length followed by its serialised bytes, a byte for the
+ * {@link MatchedVertex} of an edge and a bitmap of which of the schema
+ * properties the element has. The {@link ElementSerialiser} writes every
+ * schema property, reading a missing one back as an empty value such as
+ * {@code ""} or {@code false}, so the bitmap is used to remove the properties
+ * the element did not have. The stream is ended with a marker,
+ * so a reader can tell a complete stream from one that was cut short. If the
+ * elements cannot be written, an error marker and message are written instead
+ * of the end marker, so the reader can report the failure.
+ * <p>
+ * Only the properties in the schema can be written, so elements with transient
+ * properties, or with properties whose class has been changed by a transform,
+ * cannot be written. {@link #canSerialise(View)} checks a view for these.
+ */
+public class ElementStreamSerialiser {
+    /**
+     * The media type of a stream of elements written by this serialiser.
+     */
+    public static final String MEDIA_TYPE = "application/x-gaffer-elements";
+
+    private static final int VERSION = 3;
+    private static final int END = -1;
+    private static final int ERROR = -2;
+    private static final int NO_MATCHED_VERTEX = 0;
+
+    private final Schema schema;
+    private final ElementSerialiser elementSerialiser;
+
+    public ElementStreamSerialiser(final Schema schema) {
+        if (!canSerialise(schema)) {
+            throw new IllegalArgumentException("The schema must contain a " + ToBytesSerialiser.class.getSimpleName()
+                    + " for the vertex and for every property");
+        }
+        this.schema = schema;
+        elementSerialiser = new ElementSerialiser(schema);
+    }
+
+    /**
+     * Checks whether the elements in a schema can be written by this
+     * serialiser, which requires the vertex serialiser and the serialisers of
+     * all the properties to be {@link ToBytesSerialiser}s.
+     *
+     * @param schema the schema to check
+     * @return true if elements in the schema can be serialised
+     */
+    public static boolean canSerialise(final Schema schema) {
+        if (null == schema || !(schema.getVertexSerialiser() instanceof ToBytesSerialiser)) {
+            return false;
+        }
+        for (final String group : schema.getGroups()) {
+            final SchemaElementDefinition elementDef = schema.getElement(group);
+            for (final String property : elementDef.getProperties()) {
+                final TypeDefinition typeDef = elementDef.getPropertyTypeDef(property);
+                if (null == typeDef || !(typeDef.getSerialiser() instanceof ToBytesSerialiser)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the elements returned by a query with the given view can
+     * be written by this serialiser. Transient properties are not in the
+     * schema and a transform may change the class of a property, so views
+     * with either of these cannot be written.
+     *
+     * @param view the view to check
+     * @return true if elements returned with the view can be serialised
+     */
+    public static boolean canSerialise(final View view) {
+        if (null == view) {
+            return true;
+        }
+        final List<ViewElementDefinition> elementDefs = new ArrayList<>();
+        addAll(elementDefs, null != view.getEntities() ? view.getEntities().values() : null);
+        addAll(elementDefs, null != view.getEdges() ? view.getEdges().values() : null);
+        addAll(elementDefs, view.getGlobalElements());
+        addAll(elementDefs, view.getGlobalEntities());
+        addAll(elementDefs, view.getGlobalEdges());
+        for (final ViewElementDefinition elementDef : elementDefs) {
+            if (null != elementDef
+                    && (!elementDef.getTransientProperties().isEmpty()
+                    || (null != elementDef.getTransformer() && !elementDef.getTransformer().getComponents().isEmpty()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the elements to the output stream. The iterable is closed once
+     * all the elements have been written. The output stream is flushed but
+     * not closed.
+     *
+     * @param elements the elements to write
+     * @param output   the stream to write to
+     * @throws SerialisationException if any of the elements cannot be serialised or written
+     */
+    public void serialise(final Iterable<?> elements, final OutputStream output) throws SerialisationException {
+        final ElementWriter writer = new ElementWriter(output);
+        try {
+            if (null != elements) {
+                for (final Object element : elements) {
+                    if (!(element instanceof Element)) {
+                        throw new SerialisationException("Only elements can be serialised, but found: "
+                                + (null == element ? null : element.getClass().getName()));
+                    }
+                    writer.write((Element) element);
+                }
+            }
+            writer.finish();
+        } catch (final SerialisationException | RuntimeException e) {
+            writeError(writer.out, e);
+            throw e;
+        } finally {
+            CloseableUtil.close(elements);
+        }
+    }
+
+    /**
+     * Creates a writer to write elements to the output stream one at a time,
+     * for when the elements are not available as an iterable. Once all the
+     * elements have been written {@link ElementWriter#finish()} must be
+     * called to end the stream.
+     *
+     * @param output the stream to write to
+     * @return the writer
+     * @throws SerialisationException if the stream cannot be written to
+     */
+    public ElementWriter writer(final OutputStream output) throws SerialisationException {
+        return new ElementWriter(output);
+    }
+
+    /**
+     * Lazily reads the elements from an input stream written by
+     * {@link #serialise(Iterable, OutputStream)}. As the stream can only be
+     * read once, the returned iterable can only be iterated once. The input
+     * stream is closed when all of the elements have been read or the
+     * iterable is closed.
+     *
+     * @param input the stream to read from
+     * @return the elements in the stream
+     */
+    public CloseableIterable<Element> deserialise(final InputStream input) {
+        return new ElementStreamIterable(input);
+    }
+
+    private void checkProperties(final Element element) throws SerialisationException {
+        final SchemaElementDefinition elementDef = schema.getElement(element.getGroup());
+        if (null == elementDef) {
+            throw new SerialisationException("No SchemaElementDefinition found for group " + element.getGroup());
+        }
+        for (final String property : element.getProperties().keySet()) {
+            if (!elementDef.containsProperty(property)) {
+                // The property would be silently dropped
+                throw new SerialisationException("Property " + property + " of group " + element.getGroup()
+                        + " is not in the schema, so the elements must be returned as JSON");
+            }
+        }
+    }
+
+    private byte[] getPresentProperties(final Element element) {
+        final Set<String> properties = schema.getElement(element.getGroup()).getProperties();
+        final byte[] bitmap = new byte[getBitmapLength(properties)];
+        int index = 0;
+        for (final String property : properties) {
+            if (null != element.getProperty(property)) {
+                bitmap[index / Byte.SIZE] |= 1 << (index % Byte.SIZE);
+            }
+            index++;
+        }
+        return bitmap;
+    }
+
+    private Element removeAbsentProperties(final Element element, final DataInputStream in) throws IOException {
+        final SchemaElementDefinition elementDef = schema.getElement(element.getGroup());
+        if (null == elementDef) {
+            throw new RuntimeException("No SchemaElementDefinition found for group " + element.getGroup());
+        }
+        final Set<String> properties = elementDef.getProperties();
+        final byte[] bitmap = new byte[getBitmapLength(properties)];
+        in.readFully(bitmap);
+        int index = 0;
+        for (final String property : properties) {
+            if (0 == (bitmap[index / Byte.SIZE] & (1 << (index % Byte.SIZE)))) {
+                element.getProperties().remove(property);
+            }
+            index++;
+        }
+        return element;
+    }
+
+    private static int getBitmapLength(final Set<String> properties) {
+        return (properties.size() + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    private static int getMatchedVertexCode(final Element element) {
+        if (element instanceof Edge && null != ((Edge) element).getMatchedVertex()) {
+            return ((Edge) element).getMatchedVertex().ordinal() + 1;
+        }
+        return NO_MATCHED_VERTEX;
+    }
+
+    private static Element setMatchedVertex(final Element element, final int code) {
+        if (NO_MATCHED_VERTEX != code && element instanceof Edge) {
+            final MatchedVertex[] matchedVertices = MatchedVertex.values();
+            if (code > matchedVertices.length) {
+                throw new RuntimeException("Invalid matched vertex: " + code);
+            }
+            final Edge edge = (Edge) element;
+            edge.setIdentifiers(edge.getSource(), edge.getDestination(), edge.isDirected(), matchedVertices[code - 1]);
+        }
+        return element;
+    }
+
+    private static void addAll(final List<ViewElementDefinition> elementDefs, final Collection<? extends ViewElementDefinition> toAdd) {
+        if (null != toAdd) {
+            elementDefs.addAll(toAdd);
+        }
+    }
+
+    private void writeError(final DataOutputStream out, final Exception e) {
+        try {
+            out.writeInt(ERROR);
+            out.writeUTF(String.valueOf(e.getMessage()));
+            out.flush();
+        } catch (final IOException ignored) {
+            // The error is rethrown by the caller and the reader will see the stream was cut short
+        }
+    }
+
+    /**
+     * Writes elements to a stream one at a time, in the same format as
+     * {@link #serialise(Iterable, OutputStream)}.
+     */
+    public final class ElementWriter implements Closeable {
+        private final DataOutputStream out;
+        private boolean finished;
+
+        private ElementWriter(final OutputStream output) throws SerialisationException {
+            out = new DataOutputStream(new BufferedOutputStream(output));
+            try {
+                out.writeByte(VERSION);
+            } catch (final IOException e) {
+                throw new SerialisationException("Unable to write elements: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * @param element the element to write
+         * @throws SerialisationException if the element cannot be serialised or written
+         */
+        public void write(final Element element) throws SerialisationException {
+            if (finished) {
+                throw new IllegalStateException("The stream of elements has been finished");
+            }
+            checkProperties(element);
+            final byte[] bytes = elementSerialiser.serialise(element);
+            try {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeByte(getMatchedVertexCode(element));
+                out.write(getPresentProperties(element));
+            } catch (final IOException e) {
+                throw new SerialisationException("Unable to write elements: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Writes the end marker and flushes the stream, without closing it.
+         *
+         * @throws SerialisationException if the stream cannot be written to
+         */
+        public void finish() throws SerialisationException {
+            if (!finished) {
+                finished = true;
+                try {
+                    out.writeInt(END);
+                    out.flush();
+                } catch (final IOException e) {
+                    throw new SerialisationException("Unable to write elements: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        /**
+         * Closes the stream. If {@link #finish()} has not been called the
+         * stream is not ended, so a reader will report it as cut short.
+         */
+        @Override
+        public void close() {
+            CloseableUtil.close(out);
+        }
+    }
+
+    private final class ElementStreamIterable implements CloseableIterable<Element> {
+        private final InputStream input;
+        private boolean iterated;
+
+        private ElementStreamIterable(final InputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public void close() {
+            CloseableUtil.close(input);
+        }
+
+        @Override
+        public CloseableIterator<Element> iterator() {
+            if (iterated) {
+                throw new IllegalStateException("A stream of elements can only be iterated once");
+            }
+            iterated = true;
+            return new ElementStreamIterator(new DataInputStream(new BufferedInputStream(input)));
+        }
+
+        private final class ElementStreamIterator implements CloseableIterator<Element> {
+            private final DataInputStream in;
+            private boolean started;
+            private boolean closed;
+            private Element nextElement;
+
+            private ElementStreamIterator(final DataInputStream in) {
+                this.in = in;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (null != nextElement) {
+                    return true;
+                }
+                if (closed) {
+                    return false;
+                }
+                try {
+                    if (!started) {
+                        started = true;
+                        final int version = in.readUnsignedByte();
+                        if (VERSION != version) {
+                            throw new RuntimeException("Unsupported element stream version: " + version);
+                        }
+                    }
+                    final int length = in.readInt();
+                    if (END == length) {
+                        close();
+                        return false;
+                    }
+                    if (ERROR == length) {
+                        throw new RuntimeException("The elements could not be written: " + in.readUTF());
+                    }
+                    if (length < 0) {
+                        throw new RuntimeException("Invalid element length: " + length);
+                    }
+                    final byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    final Element element = setMatchedVertex(elementSerialiser.deserialise(bytes), in.readUnsignedByte());
+                    nextElement = removeAbsentProperties(element, in);
+                    return true;
+                } catch (final EOFException e) {
+                    close();
+                    throw new RuntimeException("The stream of elements ended unexpectedly", e);
+                } catch (final IOException e) {
+                    close();
+                    throw new RuntimeException("Unable to read elements: " + e.getMessage(), e);
+                } catch (final RuntimeException e) {
+                    close();
+                    throw e;
+                }
+            }
+
+            @Override
+            public Element next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Element element = nextElement;
+                nextElement = null;
+                return element;
+            }
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    CloseableUtil.close(in);
+                    ElementStreamIterable.this.close();
+                }
+            }
+        }
+    }
+}
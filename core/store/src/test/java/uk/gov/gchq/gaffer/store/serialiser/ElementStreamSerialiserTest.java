@@ -0,0 +1,318 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.store.serialiser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.commonutil.TestPropertyNames;
+import uk.gov.gchq.gaffer.data.element.Edge;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.data.element.function.ElementTransformer;
+import uk.gov.gchq.gaffer.data.element.id.EdgeId.MatchedVertex;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.function.ExampleTransformFunction;
+import uk.gov.gchq.gaffer.serialisation.implementation.BooleanSerialiser;
+import uk.gov.gchq.gaffer.serialisation.implementation.StringSerialiser;
+import uk.gov.gchq.gaffer.serialisation.implementation.raw.CompactRawIntegerSerialiser;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaEdgeDefinition;
+import uk.gov.gchq.gaffer.store.schema.SchemaEntityDefinition;
+import uk.gov.gchq.gaffer.store.schema.TypeDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ElementStreamSerialiserTest {
+    private Schema schema;
+    private ElementStreamSerialiser serialiser;
+
+    @Before
+    public void setUp() {
+        schema = new Schema.Builder()
+                .entity(TestGroups.ENTITY, new SchemaEntityDefinition.Builder()
+                        .vertex("string")
+                        .property(TestPropertyNames.COUNT, "int")
+                        .build())
+                .edge(TestGroups.EDGE, new SchemaEdgeDefinition.Builder()
+                        .source("string")
+                        .destination("string")
+                        .directed("true")
+                        .build())
+                .type("string", String.class)
+                .type("true", Boolean.class)
+                .type("int", new TypeDefinition.Builder()
+                        .clazz(Integer.class)
+                        .serialiser(new CompactRawIntegerSerialiser())
+                        .build())
+                .vertexSerialiser(new StringSerialiser())
+                .build();
+        serialiser = new ElementStreamSerialiser(schema);
+    }
+
+    @Test
+    public void shouldSerialiseAndDeserialiseElements() throws SerialisationException {
+        // Given
+        final List<Element> elements = Arrays.asList(
+                new Entity.Builder()
+                        .group(TestGroups.ENTITY)
+                        .vertex("vertex")
+                        .property(TestPropertyNames.COUNT, 5)
+                        .build(),
+                new Edge.Builder()
+                        .group(TestGroups.EDGE)
+                        .source("source")
+                        .dest("dest")
+                        .directed(true)
+                        .build());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        serialiser.serialise(elements, out);
+        final List<Element> results = toList(serialiser.deserialise(new ByteArrayInputStream(out.toByteArray())));
+
+        // Then
+        assertEquals(elements, results);
+    }
+
+    @Test
+    public void shouldSerialiseAndDeserialiseMatchedVertexOfEdges() throws SerialisationException {
+        // Given
+        final List<Element> elements = Arrays.asList(
+                new Edge.Builder()
+                        .group(TestGroups.EDGE)
+                        .source("source")
+                        .dest("dest")
+                        .directed(true)
+                        .matchedVertex(MatchedVertex.DESTINATION)
+                        .build(),
+                new Edge.Builder()
+                        .group(TestGroups.EDGE)
+                        .source("source")
+                        .dest("dest")
+                        .directed(true)
+                        .build());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        serialiser.serialise(elements, out);
+        final List<Element> results = toList(serialiser.deserialise(new ByteArrayInputStream(out.toByteArray())));
+
+        // Then
+        assertEquals(elements, results);
+        assertEquals(MatchedVertex.DESTINATION, ((Edge) results.get(0)).getMatchedVertex());
+        assertNull(((Edge) results.get(1)).getMatchedVertex());
+    }
+
+    @Test
+    public void shouldNotAddPropertiesThatElementsDoNotHave() throws SerialisationException {
+        // Given
+        final Schema schemaWithOptionalProperties = new Schema.Builder()
+                .entity(TestGroups.ENTITY, new SchemaEntityDefinition.Builder()
+                        .vertex("string")
+                        .property(TestPropertyNames.PROP_1, "stringProperty")
+                        .property(TestPropertyNames.PROP_2, "booleanProperty")
+                        .build())
+                .type("string", String.class)
+                .type("stringProperty", new TypeDefinition.Builder()
+                        .clazz(String.class)
+                        .serialiser(new StringSerialiser())
+                        .build())
+                .type("booleanProperty", new TypeDefinition.Builder()
+                        .clazz(Boolean.class)
+                        .serialiser(new BooleanSerialiser())
+                        .build())
+                .vertexSerialiser(new StringSerialiser())
+                .build();
+        final ElementStreamSerialiser optionalPropertiesSerialiser = new ElementStreamSerialiser(schemaWithOptionalProperties);
+        final List<Element> elements = Arrays.asList(
+                new Entity.Builder()
+                        .group(TestGroups.ENTITY)
+                        .vertex("noProperties")
+                        .build(),
+                new Entity.Builder()
+                        .group(TestGroups.ENTITY)
+                        .vertex("stringProperty")
+                        .property(TestPropertyNames.PROP_1, "value")
+                        .build(),
+                new Entity.Builder()
+                        .group(TestGroups.ENTITY)
+                        .vertex("allProperties")
+                        .property(TestPropertyNames.PROP_1, "")
+                        .property(TestPropertyNames.PROP_2, false)
+                        .build());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        optionalPropertiesSerialiser.serialise(elements, out);
+        final List<Element> results = toList(optionalPropertiesSerialiser.deserialise(new ByteArrayInputStream(out.toByteArray())));
+
+        // Then
+        assertEquals(elements, results);
+        assertTrue(results.get(0).getProperties().isEmpty());
+        assertEquals(Collections.singleton(TestPropertyNames.PROP_1), results.get(1).getProperties().keySet());
+        assertEquals("", results.get(2).getProperty(TestPropertyNames.PROP_1));
+        assertEquals(false, results.get(2).getProperty(TestPropertyNames.PROP_2));
+    }
+
+    @Test
+    public void shouldSerialiseAndDeserialiseNoElements() throws SerialisationException {
+        // Given
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        serialiser.serialise(Collections.emptyList(), out);
+        final List<Element> results = toList(serialiser.deserialise(new ByteArrayInputStream(out.toByteArray())));
+
+        // Then
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void shouldFailToDeserialiseWhenStreamIsCutShort() throws SerialisationException {
+        // Given
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serialiser.serialise(Collections.singletonList(new Entity(TestGroups.ENTITY, "vertex")), out);
+        final byte[] bytes = Arrays.copyOf(out.toByteArray(), out.size() - 4);
+
+        // When
+        try {
+            toList(serialiser.deserialise(new ByteArrayInputStream(bytes)));
+            fail("Exception expected");
+        } catch (final RuntimeException e) {
+            // Then
+            assertTrue(e.getMessage().contains("ended unexpectedly"));
+        }
+    }
+
+    @Test
+    public void shouldReportErrorWhenElementsCannotBeSerialised() {
+        // Given
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            serialiser.serialise(Arrays.asList(new Entity(TestGroups.ENTITY, "vertex"), "not an element"), out);
+            fail("Exception expected");
+        } catch (final SerialisationException e) {
+            assertTrue(e.getMessage().contains("Only elements can be serialised"));
+        }
+
+        // When
+        try {
+            toList(serialiser.deserialise(new ByteArrayInputStream(out.toByteArray())));
+            fail("Exception expected");
+        } catch (final RuntimeException e) {
+            // Then
+            assertTrue(e.getMessage().contains("Only elements can be serialised"));
+        }
+    }
+
+    @Test
+    public void shouldReportErrorRatherThanDropPropertiesNotInSchema() {
+        // Given
+        final Entity entityWithTransientProperty = new Entity.Builder()
+                .group(TestGroups.ENTITY)
+                .vertex("vertex")
+                .property(TestPropertyNames.COUNT, 5)
+                .property(TestPropertyNames.TRANSIENT_1, "transient")
+                .build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            serialiser.serialise(Collections.singletonList(entityWithTransientProperty), out);
+            fail("Exception expected");
+        } catch (final SerialisationException e) {
+            assertTrue(e.getMessage().contains(TestPropertyNames.TRANSIENT_1));
+        }
+
+        // When
+        try {
+            toList(serialiser.deserialise(new ByteArrayInputStream(out.toByteArray())));
+            fail("Exception expected");
+        } catch (final RuntimeException e) {
+            // Then
+            assertTrue(e.getMessage().contains("is not in the schema"));
+        }
+    }
+
+    @Test
+    public void shouldNotBeAbleToSerialiseViewsWithTransientPropertiesOrTransforms() {
+        // Given
+        final View filterView = new View.Builder()
+                .entity(TestGroups.ENTITY)
+                .edge(TestGroups.EDGE)
+                .build();
+        final View transientPropertyView = new View.Builder()
+                .entity(TestGroups.ENTITY, new ViewElementDefinition.Builder()
+                        .transientProperty(TestPropertyNames.TRANSIENT_1, String.class)
+                        .build())
+                .build();
+        final View transformView = new View.Builder()
+                .edge(TestGroups.EDGE, new ViewElementDefinition.Builder()
+                        .transformer(new ElementTransformer.Builder()
+                                .select(TestPropertyNames.PROP_1, TestPropertyNames.PROP_2)
+                                .execute(new ExampleTransformFunction())
+                                .project(TestPropertyNames.PROP_3)
+                                .build())
+                        .build())
+                .build();
+
+        // When / Then
+        assertTrue(ElementStreamSerialiser.canSerialise((View) null));
+        assertTrue(ElementStreamSerialiser.canSerialise(filterView));
+        assertFalse(ElementStreamSerialiser.canSerialise(transientPropertyView));
+        assertFalse(ElementStreamSerialiser.canSerialise(transformView));
+    }
+
+    @Test
+    public void shouldNotBeAbleToSerialiseSchemaWithoutPropertySerialisers() {
+        // Given
+        final Schema schemaWithoutSerialisers = new Schema.Builder()
+                .entity(TestGroups.ENTITY, new SchemaEntityDefinition.Builder()
+                        .vertex("string")
+                        .property(TestPropertyNames.COUNT, "int")
+                        .build())
+                .type("string", String.class)
+                .type("int", Integer.class)
+                .vertexSerialiser(new StringSerialiser())
+                .build();
+
+        // When / Then
+        assertTrue(ElementStreamSerialiser.canSerialise(schema));
+        assertFalse(ElementStreamSerialiser.canSerialise(schemaWithoutSerialisers));
+    }
+
+    private static List<Element> toList(final Iterable<Element> elements) {
+        final List<Element> list = new ArrayList<>();
+        for (final Element element : elements) {
+            list.add(element);
+        }
+        return list;
+    }
+}
@@ -15,6 +15,8 @@
  */
 package uk.gov.gchq.gaffer.rest;
 
+import uk.gov.gchq.gaffer.store.serialiser.ElementStreamSerialiser;
+
 /**
  * Utility class providing constants for the Gaffer REST API.
  */
@@ -24,6 +26,13 @@ public final class ServiceConstants {
     public static final String GAFFER_MEDIA_TYPE_HEADER = "X-Gaffer-Media-Type";
     public static final String GAFFER_MEDIA_TYPE;
 
+    // REST media types
+    public static final String GAFFER_ELEMENTS_MEDIA_TYPE = ElementStreamSerialiser.MEDIA_TYPE;
+    public static final String GZIP_ENCODING = "gzip";
+
+    // The field of the final chunk written by the chunked endpoint when an operation chain fails
+    public static final String CHUNKED_ERROR_FIELD = "gafferChunkedError";
+
     // REST status error messages
     public static final String OK = "OK";
     public static final String BAD_REQUEST = "Error while processing request body";
@@ -40,6 +49,11 @@ public final class ServiceConstants {
     public static final String JOB_NOT_FOUND = "Job was not found";
     public static final String JOB_SERVICE_UNAVAILABLE = "The job service is not available";
 
+    public static final String TOO_MANY_CHUNKED_OPERATIONS = "Too many chunked operations are running";
+
+    public static final String CURSOR_NOT_FOUND = "Cursor was not found";
+    public static final String TOO_MANY_CURSORS = "Too many cursors are open";
+
     static {
         final String apiVersion = System.getProperty(SystemProperty.REST_API_VERSION, SystemProperty.CORE_VERSION);
         GAFFER_MEDIA_TYPE = "gaffer.v" + apiVersion.charAt(0) + "; format=json";
@@ -38,6 +38,10 @@ public abstract class SystemProperty {
     public static final String JSON_SERIALISER_CLASS = JSONSerialiser.JSON_SERIALISER_CLASS_KEY;
     public static final String JSON_SERIALISER_MODULES = JSONSerialiser.JSON_SERIALISER_MODULES;
     public static final String REST_DEBUG = DebugUtil.DEBUG;
+    public static final String CHUNKED_MAX_CONCURRENT = "gaffer.rest-api.chunked.maxConcurrent";
+    public static final String CURSOR_IDLE_TIMEOUT = "gaffer.rest-api.cursor.idleTimeout";
+    public static final String CURSOR_MAX_PER_USER = "gaffer.rest-api.cursor.maxPerUser";
+    public static final String CURSOR_MAX = "gaffer.rest-api.cursor.max";
 
     /**
      * @deprecated create a GraphConfig json file and use GRAPH_CONFIG_PATH instead
@@ -74,6 +78,13 @@ public abstract class SystemProperty {
     public static final String GRAPH_FACTORY_CLASS_DEFAULT = DefaultGraphFactory.class.getName();
     public static final String USER_FACTORY_CLASS_DEFAULT = UnknownUserFactory.class.getName();
     public static final String REST_DEBUG_DEFAULT = DebugUtil.DEBUG_DEFAULT;
+    public static final String CHUNKED_MAX_CONCURRENT_DEFAULT = "50";
+    /**
+     * The time in milliseconds after which a cursor that has not been read from is closed.
+     */
+    public static final String CURSOR_IDLE_TIMEOUT_DEFAULT = "300000";
+    public static final String CURSOR_MAX_PER_USER_DEFAULT = "10";
+    public static final String CURSOR_MAX_DEFAULT = "1000";
 
     private SystemProperty() {
         // Private constructor to prevent instantiation.
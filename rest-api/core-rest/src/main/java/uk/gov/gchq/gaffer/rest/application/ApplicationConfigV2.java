@@ -19,12 +19,15 @@ package uk.gov.gchq.gaffer.rest.application;
 import io.swagger.jaxrs.config.BeanConfig;
 
 import uk.gov.gchq.gaffer.rest.SystemProperty;
+import uk.gov.gchq.gaffer.rest.service.v2.CursorServiceV2;
 import uk.gov.gchq.gaffer.rest.service.v2.GraphConfigurationServiceV2;
 import uk.gov.gchq.gaffer.rest.service.v2.JobServiceV2;
 import uk.gov.gchq.gaffer.rest.service.v2.OperationServiceV2;
 import uk.gov.gchq.gaffer.rest.service.v2.StatusServiceV2;
+import uk.gov.gchq.gaffer.rest.service.v2.cursor.CursorBinder;
 import uk.gov.gchq.gaffer.rest.service.v2.example.ExampleBinder;
 import uk.gov.gchq.gaffer.rest.service.v2.example.ExamplesServiceV2;
+import uk.gov.gchq.gaffer.rest.service.v2.executor.ExecutorBinder;
 
 import javax.ws.rs.Path;
 
@@ -41,6 +44,8 @@ public class ApplicationConfigV2 extends ApplicationConfig {
     public ApplicationConfigV2() {
         super();
         register(new ExampleBinder());
+        register(new ExecutorBinder());
+        register(new CursorBinder());
     }
 
     @Override
@@ -67,6 +72,7 @@ public class ApplicationConfigV2 extends ApplicationConfig {
         resources.add(OperationServiceV2.class);
         resources.add(GraphConfigurationServiceV2.class);
         resources.add(JobServiceV2.class);
+        resources.add(CursorServiceV2.class);
         resources.add(ExamplesServiceV2.class);
     }
 
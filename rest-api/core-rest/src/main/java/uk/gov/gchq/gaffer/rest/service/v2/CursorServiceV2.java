@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2;
+
+import uk.gov.gchq.gaffer.rest.factory.UserFactory;
+import uk.gov.gchq.gaffer.rest.service.v2.cursor.CursorRegistry;
+
+import javax.inject.Inject;
+import javax.ws.rs.core.Response;
+
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.GAFFER_MEDIA_TYPE;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.GAFFER_MEDIA_TYPE_HEADER;
+
+/**
+ * An implementation of {@link ICursorServiceV2}. Pages are read from the
+ * cursors held in the {@link CursorRegistry}, which only allows users to read
+ * the cursors they opened.
+ */
+public class CursorServiceV2 implements ICursorServiceV2 {
+    @Inject
+    private UserFactory userFactory;
+
+    @Inject
+    private CursorRegistry cursorRegistry;
+
+    @Override
+    public Response nextPage(final String id, final int pageSize) {
+        return Response.ok(cursorRegistry.nextPage(id, getUserId(), pageSize))
+                .header(GAFFER_MEDIA_TYPE_HEADER, GAFFER_MEDIA_TYPE)
+                .build();
+    }
+
+    @Override
+    public Response close(final String id) {
+        cursorRegistry.close(id, getUserId());
+        return Response.noContent()
+                .header(GAFFER_MEDIA_TYPE_HEADER, GAFFER_MEDIA_TYPE)
+                .build();
+    }
+
+    private String getUserId() {
+        return userFactory.createContext().getUser().getUserId();
+    }
+}
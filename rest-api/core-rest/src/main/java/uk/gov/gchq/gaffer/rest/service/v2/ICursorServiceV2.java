@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import uk.gov.gchq.gaffer.rest.service.v2.cursor.ResultPage;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.BAD_REQUEST;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.CURSOR_NOT_FOUND;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.INTERNAL_SERVER_ERROR;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.OK;
+
+/**
+ * An {@code ICursorServiceV2} has methods to page through the results of
+ * operations executed via /graph/operations/execute/cursor.
+ */
+@Path("/graph/cursors")
+@Api(value = "cursors")
+@Produces(APPLICATION_JSON)
+@Consumes(APPLICATION_JSON)
+public interface ICursorServiceV2 {
+
+    @GET
+    @Path("{id}")
+    @ApiOperation(value = "Gets the next page of results from a cursor. The cursor is closed once the last page has been read.",
+            response = ResultPage.class, produces = APPLICATION_JSON)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = OK),
+            @ApiResponse(code = 400, message = BAD_REQUEST),
+            @ApiResponse(code = 404, message = CURSOR_NOT_FOUND),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR)})
+    Response nextPage(@ApiParam(value = "a cursor id") @PathParam("id") final String id,
+                      @ApiParam(value = "the maximum number of results in the page") @QueryParam("pageSize") @DefaultValue("1000") final int pageSize);
+
+    @DELETE
+    @Path("{id}")
+    @ApiOperation(value = "Closes a cursor, discarding any results that have not been read.")
+    @ApiResponses(value = {@ApiResponse(code = 204, message = OK),
+            @ApiResponse(code = 404, message = CURSOR_NOT_FOUND),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR)})
+    Response close(@ApiParam(value = "a cursor id") @PathParam("id") final String id);
+}
@@ -27,21 +27,31 @@ import org.glassfish.jersey.server.ChunkedOutput;
 import uk.gov.gchq.gaffer.operation.Operation;
 import uk.gov.gchq.gaffer.operation.OperationChain;
 
+import uk.gov.gchq.gaffer.rest.service.v2.cursor.ResultPage;
+
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.BAD_REQUEST;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.CHUNKED_ERROR_FIELD;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.FORBIDDEN;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.GAFFER_ELEMENTS_MEDIA_TYPE;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.INTERNAL_SERVER_ERROR;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.OK;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.OPERATION_NOT_FOUND;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.OPERATION_NOT_IMPLEMENTED;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.TOO_MANY_CHUNKED_OPERATIONS;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.TOO_MANY_CURSORS;
 
 /**
  * An {@code IOperationServiceV2} has methods to execute {@link uk.gov.gchq.gaffer.operation.Operation}s on the
@@ -68,12 +78,20 @@ public interface IOperationServiceV2 {
             @ApiResponse(code = 501, message = OPERATION_NOT_IMPLEMENTED)})
     Response execute(final Operation operation);
 
+    @POST
+    @Path("/execute")
+    // The lower server quality means clients that accept anything are still sent JSON
+    @Produces(GAFFER_ELEMENTS_MEDIA_TYPE + "; qs=0.5")
+    @ApiOperation(value = "Performs the given operation on the graph, returning the resulting elements in a compact binary format", hidden = true)
+    Response executeElements(final Operation operation, @HeaderParam(ACCEPT_ENCODING) final String acceptEncoding);
+
     @POST
     @Path("/execute/chunked")
-    @ApiOperation(value = "Performs the given operation on the graph, returned chunked output. NOTE - does not work in Swagger.", response = Object.class, produces = APPLICATION_JSON)
+    @ApiOperation(value = "Performs the given operation on the graph, returned chunked output. If the operation fails once the output has started, the final chunk is the error, in a field named " + CHUNKED_ERROR_FIELD + ". NOTE - does not work in Swagger.", response = Object.class, produces = APPLICATION_JSON)
     @ApiResponses(value = {@ApiResponse(code = 202, message = OK),
             @ApiResponse(code = 400, message = BAD_REQUEST),
             @ApiResponse(code = 403, message = FORBIDDEN),
+            @ApiResponse(code = 429, message = TOO_MANY_CHUNKED_OPERATIONS),
             @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR),
             @ApiResponse(code = 501, message = OPERATION_NOT_IMPLEMENTED)})
     ChunkedOutput<String> executeChunked(final Operation operation);
@@ -81,6 +99,19 @@ public interface IOperationServiceV2 {
     @SuppressFBWarnings
     ChunkedOutput<String> executeChunkedChain(final OperationChain opChain);
 
+    @POST
+    @Path("/execute/cursor")
+    @ApiOperation(value = "Performs the given operation on the graph, returning the first page of results. If there are more results, the page contains the id of a cursor to fetch the next page from /graph/cursors/{id}.",
+            response = ResultPage.class, produces = APPLICATION_JSON)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = OK),
+            @ApiResponse(code = 400, message = BAD_REQUEST),
+            @ApiResponse(code = 403, message = FORBIDDEN),
+            @ApiResponse(code = 429, message = TOO_MANY_CURSORS),
+            @ApiResponse(code = 500, message = INTERNAL_SERVER_ERROR),
+            @ApiResponse(code = 501, message = OPERATION_NOT_IMPLEMENTED)})
+    Response executeWithCursor(final Operation operation,
+                               @ApiParam(value = "the maximum number of results in each page") @QueryParam("pageSize") @DefaultValue("1000") final int pageSize);
+
     @GET
     @Path("/{className}")
     @ApiOperation(value = "Gets details about the specified operation class.", produces = APPLICATION_JSON)
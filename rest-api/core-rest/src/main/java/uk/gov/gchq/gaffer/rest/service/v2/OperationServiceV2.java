@@ -16,7 +16,11 @@
 
 package uk.gov.gchq.gaffer.rest.service.v2;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.glassfish.jersey.server.ChunkedOutput;
 import org.slf4j.Logger;
@@ -24,29 +28,49 @@ import org.slf4j.LoggerFactory;
 
 import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
 import uk.gov.gchq.gaffer.commonutil.Required;
+import uk.gov.gchq.gaffer.core.exception.Error;
+import uk.gov.gchq.gaffer.core.exception.ErrorFactory;
 import uk.gov.gchq.gaffer.core.exception.GafferRuntimeException;
 import uk.gov.gchq.gaffer.core.exception.Status;
+import uk.gov.gchq.gaffer.jsonserialisation.JSONSerialiser;
 import uk.gov.gchq.gaffer.operation.Operation;
 import uk.gov.gchq.gaffer.operation.OperationChain;
 import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.operation.graph.OperationView;
 import uk.gov.gchq.gaffer.rest.factory.GraphFactory;
 import uk.gov.gchq.gaffer.rest.factory.UserFactory;
+import uk.gov.gchq.gaffer.rest.service.v2.cursor.CursorRegistry;
+import uk.gov.gchq.gaffer.rest.service.v2.cursor.ResultPage;
 import uk.gov.gchq.gaffer.rest.service.v2.example.ExamplesFactory;
+import uk.gov.gchq.gaffer.rest.service.v2.executor.ChunkedOperationExecutor;
 import uk.gov.gchq.gaffer.store.Context;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.serialiser.ElementStreamSerialiser;
 
 import javax.inject.Inject;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static uk.gov.gchq.gaffer.jsonserialisation.JSONSerialiser.createDefaultMapper;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.CHUNKED_ERROR_FIELD;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.GAFFER_ELEMENTS_MEDIA_TYPE;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.GAFFER_MEDIA_TYPE;
 import static uk.gov.gchq.gaffer.rest.ServiceConstants.GAFFER_MEDIA_TYPE_HEADER;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.GZIP_ENCODING;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.TOO_MANY_CHUNKED_OPERATIONS;
 
 /**
  * An implementation of {@link IOperationServiceV2}. By default it will use a singleton
@@ -67,6 +91,12 @@ public class OperationServiceV2 implements IOperationServiceV2 {
     @Inject
     private ExamplesFactory examplesFactory;
 
+    @Inject
+    private ChunkedOperationExecutor chunkedOperationExecutor;
+
+    @Inject
+    private CursorRegistry cursorRegistry;
+
     public final ObjectMapper mapper = createDefaultMapper();
 
     @Override
@@ -78,11 +108,48 @@ public class OperationServiceV2 implements IOperationServiceV2 {
 
     @Override
     public Response execute(final Operation operation) {
-        return Response.ok(_execute(operation))
+        return Response.ok(toJsonEntity(_execute(operation), operation))
                 .header(GAFFER_MEDIA_TYPE_HEADER, GAFFER_MEDIA_TYPE)
                 .build();
     }
 
+    @Override
+    public Response executeElements(final Operation operation, final String acceptEncoding) {
+        final Schema schema = graphFactory.getGraph().getSchema();
+        final Object result = _execute(operation);
+        if (!(result instanceof Iterable) || !ElementStreamSerialiser.canSerialise(schema) || !canSerialiseViews(operation)) {
+            // Only iterables of elements with just the schema properties can be written in the binary format,
+            // so anything else is returned as JSON
+            return Response.ok(toJsonEntity(result, operation))
+                    .type(APPLICATION_JSON_TYPE)
+                    .header(GAFFER_MEDIA_TYPE_HEADER, GAFFER_MEDIA_TYPE)
+                    .build();
+        }
+
+        final boolean gzip = null != acceptEncoding && acceptEncoding.toLowerCase(Locale.ENGLISH).contains(GZIP_ENCODING);
+        final ElementStreamSerialiser serialiser = new ElementStreamSerialiser(schema);
+        final StreamingOutput output = out -> {
+            final OutputStream stream = gzip ? new GZIPOutputStream(out) : out;
+            try {
+                serialiser.serialise((Iterable) result, stream);
+            } finally {
+                if (gzip) {
+                    // Finish the compressed stream so an error written by the serialiser still reaches the client
+                    ((GZIPOutputStream) stream).finish();
+                }
+                CloseableUtil.close(operation);
+            }
+        };
+
+        final Response.ResponseBuilder response = Response.ok(output)
+                .type(GAFFER_ELEMENTS_MEDIA_TYPE)
+                .header(GAFFER_MEDIA_TYPE_HEADER, GAFFER_MEDIA_TYPE);
+        if (gzip) {
+            response.header(CONTENT_ENCODING, GZIP_ENCODING);
+        }
+        return response.build();
+    }
+
     @Override
     public ChunkedOutput<String> executeChunked(final Operation operation) {
         return (operation instanceof OperationChain)
@@ -97,19 +164,64 @@ public class OperationServiceV2 implements IOperationServiceV2 {
         final ChunkedOutput<String> output = new ChunkedOutput<>(String.class, "\r\n");
 
         // write chunks to the chunked output object
-        new Thread(() -> {
+        final boolean accepted = chunkedOperationExecutor.tryExecute(() -> {
             try {
                 final Object result = _execute(opChain);
                 chunkResult(result, output);
+            } catch (final RuntimeException e) {
+                chunkError(e, output);
             } finally {
                 CloseableUtil.close(output);
                 CloseableUtil.close(opChain);
             }
-        }).start();
+        });
+
+        if (!accepted) {
+            CloseableUtil.close(output);
+            CloseableUtil.close(opChain);
+            throw new GafferRuntimeException(TOO_MANY_CHUNKED_OPERATIONS + ", the limit is "
+                    + chunkedOperationExecutor.getMaxConcurrent() + ". Please try again later.", Status.TOO_MANY_REQUESTS);
+        }
 
         return output;
     }
 
+    @Override
+    public Response executeWithCursor(final Operation operation, final int pageSize) {
+        if (pageSize < 1) {
+            CloseableUtil.close(operation);
+            throw new GafferRuntimeException("The page size must be at least 1", Status.BAD_REQUEST);
+        }
+
+        final String userId = userFactory.createContext().getUser().getUserId();
+        // Reserve the cursor first, so a request over the cursor limits does not execute its operation
+        final CursorRegistry.Reservation reservation;
+        try {
+            reservation = cursorRegistry.reserve(userId);
+        } catch (final GafferRuntimeException e) {
+            CloseableUtil.close(operation);
+            throw e;
+        }
+
+        final ResultPage page;
+        try {
+            final Object result = _execute(operation);
+            if (result instanceof Iterable) {
+                // The cursor holds the operation open until its results have been read
+                page = cursorRegistry.open(reservation, (Iterable<?>) result, operation, pageSize);
+            } else {
+                CloseableUtil.close(operation);
+                page = new ResultPage(null, null == result ? Collections.emptyList() : Collections.singletonList(result), true);
+            }
+        } finally {
+            cursorRegistry.release(reservation);
+        }
+
+        return Response.ok(page)
+                .header(GAFFER_MEDIA_TYPE_HEADER, GAFFER_MEDIA_TYPE)
+                .build();
+    }
+
     @Override
     public Response operationDetails(final String className) throws InstantiationException, IllegalAccessException {
         try {
@@ -201,13 +313,51 @@ public class OperationServiceV2 implements IOperationServiceV2 {
         return result;
     }
 
+    /**
+     * Gets the entity to return as JSON for the result of an operation. An
+     * iterable result is written as a JSON array, one item at a time, so
+     * the whole result is never held in memory. The iterable and the
+     * operation are closed once the array has been written.
+     *
+     * @param result    the result of the operation
+     * @param operation the operation that was executed
+     * @return the entity to return
+     */
+    protected Object toJsonEntity(final Object result, final Operation operation) {
+        if (!(result instanceof Iterable)) {
+            return result;
+        }
+
+        final Iterable<?> itr = (Iterable<?>) result;
+        return (StreamingOutput) out -> {
+            final ObjectMapper jsonMapper = JSONSerialiser.getMapper();
+            // Leave flushing to the generator's buffer rather than flushing after every item
+            final ObjectWriter writer = jsonMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (final JsonGenerator generator = jsonMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                for (final Object item : itr) {
+                    writer.writeValue(generator, item);
+                }
+                generator.writeEndArray();
+            } finally {
+                CloseableUtil.close(itr);
+                CloseableUtil.close(operation);
+            }
+        };
+    }
+
     protected void chunkResult(final Object result, final ChunkedOutput<String> output) {
+        // Once the response has started, each chunk is written in this thread, so a client
+        // that falls behind blocks the executor thread rather than the results building up in memory
         if (result instanceof Iterable) {
             final Iterable itr = (Iterable) result;
             try {
                 for (final Object item : itr) {
                     output.write(mapper.writeValueAsString(item));
                 }
+            } catch (final JsonProcessingException | RuntimeException e) {
+                chunkError(e, output);
             } catch (final IOException ioe) {
                 LOGGER.warn("IOException (chunks)", ioe);
             } finally {
@@ -216,12 +366,36 @@ public class OperationServiceV2 implements IOperationServiceV2 {
         } else {
             try {
                 output.write(mapper.writeValueAsString(result));
+            } catch (final JsonProcessingException e) {
+                chunkError(e, output);
             } catch (final IOException ioe) {
                 LOGGER.warn("IOException (chunks)", ioe);
             }
         }
     }
 
+    /**
+     * Writes a final chunk containing the {@link Error} for a failed
+     * operation chain, as a JSON object with the single field
+     * {@link uk.gov.gchq.gaffer.rest.ServiceConstants#CHUNKED_ERROR_FIELD}.
+     * The response has already been committed with a successful status when
+     * the results are chunked, so this is the only way a client can tell
+     * that the results it has read are incomplete.
+     *
+     * @param e      the cause of the failure
+     * @param output the chunked output to write the error to
+     */
+    protected void chunkError(final Exception e, final ChunkedOutput<String> output) {
+        final Error error = e instanceof GafferRuntimeException
+                ? ErrorFactory.from((GafferRuntimeException) e)
+                : ErrorFactory.from(e);
+        try {
+            output.write(mapper.writeValueAsString(Collections.singletonMap(CHUNKED_ERROR_FIELD, error)));
+        } catch (final IOException ioe) {
+            LOGGER.warn("IOException (chunks)", ioe);
+        }
+    }
+
     private Operation getExampleJson(final Class<? extends Operation> opClass) throws ClassNotFoundException,
             IllegalAccessException, InstantiationException {
         return examplesFactory.generateExample(opClass);
@@ -235,6 +409,18 @@ public class OperationServiceV2 implements IOperationServiceV2 {
         return Class.forName(className).asSubclass(Operation.class);
     }
 
+    private static boolean canSerialiseViews(final Operation operation) {
+        final List<Operation> operations = operation instanceof OperationChain
+                ? ((OperationChain<?>) operation).flatten()
+                : Collections.singletonList(operation);
+        for (final Operation op : operations) {
+            if (op instanceof OperationView && !ElementStreamSerialiser.canSerialise(((OperationView) op).getView())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * POJO to store details for a single user defined field in an {@link uk.gov.gchq.gaffer.operation.Operation}.
      */
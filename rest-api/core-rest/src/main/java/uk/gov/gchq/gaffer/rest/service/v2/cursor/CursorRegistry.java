@@ -0,0 +1,354 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2.cursor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.core.exception.GafferRuntimeException;
+import uk.gov.gchq.gaffer.core.exception.Status;
+import uk.gov.gchq.gaffer.rest.SystemProperty;
+
+import javax.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.CURSOR_NOT_FOUND;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.TOO_MANY_CURSORS;
+
+/**
+ * A {@code CursorRegistry} holds the iterators over the results of operations
+ * that are being paged through, so that each page continues from where the
+ * last one finished rather than re-running the operation.
+ * <p>
+ * Cursors can only be read by the user that opened them. A cursor is closed
+ * once its last page has been read, when it is closed by the user, or when it
+ * has not been read from for longer than the idle timeout. Each user may only
+ * have a limited number of cursors open at once, and there is a limit on the
+ * number of cursors open across all users.
+ * <p>
+ * A cursor is counted against the limits from when it is reserved, which
+ * should be before the operation is executed, so that a request over the
+ * limits is rejected without running its operation.
+ */
+public class CursorRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CursorRegistry.class);
+    private static final long MAX_EVICTION_INTERVAL_MILLIS = 60000L;
+
+    private final long idleTimeoutMillis;
+    private final int maxCursorsPerUser;
+    private final int maxCursors;
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final Map<String, Integer> reservedCursorsPerUser = new HashMap<>();
+    private int reservedCursors;
+    private final ScheduledExecutorService evictor;
+
+    public CursorRegistry() {
+        this(Long.parseLong(System.getProperty(SystemProperty.CURSOR_IDLE_TIMEOUT, SystemProperty.CURSOR_IDLE_TIMEOUT_DEFAULT)),
+                Integer.parseInt(System.getProperty(SystemProperty.CURSOR_MAX_PER_USER, SystemProperty.CURSOR_MAX_PER_USER_DEFAULT)),
+                Integer.parseInt(System.getProperty(SystemProperty.CURSOR_MAX, SystemProperty.CURSOR_MAX_DEFAULT)));
+    }
+
+    /**
+     * @param idleTimeoutMillis the time after which a cursor that has not been read from is closed
+     * @param maxCursorsPerUser the maximum number of cursors each user may have open
+     */
+    public CursorRegistry(final long idleTimeoutMillis, final int maxCursorsPerUser) {
+        this(idleTimeoutMillis, maxCursorsPerUser, Integer.parseInt(SystemProperty.CURSOR_MAX_DEFAULT));
+    }
+
+    /**
+     * @param idleTimeoutMillis the time after which a cursor that has not been read from is closed
+     * @param maxCursorsPerUser the maximum number of cursors each user may have open
+     * @param maxCursors        the maximum number of cursors open across all users
+     */
+    public CursorRegistry(final long idleTimeoutMillis, final int maxCursorsPerUser, final int maxCursors) {
+        if (idleTimeoutMillis < 1) {
+            throw new IllegalArgumentException("The cursor idle timeout must be at least 1 millisecond.");
+        }
+        if (maxCursorsPerUser < 1) {
+            throw new IllegalArgumentException("The maximum number of cursors per user must be at least 1.");
+        }
+        if (maxCursors < 1) {
+            throw new IllegalArgumentException("The maximum number of cursors must be at least 1.");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxCursorsPerUser = maxCursorsPerUser;
+        this.maxCursors = maxCursors;
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "cursorEvictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = Math.min(idleTimeoutMillis, MAX_EVICTION_INTERVAL_MILLIS);
+        evictor.scheduleWithFixedDelay(this::evictIdleCursors, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reserves a cursor for a user, counting it against the limits until it
+     * is released or the cursor opened with it is closed.
+     *
+     * @param userId the id of the user the cursor will belong to
+     * @return the reservation, to be passed to
+     * {@link #open(Reservation, Iterable, Object, int)} or {@link #release(Reservation)}
+     * @throws GafferRuntimeException if the user or all users already have the maximum number of cursors
+     */
+    public synchronized Reservation reserve(final String userId) {
+        if (reservedCursors >= maxCursors) {
+            throw new GafferRuntimeException(TOO_MANY_CURSORS + " across all users, the limit is " + maxCursors
+                    + ". Please try again later.", Status.TOO_MANY_REQUESTS);
+        }
+        final int userCursors = reservedCursorsPerUser.getOrDefault(userId, 0);
+        if (userCursors >= maxCursorsPerUser) {
+            throw new GafferRuntimeException(TOO_MANY_CURSORS + ", the limit is " + maxCursorsPerUser
+                    + ". Please close or finish reading an existing cursor.", Status.TOO_MANY_REQUESTS);
+        }
+        reservedCursorsPerUser.put(userId, userCursors + 1);
+        reservedCursors++;
+        return new Reservation(userId);
+    }
+
+    /**
+     * Releases a reservation that has not been used to open a cursor. Once a
+     * cursor has been opened with the reservation this does nothing, as the
+     * reservation is released when the cursor is closed.
+     *
+     * @param reservation the reservation to release
+     */
+    public synchronized void release(final Reservation reservation) {
+        if (!reservation.opened) {
+            releaseSlot(reservation);
+        }
+    }
+
+    /**
+     * Opens a cursor over the results of an operation and reads the first
+     * page. If all of the results fit in the first page, no cursor is kept.
+     *
+     * @param reservation the reservation made for the cursor
+     * @param results     the results of the operation
+     * @param operation   the operation, which is closed along with the cursor
+     * @param pageSize    the maximum number of results in the first page
+     * @return the first page of results
+     */
+    public ResultPage open(final Reservation reservation, final Iterable<?> results, final Object operation, final int pageSize) {
+        validatePageSize(pageSize);
+        final Cursor cursor = new Cursor(UUID.randomUUID().toString(), reservation, results, operation);
+        synchronized (this) {
+            if (!reservation.held || reservation.opened) {
+                cursor.close();
+                throw new IllegalStateException("The cursor reservation has already been used or released");
+            }
+            reservation.opened = true;
+            cursors.put(cursor.id, cursor);
+        }
+        return readPage(cursor, pageSize);
+    }
+
+    /**
+     * Reserves and opens a cursor over the results of an operation that has
+     * already been executed. If the cursor cannot be reserved, the results
+     * and the operation are closed.
+     *
+     * @param userId    the id of the user the cursor belongs to
+     * @param results   the results of the operation
+     * @param operation the operation, which is closed along with the cursor
+     * @param pageSize  the maximum number of results in the first page
+     * @return the first page of results
+     * @see #open(Reservation, Iterable, Object, int)
+     */
+    public ResultPage open(final String userId, final Iterable<?> results, final Object operation, final int pageSize) {
+        validatePageSize(pageSize);
+        final Reservation reservation;
+        try {
+            reservation = reserve(userId);
+        } catch (final GafferRuntimeException e) {
+            CloseableUtil.close(results);
+            CloseableUtil.close(operation);
+            throw e;
+        }
+        try {
+            return open(reservation, results, operation, pageSize);
+        } finally {
+            release(reservation);
+        }
+    }
+
+    /**
+     * @param cursorId the id of the cursor
+     * @param userId   the id of the user reading the cursor
+     * @param pageSize the maximum number of results in the page
+     * @return the next page of results
+     */
+    public ResultPage nextPage(final String cursorId, final String userId, final int pageSize) {
+        validatePageSize(pageSize);
+        return readPage(getCursor(cursorId, userId), pageSize);
+    }
+
+    /**
+     * @param cursorId the id of the cursor to close
+     * @param userId   the id of the user closing the cursor
+     */
+    public void close(final String cursorId, final String userId) {
+        remove(getCursor(cursorId, userId));
+    }
+
+    public int getOpenCursors() {
+        return cursors.size();
+    }
+
+    /**
+     * Closes the cursors that have not been read from for longer than the
+     * idle timeout.
+     */
+    public void evictIdleCursors() {
+        final long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+        for (final Cursor cursor : cursors.values()) {
+            // Check again whilst holding the cursor, in case a page is being read from it
+            synchronized (cursor) {
+                if (cursor.lastRead < idleSince) {
+                    LOGGER.debug("Closing cursor {} as it has not been read for {}ms", cursor.id, idleTimeoutMillis);
+                    remove(cursor);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+        for (final Cursor cursor : cursors.values()) {
+            remove(cursor);
+        }
+    }
+
+    private Cursor getCursor(final String cursorId, final String userId) {
+        final Cursor cursor = cursors.get(cursorId);
+        // Other users' cursors are reported as not found, so their ids are not revealed
+        if (null == cursor || !cursor.reservation.userId.equals(userId)) {
+            throw new GafferRuntimeException(CURSOR_NOT_FOUND + ": " + cursorId, Status.NOT_FOUND);
+        }
+        return cursor;
+    }
+
+    private static void validatePageSize(final int pageSize) {
+        if (pageSize < 1) {
+            throw new GafferRuntimeException("The page size must be at least 1", Status.BAD_REQUEST);
+        }
+    }
+
+    private ResultPage readPage(final Cursor cursor, final int pageSize) {
+        final List<Object> page = new ArrayList<>();
+        final boolean lastPage;
+        synchronized (cursor) {
+            if (cursor.closed) {
+                throw new GafferRuntimeException(CURSOR_NOT_FOUND + ": " + cursor.id, Status.NOT_FOUND);
+            }
+            try {
+                while (page.size() < pageSize && cursor.iterator.hasNext()) {
+                    page.add(cursor.iterator.next());
+                }
+                lastPage = !cursor.iterator.hasNext();
+            } catch (final RuntimeException e) {
+                remove(cursor);
+                throw e;
+            }
+            cursor.lastRead = System.currentTimeMillis();
+        }
+
+        if (lastPage) {
+            remove(cursor);
+            return new ResultPage(null, page, true);
+        }
+        return new ResultPage(cursor.id, page, false);
+    }
+
+    private synchronized void releaseSlot(final Reservation reservation) {
+        if (reservation.held) {
+            reservation.held = false;
+            reservedCursors--;
+            final int userCursors = reservedCursorsPerUser.get(reservation.userId) - 1;
+            if (userCursors > 0) {
+                reservedCursorsPerUser.put(reservation.userId, userCursors);
+            } else {
+                reservedCursorsPerUser.remove(reservation.userId);
+            }
+        }
+    }
+
+    private void remove(final Cursor cursor) {
+        if (cursors.remove(cursor.id, cursor)) {
+            releaseSlot(cursor.reservation);
+        }
+        synchronized (cursor) {
+            cursor.close();
+        }
+    }
+
+    /**
+     * A cursor reserved for a user by {@link #reserve(String)}.
+     */
+    public static final class Reservation {
+        private final String userId;
+        // Guarded by the registry
+        private boolean held = true;
+        private boolean opened;
+
+        private Reservation(final String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static final class Cursor {
+        private final String id;
+        private final Reservation reservation;
+        private final Iterable<?> results;
+        private final Iterator<?> iterator;
+        private final Object operation;
+        private volatile long lastRead = System.currentTimeMillis();
+        private boolean closed;
+
+        private Cursor(final String id, final Reservation reservation, final Iterable<?> results, final Object operation) {
+            this.id = id;
+            this.reservation = reservation;
+            this.results = results;
+            this.iterator = results.iterator();
+            this.operation = operation;
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                CloseableUtil.close(iterator);
+                CloseableUtil.close(results);
+                CloseableUtil.close(operation);
+            }
+        }
+    }
+}
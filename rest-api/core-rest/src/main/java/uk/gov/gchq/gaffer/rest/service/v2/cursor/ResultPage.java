@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2.cursor;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import uk.gov.gchq.gaffer.commonutil.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * POJO representing a page of the results of an operation. If there are more
+ * results, the page contains the id of the cursor to fetch the next page
+ * with.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultPage {
+    private final String cursorId;
+    private final List<Object> results;
+    private final boolean lastPage;
+
+    @JsonCreator
+    public ResultPage(@JsonProperty("cursorId") final String cursorId,
+                      @JsonProperty("results") final List<Object> results,
+                      @JsonProperty("lastPage") final boolean lastPage) {
+        this.cursorId = cursorId;
+        this.results = results;
+        this.lastPage = lastPage;
+    }
+
+    /**
+     * @return the id of the cursor to fetch the next page with, or null if this is the last page
+     */
+    public String getCursorId() {
+        return cursorId;
+    }
+
+    public List<Object> getResults() {
+        return results;
+    }
+
+    public boolean isLastPage() {
+        return lastPage;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("cursorId", cursorId)
+                .append("results", results)
+                .append("lastPage", lastPage)
+                .toString();
+    }
+}
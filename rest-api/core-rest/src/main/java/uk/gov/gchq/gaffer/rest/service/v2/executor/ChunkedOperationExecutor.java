@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.rest.SystemProperty;
+
+import javax.annotation.PreDestroy;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@code ChunkedOperationExecutor} runs the operations whose results are
+ * written to a chunked response, in a bounded pool of daemon threads.
+ * <p>
+ * At most {@code maxConcurrent} operations run at once. Each one holds its
+ * thread until all of its results have been written, so when the limit is
+ * reached further operations are rejected rather than queued, allowing the
+ * client to be told to retry later.
+ */
+public class ChunkedOperationExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedOperationExecutor.class);
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60L;
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ChunkedOperationExecutor() {
+        this(Integer.parseInt(System.getProperty(SystemProperty.CHUNKED_MAX_CONCURRENT,
+                SystemProperty.CHUNKED_MAX_CONCURRENT_DEFAULT)));
+    }
+
+    /**
+     * @param maxConcurrent the maximum number of operations to run at once
+     */
+    public ChunkedOperationExecutor(final int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("The maximum number of concurrent chunked operations must be at least 1.");
+        }
+        this.maxConcurrent = maxConcurrent;
+        permits = new Semaphore(maxConcurrent);
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "chunkedOperation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the task, if fewer than the maximum number of operations are
+     * already running.
+     *
+     * @param task the task to run
+     * @return true if the task will be run, false if it was rejected
+     */
+    public boolean tryExecute(final Runnable task) {
+        if (!permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            LOGGER.warn("Rejected a chunked operation as {} are already running", maxConcurrent);
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                    completed.incrementAndGet();
+                } catch (final RuntimeException e) {
+                    failed.incrementAndGet();
+                    LOGGER.error("Chunked operation failed", e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (final RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return true;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return the number of operations currently running
+     */
+    public int getRunning() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
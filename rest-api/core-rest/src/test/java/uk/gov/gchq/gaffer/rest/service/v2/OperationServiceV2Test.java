@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2;
+
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.commonutil.iterable.WrappedCloseableIterator;
+import uk.gov.gchq.gaffer.data.element.Edge;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.graph.GraphConfig;
+import uk.gov.gchq.gaffer.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.gaffer.operation.Operation;
+import uk.gov.gchq.gaffer.operation.io.Output;
+import uk.gov.gchq.gaffer.rest.factory.GraphFactory;
+import uk.gov.gchq.gaffer.rest.factory.UserFactory;
+import uk.gov.gchq.gaffer.store.Context;
+import uk.gov.gchq.gaffer.store.Store;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static uk.gov.gchq.gaffer.rest.ServiceConstants.CHUNKED_ERROR_FIELD;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OperationServiceV2Test {
+    private static final List<Object> ELEMENTS = Arrays.asList(
+            new Entity.Builder()
+                    .group(TestGroups.ENTITY)
+                    .vertex("vertex")
+                    .property("count", 1)
+                    .build(),
+            new Edge.Builder()
+                    .group(TestGroups.EDGE)
+                    .source("source")
+                    .dest("dest")
+                    .directed(true)
+                    .build());
+
+    @InjectMocks
+    private OperationServiceV2 service;
+
+    @Mock
+    private GraphFactory graphFactory;
+
+    @Mock
+    private UserFactory userFactory;
+
+    @Mock
+    private Store store;
+
+    @Before
+    public void setup() {
+        given(store.getSchema()).willReturn(mock(Schema.class));
+        final Graph graph = new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId("graphId")
+                        .build())
+                .store(store)
+                .build();
+        given(graphFactory.getGraph()).willReturn(graph);
+        given(userFactory.createContext()).willReturn(new Context());
+    }
+
+    @Test
+    public void shouldWriteIterableResultAsTheSameJsonAsTheJsonProvider() throws Exception {
+        // Given
+        final Operation operation = mock(Operation.class);
+        final TrackingIterable result = new TrackingIterable(ELEMENTS, false);
+        givenResult(result);
+
+        // When
+        final Response response = service.execute(operation);
+        final String json = write(response);
+
+        // Then
+        assertEquals(JSONSerialiser.getMapper().writeValueAsString(ELEMENTS), json);
+        assertTrue(result.closed);
+        verify(operation).close();
+    }
+
+    @Test
+    public void shouldWriteEmptyIterableResultAsEmptyJsonArray() throws Exception {
+        // Given
+        final Operation operation = mock(Operation.class);
+        final TrackingIterable result = new TrackingIterable(Arrays.asList(), false);
+        givenResult(result);
+
+        // When
+        final String json = write(service.execute(operation));
+
+        // Then
+        assertEquals("[]", json);
+        assertTrue(result.closed);
+    }
+
+    @Test
+    public void shouldCloseIterableAndOperationWhenWritingFails() throws Exception {
+        // Given
+        final Operation operation = mock(Operation.class);
+        final TrackingIterable result = new TrackingIterable(ELEMENTS, true);
+        givenResult(result);
+        final Response response = service.execute(operation);
+        assertFalse(result.closed);
+
+        // When
+        try {
+            write(response);
+            fail("Exception expected");
+        } catch (final RuntimeException e) {
+            // Then
+            assertEquals("Failed to read the next result", e.getMessage());
+        }
+        assertTrue(result.closed);
+        verify(operation).close();
+    }
+
+    @Test
+    public void shouldReturnNonIterableResultUnchanged() throws Exception {
+        // Given
+        final Operation operation = mock(Operation.class);
+        final Long result = 5L;
+        givenResult(result);
+
+        // When
+        final Response response = service.execute(operation);
+
+        // Then
+        assertSame(result, response.getEntity());
+        verify(operation, never()).close();
+    }
+
+    @Test
+    public void shouldWriteAnErrorAsTheFinalChunkWhenReadingTheResultFails() throws Exception {
+        // Given
+        final TrackingIterable result = new TrackingIterable(ELEMENTS, true);
+        final ChunkedOutput<String> output = mock(ChunkedOutput.class);
+
+        // When
+        service.chunkResult(result, output);
+
+        // Then
+        final ArgumentCaptor<String> chunks = ArgumentCaptor.forClass(String.class);
+        verify(output, times(2)).write(chunks.capture());
+        assertEquals(JSONSerialiser.getMapper().writeValueAsString(ELEMENTS.get(0)), chunks.getAllValues().get(0));
+        final Map<?, ?> errorChunk = JSONSerialiser.deserialise(chunks.getAllValues().get(1).getBytes("UTF-8"), Map.class);
+        assertEquals(Collections.singleton(CHUNKED_ERROR_FIELD), errorChunk.keySet());
+        assertEquals("Failed to read the next result", ((Map) errorChunk.get(CHUNKED_ERROR_FIELD)).get("simpleMessage"));
+        assertTrue(result.closed);
+    }
+
+    private void givenResult(final Object result) throws Exception {
+        given(store.execute(Mockito.any(Output.class), Mockito.any(Context.class))).willReturn(result);
+    }
+
+    private static String write(final Response response) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    private static final class TrackingIterable implements CloseableIterable<Object> {
+        private final List<Object> items;
+        private final boolean failAfterFirst;
+        private boolean closed;
+
+        private TrackingIterable(final List<Object> items, final boolean failAfterFirst) {
+            this.items = items;
+            this.failAfterFirst = failAfterFirst;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public CloseableIterator<Object> iterator() {
+            if (!failAfterFirst) {
+                return new WrappedCloseableIterator<>(items.iterator());
+            }
+            final Iterator<Object> itr = items.iterator();
+            return new WrappedCloseableIterator<>(new Iterator<Object>() {
+                private boolean first = true;
+
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public Object next() {
+                    if (first) {
+                        first = false;
+                        return itr.next();
+                    }
+                    throw new RuntimeException("Failed to read the next result");
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2.cursor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.core.exception.GafferRuntimeException;
+import uk.gov.gchq.gaffer.core.exception.Status;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CursorRegistryTest {
+    private static final String USER = "user01";
+    private static final List<Object> RESULTS = Arrays.asList(1, 2, 3, 4, 5);
+
+    private CursorRegistry registry;
+
+    @After
+    public void tearDown() {
+        if (null != registry) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldPageThroughResultsAndCloseCursorAfterLastPage() {
+        // Given
+        registry = new CursorRegistry(60000L, 10);
+
+        // When
+        final ResultPage first = registry.open(USER, RESULTS, null, 2);
+        final ResultPage second = registry.nextPage(first.getCursorId(), USER, 2);
+        final ResultPage third = registry.nextPage(first.getCursorId(), USER, 2);
+
+        // Then
+        assertNotNull(first.getCursorId());
+        assertEquals(Arrays.asList(1, 2), first.getResults());
+        assertFalse(first.isLastPage());
+        assertEquals(Arrays.asList(3, 4), second.getResults());
+        assertEquals(first.getCursorId(), second.getCursorId());
+        assertEquals(Arrays.asList(5), third.getResults());
+        assertTrue(third.isLastPage());
+        assertNull(third.getCursorId());
+        assertEquals(0, registry.getOpenCursors());
+    }
+
+    @Test
+    public void shouldNotKeepCursorWhenAllResultsFitInFirstPage() {
+        // Given
+        registry = new CursorRegistry(60000L, 10);
+
+        // When
+        final ResultPage page = registry.open(USER, RESULTS, null, 10);
+
+        // Then
+        assertEquals(RESULTS, page.getResults());
+        assertTrue(page.isLastPage());
+        assertNull(page.getCursorId());
+        assertEquals(0, registry.getOpenCursors());
+    }
+
+    @Test
+    public void shouldRejectCursorsOverTheLimitForAUser() {
+        // Given
+        registry = new CursorRegistry(60000L, 1);
+        registry.open(USER, RESULTS, null, 1);
+
+        // When
+        try {
+            registry.open(USER, RESULTS, null, 1);
+            fail("Exception expected");
+        } catch (final GafferRuntimeException e) {
+            // Then
+            assertEquals(Status.TOO_MANY_REQUESTS, e.getStatus());
+        }
+        registry.open("user02", RESULTS, null, 1);
+        assertEquals(2, registry.getOpenCursors());
+    }
+
+    @Test
+    public void shouldRejectReservationsOverTheLimitForAUserBeforeOpening() {
+        // Given
+        registry = new CursorRegistry(60000L, 1);
+        final CursorRegistry.Reservation reservation = registry.reserve(USER);
+
+        // When
+        try {
+            registry.reserve(USER);
+            fail("Exception expected");
+        } catch (final GafferRuntimeException e) {
+            // Then
+            assertEquals(Status.TOO_MANY_REQUESTS, e.getStatus());
+        }
+        assertEquals(0, registry.getOpenCursors());
+        registry.open(reservation, RESULTS, null, 1);
+        assertEquals(1, registry.getOpenCursors());
+    }
+
+    @Test
+    public void shouldRejectCursorsOverTheLimitForAllUsers() {
+        // Given
+        registry = new CursorRegistry(60000L, 10, 2);
+        registry.open(USER, RESULTS, null, 1);
+        registry.reserve("user02");
+
+        // When
+        try {
+            registry.reserve("user03");
+            fail("Exception expected");
+        } catch (final GafferRuntimeException e) {
+            // Then
+            assertEquals(Status.TOO_MANY_REQUESTS, e.getStatus());
+        }
+    }
+
+    @Test
+    public void shouldReleaseReservationsThatAreNotOpenedOrWhoseCursorIsClosed() {
+        // Given
+        registry = new CursorRegistry(60000L, 1);
+        final CursorRegistry.Reservation unused = registry.reserve(USER);
+        registry.release(unused);
+        final CursorRegistry.Reservation opened = registry.reserve(USER);
+        final String cursorId = registry.open(opened, RESULTS, null, 1).getCursorId();
+
+        // When
+        registry.release(opened);
+        try {
+            registry.reserve(USER);
+            fail("Exception expected");
+        } catch (final GafferRuntimeException e) {
+            assertEquals(Status.TOO_MANY_REQUESTS, e.getStatus());
+        }
+        registry.close(cursorId, USER);
+
+        // Then
+        registry.release(registry.reserve(USER));
+    }
+
+    @Test
+    public void shouldNotAllowOtherUsersToReadCursor() {
+        // Given
+        registry = new CursorRegistry(60000L, 10);
+        final String cursorId = registry.open(USER, RESULTS, null, 1).getCursorId();
+
+        // When
+        try {
+            registry.nextPage(cursorId, "user02", 1);
+            fail("Exception expected");
+        } catch (final GafferRuntimeException e) {
+            // Then
+            assertEquals(Status.NOT_FOUND, e.getStatus());
+        }
+        assertEquals(Arrays.asList(2), registry.nextPage(cursorId, USER, 1).getResults());
+    }
+
+    @Test
+    public void shouldEvictIdleCursors() throws InterruptedException {
+        // Given
+        registry = new CursorRegistry(1L, 10);
+        final String cursorId = registry.open(USER, RESULTS, null, 1).getCursorId();
+        Thread.sleep(10);
+
+        // When
+        registry.evictIdleCursors();
+
+        // Then
+        assertEquals(0, registry.getOpenCursors());
+        try {
+            registry.nextPage(cursorId, USER, 1);
+            fail("Exception expected");
+        } catch (final GafferRuntimeException e) {
+            assertEquals(Status.NOT_FOUND, e.getStatus());
+        }
+    }
+}
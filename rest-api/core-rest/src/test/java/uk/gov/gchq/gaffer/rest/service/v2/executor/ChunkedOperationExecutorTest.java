@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.rest.service.v2.executor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkedOperationExecutorTest {
+    private ChunkedOperationExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (null != executor) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRejectOperationsWhenLimitIsReached() throws InterruptedException {
+        // Given
+        executor = new ChunkedOperationExecutor(2);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable blocked = () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        // When
+        final boolean first = executor.tryExecute(blocked);
+        final boolean second = executor.tryExecute(blocked);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        final boolean third = executor.tryExecute(blocked);
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(2, executor.getRunning());
+        assertEquals(1, executor.getRejected());
+        release.countDown();
+    }
+
+    @Test
+    public void shouldAcceptOperationsAgainOnceRunningOperationsFinish() throws InterruptedException {
+        // Given
+        executor = new ChunkedOperationExecutor(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        assertTrue(executor.tryExecute(() -> {
+            throw new IllegalStateException("Test Exception");
+        }));
+
+        // When
+        boolean accepted = false;
+        for (int i = 0; i < 100 && !accepted; i++) {
+            accepted = executor.tryExecute(finished::countDown);
+            if (!accepted) {
+                Thread.sleep(50);
+            }
+        }
+
+        // Then
+        assertTrue(accepted);
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(1, executor.getFailed());
+    }
+}
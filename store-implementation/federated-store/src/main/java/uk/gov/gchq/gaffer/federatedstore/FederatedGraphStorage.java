@@ -32,6 +32,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -41,10 +42,12 @@ public class FederatedGraphStorage {
     public static final String ACCESS_IS_NULL = "Can not put graph into storage without a FederatedAccess key.";
     public static final String GRAPH_IDS_NOT_VISIBLE = "The following graphIds are not visible or do not exist: %s";
     private Map<FederatedAccess, Set<Graph>> storage = new HashMap<>();
-    @Deprecated
-    private Schema mergedSchema = new Schema();
-    @Deprecated
-    private Set<StoreTrait> mergedTraits = Collections.emptySet();
+    /**
+     * The merged schemas and traits of the graphs visible to each distinct
+     * set of {@link FederatedAccess}es, and of the entire storage, replaced
+     * whenever a graph is put or removed.
+     */
+    private volatile MergedCache mergedCache = new MergedCache();
 
     /**
      * places a collections of graphs into storage, protected by the given
@@ -88,8 +91,7 @@ public class FederatedGraphStorage {
             existingGraphs.add(graph);
         }
 
-        mergedSchema = getMergedSchemaWithGraph(null);
-        mergedTraits = getStoreTraits(null);
+        mergedCache = new MergedCache();
     }
 
     /**
@@ -145,9 +147,7 @@ public class FederatedGraphStorage {
                 }
             }
         }
-        mergedSchema = getMergedSchemaWithGraph(null);
-
-        mergedTraits = getStoreTraits(null);
+        mergedCache = new MergedCache();
         return isRemoved;
     }
 
@@ -181,40 +181,73 @@ public class FederatedGraphStorage {
 
 
     /**
+     * The traits are cached until a graph is put or removed.
+     *
      * @return merged traits of the entire storage.
      * @deprecated traits should not be visible for graphs a user can not see.
      */
     @Deprecated
     public Set<StoreTrait> getTraits() {
-        return Collections.unmodifiableSet(mergedTraits);
+        final MergedCache cache = mergedCache;
+        return cache.traits.computeIfAbsent(new HashSet<>(storage.keySet()),
+                accesses -> Collections.unmodifiableSet(getStoreTraits(null)));
     }
 
     /**
+     * The schema is cached until a graph is put or removed, and is returned
+     * without being cloned, as a built {@link Schema} is locked.
+     *
      * @return merged schema of the entire storage.
      * @deprecated schema should not be visible for graphs a user can not see.
      */
     @Deprecated
     public Schema getMergedSchema() {
-        return mergedSchema.clone();
+        final MergedCache cache = mergedCache;
+        return cache.schemas.computeIfAbsent(new HashSet<>(storage.keySet()),
+                accesses -> getMergedSchemaBuilder(null).build());
     }
 
     /**
+     * The traits are cached for all users that can see the same graphs,
+     * until a graph is put or removed.
+     *
      * @param user to match visibility against.
      * @return merged traits of the visible graphs.
      * @see #filterByUserVisibilityHardAccess(User)
      */
     public Set<StoreTrait> getTraits(final User user) {
-        return getStoreTraits(filterByUserVisibilityHardAccess(user));
+        final MergedCache cache = mergedCache;
+        return cache.traits.computeIfAbsent(getVisibleAccesses(user),
+                accesses -> Collections.unmodifiableSet(getStoreTraits(entry -> accesses.contains(entry.getKey()))));
     }
 
     /**
+     * The schema is cached for all users that can see the same graphs,
+     * until a graph is put or removed.
+     *
      * @param user to match visibility against.
      * @return merged schema of the visible graphs.
      * @see #filterByUserVisibilityHardAccess(User)
      */
     public Schema getMergedSchema(final User user) {
-        Builder schemaBuilder = getMergedSchemaBuilder(filterByUserVisibilityHardAccess(user));
-        return schemaBuilder.build();
+        final MergedCache cache = mergedCache;
+        return cache.schemas.computeIfAbsent(getVisibleAccesses(user),
+                accesses -> getMergedSchemaBuilder(entry -> accesses.contains(entry.getKey())).build());
+    }
+
+    /**
+     * @param user to match visibility against.
+     * @return the accesses of the graphs the user has visibility for, which
+     * identify the graphs that are merged for the user.
+     */
+    private Set<FederatedAccess> getVisibleAccesses(final User user) {
+        final Set<FederatedAccess> accesses = new HashSet<>();
+        for (final FederatedAccess access : storage.keySet()) {
+            if (isValidToView(user, access)) {
+                accesses.add(access);
+            }
+        }
+        return accesses;
     }
 
     private boolean exists(final String graphId) {
@@ -315,4 +348,9 @@ public class FederatedGraphStorage {
 
         return stream.flatMap(entry -> entry.getValue().stream());
     }
+
+    private static final class MergedCache {
+        private final Map<Set<FederatedAccess>, Schema> schemas = new ConcurrentHashMap<>();
+        private final Map<Set<FederatedAccess>, Set<StoreTrait>> traits = new ConcurrentHashMap<>();
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.commons.lang3.StringUtils;
 import uk.gov.gchq.gaffer.commonutil.StreamUtil;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
 import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.id.ElementId;
 import uk.gov.gchq.gaffer.data.element.id.EntityId;
 import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
 import uk.gov.gchq.gaffer.federatedstore.FederatedStoreProperties.GraphConfigEnum;
@@ -39,6 +40,8 @@ import uk.gov.gchq.gaffer.federatedstore.operation.handler.impl.FederatedGetAllE
 import uk.gov.gchq.gaffer.federatedstore.operation.handler.impl.FederatedGetAllGraphIDHandler;
 import uk.gov.gchq.gaffer.federatedstore.operation.handler.impl.FederatedGetElementsHandler;
 import uk.gov.gchq.gaffer.federatedstore.operation.handler.impl.FederatedRemoveGraphHandler;
+import uk.gov.gchq.gaffer.federatedstore.optimiser.FederatedLimitOptimiser;
+import uk.gov.gchq.gaffer.federatedstore.routing.VertexPartition;
 import uk.gov.gchq.gaffer.graph.Graph;
 import uk.gov.gchq.gaffer.graph.Graph.Builder;
 import uk.gov.gchq.gaffer.graph.GraphConfig;
@@ -48,6 +51,7 @@ import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
 import uk.gov.gchq.gaffer.operation.impl.get.GetAdjacentIds;
 import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
 import uk.gov.gchq.gaffer.operation.impl.get.GetElements;
+import uk.gov.gchq.gaffer.operation.io.Input;
 import uk.gov.gchq.gaffer.operation.io.Output;
 import uk.gov.gchq.gaffer.serialisation.Serialiser;
 import uk.gov.gchq.gaffer.store.Context;
@@ -63,12 +67,18 @@ import uk.gov.gchq.gaffer.user.User;
 
 import java.io.File;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.regex.Pattern;
 
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreProperties.IS_PUBLIC_ACCESS_ALLOWED_DEFAULT;
@@ -96,7 +106,14 @@ public class FederatedStore extends Store {
     private FederatedGraphStorage graphStorage = new FederatedGraphStorage();
     private Set<String> customPropertiesAuths;
     public Boolean isPublicAccessAllowed = Boolean.valueOf(IS_PUBLIC_ACCESS_ALLOWED_DEFAULT);
+    private ExecutorService graphExecutorService;
+    private ExecutorService addElementsExecutorService;
+    private ScheduledExecutorService graphTimeoutScheduler;
+    private long graphExecutorTimeout;
 
+    public FederatedStore() {
+        addOperationChainOptimisers(Collections.singletonList(new FederatedLimitOptimiser()));
+    }
 
     /**
      * Initialise this FederatedStore with any sub-graphs defined within the
@@ -115,6 +132,7 @@ public class FederatedStore extends Store {
 
         isPublicAccessAllowed = Boolean.valueOf(getProperties().getIsPublicAccessAllowed());
 
+        loadGraphExecutorService();
         loadGraphs();
     }
 
@@ -123,6 +141,44 @@ public class FederatedStore extends Store {
         return (FederatedStoreProperties) super.getProperties();
     }
 
+    /**
+     * @return the bounded pool used to execute an operation on each of the
+     * sub-graphs concurrently, or null if this store has not been initialised.
+     */
+    public ExecutorService getGraphExecutorService() {
+        return graphExecutorService;
+    }
+
+    /**
+     * @return the pool used to add elements to each of the sub-graphs
+     * concurrently, or null if this store has not been initialised. Each
+     * sub-graph reads its elements from a bounded queue whilst the input is
+     * routed, so the pool is not bounded and every sub-graph is given a
+     * thread straight away, reusing the threads of earlier operations.
+     */
+    public ExecutorService getAddElementsExecutorService() {
+        return addElementsExecutorService;
+    }
+
+    /**
+     * @return the scheduler used to interrupt a thread that is executing an
+     * operation on a sub-graph itself, rather than using the
+     * {@link #getGraphExecutorService()} pool, once the
+     * {@link #getGraphExecutorTimeout()} has passed, or null if this store has
+     * not been initialised.
+     */
+    public ScheduledExecutorService getGraphTimeoutScheduler() {
+        return graphTimeoutScheduler;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for each sub-graph to
+     * return its result, 0 means wait forever.
+     */
+    public long getGraphExecutorTimeout() {
+        return graphExecutorTimeout;
+    }
+
     /**
      * Within FederatedStore an {@link Operation} is executed against a
      * collection of many graphs.
@@ -159,6 +215,85 @@ public class FederatedStore extends Store {
         return resultOp;
     }
 
+    /**
+     * If a graph has a {@link VertexPartition}, the seeds of the operation
+     * are reduced to the seeds that the graph might contain, so the graph is
+     * not asked for seeds that are held by other graphs.
+     *
+     * @param operation current operation
+     * @param seeds     the seeds routed to the current graph, or null if it is
+     *                  not partitioned
+     * @param <OP>      Operation type
+     * @return cloned operation with the seeds for the given graph, the
+     * operation if it is not partitioned, or null if the graph can not
+     * contain any of the seeds.
+     * @see #getSeedsForGraphs(Operation, Collection)
+     */
+    public static <OP extends Operation> OP updateOperationSeedsForGraph(final OP operation, final List<Object> seeds) {
+        OP resultOp = operation;
+
+        if (null != seeds) {
+            if (seeds.isEmpty()) {
+                resultOp = null;
+            } else {
+                resultOp = (OP) operation.shallowClone();
+                ((Input) resultOp).setInput(seeds);
+            }
+        }
+
+        return resultOp;
+    }
+
+    /**
+     * Routes the seeds of the operation to the graphs that have a
+     * {@link VertexPartition}, iterating over the input of the operation only
+     * once whatever the number of graphs.
+     *
+     * @param operation the operation
+     * @param graphs    the graphs the operation will be executed on
+     * @return the seeds that each partitioned graph might contain, keyed by
+     * graphId. Graphs that are not partitioned, and all graphs if the
+     * operation does not have an iterable input, have no entry.
+     * @see #updateOperationSeedsForGraph(Operation, List)
+     */
+    public Map<String, List<Object>> getSeedsForGraphs(final Operation operation, final Collection<Graph> graphs) {
+        if (!(operation instanceof Input) || !(((Input) operation).getInput() instanceof Iterable)) {
+            return Collections.emptyMap();
+        }
+        final Map<String, VertexPartition> partitions = new LinkedHashMap<>();
+        for (final Graph graph : graphs) {
+            final VertexPartition partition = getGraphPartition(graph.getGraphId());
+            if (null != partition) {
+                partitions.put(graph.getGraphId(), partition);
+            }
+        }
+        if (partitions.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, List<Object>> seeds = new HashMap<>();
+        for (final String graphId : partitions.keySet()) {
+            seeds.put(graphId, new ArrayList<>());
+        }
+        for (final Object seed : (Iterable<?>) ((Input) operation).getInput()) {
+            for (final Map.Entry<String, VertexPartition> entry : partitions.entrySet()) {
+                if (!(seed instanceof ElementId) || entry.getValue().mightContain((ElementId) seed)) {
+                    seeds.get(entry.getKey()).add(seed);
+                }
+            }
+        }
+        return seeds;
+    }
+
+    /**
+     * @param graphId the graphId of the graph
+     * @return the partition of vertices held by the graph, or null if the
+     * graph is not partitioned.
+     */
+    public VertexPartition getGraphPartition(final String graphId) {
+        return VertexPartition.fromDescriptor(getProperties().getGraphPartitionValue(graphId));
+    }
+
     /**
      * Adds graphs to the scope of FederatedStore.
      * <p>
@@ -339,6 +474,28 @@ public class FederatedStore extends Store {
         }
     }
 
+    private void loadGraphExecutorService() {
+        if (null != graphExecutorService) {
+            graphExecutorService.shutdown();
+        }
+        graphExecutorService = Executors.newFixedThreadPool(getProperties().getGraphExecutorThreadCount(), FederatedStore::newDaemonThread);
+        if (null != addElementsExecutorService) {
+            addElementsExecutorService.shutdown();
+        }
+        addElementsExecutorService = Executors.newCachedThreadPool(FederatedStore::newDaemonThread);
+        if (null != graphTimeoutScheduler) {
+            graphTimeoutScheduler.shutdown();
+        }
+        graphTimeoutScheduler = Executors.newSingleThreadScheduledExecutor(FederatedStore::newDaemonThread);
+        graphExecutorTimeout = getProperties().getGraphExecutorTimeout();
+    }
+
+    private static Thread newDaemonThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    }
+
     private void loadGraphs() {
         final HashSet<String> graphIds = getGraphIds();
         for (final String graphId : graphIds) {
@@ -352,6 +509,8 @@ public class FederatedStore extends Store {
 
             final Set<String> auths = resolveAuths(graphId);
             final boolean isPublic = resolveIsPublic(graphId);
+            // Check the partition is valid before adding the graph
+            getGraphPartition(graphId);
             addGraphs(auths, null, isPublic, builder);
         }
     }
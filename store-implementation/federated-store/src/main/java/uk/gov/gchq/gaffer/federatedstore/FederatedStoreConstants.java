@@ -21,6 +21,8 @@ public final class FederatedStoreConstants {
     // Operation options
     public static final String KEY_OPERATION_OPTIONS_GRAPH_IDS = PREFIX_GAFFER_FEDERATED_STORE + ".operation.graphIds";
     public static final String KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE = PREFIX_GAFFER_FEDERATED_STORE + ".operation.skipFailedFederatedStoreExecute";
+    public static final String KEY_OPERATION_OPTIONS_RESULT_LIMIT = PREFIX_GAFFER_FEDERATED_STORE + ".operation.resultLimit";
+    public static final String KEY_OPERATION_OPTIONS_AGGREGATE = PREFIX_GAFFER_FEDERATED_STORE + ".operation.aggregate";
 
     private FederatedStoreConstants() {
         // private constructor to prevent users instantiating this class as it
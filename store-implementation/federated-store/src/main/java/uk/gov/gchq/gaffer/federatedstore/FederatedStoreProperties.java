@@ -20,6 +20,8 @@ import uk.gov.gchq.gaffer.store.StoreProperties;
 
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
 
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.PREFIX_GAFFER_FEDERATED_STORE;
@@ -47,6 +49,69 @@ public class FederatedStoreProperties extends StoreProperties {
      */
     public static final String GRAPH_IDS = "gaffer.federatedstore.graphIds";
     public static final String GRAPH_IDS_DEFAULT = null;
+    /**
+     * This is used to set the number of threads used to execute an operation
+     * on the sub-graphs concurrently.
+     * e.g gaffer.federatedstore.graphExecutor.threads=10
+     */
+    public static final String GRAPH_EXECUTOR_THREAD_COUNT = "gaffer.federatedstore.graphExecutor.threads";
+    public static final String GRAPH_EXECUTOR_THREAD_COUNT_DEFAULT = "10";
+    /**
+     * This is used to set the maximum time in milliseconds to wait for each
+     * sub-graph to return its result, 0 means wait forever.
+     * e.g gaffer.federatedstore.graphExecutor.timeout=30000
+     */
+    public static final String GRAPH_EXECUTOR_TIMEOUT = "gaffer.federatedstore.graphExecutor.timeout";
+    public static final String GRAPH_EXECUTOR_TIMEOUT_DEFAULT = "0";
+    /**
+     * This is used to set the maximum number of aggregated elements held in
+     * memory when the results of the sub-graphs are aggregated together,
+     * before elements are spilled to disk.
+     * e.g gaffer.federatedstore.aggregation.maxElementsInMemory=100000
+     */
+    public static final String AGGREGATION_MAX_ELEMENTS_IN_MEMORY = "gaffer.federatedstore.aggregation.maxElementsInMemory";
+    public static final String AGGREGATION_MAX_ELEMENTS_IN_MEMORY_DEFAULT = "100000";
+    /**
+     * This is used to set the number of hash partitions the elements are
+     * split into when the results of the sub-graphs are aggregated together.
+     * e.g gaffer.federatedstore.aggregation.partitions=16
+     */
+    public static final String AGGREGATION_PARTITIONS = "gaffer.federatedstore.aggregation.partitions";
+    public static final String AGGREGATION_PARTITIONS_DEFAULT = "16";
+    /**
+     * This is used to set the directory that aggregated elements are spilled
+     * to, by default the system temporary directory is used.
+     * e.g gaffer.federatedstore.aggregation.spillDir=/tmp/federatedstore
+     */
+    public static final String AGGREGATION_SPILL_DIR = "gaffer.federatedstore.aggregation.spillDir";
+    public static final String AGGREGATION_SPILL_DIR_DEFAULT = null;
+    /**
+     * This is used to set the maximum number of elements queued for each
+     * sub-graph whilst the elements of an AddElements operation are routed
+     * to the sub-graphs.
+     * e.g gaffer.federatedstore.addElements.queueSize=1000
+     */
+    public static final String ADD_ELEMENTS_QUEUE_SIZE = "gaffer.federatedstore.addElements.queueSize";
+    public static final String ADD_ELEMENTS_QUEUE_SIZE_DEFAULT = "1000";
+    /**
+     * This is used to set the comma separated classes of the stores that
+     * iterate the input of an AddElements operation more than once, so can
+     * not read their elements from a queue, e.g. the ParquetStore. Sub-graphs
+     * backed by these stores are sent the input itself if it is a collection,
+     * otherwise the elements are spilled to a file which is sent instead.
+     * e.g gaffer.federatedstore.addElements.reIterableInputStores=uk.gov.gchq.gaffer.parquetstore.ParquetStore
+     */
+    public static final String ADD_ELEMENTS_REITERABLE_INPUT_STORES = "gaffer.federatedstore.addElements.reIterableInputStores";
+    public static final String ADD_ELEMENTS_REITERABLE_INPUT_STORES_DEFAULT = "";
+    /**
+     * This is used to set the directory that the elements of an AddElements
+     * operation are spilled to for the stores in
+     * {@link #ADD_ELEMENTS_REITERABLE_INPUT_STORES}, by default the system
+     * temporary directory is used.
+     * e.g gaffer.federatedstore.addElements.spillDir=/tmp/federatedstore
+     */
+    public static final String ADD_ELEMENTS_SPILL_DIR = "gaffer.federatedstore.addElements.spillDir";
+    public static final String ADD_ELEMENTS_SPILL_DIR_DEFAULT = null;
 
     /**
      * This is used....
@@ -61,6 +126,15 @@ public class FederatedStoreProperties extends StoreProperties {
     private static final String IS_PUBLIC = "isPublic";
     public static final String IS_PUBLIC_DEFAULT = String.valueOf(false);
 
+    /**
+     * This is used to describe the vertices held by a graph, so seeds and
+     * elements are only sent to the graphs that might hold them.
+     * e.g gaffer.federatedstore.graph1.partition=hash:0/4
+     *
+     * @see uk.gov.gchq.gaffer.federatedstore.routing.VertexPartition
+     */
+    private static final String PARTITION = "partition";
+
     public FederatedStoreProperties() {
         super(FederatedStore.class);
     }
@@ -188,6 +262,18 @@ public class FederatedStoreProperties extends StoreProperties {
         return this.get(getKeyGraphAuths(graphId));
     }
 
+    public String getGraphPartitionValue(final String graphId) {
+        return get(getKeyGraphPartition(graphId));
+    }
+
+    public void setGraphPartition(final String graphId, final String partitionDescriptor) {
+        set(getKeyGraphPartition(graphId), partitionDescriptor);
+    }
+
+    private static String getKeyGraphPartition(final String graphId) {
+        return String.format("%s.%s.%s", PREFIX_GAFFER_FEDERATED_STORE, graphId, PARTITION);
+    }
+
     public String getGraphIdsValue() {
         return this.get(GRAPH_IDS, GRAPH_IDS_DEFAULT);
     }
@@ -207,4 +293,74 @@ public class FederatedStoreProperties extends StoreProperties {
     public void setGraphsCanHavePublicAccess(final boolean b) {
         set(IS_PUBLIC_ACCESS_ALLOWED, Boolean.toString(b));
     }
+
+    public int getGraphExecutorThreadCount() {
+        return Integer.parseInt(get(GRAPH_EXECUTOR_THREAD_COUNT, GRAPH_EXECUTOR_THREAD_COUNT_DEFAULT));
+    }
+
+    public void setGraphExecutorThreadCount(final int threadCount) {
+        set(GRAPH_EXECUTOR_THREAD_COUNT, String.valueOf(threadCount));
+    }
+
+    public long getGraphExecutorTimeout() {
+        return Long.parseLong(get(GRAPH_EXECUTOR_TIMEOUT, GRAPH_EXECUTOR_TIMEOUT_DEFAULT));
+    }
+
+    public void setGraphExecutorTimeout(final long timeoutMillis) {
+        set(GRAPH_EXECUTOR_TIMEOUT, String.valueOf(timeoutMillis));
+    }
+
+    public int getAggregationMaxElementsInMemory() {
+        return Integer.parseInt(get(AGGREGATION_MAX_ELEMENTS_IN_MEMORY, AGGREGATION_MAX_ELEMENTS_IN_MEMORY_DEFAULT));
+    }
+
+    public void setAggregationMaxElementsInMemory(final int maxElementsInMemory) {
+        set(AGGREGATION_MAX_ELEMENTS_IN_MEMORY, String.valueOf(maxElementsInMemory));
+    }
+
+    public int getAggregationPartitions() {
+        return Integer.parseInt(get(AGGREGATION_PARTITIONS, AGGREGATION_PARTITIONS_DEFAULT));
+    }
+
+    public void setAggregationPartitions(final int partitions) {
+        set(AGGREGATION_PARTITIONS, String.valueOf(partitions));
+    }
+
+    public String getAggregationSpillDir() {
+        return get(AGGREGATION_SPILL_DIR, AGGREGATION_SPILL_DIR_DEFAULT);
+    }
+
+    public void setAggregationSpillDir(final String spillDir) {
+        set(AGGREGATION_SPILL_DIR, spillDir);
+    }
+
+    public int getAddElementsQueueSize() {
+        return Integer.parseInt(get(ADD_ELEMENTS_QUEUE_SIZE, ADD_ELEMENTS_QUEUE_SIZE_DEFAULT));
+    }
+
+    public void setAddElementsQueueSize(final int queueSize) {
+        set(ADD_ELEMENTS_QUEUE_SIZE, String.valueOf(queueSize));
+    }
+
+    public Set<String> getAddElementsReIterableInputStores() {
+        final Set<String> storeClasses = new HashSet<>();
+        for (final String storeClass : get(ADD_ELEMENTS_REITERABLE_INPUT_STORES, ADD_ELEMENTS_REITERABLE_INPUT_STORES_DEFAULT).split(",")) {
+            if (!storeClass.trim().isEmpty()) {
+                storeClasses.add(storeClass.trim());
+            }
+        }
+        return storeClasses;
+    }
+
+    public void setAddElementsReIterableInputStores(final String storeClasses) {
+        set(ADD_ELEMENTS_REITERABLE_INPUT_STORES, storeClasses);
+    }
+
+    public String getAddElementsSpillDir() {
+        return get(ADD_ELEMENTS_SPILL_DIR, ADD_ELEMENTS_SPILL_DIR_DEFAULT);
+    }
+
+    public void setAddElementsSpillDir(final String spillDir) {
+        set(ADD_ELEMENTS_SPILL_DIR, spillDir);
+    }
 }
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.operation.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewUtil;
+import uk.gov.gchq.gaffer.federatedstore.FederatedStoreProperties;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.util.AggregatorUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * An {@code AggregatedElementsIterable} applies query time aggregation, as
+ * {@link AggregatorUtil#queryAggregate(Iterable, Schema, View)} does, to the
+ * elements returned by all of the sub-graphs of a FederatedStore, so that
+ * there is a single element for each key.
+ * <p>
+ * Unlike {@link AggregatorUtil#queryAggregate(Iterable, Schema, View)}, the
+ * memory used is bounded. Elements in aggregated groups are hash partitioned
+ * by their key, and when more than {@code maxElementsInMemory} aggregated
+ * elements are held, the largest partition is spilled to an
+ * {@link ElementSpillFile}. Once all of the input has been read, the partitions held in memory are
+ * returned and each spilled partition is then read back and aggregated in the
+ * same way, using a different hash. Elements in groups that are not
+ * aggregated are returned as soon as they are read.
+ * <p>
+ * The post aggregation filters, transformers and post transform filters of
+ * the view must only be applied once the elements from all of the
+ * sub-graphs have been aggregated together, so they are removed from the
+ * view sent to the sub-graphs, see {@link #getViewForGraphs(View)}, and are
+ * applied to each element as it is returned by this iterable, along with the
+ * view's property restrictions.
+ */
+public class AggregatedElementsIterable implements CloseableIterable<Element> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AggregatedElementsIterable.class);
+
+    /**
+     * Spilled partitions are only re-partitioned this many times, after which
+     * they are aggregated entirely in memory. This only happens when a
+     * partition has more distinct keys than fit in memory even after being
+     * split this many times, and a warning is logged when it does.
+     */
+    private static final int MAX_DEPTH = 3;
+
+    private final Iterable<? extends Element> input;
+    private final Schema schema;
+    private final View view;
+    private final int maxElementsInMemory;
+    private final int numberOfPartitions;
+    private final String spillDir;
+
+    public AggregatedElementsIterable(final Iterable<? extends Element> input, final Schema schema, final View view,
+                                      final FederatedStoreProperties properties) {
+        this(input, schema, view, properties.getAggregationMaxElementsInMemory(),
+                properties.getAggregationPartitions(), properties.getAggregationSpillDir());
+    }
+
+    /**
+     * @param input               the elements to aggregate
+     * @param schema              the schema containing the aggregators and groupBy properties to use
+     * @param view                the view containing the aggregators and groupBy properties to use, if null
+     *                            or empty all the groups in the schema are aggregated using the schema
+     * @param maxElementsInMemory the maximum number of aggregated elements to hold in memory
+     * @param numberOfPartitions  the number of partitions the elements are hashed into
+     * @param spillDir            the directory to spill partitions into, if null the default temporary
+     *                            directory is used
+     */
+    public AggregatedElementsIterable(final Iterable<? extends Element> input, final Schema schema, final View view,
+                                      final int maxElementsInMemory, final int numberOfPartitions, final String spillDir) {
+        if (null == schema) {
+            throw new IllegalArgumentException("Schema is required");
+        }
+        if (maxElementsInMemory < 1) {
+            throw new IllegalArgumentException("The maximum number of elements in memory must be at least 1.");
+        }
+        if (numberOfPartitions < 1) {
+            throw new IllegalArgumentException("The number of partitions must be at least 1.");
+        }
+        this.input = input;
+        this.schema = schema;
+        this.view = null == view || view.getGroups().isEmpty()
+                ? new View.Builder().entities(schema.getEntityGroups()).edges(schema.getEdgeGroups()).build()
+                : view;
+        this.maxElementsInMemory = maxElementsInMemory;
+        this.numberOfPartitions = numberOfPartitions;
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * Creates the view to send to each sub-graph when the results are
+     * aggregated across the sub-graphs. It keeps the pre aggregation filters,
+     * aggregators and groupBy properties of the given view, but not the post
+     * aggregation filters, transformers or post transform filters, and it
+     * does not restrict the properties returned, so that all the properties
+     * are available to be aggregated, filtered and transformed.
+     *
+     * @param view the view of the federated operation
+     * @return the view for the sub-graphs, or null if the given view is null
+     */
+    public static View getViewForGraphs(final View view) {
+        if (null == view) {
+            return null;
+        }
+        final View.Builder builder = new View.Builder();
+        for (final String group : view.getEntityGroups()) {
+            builder.entity(group, getElementDefinitionForGraphs(view.getEntity(group)));
+        }
+        for (final String group : view.getEdgeGroups()) {
+            builder.edge(group, getElementDefinitionForGraphs(view.getEdge(group)));
+        }
+        return builder.build();
+    }
+
+    private static ViewElementDefinition getElementDefinitionForGraphs(final ViewElementDefinition elementDef) {
+        final ViewElementDefinition.Builder builder = new ViewElementDefinition.Builder()
+                .preAggregationFilter(elementDef.getPreAggregationFilter())
+                .aggregator(elementDef.getAggregator());
+        if (null != elementDef.getGroupBy()) {
+            builder.groupBy(elementDef.getGroupBy().toArray(new String[elementDef.getGroupBy().size()]));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void close() {
+        CloseableUtil.close(input);
+    }
+
+    @Override
+    public CloseableIterator<Element> iterator() {
+        return new AggregatingIterator();
+    }
+
+    private final class AggregatingIterator implements CloseableIterator<Element> {
+        private final Function<Element, Element> toKey = new AggregatorUtil.ToQueryElementKey(schema, view);
+        private final BinaryOperator<Element> aggregator = new AggregatorUtil.QueryElementBinaryOperator(schema, view);
+        private final Collection<String> aggregatedGroups = schema.getAggregatedGroups();
+        private final Deque<Spill> spills = new ArrayDeque<>();
+        private Iterator<? extends Element> inputItr;
+        private Partitions partitions = new Partitions(0);
+        private Iterator<Element> output;
+        private Element nextElement;
+
+        private AggregatingIterator() {
+            inputItr = null == input ? null : input.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (null == nextElement) {
+                if (null != inputItr) {
+                    if (inputItr.hasNext()) {
+                        final Element element = inputItr.next();
+                        if (isAggregated(element)) {
+                            partitions.add(element);
+                        } else if (null != element) {
+                            nextElement = applyView(element);
+                        }
+                        continue;
+                    }
+                    CloseableUtil.close(inputItr);
+                    inputItr = null;
+                    finishPartitions();
+                } else if (null != output && output.hasNext()) {
+                    nextElement = applyView(output.next());
+                } else if (!spills.isEmpty()) {
+                    final Spill spill = spills.pop();
+                    partitions = new Partitions(spill.depth + 1);
+                    spill.readInto(partitions);
+                    finishPartitions();
+                } else {
+                    close();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Element next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Element element = nextElement;
+            nextElement = null;
+            return element;
+        }
+
+        @Override
+        public void close() {
+            CloseableUtil.close(inputItr);
+            inputItr = null;
+            output = null;
+            if (null != partitions) {
+                partitions.deleteSpills();
+                partitions = null;
+            }
+            for (final Spill spill : spills) {
+                spill.delete();
+            }
+            spills.clear();
+        }
+
+        /**
+         * Applies the parts of the view that were not applied by the
+         * sub-graphs to an element.
+         *
+         * @param element the aggregated element
+         * @return the element, or null if it does not pass the filters
+         */
+        private Element applyView(final Element element) {
+            final ViewElementDefinition elementDef = view.getElement(element.getGroup());
+            if (null == elementDef) {
+                return element;
+            }
+            if (null != elementDef.getPostAggregationFilter() && !elementDef.getPostAggregationFilter().test(element)) {
+                return null;
+            }
+            if (null != elementDef.getTransformer()) {
+                elementDef.getTransformer().apply(element);
+            }
+            if (null != elementDef.getPostTransformFilter() && !elementDef.getPostTransformFilter().test(element)) {
+                return null;
+            }
+            ViewUtil.removeProperties(elementDef, element);
+            return element;
+        }
+
+        private boolean isAggregated(final Element element) {
+            return null != element && aggregatedGroups.contains(element.getGroup())
+                    && null != view.getElement(element.getGroup());
+        }
+
+        private void finishPartitions() {
+            final List<Spill> newSpills = partitions.finish();
+            for (int i = newSpills.size() - 1; i >= 0; i--) {
+                // Process the spills depth first so as few files as possible exist at once
+                spills.push(newSpills.get(i));
+            }
+            output = partitions.values().iterator();
+            partitions = null;
+        }
+
+        /**
+         * The hash partitions of the aggregated elements for one pass over
+         * the input or over a spilled partition.
+         */
+        private final class Partitions {
+            private final int depth;
+            private final List<Map<Element, Element>> inMemory = new ArrayList<>(numberOfPartitions);
+            private final Spill[] spilled = new Spill[numberOfPartitions];
+            private int elementsInMemory;
+            private boolean warned;
+
+            private Partitions(final int depth) {
+                this.depth = depth;
+                for (int i = 0; i < numberOfPartitions; i++) {
+                    inMemory.add(new HashMap<>());
+                }
+            }
+
+            private void add(final Element element) {
+                final Element key = toKey.apply(element);
+                final int partition = getPartition(key);
+                if (null != spilled[partition]) {
+                    spilled[partition].write(element);
+                    return;
+                }
+                final Map<Element, Element> map = inMemory.get(partition);
+                final int size = map.size();
+                map.merge(key, element, aggregator);
+                elementsInMemory += map.size() - size;
+                if (elementsInMemory > maxElementsInMemory) {
+                    if (depth < MAX_DEPTH) {
+                        spillLargestPartition();
+                    } else if (!warned) {
+                        warned = true;
+                        LOGGER.warn("More than {} aggregated elements are held in memory after re-partitioning a spilled "
+                                + "partition {} times, the remaining elements in the partition will be aggregated in memory",
+                                maxElementsInMemory, MAX_DEPTH);
+                    }
+                }
+            }
+
+            private void spillLargestPartition() {
+                int largest = -1;
+                for (int i = 0; i < numberOfPartitions; i++) {
+                    if (null == spilled[i] && (-1 == largest || inMemory.get(i).size() > inMemory.get(largest).size())) {
+                        largest = i;
+                    }
+                }
+                if (-1 == largest) {
+                    return;
+                }
+                final Spill spill = new Spill(depth);
+                for (final Element element : inMemory.get(largest).values()) {
+                    spill.write(element);
+                }
+                spilled[largest] = spill;
+                elementsInMemory -= inMemory.get(largest).size();
+                inMemory.get(largest).clear();
+            }
+
+            private int getPartition(final Element key) {
+                // Mix the hash with the depth so a spilled partition is split differently when it is read back
+                int hash = key.hashCode() ^ (depth * 0x9E3779B9);
+                hash ^= hash >>> 16;
+                hash *= 0x85EBCA6B;
+                hash ^= hash >>> 13;
+                return Math.floorMod(hash, numberOfPartitions);
+            }
+
+            private List<Spill> finish() {
+                final List<Spill> finished = new ArrayList<>();
+                for (final Spill spill : spilled) {
+                    if (null != spill) {
+                        spill.finishWriting();
+                        finished.add(spill);
+                    }
+                }
+                return finished;
+            }
+
+            private List<Element> values() {
+                final List<Element> values = new ArrayList<>(elementsInMemory);
+                for (final Map<Element, Element> map : inMemory) {
+                    values.addAll(map.values());
+                }
+                return values;
+            }
+
+            private void deleteSpills() {
+                for (final Spill spill : spilled) {
+                    if (null != spill) {
+                        spill.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A partition that has been spilled to an {@link ElementSpillFile}.
+     */
+    private final class Spill {
+        private final int depth;
+        private final ElementSpillFile file;
+
+        private Spill(final int depth) {
+            this.depth = depth;
+            this.file = new ElementSpillFile(schema, spillDir, "federatedAggregation");
+        }
+
+        private void write(final Element element) {
+            file.add(element);
+        }
+
+        private void finishWriting() {
+            file.finishWriting();
+        }
+
+        private void readInto(final AggregatingIterator.Partitions partitions) {
+            try (final CloseableIterator<Element> itr = file.iterator()) {
+                while (itr.hasNext()) {
+                    partitions.add(itr.next());
+                }
+            } finally {
+                delete();
+            }
+        }
+
+        private void delete() {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.operation.handler;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.serialiser.ElementStreamSerialiser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * A temporary file that elements are written to, so that they can be read
+ * back, as many times as required, without holding them in memory.
+ * <p>
+ * If the {@link Schema} has a {@link uk.gov.gchq.gaffer.serialisation.ToBytesSerialiser}
+ * for the vertex and every property, the elements are written with an
+ * {@link ElementStreamSerialiser}. Otherwise each element is written as its
+ * length followed by its JSON serialised form.
+ * <p>
+ * All the elements must be written and {@link #finishWriting()} called
+ * before the file is iterated. Closing the iterable does not delete the file,
+ * so it can be passed to operations that close their input, {@link #delete()}
+ * must be called once it is no longer needed.
+ */
+public class ElementSpillFile implements CloseableIterable<Element> {
+    private final File file;
+    private final ElementStreamSerialiser serialiser;
+    private DataOutputStream out;
+    private ElementStreamSerialiser.ElementWriter writer;
+    private boolean finished;
+
+    /**
+     * @param schema   the schema of the elements
+     * @param spillDir the directory to create the file in, if null the default temporary directory is used
+     * @param prefix   the prefix of the file name
+     */
+    public ElementSpillFile(final Schema schema, final String spillDir, final String prefix) {
+        serialiser = ElementStreamSerialiser.canSerialise(schema) ? new ElementStreamSerialiser(schema) : null;
+        try {
+            file = File.createTempFile(prefix, ".spill", null == spillDir ? null : new File(spillDir));
+            file.deleteOnExit();
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            if (null != serialiser) {
+                writer = serialiser.writer(out);
+            }
+        } catch (final IOException e) {
+            delete();
+            throw new RuntimeException("Unable to create a file to spill elements to", e);
+        }
+    }
+
+    public void add(final Element element) {
+        if (finished) {
+            throw new IllegalStateException("Elements can not be added to " + file + " once it has been finished");
+        }
+        try {
+            if (null != writer) {
+                writer.write(element);
+            } else {
+                final byte[] bytes = JSONSerialiser.serialise(element);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to spill elements to " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public void finishWriting() {
+        if (!finished) {
+            finished = true;
+            try {
+                if (null != writer) {
+                    writer.finish();
+                }
+            } catch (final SerialisationException e) {
+                throw new RuntimeException("Unable to spill elements to " + file + ": " + e.getMessage(), e);
+            } finally {
+                CloseableUtil.close(out);
+                out = null;
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Deletes the file. It can not be iterated afterwards.
+     */
+    public void delete() {
+        CloseableUtil.close(out);
+        out = null;
+        writer = null;
+        finished = true;
+        if (null != file && !file.delete() && file.exists()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Override
+    public void close() {
+        // The file is only deleted by delete(), so that it can be iterated again
+    }
+
+    @Override
+    public CloseableIterator<Element> iterator() {
+        if (!finished) {
+            throw new IllegalStateException("The spilled elements can not be read until they have all been written");
+        }
+        final FileInputStream input;
+        try {
+            input = new FileInputStream(file);
+        } catch (final FileNotFoundException e) {
+            throw new RuntimeException("Unable to read spilled elements from " + file, e);
+        }
+        if (null != serialiser) {
+            return serialiser.deserialise(input).iterator();
+        }
+        return new JsonIterator(new DataInputStream(new BufferedInputStream(input)));
+    }
+
+    private final class JsonIterator implements CloseableIterator<Element> {
+        private final DataInputStream in;
+        private Element nextElement;
+        private boolean closed;
+
+        private JsonIterator(final DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null == nextElement && !closed) {
+                try {
+                    final int length;
+                    try {
+                        length = in.readInt();
+                    } catch (final EOFException e) {
+                        close();
+                        return false;
+                    }
+                    final byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    nextElement = JSONSerialiser.deserialise(bytes, Element.class);
+                } catch (final SerialisationException e) {
+                    close();
+                    throw new RuntimeException("Unable to deserialise spilled elements from " + file, e);
+                } catch (final IOException e) {
+                    close();
+                    throw new RuntimeException("Unable to read spilled elements from " + file, e);
+                }
+            }
+            return null != nextElement;
+        }
+
+        @Override
+        public Element next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Element element = nextElement;
+            nextElement = null;
+            return element;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            CloseableUtil.close(in);
+        }
+    }
+}
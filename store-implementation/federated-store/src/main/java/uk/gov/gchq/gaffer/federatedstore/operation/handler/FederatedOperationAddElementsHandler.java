@@ -21,15 +21,33 @@ import com.google.common.collect.Iterables;
 
 import uk.gov.gchq.gaffer.data.element.Element;
 import uk.gov.gchq.gaffer.federatedstore.FederatedStore;
+import uk.gov.gchq.gaffer.federatedstore.FederatedStoreProperties;
+import uk.gov.gchq.gaffer.federatedstore.routing.VertexPartition;
 import uk.gov.gchq.gaffer.graph.Graph;
 import uk.gov.gchq.gaffer.operation.OperationException;
 import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
 import uk.gov.gchq.gaffer.store.Context;
 import uk.gov.gchq.gaffer.store.Store;
+import uk.gov.gchq.gaffer.store.StoreProperties;
 import uk.gov.gchq.gaffer.store.operation.handler.OperationHandler;
+import uk.gov.gchq.gaffer.user.User;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_GRAPH_IDS;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE;
@@ -44,39 +62,202 @@ import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_SKIP
  * <li> If no sub-graphs have knowledge of the elements edge/entity group name.
  * <li> isSkipInvalidElements flag is false.
  * </ul>
+ * <p>
+ * When there is more than one graph the input is only read once, so it may be
+ * a one-shot stream. Each element is routed by its group to a bounded queue per
+ * graph and the AddElements operations on the graphs are executed concurrently
+ * on the {@link FederatedStore#getAddElementsExecutorService()} pool, each
+ * reading the elements from its own queue.
+ * <p>
+ * Some stores iterate the input of an AddElements operation more than once, so
+ * can not read their elements from a queue. The graphs backed by the store
+ * classes in {@link FederatedStoreProperties#ADD_ELEMENTS_REITERABLE_INPUT_STORES}
+ * are executed one after the other, once the other graphs have finished. If
+ * the input is a collection they are sent the input itself, otherwise their
+ * elements are written to an {@link ElementSpillFile} whilst the input is
+ * routed and they are sent the spilled elements.
+ * <p>
+ * If a graph has a {@link VertexPartition}, it is only sent the elements
+ * that are held in its partition.
  *
  * @see OperationHandler
  * @see FederatedStore
  * @see AddElements
  */
 public class FederatedOperationAddElementsHandler implements OperationHandler<AddElements> {
+    private static final long POLL_INTERVAL_MILLIS = 100L;
+
     public Object doOperation(final AddElements addElements, final Context context, final Store store) throws OperationException {
+        final FederatedStore federatedStore = (FederatedStore) store;
         final Set<String> allGroups = store.getSchema().getGroups();
-        final Collection<Graph> graphs = ((FederatedStore) store).getGraphs(context.getUser(), addElements.getOption(KEY_OPERATION_OPTIONS_GRAPH_IDS));
+        final Collection<Graph> graphs = federatedStore.getGraphs(context.getUser(), addElements.getOption(KEY_OPERATION_OPTIONS_GRAPH_IDS));
+        final boolean skipFailed = Boolean.valueOf(addElements.getOption(KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE));
 
+        final Set<String> reIterableInputStores = getReIterableInputStores(federatedStore);
+        final List<Graph> queuedGraphs = new ArrayList<>(graphs.size());
+        final List<Graph> reIterableInputGraphs = new ArrayList<>();
+        final Set<String> reIterableInputGroups = new HashSet<>();
         for (final Graph graph : graphs) {
-            final Set<String> graphGroups = graph.getSchema().getGroups();
-            final Iterable<? extends Element> retain = Iterables.filter(
-                    addElements.getInput(),
-                    forUnknownGroupSkipForGraphButThrowForWholeStore(
-                            graphGroups,
-                            allGroups,
-                            addElements.isSkipInvalidElements()
-                    )
-            );
-            try {
-                final AddElements addElementsClone = addElements.shallowClone();
-                addElementsClone.setInput(retain);
-                graph.execute(addElementsClone, context.getUser());
-            } catch (final Exception e) {
-                if (!Boolean.valueOf(addElements.getOption(KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE))) {
-                    throw new OperationException("Graph failed to execute operation. Graph: " + graph.getGraphId() + " Operation: " + addElements.getClass().getSimpleName(), e);
-                }
+            if (reIterableInputStores.contains(getStoreClass(graph))) {
+                reIterableInputGraphs.add(graph);
+                reIterableInputGroups.addAll(graph.getSchema().getGroups());
+            } else {
+                queuedGraphs.add(graph);
+            }
+        }
+
+        final Iterable<? extends Element> input = addElements.getInput();
+        ElementSpillFile spill = null;
+        try {
+            if (null != input && !(input instanceof Collection) && !reIterableInputGraphs.isEmpty()
+                    && (!queuedGraphs.isEmpty() || reIterableInputGraphs.size() > 1)) {
+                // The input may only be iterable once, but it is needed by more than one graph
+                spill = new ElementSpillFile(store.getSchema(), getSpillDir(federatedStore), "federatedAddElements");
+            }
+
+            if (queuedGraphs.size() == 1 && null == spill) {
+                addElementsToGraph(addElements, input, context.getUser(), federatedStore, queuedGraphs.get(0), allGroups, skipFailed);
+            } else if (!queuedGraphs.isEmpty() || null != spill) {
+                addElementsToGraphs(addElements, context.getUser(), federatedStore, queuedGraphs, spill, reIterableInputGroups, allGroups, skipFailed);
+            }
+
+            final Iterable<? extends Element> reIterableInput = null != spill ? spill : input;
+            for (final Graph graph : reIterableInputGraphs) {
+                addElementsToGraph(addElements, reIterableInput, context.getUser(), federatedStore, graph, allGroups, skipFailed);
+            }
+        } finally {
+            if (null != spill) {
+                spill.delete();
             }
         }
         return null;
     }
 
+    private void addElementsToGraph(final AddElements addElements, final Iterable<? extends Element> input, final User user,
+                                    final FederatedStore store, final Graph graph, final Set<String> allGroups,
+                                    final boolean skipFailed) throws OperationException {
+        final Set<String> graphGroups = graph.getSchema().getGroups();
+        final VertexPartition partition = store.getGraphPartition(graph.getGraphId());
+        final Predicate<Element> groupFilter = forUnknownGroupSkipForGraphButThrowForWholeStore(
+                graphGroups,
+                allGroups,
+                addElements.isSkipInvalidElements()
+        );
+        final Iterable<? extends Element> retain = null == input ? null : Iterables.filter(
+                input,
+                element -> groupFilter.apply(element) && (null == partition || partition.mightContain(element))
+        );
+        try {
+            final AddElements addElementsClone = addElements.shallowClone();
+            addElementsClone.setInput(retain);
+            graph.execute(addElementsClone, user);
+        } catch (final Exception e) {
+            if (!skipFailed) {
+                throw getGraphFailedException(graph, addElements, e);
+            }
+        }
+    }
+
+    private void addElementsToGraphs(final AddElements addElements, final User user, final FederatedStore store,
+                                     final Collection<Graph> graphs, final ElementSpillFile spill, final Set<String> spillGroups,
+                                     final Set<String> allGroups, final boolean skipFailed) throws OperationException {
+        final int queueSize = getQueueSize(store);
+        final List<GraphIngest> ingests = new ArrayList<>(graphs.size());
+        for (final Graph graph : graphs) {
+            ingests.add(new GraphIngest(graph, store.getGraphPartition(graph.getGraphId()), addElements, user, queueSize));
+        }
+
+        try {
+            for (final GraphIngest ingest : ingests) {
+                ingest.start(store.getAddElementsExecutorService());
+            }
+            if (null != addElements.getInput()) {
+                for (final Element element : addElements.getInput()) {
+                    route(element, ingests, allGroups, addElements.isSkipInvalidElements(), skipFailed);
+                    if (null != spill && null != element && spillGroups.contains(element.getGroup())) {
+                        spill.add(element);
+                    }
+                }
+            }
+            if (null != spill) {
+                spill.finishWriting();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(ingests);
+            throw new OperationException("Interrupted whilst adding elements to the graphs", e);
+        } catch (final GraphFailedException e) {
+            abort(ingests);
+            throw getGraphFailedException(e.ingest.graph, addElements, e.ingest.getFailure());
+        } catch (final RuntimeException e) {
+            abort(ingests);
+            throw new OperationException("Failed to add elements to the graphs: " + e.getMessage(), e);
+        }
+
+        for (final GraphIngest ingest : ingests) {
+            ingest.finish();
+        }
+        for (final GraphIngest ingest : ingests) {
+            final Throwable failure = ingest.getFailure();
+            if (null != failure && !skipFailed) {
+                abort(ingests);
+                throw getGraphFailedException(ingest.graph, addElements, failure);
+            }
+        }
+    }
+
+    private void route(final Element element, final List<GraphIngest> ingests, final Set<String> allGroups,
+                       final boolean skipInvalidElements, final boolean skipFailed) throws InterruptedException {
+        final String elementGroup = null != element ? element.getGroup() : null;
+        boolean routed = false;
+        for (final GraphIngest ingest : ingests) {
+            if (ingest.groups.contains(elementGroup)) {
+                routed = true;
+                if (null != ingest.partition && !ingest.partition.mightContain(element)) {
+                    continue;
+                }
+                if (!ingest.add(element) && !skipFailed) {
+                    throw new GraphFailedException(ingest);
+                }
+            }
+        }
+        if (!routed && !allGroups.contains(elementGroup) && !skipInvalidElements) {
+            throw new IllegalArgumentException("Element has an unknown group: " + element);
+        }
+    }
+
+    private void abort(final List<GraphIngest> ingests) {
+        for (final GraphIngest ingest : ingests) {
+            ingest.abort();
+        }
+    }
+
+    private int getQueueSize(final FederatedStore store) {
+        final FederatedStoreProperties properties = store.getProperties();
+        return null != properties
+                ? properties.getAddElementsQueueSize()
+                : Integer.parseInt(FederatedStoreProperties.ADD_ELEMENTS_QUEUE_SIZE_DEFAULT);
+    }
+
+    private Set<String> getReIterableInputStores(final FederatedStore store) {
+        final FederatedStoreProperties properties = store.getProperties();
+        return null != properties ? properties.getAddElementsReIterableInputStores() : Collections.emptySet();
+    }
+
+    private String getSpillDir(final FederatedStore store) {
+        final FederatedStoreProperties properties = store.getProperties();
+        return null != properties ? properties.getAddElementsSpillDir() : FederatedStoreProperties.ADD_ELEMENTS_SPILL_DIR_DEFAULT;
+    }
+
+    private String getStoreClass(final Graph graph) {
+        final StoreProperties properties = graph.getStoreProperties();
+        return null != properties ? properties.getStoreClass() : null;
+    }
+
+    private OperationException getGraphFailedException(final Graph graph, final AddElements addElements, final Throwable cause) {
+        return new OperationException("Graph failed to execute operation. Graph: " + graph.getGraphId() + " Operation: " + addElements.getClass().getSimpleName(), cause);
+    }
+
     private Predicate<Element> forUnknownGroupSkipForGraphButThrowForWholeStore(final Set<String> graphGroups, final Set<String> allGroups, final boolean skipInvalidElements) {
         return element -> {
             String elementGroup = null != element ? element.getGroup() : null;
@@ -89,4 +270,139 @@ public class FederatedOperationAddElementsHandler implements OperationHandler<Ad
             return graphContainsGroup;
         };
     }
+
+    /**
+     * The AddElements operation for a single graph, executed on the add
+     * elements executor of the FederatedStore, which starts it straight
+     * away, so the elements can be routed to it through a bounded queue.
+     * The elements are read from the queue, so they can only be iterated once.
+     */
+    private static final class GraphIngest implements Iterable<Element> {
+        private final Graph graph;
+        private final Set<String> groups;
+        private final VertexPartition partition;
+        private final BlockingQueue<Element> queue;
+        private final FutureTask<Void> task;
+        private volatile boolean inputFinished;
+        private volatile boolean aborted;
+        private boolean iterated;
+
+        private GraphIngest(final Graph graph, final VertexPartition partition, final AddElements addElements, final User user, final int queueSize) {
+            this.graph = graph;
+            this.groups = graph.getSchema().getGroups();
+            this.partition = partition;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            final AddElements addElementsClone = addElements.shallowClone();
+            addElementsClone.setInput(this);
+            this.task = new FutureTask<>(() -> {
+                graph.execute(addElementsClone, user);
+                return null;
+            });
+        }
+
+        private void start(final ExecutorService executorService) {
+            if (null == executorService) {
+                throw new IllegalStateException("The FederatedStore has not been initialised");
+            }
+            try {
+                executorService.execute(task);
+            } catch (final RejectedExecutionException e) {
+                throw new IllegalStateException("Unable to start adding elements to graph " + graph.getGraphId(), e);
+            }
+        }
+
+        /**
+         * @param element the element to add to the graph
+         * @return false if the graph has stopped reading its elements
+         * @throws InterruptedException if interrupted whilst the queue is full
+         */
+        private boolean add(final Element element) throws InterruptedException {
+            while (!task.isDone()) {
+                if (queue.offer(element, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void finish() {
+            inputFinished = true;
+        }
+
+        private void abort() {
+            aborted = true;
+            task.cancel(false);
+            queue.clear();
+        }
+
+        private Throwable getFailure() {
+            try {
+                task.get();
+                return null;
+            } catch (final ExecutionException e) {
+                return e.getCause();
+            } catch (final CancellationException e) {
+                return e;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return e;
+            }
+        }
+
+        @Override
+        public Iterator<Element> iterator() {
+            if (iterated) {
+                throw new IllegalStateException("The elements for graph " + graph.getGraphId() + " can only be iterated once."
+                        + " If its store needs to iterate them again, add its store class to "
+                        + FederatedStoreProperties.ADD_ELEMENTS_REITERABLE_INPUT_STORES);
+            }
+            iterated = true;
+            return new Iterator<Element>() {
+                private Element nextElement;
+
+                @Override
+                public boolean hasNext() {
+                    while (null == nextElement) {
+                        if (aborted) {
+                            throw new IllegalStateException("Adding elements to graph " + graph.getGraphId() + " was aborted");
+                        }
+                        // Check the input has finished before polling, so no elements can be missed
+                        final boolean finished = inputFinished;
+                        try {
+                            nextElement = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException("Interrupted whilst waiting for elements to add to graph " + graph.getGraphId(), e);
+                        }
+                        if (null == nextElement && finished) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public Element next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final Element element = nextElement;
+                    nextElement = null;
+                    return element;
+                }
+            };
+        }
+    }
+
+    /**
+     * Thrown whilst routing the elements when a graph has failed.
+     */
+    private static final class GraphFailedException extends RuntimeException {
+        private static final long serialVersionUID = -4398410839462785362L;
+        private final transient GraphIngest ingest;
+
+        private GraphFailedException(final GraphIngest ingest) {
+            this.ingest = ingest;
+        }
+    }
 }
@@ -16,9 +16,14 @@
 
 package uk.gov.gchq.gaffer.federatedstore.operation.handler;
 
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
 import uk.gov.gchq.gaffer.federatedstore.FederatedStore;
 import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.operation.OperationChain;
 import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.operation.graph.OperationView;
+import uk.gov.gchq.gaffer.operation.impl.Limit;
 import uk.gov.gchq.gaffer.operation.io.Output;
 import uk.gov.gchq.gaffer.store.Context;
 import uk.gov.gchq.gaffer.store.Store;
@@ -26,13 +31,42 @@ import uk.gov.gchq.gaffer.store.operation.handler.OutputOperationHandler;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_AGGREGATE;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_GRAPH_IDS;
+import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_RESULT_LIMIT;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE;
 
 /**
  * A abstract handler for Operations with output for FederatedStore
+ * <p>
+ * The operation is dispatched to all of the sub-graphs at once, using the
+ * {@link FederatedStore#getGraphExecutorService()} pool, and the results are
+ * collected as each sub-graph finishes, so a failure is reported without
+ * waiting for the sub-graphs before it. If the pool has not started the
+ * execution for a sub-graph by the time the calling thread has nothing else
+ * to wait for, the calling thread runs it instead. All of the sub-graphs
+ * together have up to {@link FederatedStore#getGraphExecutorTimeout()}
+ * milliseconds from when the operation was dispatched to return their
+ * results, including those run by the calling thread, which is interrupted,
+ * using {@link FederatedStore#getGraphTimeoutScheduler()}, if the deadline
+ * passes. If the operation fails, the results already returned by the other
+ * sub-graphs are closed.
  *
  * @see uk.gov.gchq.gaffer.store.operation.handler.OperationHandler
  * @see uk.gov.gchq.gaffer.federatedstore.FederatedStore
@@ -43,31 +77,281 @@ public abstract class FederatedOperationOutputHandler<OP extends Output<O>, O> i
 
     @Override
     public O doOperation(final OP operation, final Context context, final Store store) throws OperationException {
-        final Collection<Graph> graphs = ((FederatedStore) store).getGraphs(context.getUser(), operation.getOption(KEY_OPERATION_OPTIONS_GRAPH_IDS));
-        final List<O> results = new ArrayList<>(graphs.size());
+        final FederatedStore federatedStore = (FederatedStore) store;
+        final Collection<Graph> graphs = federatedStore.getGraphs(context.getUser(), operation.getOption(KEY_OPERATION_OPTIONS_GRAPH_IDS));
+        final List<GraphExecution> executions = new ArrayList<>(graphs.size());
+        final BlockingQueue<GraphExecution> completed = new LinkedBlockingQueue<>();
+        final ExecutorService executorService = federatedStore.getGraphExecutorService();
+        boolean isRoutedAway = false;
+        final OP graphsOperation = getOperationForGraphs(operation);
+        final Map<String, List<Object>> graphSeeds = federatedStore.getSeedsForGraphs(graphsOperation, graphs);
         for (final Graph graph : graphs) {
-            final OP updatedOp = FederatedStore.updateOperationForGraph(operation, graph);
+            OP updatedOp = FederatedStore.updateOperationForGraph(graphsOperation, graph);
             if (null != updatedOp) {
-                O execute = null;
+                updatedOp = FederatedStore.updateOperationSeedsForGraph(updatedOp, graphSeeds.get(graph.getGraphId()));
+                isRoutedAway |= null == updatedOp;
+            }
+            if (null != updatedOp) {
+                final GraphExecution execution = new GraphExecution(executions.size(), graph, updatedOp, context, completed);
+                if (null != executorService) {
+                    try {
+                        executorService.execute(execution);
+                    } catch (final RejectedExecutionException e) {
+                        // The execution will be run in this thread
+                    }
+                }
+                executions.add(execution);
+            }
+        }
+        if (executions.isEmpty() && isRoutedAway) {
+            // None of the graphs can contain any of the seeds
+            return getEmptyResult(operation);
+        }
+
+        final long timeout = federatedStore.getGraphExecutorTimeout();
+        final long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        // The results are kept in graph order, whatever order the graphs finish in
+        final List<O> results = new ArrayList<>(Collections.nCopies(executions.size(), null));
+        try {
+            for (int remaining = executions.size(); remaining > 0; remaining--) {
+                final GraphExecution execution = awaitNext(executions, completed, deadline, federatedStore.getGraphTimeoutScheduler());
                 try {
-                    execute = graph.execute(updatedOp, context.getUser());
+                    results.set(execution.index, execution.getResult());
                 } catch (final Exception e) {
-                    if (!Boolean.valueOf(updatedOp.getOption(KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE))) {
+                    if (!Boolean.valueOf(execution.operation.getOption(KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE))) {
                         final String additionalInfo = String.format("set the skip and continue flag: %s for operation: %s",
                                 KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE,
                                 operation.getClass().getSimpleName());
 
                         throw new OperationException(String.format("Failed to execute %s on graph %s.%n%s",
-                                operation.getClass().getSimpleName(), graph.getGraphId(), additionalInfo), e);
+                                operation.getClass().getSimpleName(), execution.graph.getGraphId(), additionalInfo), e);
                     }
                 }
-                if (null != execute) {
-                    results.add(execute);
-                }
             }
+        } catch (final OperationException | RuntimeException e) {
+            for (final GraphExecution execution : executions) {
+                execution.cancel(true);
+                execution.closeResult();
+            }
+            throw e;
         }
+        results.removeIf(Objects::isNull);
         return mergeResults(results, operation, context, store);
     }
 
+    /**
+     * Waits for the next execution to finish. Whilst there are executions
+     * that the pool has not started, the calling thread runs them rather than
+     * waiting. Once the deadline has passed, the executions that have not
+     * finished are cancelled, so that they fail with a timeout.
+     */
+    private GraphExecution awaitNext(final List<GraphExecution> executions, final BlockingQueue<GraphExecution> completed,
+                                     final long deadline, final ScheduledExecutorService timeoutScheduler) throws OperationException {
+        try {
+            while (true) {
+                GraphExecution execution = completed.poll();
+                if (null != execution) {
+                    return execution;
+                }
+                if (runNextNotStarted(executions, deadline, timeoutScheduler)) {
+                    continue;
+                }
+                if (0 == deadline) {
+                    return completed.take();
+                }
+                execution = completed.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (null != execution) {
+                    return execution;
+                }
+                for (final GraphExecution timedOut : executions) {
+                    timedOut.cancel(true);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationException("Interrupted whilst waiting for the results of the sub-graphs", e);
+        }
+    }
+
     protected abstract O mergeResults(final List<O> results, final OP operation, final Context context, final Store store);
+
+    /**
+     * @param operation the operation
+     * @return the result of the operation when none of the graphs can
+     * contain any of its seeds
+     * @see FederatedStore#updateOperationSeedsForGraph(uk.gov.gchq.gaffer.operation.Operation, List)
+     */
+    protected O getEmptyResult(final OP operation) {
+        return null;
+    }
+
+    private boolean runNextNotStarted(final List<GraphExecution> executions, final long deadline,
+                                      final ScheduledExecutorService timeoutScheduler) {
+        for (final GraphExecution execution : executions) {
+            if (execution.tryStart()) {
+                execution.runInCallingThread(deadline, timeoutScheduler);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The execution of the operation on a single sub-graph. If the operation
+     * has the {@link uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants#KEY_OPERATION_OPTIONS_RESULT_LIMIT}
+     * option, a {@link Limit} is added after it so the sub-graph returns no
+     * more results than are needed. Once it is done it is added to the queue
+     * of completed executions.
+     */
+    private final class GraphExecution extends FutureTask<O> {
+        private final int index;
+        private final Graph graph;
+        private final OP operation;
+        private final BlockingQueue<GraphExecution> completed;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Object interruptLock = new Object();
+        private boolean runningInCallingThread;
+        private volatile boolean timedOut;
+
+        private GraphExecution(final int index, final Graph graph, final OP operation, final Context context,
+                               final BlockingQueue<GraphExecution> completed) {
+            super(() -> graph.execute(limitOperation(operation), context.getUser()));
+            this.index = index;
+            this.graph = graph;
+            this.operation = operation;
+            this.completed = completed;
+        }
+
+        @Override
+        public void run() {
+            if (tryStart()) {
+                super.run();
+            }
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+        }
+
+        private boolean tryStart() {
+            return started.compareAndSet(false, true);
+        }
+
+        /**
+         * Runs the execution in the calling thread, which has already started
+         * it using {@link #tryStart()}. If the deadline passes before it
+         * finishes, the calling thread is interrupted and the execution fails
+         * with a timeout.
+         *
+         * @param deadline         the time in milliseconds to finish by, or 0
+         *                         to run without a deadline
+         * @param timeoutScheduler used to interrupt the calling thread at the
+         *                         deadline, if null there is no deadline
+         */
+        private void runInCallingThread(final long deadline, final ScheduledExecutorService timeoutScheduler) {
+            if (0 == deadline || null == timeoutScheduler) {
+                super.run();
+                return;
+            }
+            final Thread caller = Thread.currentThread();
+            synchronized (interruptLock) {
+                runningInCallingThread = true;
+            }
+            ScheduledFuture<?> interrupt = null;
+            try {
+                interrupt = timeoutScheduler.schedule(() -> {
+                    synchronized (interruptLock) {
+                        if (runningInCallingThread) {
+                            timedOut = true;
+                            caller.interrupt();
+                        }
+                    }
+                }, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                // The execution is run without a deadline
+            }
+            try {
+                super.run();
+            } finally {
+                if (null != interrupt) {
+                    interrupt.cancel(false);
+                }
+                synchronized (interruptLock) {
+                    runningInCallingThread = false;
+                }
+                if (timedOut) {
+                    // Clear the interrupt so it does not affect the rest of the operation
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        /**
+         * @return the result of the execution, which must be done
+         * @throws Exception the exception thrown by the sub-graph, or a
+         *                   {@link TimeoutException} if the deadline passed
+         */
+        private O getResult() throws Exception {
+            if (timedOut || isCancelled()) {
+                // A sub-graph that ignored the interrupt may still have returned a result
+                closeResult();
+                throw new TimeoutException(String.format("Graph %s did not return a result within the timeout",
+                        graph.getGraphId()));
+            }
+            try {
+                return get();
+            } catch (final ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        /**
+         * Closes the result of the execution if it has already been returned.
+         */
+        private void closeResult() {
+            if (isDone() && !isCancelled()) {
+                try {
+                    CloseableUtil.close(get());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (final ExecutionException e) {
+                    // There is no result to close
+                }
+            }
+        }
+    }
+
+    /**
+     * When the results are aggregated across the sub-graphs, the parts of the
+     * view that must only be applied to the aggregated elements are removed
+     * from the operation sent to the sub-graphs, and are applied when the
+     * results are merged.
+     *
+     * @param operation the operation
+     * @param <OP>      the operation type
+     * @return the operation to send to the sub-graphs
+     * @see AggregatedElementsIterable#getViewForGraphs(View)
+     */
+    private static <OP extends Output<?>> OP getOperationForGraphs(final OP operation) {
+        if (!(operation instanceof OperationView) || !Boolean.valueOf(operation.getOption(KEY_OPERATION_OPTIONS_AGGREGATE))) {
+            return operation;
+        }
+        final View view = ((OperationView) operation).getView();
+        if (null == view) {
+            return operation;
+        }
+        final OP graphsOperation = (OP) operation.shallowClone();
+        ((OperationView) graphsOperation).setView(AggregatedElementsIterable.getViewForGraphs(view));
+        return graphsOperation;
+    }
+
+    private static <O> Output<O> limitOperation(final Output<O> operation) {
+        final String resultLimit = operation.getOption(KEY_OPERATION_OPTIONS_RESULT_LIMIT);
+        // Limiting each graph's results would leave the elements aggregated across graphs incomplete
+        if (null == resultLimit || Boolean.valueOf(operation.getOption(KEY_OPERATION_OPTIONS_AGGREGATE))) {
+            return operation;
+        }
+        return new OperationChain<>(operation, new Limit<>(Integer.parseInt(resultLimit), true));
+    }
 }
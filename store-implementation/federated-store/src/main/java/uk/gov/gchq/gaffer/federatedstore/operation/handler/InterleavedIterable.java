@@ -0,0 +1,292 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.operation.handler;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.commonutil.iterable.ChainedIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@code InterleavedIterable} is an iterable composed of the results of
+ * several sub-graphs.
+ * <p>
+ * Unlike a {@link ChainedIterable}, the child iterables are consumed
+ * concurrently, using the given {@link Executor}, and their items are returned
+ * in the order in which they arrive. At most {@code bufferSize} items are read
+ * ahead of the client, and when the iterator is closed, for example by a
+ * {@link uk.gov.gchq.gaffer.operation.impl.Limit} once it has enough results,
+ * the child iterators that it opened and are still being read are closed. The
+ * child iterables themselves are only closed when this iterable is closed, so
+ * it can be iterated again.
+ *
+ * @param <T> the type of items in the iterable.
+ */
+public class InterleavedIterable<T> implements CloseableIterable<T> {
+    public static final int DEFAULT_BUFFER_SIZE = 1000;
+    private static final long POLL_INTERVAL_MILLIS = 100L;
+    private static final Object FINISHED = new Object();
+    /**
+     * Stands in for null items, which can not be added to the queue.
+     */
+    private static final Object NULL_ITEM = new Object();
+
+    private final List<? extends Iterable<? extends T>> itrs;
+    private final Executor executor;
+    private final int bufferSize;
+
+    public InterleavedIterable(final List<? extends Iterable<? extends T>> itrs, final Executor executor) {
+        this(itrs, executor, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param itrs       the iterables to interleave
+     * @param executor   the executor used to read the iterables, if null they
+     *                   are read in the client's thread
+     * @param bufferSize the maximum number of items to read ahead of the client
+     */
+    public InterleavedIterable(final List<? extends Iterable<? extends T>> itrs, final Executor executor, final int bufferSize) {
+        if (null == itrs || itrs.isEmpty()) {
+            throw new IllegalArgumentException("At least 1 iterable is required.");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer size must be at least 1.");
+        }
+        this.itrs = itrs;
+        this.executor = null != executor ? executor : Runnable::run;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void close() {
+        for (final Iterable<? extends T> itr : itrs) {
+            CloseableUtil.close(itr);
+        }
+    }
+
+    @Override
+    public CloseableIterator<T> iterator() {
+        return new InterleavedIterator();
+    }
+
+    private final class InterleavedIterator implements CloseableIterator<T> {
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final List<Source> sources = new ArrayList<>(itrs.size());
+        private volatile boolean closed;
+        private int remainingSources;
+        private boolean hasNextItem;
+        private T nextItem;
+
+        private InterleavedIterator() {
+            for (final Iterable<? extends T> itr : itrs) {
+                sources.add(new Source(itr));
+            }
+            remainingSources = sources.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNextItem) {
+                return true;
+            }
+            while (remainingSources > 0 && !closed) {
+                resumeSources();
+                final Object item;
+                try {
+                    item = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new RuntimeException("Interrupted whilst waiting for the results of the sub-graphs", e);
+                }
+                if (null == item) {
+                    // Read any sources that are still waiting for a thread, so the client can not be starved of results
+                    for (final Source source : sources) {
+                        source.runIfPending();
+                    }
+                    continue;
+                }
+                if (FINISHED == item) {
+                    remainingSources--;
+                } else if (item instanceof Failure) {
+                    close();
+                    ((Failure) item).rethrow();
+                } else {
+                    buffered.decrementAndGet();
+                    nextItem = NULL_ITEM == item ? null : (T) item;
+                    hasNextItem = true;
+                    return true;
+                }
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T item = nextItem;
+            nextItem = null;
+            hasNextItem = false;
+            return item;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                for (final Source source : sources) {
+                    // Sources that are being read close themselves once they see the iterator is closed
+                    if (source.scheduled.compareAndSet(false, true)) {
+                        source.closeIterator();
+                    }
+                }
+                queue.clear();
+            }
+        }
+
+        private void resumeSources() {
+            for (final Source source : sources) {
+                if (buffered.get() >= bufferSize) {
+                    break;
+                }
+                source.schedule();
+            }
+        }
+
+        /**
+         * Reads one of the child iterables into the queue until the buffer is
+         * full, then stops until it is rescheduled by the client. If the
+         * executor has not started reading the source when the client runs out
+         * of results, the client reads it instead.
+         */
+        private final class Source implements Runnable {
+            private final Iterable<? extends T> iterable;
+            private final AtomicBoolean scheduled = new AtomicBoolean();
+            private final AtomicBoolean pending = new AtomicBoolean();
+            private volatile boolean finished;
+            private Iterator<? extends T> iterator;
+
+            private Source(final Iterable<? extends T> iterable) {
+                this.iterable = iterable;
+            }
+
+            private void schedule() {
+                if (!finished && !closed && scheduled.compareAndSet(false, true)) {
+                    pending.set(true);
+                    try {
+                        executor.execute(this);
+                    } catch (final RejectedExecutionException e) {
+                        runIfPending();
+                    }
+                }
+            }
+
+            @Override
+            public void run() {
+                runIfPending();
+            }
+
+            private void runIfPending() {
+                if (pending.compareAndSet(true, false)) {
+                    read();
+                }
+            }
+
+            private void read() {
+                if (closed) {
+                    closeIterator();
+                    return;
+                }
+                try {
+                    if (null == iterator) {
+                        iterator = iterable.iterator();
+                    }
+                    while (!closed && buffered.get() < bufferSize) {
+                        if (!iterator.hasNext()) {
+                            closeIterator();
+                            queue.add(FINISHED);
+                            return;
+                        }
+                        final T item = iterator.next();
+                        buffered.incrementAndGet();
+                        queue.add(null == item ? NULL_ITEM : item);
+                    }
+                    if (closed) {
+                        closeIterator();
+                        return;
+                    }
+                } catch (final Throwable e) {
+                    // Errors must also reach the client, otherwise it would wait forever for this source to finish
+                    closeIterator();
+                    queue.add(new Failure(e));
+                    return;
+                }
+                scheduled.set(false);
+                if (closed) {
+                    if (scheduled.compareAndSet(false, true)) {
+                        closeIterator();
+                    }
+                } else if (buffered.get() < bufferSize) {
+                    // The client drained the buffer before this source was descheduled
+                    schedule();
+                }
+            }
+
+            private void closeIterator() {
+                finished = true;
+                CloseableUtil.close(iterator);
+            }
+        }
+    }
+
+    /**
+     * An exception thrown whilst reading one of the child iterables.
+     */
+    private static final class Failure {
+        private final Throwable exception;
+
+        private Failure(final Throwable exception) {
+            this.exception = exception;
+        }
+
+        private void rethrow() {
+            if (exception instanceof RuntimeException) {
+                throw (RuntimeException) exception;
+            }
+            if (exception instanceof Error) {
+                throw (Error) exception;
+            }
+            throw new RuntimeException("Exception whilst reading the results of a sub-graph", exception);
+        }
+    }
+}
@@ -16,10 +16,12 @@
 
 package uk.gov.gchq.gaffer.federatedstore.operation.handler.impl;
 
-import uk.gov.gchq.gaffer.commonutil.iterable.ChainedIterable;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.WrappedCloseableIterable;
 import uk.gov.gchq.gaffer.data.element.id.EntityId;
+import uk.gov.gchq.gaffer.federatedstore.FederatedStore;
 import uk.gov.gchq.gaffer.federatedstore.operation.handler.FederatedOperationOutputHandler;
+import uk.gov.gchq.gaffer.federatedstore.operation.handler.InterleavedIterable;
 import uk.gov.gchq.gaffer.operation.impl.get.GetAdjacentIds;
 import uk.gov.gchq.gaffer.store.Context;
 import uk.gov.gchq.gaffer.store.Store;
@@ -36,11 +38,16 @@ import java.util.List;
 public class FederatedGetAdjacentIdsHandler extends FederatedOperationOutputHandler<GetAdjacentIds, CloseableIterable<? extends EntityId>> {
     @Override
     protected CloseableIterable<? extends EntityId> mergeResults(final List<CloseableIterable<? extends EntityId>> results, final GetAdjacentIds operation, final Context context, final Store store) {
-        // Concatenate all the results into 1 iterable
+        // Interleave all the results into 1 iterable, as they arrive from each graph
         if (results.isEmpty()) {
             throw new IllegalArgumentException(NO_RESULTS_TO_MERGE_ERROR);
         }
-        return new ChainedIterable<>(results.toArray(new Iterable[results.size()]));
+        return new InterleavedIterable<>(results, ((FederatedStore) store).getGraphExecutorService());
+    }
+
+    @Override
+    protected CloseableIterable<? extends EntityId> getEmptyResult(final GetAdjacentIds operation) {
+        return new WrappedCloseableIterable<>();
     }
 }
 
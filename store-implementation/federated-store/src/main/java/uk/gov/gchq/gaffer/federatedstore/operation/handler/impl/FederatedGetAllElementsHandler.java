@@ -16,16 +16,20 @@
 
 package uk.gov.gchq.gaffer.federatedstore.operation.handler.impl;
 
-import uk.gov.gchq.gaffer.commonutil.iterable.ChainedIterable;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
 import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.federatedstore.FederatedStore;
+import uk.gov.gchq.gaffer.federatedstore.operation.handler.AggregatedElementsIterable;
 import uk.gov.gchq.gaffer.federatedstore.operation.handler.FederatedOperationOutputHandler;
+import uk.gov.gchq.gaffer.federatedstore.operation.handler.InterleavedIterable;
 import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
 import uk.gov.gchq.gaffer.store.Context;
 import uk.gov.gchq.gaffer.store.Store;
 
 import java.util.List;
 
+import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_AGGREGATE;
+
 /**
  * A handler for GetAllElements operation for the FederatedStore.
  *
@@ -36,11 +40,17 @@ import java.util.List;
 public class FederatedGetAllElementsHandler extends FederatedOperationOutputHandler<GetAllElements, CloseableIterable<? extends Element>> {
     @Override
     protected CloseableIterable<? extends Element> mergeResults(final List<CloseableIterable<? extends Element>> results, final GetAllElements operation, final Context context, final Store store) {
-        // Concatenate all the results into 1 iterable
+        // Interleave all the results into 1 iterable, as they arrive from each graph
         if (results.isEmpty()) {
             throw new IllegalArgumentException(NO_RESULTS_TO_MERGE_ERROR);
         }
-        return new ChainedIterable<>(results.toArray(new Iterable[results.size()]));
+        final FederatedStore federatedStore = (FederatedStore) store;
+        final CloseableIterable<? extends Element> elements = new InterleavedIterable<>(results, federatedStore.getGraphExecutorService());
+        if (Boolean.valueOf(operation.getOption(KEY_OPERATION_OPTIONS_AGGREGATE))) {
+            // Aggregate elements with the same key from different graphs together
+            return new AggregatedElementsIterable(elements, federatedStore.getSchema(), operation.getView(), federatedStore.getProperties());
+        }
+        return elements;
     }
 
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.optimiser;
+
+import uk.gov.gchq.gaffer.operation.Operation;
+import uk.gov.gchq.gaffer.operation.OperationChain;
+import uk.gov.gchq.gaffer.operation.impl.Limit;
+import uk.gov.gchq.gaffer.store.optimiser.AbstractOperationChainOptimiser;
+
+import java.util.Collections;
+import java.util.List;
+
+import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_RESULT_LIMIT;
+
+/**
+ * Pushes a {@link Limit} down into the operation before it, by setting the
+ * {@link uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants#KEY_OPERATION_OPTIONS_RESULT_LIMIT}
+ * option, so that each sub-graph of the FederatedStore is asked for no more
+ * results than the Limit will return.
+ * <p>
+ * If the Limit does not truncate, one more result is requested from each
+ * sub-graph so that the Limit can still tell when it has been exceeded.
+ */
+public class FederatedLimitOptimiser extends AbstractOperationChainOptimiser {
+    @Override
+    protected List<Operation> addPreOperations(final Operation previousOp, final Operation currentOp) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected List<Operation> optimiseCurrentOperation(final Operation previousOp, final Operation currentOp, final Operation nextOp) {
+        if (nextOp instanceof Limit && !(currentOp instanceof OperationChain)) {
+            final Limit limit = (Limit) nextOp;
+            if (null != limit.getResultLimit()) {
+                int resultLimit = limit.getResultLimit();
+                if (Boolean.FALSE.equals(limit.getTruncate()) && resultLimit < Integer.MAX_VALUE) {
+                    resultLimit++;
+                }
+                final String existingLimit = currentOp.getOption(KEY_OPERATION_OPTIONS_RESULT_LIMIT);
+                if (null != existingLimit) {
+                    resultLimit = Math.min(resultLimit, Integer.parseInt(existingLimit));
+                }
+                currentOp.addOption(KEY_OPERATION_OPTIONS_RESULT_LIMIT, String.valueOf(resultLimit));
+            }
+        }
+        return Collections.singletonList(currentOp);
+    }
+
+    @Override
+    protected List<Operation> addPostOperations(final Operation currentOp, final Operation nextOp) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected List<Operation> optimiseAll(final List<Operation> ops) {
+        return ops;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.routing;
+
+/**
+ * A {@code HashVertexPartition} holds the vertices whose hash code, modulo the
+ * number of partitions, is equal to the partition number. Vertices must
+ * have a hash code that is stable across JVMs, such as a String or a Long.
+ */
+public class HashVertexPartition implements VertexPartition {
+    private final int partition;
+    private final int numberOfPartitions;
+
+    public HashVertexPartition(final int partition, final int numberOfPartitions) {
+        if (numberOfPartitions < 1) {
+            throw new IllegalArgumentException("The number of partitions must be at least 1.");
+        }
+        if (partition < 0 || partition >= numberOfPartitions) {
+            throw new IllegalArgumentException("The partition must be between 0 and " + (numberOfPartitions - 1) + ".");
+        }
+        this.partition = partition;
+        this.numberOfPartitions = numberOfPartitions;
+    }
+
+    @Override
+    public boolean mightContain(final Object vertex) {
+        return null == vertex || partition == Math.floorMod(vertex.hashCode(), numberOfPartitions);
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public int getNumberOfPartitions() {
+        return numberOfPartitions;
+    }
+
+    @Override
+    public String toString() {
+        return HASH + ":" + partition + "/" + numberOfPartitions;
+    }
+}
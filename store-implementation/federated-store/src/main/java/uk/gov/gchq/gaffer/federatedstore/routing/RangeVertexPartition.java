@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.routing;
+
+/**
+ * A {@code RangeVertexPartition} holds the vertices whose String form is
+ * greater than or equal to the start and less than the end of the range.
+ * A null start or end leaves that side of the range unbounded.
+ */
+public class RangeVertexPartition implements VertexPartition {
+    private final String start;
+    private final String end;
+
+    public RangeVertexPartition(final String start, final String end) {
+        if (null != start && null != end && start.compareTo(end) >= 0) {
+            throw new IllegalArgumentException("The start of the range must be before the end.");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean mightContain(final Object vertex) {
+        if (null == vertex) {
+            return true;
+        }
+        final String value = String.valueOf(vertex);
+        return (null == start || value.compareTo(start) >= 0)
+                && (null == end || value.compareTo(end) < 0);
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return RANGE + ":" + (null == start ? "" : start) + "," + (null == end ? "" : end);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.routing;
+
+import uk.gov.gchq.gaffer.data.element.id.EdgeId;
+import uk.gov.gchq.gaffer.data.element.id.ElementId;
+import uk.gov.gchq.gaffer.data.element.id.EntityId;
+
+/**
+ * A {@code VertexPartition} describes the vertices held by a sub-graph of a
+ * FederatedStore, so that seeds and elements are only sent to the sub-graphs
+ * that might contain them.
+ * <p>
+ * A partition is configured for a graph with the
+ * {@code gaffer.federatedstore.<graphId>.partition} store property, using one
+ * of the following descriptors:
+ * <ul>
+ * <li>{@code hash:<partition>/<numberOfPartitions>} - see {@link HashVertexPartition}</li>
+ * <li>{@code range:<start>,<end>} - see {@link RangeVertexPartition}</li>
+ * </ul>
+ */
+public interface VertexPartition {
+    String HASH = "hash";
+    String RANGE = "range";
+
+    /**
+     * @param vertex the vertex to check
+     * @return true if the vertex might be held in this partition
+     */
+    boolean mightContain(final Object vertex);
+
+    /**
+     * An entity id might be held in this partition if its vertex is. An edge
+     * id might be held in this partition if either its source or its
+     * destination is.
+     *
+     * @param elementId the element id to check
+     * @return true if the element id might be held in this partition
+     */
+    default boolean mightContain(final ElementId elementId) {
+        if (elementId instanceof EntityId) {
+            return mightContain(((EntityId) elementId).getVertex());
+        }
+        if (elementId instanceof EdgeId) {
+            return mightContain(((EdgeId) elementId).getSource())
+                    || mightContain(((EdgeId) elementId).getDestination());
+        }
+        return true;
+    }
+
+    /**
+     * @param descriptor the partition descriptor
+     * @return the partition described, or null if the descriptor is null or empty
+     */
+    static VertexPartition fromDescriptor(final String descriptor) {
+        if (null == descriptor || descriptor.trim().isEmpty()) {
+            return null;
+        }
+        final String[] typeAndValue = descriptor.trim().split(":", 2);
+        if (2 == typeAndValue.length) {
+            if (HASH.equals(typeAndValue[0])) {
+                final String[] partitionAndCount = typeAndValue[1].split("/", 2);
+                if (2 == partitionAndCount.length) {
+                    try {
+                        return new HashVertexPartition(
+                                Integer.parseInt(partitionAndCount[0].trim()),
+                                Integer.parseInt(partitionAndCount[1].trim()));
+                    } catch (final NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid hash partition: " + descriptor, e);
+                    }
+                }
+            } else if (RANGE.equals(typeAndValue[0])) {
+                final String[] startAndEnd = typeAndValue[1].split(",", -1);
+                if (2 == startAndEnd.length) {
+                    return new RangeVertexPartition(
+                            startAndEnd[0].isEmpty() ? null : startAndEnd[0],
+                            startAndEnd[1].isEmpty() ? null : startAndEnd[1]);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid partition descriptor: " + descriptor
+                + ". Expected " + HASH + ":<partition>/<numberOfPartitions> or " + RANGE + ":<start>,<end>");
+    }
+}
@@ -38,6 +38,8 @@ import java.util.Set;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedGraphStorage.GRAPH_IDS_NOT_VISIBLE;
@@ -294,6 +296,44 @@ public class FederatedGraphStorageTest {
         assertEquals("Revealing hidden traits", 0, traits.size());
     }
 
+    @Test
+    public void shouldCacheSchemaForUsersWithTheSameVisibility() throws Exception {
+        graphStorage.put(a, access);
+        graphStorage.put(b, new FederatedAccess(Sets.newHashSet(X), X));
+        final Schema schema = graphStorage.getMergedSchema(testUser);
+        assertSame(schema, graphStorage.getMergedSchema(testUser));
+        assertSame(schema, graphStorage.getMergedSchema(authUser));
+        assertNotSame(schema, graphStorage.getMergedSchema(blankUser));
+    }
+
+    @Test
+    public void shouldUpdateCachedSchemaAndTraitsWhenGraphsArePutAndRemoved() throws Exception {
+        graphStorage.put(b, access);
+        assertEquals(1, graphStorage.getMergedSchema(testUser).getTypes().size());
+        assertEquals(9, graphStorage.getTraits(testUser).size());
+        graphStorage.put(a, access);
+        assertEquals(2, graphStorage.getMergedSchema(testUser).getTypes().size());
+        assertEquals(5, graphStorage.getTraits(testUser).size());
+        graphStorage.remove(GRAPH_ID, testUser);
+        final Schema schema = graphStorage.getMergedSchema(testUser);
+        assertEquals(1, schema.getTypes().size());
+        assertEquals(e2, schema.getElement("e2"));
+        assertEquals(9, graphStorage.getTraits(testUser).size());
+    }
+
+    @Test
+    public void shouldCacheSchemaAndTraitsOfTheEntireStorageUntilAGraphIsPut() throws Exception {
+        graphStorage.put(b, access);
+        final Schema schema = graphStorage.getMergedSchema();
+        final Set<StoreTrait> traits = graphStorage.getTraits();
+        assertSame(schema, graphStorage.getMergedSchema());
+        assertSame(traits, graphStorage.getTraits());
+        graphStorage.put(a, new FederatedAccess(Sets.newHashSet(X), X));
+        assertNotSame(schema, graphStorage.getMergedSchema());
+        assertEquals(2, graphStorage.getMergedSchema().getTypes().size());
+        assertEquals(5, graphStorage.getTraits().size());
+    }
+
     @Test
     public void shouldRemoveForAddingUser() throws Exception {
         graphStorage.put(a, access);
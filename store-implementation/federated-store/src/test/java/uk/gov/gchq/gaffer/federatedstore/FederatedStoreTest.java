@@ -34,12 +34,16 @@ import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
 import uk.gov.gchq.gaffer.federatedstore.integration.FederatedStoreITs;
 import uk.gov.gchq.gaffer.federatedstore.operation.AddGraph;
 import uk.gov.gchq.gaffer.federatedstore.operation.GetAllGraphIds;
+import uk.gov.gchq.gaffer.federatedstore.routing.HashVertexPartition;
+import uk.gov.gchq.gaffer.federatedstore.routing.VertexPartition;
 import uk.gov.gchq.gaffer.graph.Graph;
 import uk.gov.gchq.gaffer.graph.GraphConfig;
 import uk.gov.gchq.gaffer.mapstore.MapStore;
 import uk.gov.gchq.gaffer.mapstore.MapStoreProperties;
 import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
+import uk.gov.gchq.gaffer.operation.data.EntitySeed;
 import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
+import uk.gov.gchq.gaffer.operation.impl.get.GetElements;
 import uk.gov.gchq.gaffer.store.Context;
 import uk.gov.gchq.gaffer.store.StoreException;
 import uk.gov.gchq.gaffer.store.StoreProperties;
@@ -51,10 +55,14 @@ import uk.gov.gchq.gaffer.store.schema.Schema.Builder;
 import uk.gov.gchq.gaffer.user.User;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -64,6 +72,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedGraphStorage.USER_IS_ATTEMPTING_TO_OVERWRITE;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStore.S1_WAS_NOT_ABLE_TO_BE_CREATED_WITH_THE_SUPPLIED_PROPERTIES_GRAPH_ID_S2;
+import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_GRAPH_IDS;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreUser.authUser;
 import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreUser.testUser;
 import static uk.gov.gchq.gaffer.federatedstore.operation.handler.FederatedOperationOutputHandler.NO_RESULTS_TO_MERGE_ERROR;
@@ -394,6 +403,177 @@ public class FederatedStoreTest {
         assertEquals(1, getElements().size());
     }
 
+    @Test
+    public void shouldReadInputOnceWhenAddingElementsToTwoGraphs() throws Exception {
+        // Given
+        final StoreProperties storeProperties = StoreProperties.loadStoreProperties(StreamUtil.openStream(FederatedStoreITs.class, PATH_FEDERATED_STORE_PROPERTIES));
+        federatedProperties.setProperties(storeProperties.getProperties());
+        federatedProperties.setAddElementsQueueSize(1);
+        federatedProperties.setGraphExecutorThreadCount(1);
+        store.initialise(FEDERATED_STORE_ID, null, federatedProperties);
+
+        final List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            elements.add(new Edge.Builder()
+                    .group("BasicEdge")
+                    .source("testSource" + i)
+                    .dest("testDest" + i)
+                    .property("property1", 12)
+                    .build());
+            elements.add(new Entity.Builder()
+                    .group("BasicEntity")
+                    .vertex("testVertex" + i)
+                    .property("property1", 12)
+                    .build());
+        }
+        final AtomicInteger iteratorCount = new AtomicInteger();
+        final Iterable<Element> oneShotInput = () -> {
+            if (iteratorCount.incrementAndGet() > 1) {
+                throw new IllegalStateException("The input can only be read once");
+            }
+            return elements.iterator();
+        };
+
+        // When
+        store.execute(new AddElements.Builder()
+                .input(oneShotInput)
+                .build(), new Context(authUser));
+
+        // Then
+        assertEquals(1, iteratorCount.get());
+        assertEquals(20, getElements().size());
+    }
+
+    @Test
+    public void shouldSpillOneShotInputForGraphsWithReIterableInputStores() throws Exception {
+        // Given
+        final StoreProperties storeProperties = StoreProperties.loadStoreProperties(StreamUtil.openStream(FederatedStoreITs.class, PATH_FEDERATED_STORE_PROPERTIES));
+        federatedProperties.setProperties(storeProperties.getProperties());
+        federatedProperties.setAddElementsReIterableInputStores("uk.gov.gchq.gaffer.mapstore.SingleUseMapStore");
+        store.initialise(FEDERATED_STORE_ID, null, federatedProperties);
+
+        final List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            elements.add(new Edge.Builder()
+                    .group("BasicEdge")
+                    .source("testSource" + i)
+                    .dest("testDest" + i)
+                    .property("property1", 12)
+                    .build());
+            elements.add(new Entity.Builder()
+                    .group("BasicEntity")
+                    .vertex("testVertex" + i)
+                    .property("property1", 12)
+                    .build());
+        }
+        final AtomicInteger iteratorCount = new AtomicInteger();
+        final Iterable<Element> oneShotInput = () -> {
+            if (iteratorCount.incrementAndGet() > 1) {
+                throw new IllegalStateException("The input can only be read once");
+            }
+            return elements.iterator();
+        };
+
+        // When
+        store.execute(new AddElements.Builder()
+                .input(oneShotInput)
+                .build(), new Context(authUser));
+
+        // Then
+        assertEquals(1, iteratorCount.get());
+        assertEquals(20, getElements().size());
+    }
+
+    @Test
+    public void shouldRouteElementsAndSeedsToPartitionedGraphs() throws Exception {
+        // Given
+        final String partition0 = "partition0";
+        final String partition1 = "partition1";
+        federatedProperties.setGraphIds(partition0 + "," + partition1);
+        for (final String graphId : Arrays.asList(partition0, partition1)) {
+            federatedProperties.setGraphPropFile(graphId, PATH_MAP_STORE_PROPERTIES);
+            federatedProperties.setGraphSchemaFile(graphId, PATH_BASIC_ENTITY_SCHEMA_JSON);
+            federatedProperties.setGraphAuth(graphId, ALL_USERS);
+        }
+        federatedProperties.setGraphPartition(partition0, "hash:0/2");
+        federatedProperties.setGraphPartition(partition1, "hash:1/2");
+        store.initialise(FEDERATED_STORE_ID, null, federatedProperties);
+
+        final List<Element> entities = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entities.add(new Entity.Builder()
+                    .group("BasicEntity")
+                    .vertex("vertex" + i)
+                    .property("property1", 1)
+                    .build());
+        }
+
+        // When
+        store.execute(new AddElements.Builder()
+                .input(entities)
+                .build(), new Context(authUser));
+
+        // Then
+        final VertexPartition hashPartition0 = new HashVertexPartition(0, 2);
+        for (final Element element : store.execute(new GetAllElements.Builder()
+                .option(KEY_OPERATION_OPTIONS_GRAPH_IDS, partition0)
+                .build(), new Context(authUser))) {
+            assertTrue(hashPartition0.mightContain(element));
+        }
+        for (final Element element : store.execute(new GetAllElements.Builder()
+                .option(KEY_OPERATION_OPTIONS_GRAPH_IDS, partition1)
+                .build(), new Context(authUser))) {
+            assertFalse(hashPartition0.mightContain(element));
+        }
+        for (final Element entity : entities) {
+            final List<Element> results = Lists.newArrayList(store.execute(new GetElements.Builder()
+                    .input(new EntitySeed(((Entity) entity).getVertex()))
+                    .build(), new Context(authUser)));
+            assertEquals(Collections.singletonList(entity), results);
+        }
+    }
+
+    @Test
+    public void shouldRouteSeedsToPartitionedGraphsInASinglePassOverTheInput() throws Exception {
+        // Given
+        final String partition0 = "partition0";
+        final String partition1 = "partition1";
+        federatedProperties.setGraphIds(partition0 + "," + partition1);
+        for (final String graphId : Arrays.asList(partition0, partition1)) {
+            federatedProperties.setGraphPropFile(graphId, PATH_MAP_STORE_PROPERTIES);
+            federatedProperties.setGraphSchemaFile(graphId, PATH_BASIC_ENTITY_SCHEMA_JSON);
+            federatedProperties.setGraphAuth(graphId, ALL_USERS);
+        }
+        federatedProperties.setGraphPartition(partition0, "hash:0/2");
+        federatedProperties.setGraphPartition(partition1, "hash:1/2");
+        store.initialise(FEDERATED_STORE_ID, null, federatedProperties);
+        final List<EntitySeed> seeds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            seeds.add(new EntitySeed("vertex" + i));
+        }
+        final AtomicInteger iterations = new AtomicInteger();
+        final Iterable<EntitySeed> input = () -> {
+            iterations.incrementAndGet();
+            return seeds.iterator();
+        };
+
+        // When
+        final Map<String, List<Object>> graphSeeds = store.getSeedsForGraphs(new GetElements.Builder()
+                .input(input)
+                .build(), store.getGraphs(authUser, null));
+
+        // Then
+        assertEquals(1, iterations.get());
+        final VertexPartition hashPartition0 = new HashVertexPartition(0, 2);
+        assertEquals(seeds.size(), graphSeeds.get(partition0).size() + graphSeeds.get(partition1).size());
+        for (final Object seed : graphSeeds.get(partition0)) {
+            assertTrue(hashPartition0.mightContain((EntitySeed) seed));
+        }
+        for (final Object seed : graphSeeds.get(partition1)) {
+            assertFalse(hashPartition0.mightContain((EntitySeed) seed));
+        }
+    }
+
     @Test
     public void shouldReturnGraphIds() throws Exception {
         //Given
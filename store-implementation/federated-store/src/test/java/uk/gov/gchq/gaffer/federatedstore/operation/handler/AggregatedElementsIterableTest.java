@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.operation.handler;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.WrappedCloseableIterable;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.element.function.ElementTransformer;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.serialisation.implementation.StringSerialiser;
+import uk.gov.gchq.gaffer.serialisation.implementation.raw.CompactRawIntegerSerialiser;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaEntityDefinition;
+import uk.gov.gchq.gaffer.store.schema.TypeDefinition;
+import uk.gov.gchq.koryphe.impl.binaryoperator.Sum;
+import uk.gov.gchq.koryphe.impl.predicate.IsLessThan;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AggregatedElementsIterableTest {
+    private static final String AGGREGATED = "aggregated";
+    private static final String NON_AGGREGATED = "nonAggregated";
+    private static final String COUNT = "count";
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldAggregateElementsWithTheSameKeyFromDifferentGraphs() {
+        // Given
+        final List<Element> graph1 = new ArrayList<>();
+        final List<Element> graph2 = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            graph1.add(getEntity(AGGREGATED, "vertex" + i, 1));
+            graph2.add(getEntity(AGGREGATED, "vertex" + i, 2));
+        }
+        graph1.add(getEntity(NON_AGGREGATED, "vertex0", 1));
+        graph2.add(getEntity(NON_AGGREGATED, "vertex0", 2));
+
+        // When
+        final List<Element> results = Lists.newArrayList(new AggregatedElementsIterable(
+                new InterleavedIterable<>(Lists.newArrayList(graph1, graph2), null), getSchema(), null, 100, 4, null));
+
+        // Then
+        final Map<Object, Integer> aggregatedCounts = new HashMap<>();
+        int nonAggregated = 0;
+        for (final Element element : results) {
+            if (AGGREGATED.equals(element.getGroup())) {
+                assertEquals(null, aggregatedCounts.put(((Entity) element).getVertex(), (Integer) element.getProperty(COUNT)));
+            } else {
+                nonAggregated++;
+            }
+        }
+        assertEquals(10, aggregatedCounts.size());
+        for (final Integer count : aggregatedCounts.values()) {
+            assertEquals(3, (int) count);
+        }
+        assertEquals(2, nonAggregated);
+    }
+
+    @Test
+    public void shouldSpillToDiskWhenMoreElementsThanFitInMemory() throws Exception {
+        // Given
+        final File spillDir = testFolder.newFolder("spill");
+        final List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            elements.add(getEntity(AGGREGATED, "vertex" + i, 1));
+        }
+        for (int i = 999; i >= 0; i--) {
+            elements.add(getEntity(AGGREGATED, "vertex" + i, 2));
+        }
+
+        // When
+        final List<Element> results = Lists.newArrayList(new AggregatedElementsIterable(
+                elements, getSchema(), null, 10, 4, spillDir.getAbsolutePath()));
+
+        // Then
+        final Map<Object, Integer> aggregatedCounts = new HashMap<>();
+        for (final Element element : results) {
+            assertEquals(null, aggregatedCounts.put(((Entity) element).getVertex(), (Integer) element.getProperty(COUNT)));
+        }
+        assertEquals(1000, aggregatedCounts.size());
+        for (final Integer count : aggregatedCounts.values()) {
+            assertEquals(3, (int) count);
+        }
+        assertEquals(0, spillDir.listFiles().length);
+    }
+
+    @Test
+    public void shouldSpillToDiskWithTheSchemaSerialisers() throws Exception {
+        // Given
+        final File spillDir = testFolder.newFolder("spill");
+        final List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            elements.add(getEntity(AGGREGATED, "vertex" + i, 1));
+            elements.add(getEntity(AGGREGATED, "vertex" + (99 - i), 2));
+        }
+
+        // When
+        final List<Element> results = Lists.newArrayList(new AggregatedElementsIterable(
+                elements, getSchema(true), null, 10, 4, spillDir.getAbsolutePath()));
+
+        // Then
+        assertEquals(100, results.size());
+        for (final Element element : results) {
+            assertEquals(3, element.getProperty(COUNT));
+        }
+        assertEquals(0, spillDir.listFiles().length);
+    }
+
+    @Test
+    public void shouldAggregateInMemoryOnceTheMaximumDepthIsReached() throws Exception {
+        // Given
+        final File spillDir = testFolder.newFolder("spill");
+        final List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            elements.add(getEntity(AGGREGATED, "vertex" + i, 1));
+        }
+        for (int i = 0; i < 20; i++) {
+            elements.add(getEntity(AGGREGATED, "vertex" + i, 2));
+        }
+
+        // When - a single partition can never be split, so it is spilled until the maximum depth is reached
+        final List<Element> results = Lists.newArrayList(new AggregatedElementsIterable(
+                elements, getSchema(), null, 1, 1, spillDir.getAbsolutePath()));
+
+        // Then
+        assertEquals(20, results.size());
+        for (final Element element : results) {
+            assertEquals(3, element.getProperty(COUNT));
+        }
+        assertEquals(0, spillDir.listFiles().length);
+    }
+
+    @Test
+    public void shouldNotCloseTheInputWhenTheIteratorIsClosed() {
+        // Given
+        final List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            elements.add(getEntity(AGGREGATED, "vertex" + i, 1));
+        }
+        final AtomicBoolean inputClosed = new AtomicBoolean();
+        final CloseableIterable<Element> input = new WrappedCloseableIterable<Element>(elements) {
+            @Override
+            public void close() {
+                inputClosed.set(true);
+            }
+        };
+        final AggregatedElementsIterable iterable = new AggregatedElementsIterable(input, getSchema(), null, 100, 4, null);
+
+        // When
+        final List<Element> firstResults = Lists.newArrayList(iterable);
+        final List<Element> secondResults = Lists.newArrayList(iterable);
+
+        // Then
+        assertFalse(inputClosed.get());
+        assertEquals(10, firstResults.size());
+        assertEquals(10, secondResults.size());
+        iterable.close();
+        assertTrue(inputClosed.get());
+    }
+
+    @Test
+    public void shouldApplyPostAggregationFiltersAndTransformsAfterAggregatingAcrossGraphs() {
+        // Given
+        final List<Element> graph1 = new ArrayList<>();
+        final List<Element> graph2 = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            graph1.add(getEntity(AGGREGATED, "vertex" + i, 1));
+            graph2.add(getEntity(AGGREGATED, "vertex" + i, 2));
+        }
+        graph1.add(getEntity(AGGREGATED, "onlyInGraph1", 2));
+        final View view = new View.Builder()
+                .entity(AGGREGATED, new ViewElementDefinition.Builder()
+                        .postAggregationFilter(new ElementFilter.Builder()
+                                .select(COUNT)
+                                .execute(new IsMoreThan(2))
+                                .build())
+                        .transformer(new ElementTransformer.Builder()
+                                .select(COUNT)
+                                .execute((Function<Integer, Integer>) count -> count * 10)
+                                .project(COUNT)
+                                .build())
+                        .postTransformFilter(new ElementFilter.Builder()
+                                .select(COUNT)
+                                .execute(new IsLessThan(100))
+                                .build())
+                        .build())
+                .build();
+
+        // When
+        final List<Element> results = Lists.newArrayList(new AggregatedElementsIterable(
+                new InterleavedIterable<>(Lists.newArrayList(graph1, graph2), null), getSchema(), view, 100, 4, null));
+
+        // Then
+        assertEquals(10, results.size());
+        for (final Element element : results) {
+            assertEquals(30, element.getProperty(COUNT));
+        }
+    }
+
+    @Test
+    public void shouldOnlySendPreAggregationPartsOfViewToGraphs() {
+        // Given
+        final ElementFilter preAggregationFilter = new ElementFilter.Builder()
+                .select(COUNT)
+                .execute(new IsMoreThan(0))
+                .build();
+        final View view = new View.Builder()
+                .entity(AGGREGATED, new ViewElementDefinition.Builder()
+                        .preAggregationFilter(preAggregationFilter)
+                        .groupBy()
+                        .postAggregationFilter(new ElementFilter.Builder()
+                                .select(COUNT)
+                                .execute(new IsMoreThan(2))
+                                .build())
+                        .postTransformFilter(new ElementFilter.Builder()
+                                .select(COUNT)
+                                .execute(new IsLessThan(100))
+                                .build())
+                        .excludeProperties(COUNT)
+                        .build())
+                .build();
+
+        // When
+        final View viewForGraphs = AggregatedElementsIterable.getViewForGraphs(view);
+
+        // Then
+        final ViewElementDefinition elementDef = viewForGraphs.getEntity(AGGREGATED);
+        assertEquals(preAggregationFilter, elementDef.getPreAggregationFilter());
+        assertEquals(0, elementDef.getGroupBy().size());
+        assertFalse(elementDef.hasPostAggregationFilters());
+        assertFalse(elementDef.hasPostTransformFilters());
+        assertNull(elementDef.getTransformer());
+        assertTrue(elementDef.isAllProperties());
+    }
+
+    private static Entity getEntity(final String group, final String vertex, final int count) {
+        return new Entity.Builder()
+                .group(group)
+                .vertex(vertex)
+                .property(COUNT, count)
+                .build();
+    }
+
+    private static Schema getSchema() {
+        return getSchema(false);
+    }
+
+    private static Schema getSchema(final boolean withSerialisers) {
+        return new Schema.Builder()
+                .entity(AGGREGATED, new SchemaEntityDefinition.Builder()
+                        .vertex("string")
+                        .property(COUNT, "count")
+                        .build())
+                .entity(NON_AGGREGATED, new SchemaEntityDefinition.Builder()
+                        .vertex("string")
+                        .property(COUNT, "count")
+                        .aggregate(false)
+                        .build())
+                .type("string", new TypeDefinition.Builder()
+                        .clazz(String.class)
+                        .serialiser(withSerialisers ? new StringSerialiser() : null)
+                        .build())
+                .type("count", new TypeDefinition.Builder()
+                        .clazz(Integer.class)
+                        .aggregateFunction(new Sum())
+                        .serialiser(withSerialisers ? new CompactRawIntegerSerialiser() : null)
+                        .build())
+                .vertexSerialiser(withSerialisers ? new StringSerialiser() : null)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.operation.handler;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.data.element.Edge;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.serialisation.implementation.StringSerialiser;
+import uk.gov.gchq.gaffer.serialisation.implementation.raw.CompactRawIntegerSerialiser;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaEdgeDefinition;
+import uk.gov.gchq.gaffer.store.schema.SchemaEntityDefinition;
+import uk.gov.gchq.gaffer.store.schema.TypeDefinition;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ElementSpillFileTest {
+    private static final String ENTITY = "entity";
+    private static final String EDGE = "edge";
+    private static final String COUNT = "count";
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadBackSpilledElementsMoreThanOnce() throws Exception {
+        // Given
+        final File spillDir = testFolder.newFolder("spill");
+        final List<Element> elements = getElements();
+        final ElementSpillFile spill = new ElementSpillFile(getSchema(true), spillDir.getAbsolutePath(), "test");
+        elements.forEach(spill::add);
+        spill.finishWriting();
+
+        // When
+        final List<Element> firstRead = Lists.newArrayList(spill);
+        final List<Element> secondRead = Lists.newArrayList(spill);
+
+        // Then
+        assertEquals(elements, firstRead);
+        assertEquals(elements, secondRead);
+        spill.delete();
+        assertEquals(0, spillDir.listFiles().length);
+    }
+
+    @Test
+    public void shouldSpillAsJsonWhenTheSchemaHasNoSerialisers() throws Exception {
+        // Given
+        final File spillDir = testFolder.newFolder("spill");
+        final List<Element> elements = getElements();
+        final ElementSpillFile spill = new ElementSpillFile(getSchema(false), spillDir.getAbsolutePath(), "test");
+        elements.forEach(spill::add);
+        spill.finishWriting();
+
+        // When
+        final List<Element> results = Lists.newArrayList(spill);
+
+        // Then
+        assertEquals(elements, results);
+        spill.delete();
+        assertEquals(0, spillDir.listFiles().length);
+    }
+
+    @Test
+    public void shouldNotReadSpilledElementsUntilWritingHasFinished() throws Exception {
+        // Given
+        final ElementSpillFile spill = new ElementSpillFile(getSchema(true), testFolder.newFolder("spill").getAbsolutePath(), "test");
+        spill.add(getElements().get(0));
+
+        // When / Then
+        try {
+            spill.iterator();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("The spilled elements can not be read until they have all been written", e.getMessage());
+        } finally {
+            spill.delete();
+        }
+    }
+
+    private static List<Element> getElements() {
+        return Arrays.asList(
+                new Entity.Builder()
+                        .group(ENTITY)
+                        .vertex("vertex")
+                        .property(COUNT, 1)
+                        .build(),
+                new Entity.Builder()
+                        .group(ENTITY)
+                        .vertex("vertexWithoutCount")
+                        .build(),
+                new Edge.Builder()
+                        .group(EDGE)
+                        .source("source")
+                        .dest("dest")
+                        .directed(true)
+                        .property(COUNT, 2)
+                        .build());
+    }
+
+    private static Schema getSchema(final boolean withSerialisers) {
+        return new Schema.Builder()
+                .entity(ENTITY, new SchemaEntityDefinition.Builder()
+                        .vertex("string")
+                        .property(COUNT, "count")
+                        .build())
+                .edge(EDGE, new SchemaEdgeDefinition.Builder()
+                        .source("string")
+                        .destination("string")
+                        .directed("true")
+                        .property(COUNT, "count")
+                        .build())
+                .type("string", String.class)
+                .type("true", Boolean.class)
+                .type("count", new TypeDefinition.Builder()
+                        .clazz(Integer.class)
+                        .serialiser(withSerialisers ? new CompactRawIntegerSerialiser() : null)
+                        .build())
+                .vertexSerialiser(withSerialisers ? new StringSerialiser() : null)
+                .build();
+    }
+}
@@ -18,6 +18,7 @@ package uk.gov.gchq.gaffer.federatedstore.operation.handler;
 
 import com.google.common.collect.Sets;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -35,8 +36,15 @@ import uk.gov.gchq.gaffer.user.User;
 
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
@@ -205,6 +213,133 @@ public abstract class FederatedOperationOutputHandlerTest<OP extends Output<O>,
 
     }
 
+    @Test
+    public final void shouldExecuteOnGraphsConcurrently() throws Exception {
+        // Given
+        final OP op = getExampleOperation();
+        Schema unusedSchema = new Schema.Builder().build();
+        final CountDownLatch allGraphsExecuting = new CountDownLatch(2);
+
+        Store mockStore1 = getBlockingMockStore(unusedSchema, allGraphsExecuting, o1);
+        Store mockStore2 = getBlockingMockStore(unusedSchema, allGraphsExecuting, o2);
+
+        FederatedStore mockStore = Mockito.mock(FederatedStore.class);
+        LinkedHashSet<Graph> linkedGraphs = Sets.newLinkedHashSet();
+        linkedGraphs.add(getGraphWithMockStore(mockStore1));
+        linkedGraphs.add(getGraphWithMockStore(mockStore2));
+        Mockito.when(mockStore.getGraphs(user, null)).thenReturn(linkedGraphs);
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        given(mockStore.getGraphExecutorService()).willReturn(executorService);
+
+        // When
+        final O theMergedResultsOfOperation;
+        try {
+            theMergedResultsOfOperation = getFederatedHandler().doOperation(op, context, mockStore);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // Then
+        validateMergeResultsFromFieldObjects(theMergedResultsOfOperation, o1, o2);
+    }
+
+    @Test
+    public final void shouldSkipGraphThatTimesOut() throws Exception {
+        // Given
+        final OP op = getExampleOperation();
+        op.addOption(KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE, String.valueOf(true));
+        Schema unusedSchema = new Schema.Builder().build();
+
+        Store mockStore1 = getMockStore(op, unusedSchema, o1);
+        Store mockStore2 = getBlockingMockStore(unusedSchema, new CountDownLatch(2), o2);
+
+        FederatedStore mockStore = Mockito.mock(FederatedStore.class);
+        LinkedHashSet<Graph> linkedGraphs = Sets.newLinkedHashSet();
+        linkedGraphs.add(getGraphWithMockStore(mockStore1));
+        linkedGraphs.add(getGraphWithMockStore(mockStore2));
+        Mockito.when(mockStore.getGraphs(user, null)).thenReturn(linkedGraphs);
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        given(mockStore.getGraphExecutorService()).willReturn(executorService);
+        given(mockStore.getGraphExecutorTimeout()).willReturn(100L);
+
+        // When
+        final O theMergedResultsOfOperation;
+        try {
+            theMergedResultsOfOperation = getFederatedHandler().doOperation(op, context, mockStore);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // Then
+        validateMergeResultsFromFieldObjects(theMergedResultsOfOperation, o1);
+    }
+
+    @Test
+    public final void shouldTimeOutGraphRunInTheCallingThread() throws Exception {
+        // Given
+        final OP op = getExampleOperation();
+        op.addOption(KEY_SKIP_FAILED_FEDERATED_STORE_EXECUTE, String.valueOf(true));
+        Schema unusedSchema = new Schema.Builder().build();
+
+        Store mockStore1 = getMockStore(op, unusedSchema, o1);
+        Store mockStore2 = getBlockingMockStore(unusedSchema, new CountDownLatch(2), o2);
+
+        FederatedStore mockStore = Mockito.mock(FederatedStore.class);
+        LinkedHashSet<Graph> linkedGraphs = Sets.newLinkedHashSet();
+        linkedGraphs.add(getGraphWithMockStore(mockStore1));
+        linkedGraphs.add(getGraphWithMockStore(mockStore2));
+        Mockito.when(mockStore.getGraphs(user, null)).thenReturn(linkedGraphs);
+        // There is no pool, so both graphs are run in the calling thread
+        final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+        given(mockStore.getGraphTimeoutScheduler()).willReturn(timeoutScheduler);
+        given(mockStore.getGraphExecutorTimeout()).willReturn(100L);
+
+        // When
+        final long start = System.currentTimeMillis();
+        final O theMergedResultsOfOperation;
+        try {
+            theMergedResultsOfOperation = getFederatedHandler().doOperation(op, context, mockStore);
+        } finally {
+            timeoutScheduler.shutdownNow();
+        }
+
+        // Then
+        assertTrue(System.currentTimeMillis() - start < 5000L);
+        assertFalse(Thread.currentThread().isInterrupted());
+        validateMergeResultsFromFieldObjects(theMergedResultsOfOperation, o1);
+    }
+
+    @Test
+    public final void shouldCloseTheResultsOfOtherGraphsWhenAGraphFails() throws Exception {
+        // Given
+        Assume.assumeTrue(o1 instanceof AutoCloseable);
+        final OP op = getExampleOperation();
+        Schema unusedSchema = new Schema.Builder().build();
+
+        final O result1 = Mockito.spy(o1);
+        Store mockStore1 = getMockStore(op, unusedSchema, result1);
+        Store mockStore2 = Mockito.mock(Store.class);
+        given(mockStore2.getSchema()).willReturn(unusedSchema);
+        given(mockStore2.createContext(any(User.class))).willReturn(context);
+        given(mockStore2.execute(any(OperationChain.class), any(Context.class))).willThrow(new RuntimeException("Test Exception"));
+
+        FederatedStore mockStore = Mockito.mock(FederatedStore.class);
+        LinkedHashSet<Graph> linkedGraphs = Sets.newLinkedHashSet();
+        linkedGraphs.add(getGraphWithMockStore(mockStore1));
+        linkedGraphs.add(getGraphWithMockStore(mockStore2));
+        Mockito.when(mockStore.getGraphs(user, null)).thenReturn(linkedGraphs);
+
+        // When
+        try {
+            getFederatedHandler().doOperation(op, context, mockStore);
+            fail("Exception not thrown");
+        } catch (final OperationException e) {
+            // Then
+            assertEquals("Test Exception", e.getCause().getMessage());
+        }
+        verify((AutoCloseable) result1).close();
+    }
+
     protected abstract boolean validateMergeResultsFromFieldObjects(final O result, final Object... resultParts);
 
     private Graph getGraphWithMockStore(final Store mockStore) {
@@ -225,5 +360,19 @@ public abstract class FederatedOperationOutputHandlerTest<OP extends Output<O>,
         return mockStore1;
     }
 
+    private Store getBlockingMockStore(final Schema unusedSchema, final CountDownLatch latch, final O willReturn) throws OperationException {
+        Store mockStore = Mockito.mock(Store.class);
+        given(mockStore.getSchema()).willReturn(unusedSchema);
+        given(mockStore.createContext(any(User.class))).willReturn(context);
+        given(mockStore.execute(any(OperationChain.class), any(Context.class))).willAnswer(invocation -> {
+            latch.countDown();
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new RuntimeException("The graphs were not executed concurrently");
+            }
+            return willReturn;
+        });
+        return mockStore;
+    }
+
 
 }
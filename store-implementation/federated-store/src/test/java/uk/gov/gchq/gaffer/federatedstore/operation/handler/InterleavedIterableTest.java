@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.operation.handler;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.commonutil.iterable.LimitedCloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.WrappedCloseableIterable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InterleavedIterableTest {
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnAllItemsFromAllIterables() {
+        // Given
+        final List<Iterable<Integer>> itrs = Arrays.asList(Arrays.asList(1, 2, 3), Collections.emptyList(), Arrays.asList(4, 5));
+
+        // When
+        final List<Integer> results = Lists.newArrayList(new InterleavedIterable<>(itrs, executorService, 2));
+
+        // Then
+        Collections.sort(results);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), results);
+    }
+
+    @Test
+    public void shouldReturnAllItemsWithoutAnExecutor() {
+        // Given
+        final List<Iterable<Integer>> itrs = Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5));
+
+        // When
+        final List<Integer> results = Lists.newArrayList(new InterleavedIterable<>(itrs, null, 1));
+
+        // Then
+        Collections.sort(results);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), results);
+    }
+
+    @Test
+    public void shouldReturnItemsFromLaterIterablesBeforeEarlierIterablesAreFinished() {
+        // Given
+        final CountDownLatch secondIterableRead = new CountDownLatch(1);
+        final Iterable<Integer> blocked = () -> new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return !secondIterableRead.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public Integer next() {
+                return 1;
+            }
+        };
+        final List<Iterable<Integer>> itrs = Arrays.asList(blocked, Collections.singletonList(2));
+
+        // When
+        final Iterator<Integer> results = new InterleavedIterable<>(itrs, executorService).iterator();
+
+        // Then
+        assertTrue(results.hasNext());
+        assertEquals(2, (int) results.next());
+        secondIterableRead.countDown();
+        assertFalse(results.hasNext());
+    }
+
+    @Test
+    public void shouldReturnNullItems() {
+        // Given
+        final List<Iterable<Integer>> itrs = Arrays.asList(Arrays.asList(1, null), Collections.singletonList(null));
+
+        // When
+        final List<Integer> results = Lists.newArrayList(new InterleavedIterable<>(itrs, executorService, 1));
+
+        // Then
+        assertEquals(3, results.size());
+        assertEquals(2, Collections.frequency(results, null));
+        assertTrue(results.contains(1));
+    }
+
+    @Test
+    public void shouldCloseIteratorsButNotIterablesWhenLimitIsReached() {
+        // Given
+        final CloseableIterable<Integer> infinite = new WrappedCloseableIterable<>(() -> new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return 1;
+            }
+        });
+        final TrackedIterable<Integer> tracked = new TrackedIterable<>(infinite);
+
+        // When
+        final List<Integer> results = Lists.newArrayList(new LimitedCloseableIterable<>(
+                new InterleavedIterable<>(Collections.singletonList(tracked), executorService, 10), 0, 5));
+
+        // Then
+        assertEquals(Arrays.asList(1, 1, 1, 1, 1), results);
+        assertTrue(tracked.iteratorClosed);
+        assertFalse(tracked.closed);
+    }
+
+    @Test
+    public void shouldPropagateExceptionFromIterable() {
+        // Given
+        final Iterable<Integer> failing = () -> {
+            throw new IllegalStateException("Test Exception");
+        };
+        final List<Iterable<Integer>> itrs = Arrays.asList(Arrays.asList(1, 2), failing);
+
+        // When
+        try {
+            Lists.newArrayList(new InterleavedIterable<>(itrs, executorService));
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            // Then
+            assertEquals("Test Exception", e.getMessage());
+        }
+    }
+
+    @Test(timeout = 10000L)
+    public void shouldPropagateErrorFromIterable() {
+        // Given
+        final Iterable<Integer> failing = () -> {
+            throw new AssertionError("Test Error");
+        };
+        final List<Iterable<Integer>> itrs = Arrays.asList(Arrays.asList(1, 2), failing);
+
+        // When
+        try {
+            Lists.newArrayList(new InterleavedIterable<>(itrs, executorService));
+            fail("Error expected");
+        } catch (final AssertionError e) {
+            // Then
+            assertEquals("Test Error", e.getMessage());
+        }
+    }
+
+    private static final class TrackedIterable<T> implements CloseableIterable<T> {
+        private final CloseableIterable<T> iterable;
+        private volatile boolean closed;
+        private volatile boolean iteratorClosed;
+
+        private TrackedIterable(final CloseableIterable<T> iterable) {
+            this.iterable = iterable;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            iterable.close();
+        }
+
+        @Override
+        public CloseableIterator<T> iterator() {
+            final CloseableIterator<T> iterator = iterable.iterator();
+            return new CloseableIterator<T>() {
+                @Override
+                public void close() {
+                    iteratorClosed = true;
+                    iterator.close();
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return iterator.next();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.optimiser;
+
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.operation.OperationChain;
+import uk.gov.gchq.gaffer.operation.impl.Limit;
+import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
+import uk.gov.gchq.gaffer.operation.impl.get.GetElements;
+import uk.gov.gchq.gaffer.operation.impl.output.ToList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static uk.gov.gchq.gaffer.federatedstore.FederatedStoreConstants.KEY_OPERATION_OPTIONS_RESULT_LIMIT;
+
+public class FederatedLimitOptimiserTest {
+
+    @Test
+    public void shouldAddResultLimitToOperationBeforeLimit() {
+        // Given
+        final GetAllElements getAllElements = new GetAllElements();
+        final ToList<Object> toList = new ToList<>();
+        final OperationChain<?> opChain = new OperationChain<>(getAllElements, new Limit<>(10), toList);
+
+        // When
+        final OperationChain<?> optimised = new FederatedLimitOptimiser().optimise(opChain);
+
+        // Then
+        assertEquals(3, optimised.getOperations().size());
+        assertEquals("10", getAllElements.getOption(KEY_OPERATION_OPTIONS_RESULT_LIMIT));
+        assertNull(toList.getOption(KEY_OPERATION_OPTIONS_RESULT_LIMIT));
+    }
+
+    @Test
+    public void shouldRequestOneExtraResultWhenLimitDoesNotTruncate() {
+        // Given
+        final GetElements getElements = new GetElements();
+        final OperationChain<?> opChain = new OperationChain<>(getElements, new Limit<>(10, false));
+
+        // When
+        new FederatedLimitOptimiser().optimise(opChain);
+
+        // Then
+        assertEquals("11", getElements.getOption(KEY_OPERATION_OPTIONS_RESULT_LIMIT));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.federatedstore.routing;
+
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.operation.data.EdgeSeed;
+import uk.gov.gchq.gaffer.operation.data.EntitySeed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VertexPartitionTest {
+
+    @Test
+    public void shouldCreatePartitionsFromDescriptors() {
+        // When
+        final VertexPartition hash = VertexPartition.fromDescriptor("hash:1/4");
+        final VertexPartition range = VertexPartition.fromDescriptor("range:a,m");
+        final VertexPartition openRange = VertexPartition.fromDescriptor("range:m,");
+
+        // Then
+        assertEquals("hash:1/4", hash.toString());
+        assertEquals("range:a,m", range.toString());
+        assertEquals("range:m,", openRange.toString());
+        assertNull(VertexPartition.fromDescriptor(null));
+        assertNull(VertexPartition.fromDescriptor(""));
+    }
+
+    @Test
+    public void shouldThrowExceptionForInvalidDescriptor() {
+        for (final String descriptor : new String[]{"hash:4/4", "hash:a/4", "range:a", "range:m,a", "unknown:1"}) {
+            try {
+                VertexPartition.fromDescriptor(descriptor);
+                fail("Exception expected for " + descriptor);
+            } catch (final IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldOnlyContainEachVertexInOneHashPartition() {
+        // Given
+        final VertexPartition[] partitions = {new HashVertexPartition(0, 3), new HashVertexPartition(1, 3), new HashVertexPartition(2, 3)};
+
+        for (int i = 0; i < 100; i++) {
+            // When
+            int count = 0;
+            for (final VertexPartition partition : partitions) {
+                if (partition.mightContain("vertex" + i)) {
+                    count++;
+                }
+            }
+
+            // Then
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void shouldContainVerticesInRange() {
+        // Given
+        final VertexPartition partition = new RangeVertexPartition("b", "d");
+
+        // Then
+        assertFalse(partition.mightContain("a"));
+        assertTrue(partition.mightContain("b"));
+        assertTrue(partition.mightContain("c"));
+        assertFalse(partition.mightContain("d"));
+    }
+
+    @Test
+    public void shouldContainEdgeIdIfSourceOrDestinationIsContained() {
+        // Given
+        final VertexPartition partition = new RangeVertexPartition("b", "d");
+
+        // Then
+        assertTrue(partition.mightContain(new EntitySeed("b")));
+        assertFalse(partition.mightContain(new EntitySeed("a")));
+        assertTrue(partition.mightContain(new EdgeSeed("a", "c", true)));
+        assertTrue(partition.mightContain(new EdgeSeed("c", "e", true)));
+        assertFalse(partition.mightContain(new EdgeSeed("a", "e", true)));
+    }
+}
@@ -42,9 +42,16 @@ public class HBaseProperties extends StoreProperties {
     public static final String WRITE_BUFFER_SIZE = "hbase.writeBufferSize";
     public static final String DEPENDENCY_JARS_HDFS_DIR_PATH = "hbase.hdfs.jars.path";
     public static final String MAX_ENTRIES_FOR_BATCH_SCANNER = "hbase.entriesForBatchScanner";
+    public static final String QUERY_RESULT_CACHE_SIZE = "hbase.coprocessor.queryResultCacheSize";
+    public static final String QUERY_RESULT_CACHE_MAX_BYTES = "hbase.coprocessor.queryResultCacheMaxBytes";
+    public static final String BULK_IMPORT_SORT_BUFFER_SIZE = "hbase.bulkImport.sortBufferSize";
+    public static final String BULK_IMPORT_LOCAL_TEMP_DIR = "hbase.bulkImport.localTempDir";
 
     public static final int WRITE_BUFFER_SIZE_DEFAULT = 1000000;
     public static final String MAX_ENTRIES_FOR_BATCH_SCANNER_DEFAULT = "50000";
+    public static final String QUERY_RESULT_CACHE_SIZE_DEFAULT = "0";
+    public static final String QUERY_RESULT_CACHE_MAX_BYTES_DEFAULT = "16777216";
+    public static final String BULK_IMPORT_SORT_BUFFER_SIZE_DEFAULT = String.valueOf(128L * 1024L * 1024L);
 
     public HBaseProperties() {
         super(HBaseStore.class);
@@ -164,6 +171,80 @@ public class HBaseProperties extends StoreProperties {
         set(MAX_ENTRIES_FOR_BATCH_SCANNER, maxEntriesForBatchScanner);
     }
 
+    /**
+     * Get the maximum number of rows the Gaffer coprocessor should cache
+     * query results for, per region. A value of 0 disables the cache.
+     * The cache size is set on the coprocessor when the table is created
+     * or updated via {@link uk.gov.gchq.gaffer.hbasestore.utils.TableUtils}.
+     *
+     * @return the maximum number of cached rows per region
+     */
+    public int getQueryResultCacheSize() {
+        return Integer.parseInt(get(QUERY_RESULT_CACHE_SIZE, QUERY_RESULT_CACHE_SIZE_DEFAULT));
+    }
+
+    /**
+     * Set the maximum number of rows the Gaffer coprocessor should cache
+     * query results for, per region. A value of 0 disables the cache.
+     *
+     * @param queryResultCacheSize the maximum number of cached rows per region
+     */
+    public void setQueryResultCacheSize(final int queryResultCacheSize) {
+        set(QUERY_RESULT_CACHE_SIZE, String.valueOf(queryResultCacheSize));
+    }
+
+    /**
+     * Get the maximum estimated heap size, in bytes, of the query results the
+     * Gaffer coprocessor should cache per region. The default is 16 MB.
+     * The least recently used rows are evicted once either this or the
+     * maximum number of rows is exceeded.
+     *
+     * @return the maximum number of cached bytes per region
+     */
+    public long getQueryResultCacheMaxBytes() {
+        return Long.parseLong(get(QUERY_RESULT_CACHE_MAX_BYTES, QUERY_RESULT_CACHE_MAX_BYTES_DEFAULT));
+    }
+
+    /**
+     * Set the maximum estimated heap size, in bytes, of the query results the
+     * Gaffer coprocessor should cache per region.
+     *
+     * @param queryResultCacheMaxBytes the maximum number of cached bytes per region
+     */
+    public void setQueryResultCacheMaxBytes(final long queryResultCacheMaxBytes) {
+        set(QUERY_RESULT_CACHE_MAX_BYTES, String.valueOf(queryResultCacheMaxBytes));
+    }
+
+    /**
+     * Get the approximate number of bytes of cells that a bulk import from
+     * an AddElements operation should sort in memory before spilling sorted
+     * runs to the local disk.
+     *
+     * @return the bulk import sort buffer size in bytes
+     */
+    public long getBulkImportSortBufferSize() {
+        return Long.parseLong(get(BULK_IMPORT_SORT_BUFFER_SIZE, BULK_IMPORT_SORT_BUFFER_SIZE_DEFAULT));
+    }
+
+    public void setBulkImportSortBufferSize(final long bulkImportSortBufferSize) {
+        set(BULK_IMPORT_SORT_BUFFER_SIZE, String.valueOf(bulkImportSortBufferSize));
+    }
+
+    /**
+     * Get the local directory that a bulk import from an AddElements
+     * operation should spill sorted runs to. If this is not set the default
+     * temporary directory is used.
+     *
+     * @return the local directory for sorted runs
+     */
+    public String getBulkImportLocalTempDir() {
+        return get(BULK_IMPORT_LOCAL_TEMP_DIR);
+    }
+
+    public void setBulkImportLocalTempDir(final String bulkImportLocalTempDir) {
+        set(BULK_IMPORT_LOCAL_TEMP_DIR, bulkImportLocalTempDir);
+    }
+
     @Override
     public String getJsonSerialiserModules() {
         return new StringDeduplicateConcat().apply(
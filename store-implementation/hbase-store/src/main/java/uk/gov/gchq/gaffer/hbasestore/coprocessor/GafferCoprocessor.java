@@ -16,18 +16,23 @@
 package uk.gov.gchq.gaffer.hbasestore.coprocessor;
 
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.BaseRegionObserver;
 import org.apache.hadoop.hbase.coprocessor.ObserverContext;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.MiniBatchOperationInProgress;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.regionserver.ScanType;
 import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
 
 import uk.gov.gchq.gaffer.commonutil.StringUtil;
+import uk.gov.gchq.gaffer.hbasestore.HBaseProperties;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.scanner.QueryScanner;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.scanner.StoreScanner;
 import uk.gov.gchq.gaffer.hbasestore.serialisation.ElementSerialisation;
@@ -35,11 +40,13 @@ import uk.gov.gchq.gaffer.hbasestore.utils.HBaseStoreConstants;
 import uk.gov.gchq.gaffer.store.schema.Schema;
 
 import java.io.IOException;
+import java.util.List;
 
 public class GafferCoprocessor extends BaseRegionObserver {
     private Schema schema;
     private ElementSerialisation serialisation;
     private boolean includeMatchedVertex;
+    private QueryResultCache queryResultCache;
 
     @Override
     public void start(final CoprocessorEnvironment e) throws IOException {
@@ -47,6 +54,14 @@ public class GafferCoprocessor extends BaseRegionObserver {
         schema = Schema.fromJson(Bytes.toBytes(schemaJson));
         serialisation = new ElementSerialisation(schema);
         includeMatchedVertex = e.getConfiguration().getBoolean(HBaseStoreConstants.INCLUDE_MATCHED_VERTEX, false);
+        final int queryResultCacheSize = e.getConfiguration().getInt(HBaseStoreConstants.QUERY_RESULT_CACHE_SIZE, 0);
+        if (queryResultCacheSize > 0) {
+            final long queryResultCacheMaxBytes = e.getConfiguration().getLong(HBaseStoreConstants.QUERY_RESULT_CACHE_MAX_BYTES,
+                    Long.parseLong(HBaseProperties.QUERY_RESULT_CACHE_MAX_BYTES_DEFAULT));
+            queryResultCache = new QueryResultCache(queryResultCacheSize, queryResultCacheMaxBytes);
+        } else {
+            queryResultCache = null;
+        }
     }
 
     @Override
@@ -56,6 +71,42 @@ public class GafferCoprocessor extends BaseRegionObserver {
         return new StoreScanner(scanner, schema, serialisation, includeMatchedVertex);
     }
 
+    @Override
+    public void postFlush(final ObserverContext<RegionCoprocessorEnvironment> e,
+                          final Store store,
+                          final StoreFile resultFile) throws IOException {
+        invalidateQueryResultCache();
+    }
+
+    @Override
+    public void postCompact(final ObserverContext<RegionCoprocessorEnvironment> e,
+                            final Store store,
+                            final StoreFile resultFile) throws IOException {
+        invalidateQueryResultCache();
+    }
+
+    @Override
+    public void preBatchMutate(final ObserverContext<RegionCoprocessorEnvironment> e,
+                               final MiniBatchOperationInProgress<Mutation> miniBatchOp) throws IOException {
+        invalidateQueryResultCache();
+    }
+
+    @Override
+    public void postBatchMutateIndispensably(final ObserverContext<RegionCoprocessorEnvironment> e,
+                                             final MiniBatchOperationInProgress<Mutation> miniBatchOp,
+                                             final boolean success) throws IOException {
+        // Invalidate again once the mutations are visible to new scanners
+        invalidateQueryResultCache();
+    }
+
+    @Override
+    public boolean postBulkLoadHFile(final ObserverContext<RegionCoprocessorEnvironment> e,
+                                     final List<Pair<byte[], String>> familyPaths,
+                                     final boolean hasLoaded) throws IOException {
+        invalidateQueryResultCache();
+        return hasLoaded;
+    }
+
     @Override
     public InternalScanner preCompact(final ObserverContext<RegionCoprocessorEnvironment> e,
                                       final Store store,
@@ -75,6 +126,12 @@ public class GafferCoprocessor extends BaseRegionObserver {
 
     @Override
     public RegionScanner postScannerOpen(final ObserverContext<RegionCoprocessorEnvironment> e, final Scan scan, final RegionScanner scanner) throws IOException {
-        return new QueryScanner(scanner, scan, schema, serialisation, includeMatchedVertex);
+        return new QueryScanner(scanner, scan, schema, serialisation, includeMatchedVertex, queryResultCache);
+    }
+
+    private void invalidateQueryResultCache() {
+        if (null != queryResultCache) {
+            queryResultCache.invalidate();
+        }
     }
 }
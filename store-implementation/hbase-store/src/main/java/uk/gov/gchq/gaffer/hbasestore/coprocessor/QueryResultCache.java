@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.hbasestore.coprocessor;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.util.ClassSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of the cells produced by a
+ * {@link uk.gov.gchq.gaffer.hbasestore.coprocessor.scanner.QueryScanner} for a
+ * single row, i.e. the row after the filter and aggregation processors have
+ * been applied. Entries are keyed on the row and a fingerprint of the scan
+ * (view, directed type, authorisations etc.).
+ * <p>
+ * The cache is bounded by both the number of rows and the estimated heap
+ * size of the cached cells and keys, as a single row of a high degree vertex
+ * can be far larger than a typical row. The least recently used rows are
+ * evicted until both limits are met, and a row that is larger than the byte
+ * limit on its own is not cached.
+ * </p>
+ * <p>
+ * A cache instance belongs to a single region. Any change to the data in the
+ * region (mutations, flushes, compactions and bulk loads) must call
+ * {@link #invalidate()}. Each invalidation increments a generation number;
+ * results computed by a scanner that was opened in an earlier generation are
+ * not added to the cache, so a scanner reading an old snapshot of the region
+ * cannot repopulate the cache with stale results.
+ * </p>
+ */
+public class QueryResultCache {
+    /**
+     * The estimated heap size of a cache entry, excluding the arrays in its
+     * key and its cells: the map entry, the key, the list of cells and its
+     * unmodifiable wrapper.
+     */
+    private static final long ENTRY_OVERHEAD = ClassSize.align(ClassSize.OBJECT + 5 * ClassSize.REFERENCE + 1)
+            + ClassSize.align(ClassSize.OBJECT + 2 * ClassSize.REFERENCE + 4)
+            + ClassSize.ARRAYLIST
+            + ClassSize.align(ClassSize.OBJECT + 2 * ClassSize.REFERENCE);
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Map<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long generation;
+
+    public QueryResultCache(final int maxEntries, final long maxBytes) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The maximum number of cache entries must be at least 1");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The maximum number of cached bytes must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Looks up the cached result cells for a row.
+     *
+     * @param fingerprint the scan fingerprint
+     * @param row         the row key
+     * @return the cached cells, or null if the row is not cached
+     */
+    public synchronized List<Cell> get(final byte[] fingerprint, final byte[] row) {
+        final Entry entry = cache.get(new Key(fingerprint, row));
+        return null == entry ? null : entry.cells;
+    }
+
+    /**
+     * Caches the result cells for a row. The cells are copied so the cache
+     * does not hold on to any block buffers. If the cache has been invalidated
+     * since the given generation, or the row is larger than the maximum number
+     * of cached bytes, then the result is discarded.
+     *
+     * @param fingerprint the scan fingerprint
+     * @param row         the row key
+     * @param cells       the result cells for the row
+     * @param generation  the cache generation when the scanner was opened
+     * @return true if the result was cached
+     */
+    public synchronized boolean put(final byte[] fingerprint, final byte[] row, final List<Cell> cells, final long generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+
+        long size = ENTRY_OVERHEAD
+                + ClassSize.align(ClassSize.ARRAY + fingerprint.length)
+                + ClassSize.align(ClassSize.ARRAY + row.length)
+                + ClassSize.align(ClassSize.ARRAY + (long) cells.size() * ClassSize.REFERENCE);
+        for (final Cell cell : cells) {
+            size += CellUtil.estimatedHeapSizeOf(cell);
+            if (size > maxBytes) {
+                return false;
+            }
+        }
+
+        final List<Cell> copies = new ArrayList<>(cells.size());
+        for (final Cell cell : cells) {
+            copies.add(KeyValueUtil.copyToNewKeyValue(cell));
+        }
+
+        final Entry previous = cache.put(new Key(fingerprint, row), new Entry(Collections.unmodifiableList(copies), size));
+        if (null != previous) {
+            bytes -= previous.size;
+        }
+        bytes += size;
+        evict();
+        return true;
+    }
+
+    private void evict() {
+        final Iterator<Entry> itr = cache.values().iterator();
+        while (itr.hasNext() && (cache.size() > maxEntries || bytes > maxBytes)) {
+            bytes -= itr.next().size;
+            itr.remove();
+        }
+    }
+
+    /**
+     * Removes all cached results and starts a new generation.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        cache.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return the estimated heap size of the cached rows, in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private static final class Entry {
+        private final List<Cell> cells;
+        private final long size;
+
+        private Entry(final List<Cell> cells, final long size) {
+            this.cells = cells;
+            this.size = size;
+        }
+    }
+
+    private static final class Key {
+        private final byte[] fingerprint;
+        private final byte[] row;
+        private final int hashCode;
+
+        private Key(final byte[] fingerprint, final byte[] row) {
+            this.fingerprint = fingerprint;
+            this.row = row;
+            this.hashCode = 31 * Arrays.hashCode(fingerprint) + Arrays.hashCode(row);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (null == obj || getClass() != obj.getClass()) {
+                return false;
+            }
+
+            final Key key = (Key) obj;
+            return hashCode == key.hashCode
+                    && Arrays.equals(row, key.row)
+                    && Arrays.equals(fingerprint, key.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.hbasestore.coprocessor.processor;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.hbasestore.serialisation.ElementSerialisation;
+import uk.gov.gchq.gaffer.hbasestore.serialisation.LazyElementCell;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
+import uk.gov.gchq.koryphe.tuple.function.TupleAdaptedFunction;
+import uk.gov.gchq.koryphe.tuple.predicate.TupleAdaptedPredicate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes properties that are not required by the client from the cell
+ * values, based on the properties and excludeProperties in the {@link View}.
+ * Properties that are used in the view transform functions and post
+ * transform filters are kept, as these are applied on the client.
+ * This should be the last processor, as the query time aggregation and
+ * filtering may use any of the properties.
+ */
+public class ProjectionProcessor implements GafferScannerProcessor {
+    private final ElementSerialisation serialisation;
+    private final View view;
+    private final Map<String, Set<String>> groupToPropertiesToKeep;
+
+    public ProjectionProcessor(final ElementSerialisation serialisation,
+                               final Schema schema,
+                               final View view) {
+        this.serialisation = serialisation;
+        this.view = view;
+        this.groupToPropertiesToKeep = getPropertiesToKeep(schema, view);
+    }
+
+    /**
+     * Calculates the properties that need to be returned to the client for
+     * each group. Groups that require all their properties are not included.
+     *
+     * @param schema the schema
+     * @param view   the view
+     * @return a map of group to the properties to keep
+     */
+    public static Map<String, Set<String>> getPropertiesToKeep(final Schema schema, final View view) {
+        final Map<String, Set<String>> groupToPropertiesToKeep = new HashMap<>();
+        for (final String group : view.getGroups()) {
+            final ViewElementDefinition viewElementDef = view.getElement(group);
+            final SchemaElementDefinition schemaElementDef = schema.getElement(group);
+            if (null == viewElementDef || null == schemaElementDef || viewElementDef.isAllProperties()) {
+                continue;
+            }
+
+            final Set<String> propertiesToKeep = new HashSet<>();
+            if (null != viewElementDef.getProperties()) {
+                propertiesToKeep.addAll(viewElementDef.getProperties());
+            } else {
+                propertiesToKeep.addAll(schemaElementDef.getProperties());
+                propertiesToKeep.removeAll(viewElementDef.getExcludeProperties());
+            }
+
+            final List<TupleAdaptedFunction<String, ?, ?>> transformFunctions = viewElementDef.getTransformFunctions();
+            if (null != transformFunctions) {
+                for (final TupleAdaptedFunction<String, ?, ?> function : transformFunctions) {
+                    addSelection(function.getSelection(), propertiesToKeep);
+                }
+            }
+
+            final List<TupleAdaptedPredicate<String, ?>> postTransformFilterFunctions = viewElementDef.getPostTransformFilterFunctions();
+            if (null != postTransformFilterFunctions) {
+                for (final TupleAdaptedPredicate<String, ?> predicate : postTransformFilterFunctions) {
+                    addSelection(predicate.getSelection(), propertiesToKeep);
+                }
+            }
+
+            if (!propertiesToKeep.containsAll(schemaElementDef.getProperties())) {
+                groupToPropertiesToKeep.put(group, Collections.unmodifiableSet(propertiesToKeep));
+            }
+        }
+
+        return groupToPropertiesToKeep;
+    }
+
+    private static void addSelection(final String[] selection, final Set<String> propertiesToKeep) {
+        if (null != selection) {
+            Collections.addAll(propertiesToKeep, selection);
+        }
+    }
+
+    @Override
+    public List<LazyElementCell> process(final List<LazyElementCell> elementCells) {
+        if (!isRequired()) {
+            return elementCells;
+        }
+
+        for (final LazyElementCell elementCell : elementCells) {
+            if (elementCell.isDeleted()) {
+                continue;
+            }
+
+            final String group = elementCell.getGroup();
+            final Set<String> propertiesToKeep = groupToPropertiesToKeep.get(group);
+            if (null != propertiesToKeep) {
+                final Cell cell = elementCell.getCell();
+                try {
+                    final Cell projectedCell = CellUtil.createCell(
+                            CellUtil.cloneRow(cell),
+                            CellUtil.cloneFamily(cell),
+                            CellUtil.cloneQualifier(cell),
+                            cell.getTimestamp(),
+                            cell.getTypeByte(),
+                            serialisation.getProjectedValue(group, CellUtil.cloneValue(cell), propertiesToKeep),
+                            CellUtil.getTagArray(cell),
+                            0);
+                    elementCell.setCell(projectedCell);
+                } catch (final SerialisationException e) {
+                    throw new RuntimeException("Unable to remove properties from cell value", e);
+                }
+            }
+        }
+
+        return elementCells;
+    }
+
+    /**
+     * @return true if any of the groups in the view do not require all of
+     * their properties
+     */
+    public boolean isRequired() {
+        return !groupToPropertiesToKeep.isEmpty();
+    }
+
+    public View getView() {
+        return view;
+    }
+}
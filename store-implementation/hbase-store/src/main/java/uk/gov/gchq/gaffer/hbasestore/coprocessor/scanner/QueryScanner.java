@@ -16,20 +16,25 @@
 package uk.gov.gchq.gaffer.hbasestore.coprocessor.scanner;
 
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.hadoop.hbase.security.visibility.Authorizations;
 import org.apache.hadoop.hbase.util.Bytes;
 
 import uk.gov.gchq.gaffer.commonutil.StringUtil;
 import uk.gov.gchq.gaffer.data.element.id.DirectedType;
 import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.hbasestore.coprocessor.QueryResultCache;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.ElementDedupeFilterProcessor;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.GafferScannerProcessor;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.GroupFilterProcessor;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.PostAggregationFilterProcessor;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.PreAggregationFilterProcessor;
+import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.ProjectionProcessor;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.QueryAggregationProcessor;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.StoreAggregationProcessor;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.ValidationProcessor;
@@ -37,6 +42,8 @@ import uk.gov.gchq.gaffer.hbasestore.serialisation.ElementSerialisation;
 import uk.gov.gchq.gaffer.hbasestore.utils.HBaseStoreConstants;
 import uk.gov.gchq.gaffer.store.schema.Schema;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -44,12 +51,35 @@ import java.util.List;
 import java.util.Set;
 
 public class QueryScanner extends GafferScanner implements RegionScanner {
+    private final QueryResultCache cache;
+    private final byte[] fingerprint;
+    private final long cacheGeneration;
+
     public QueryScanner(final RegionScanner scanner,
                         final Scan scan,
                         final Schema schema,
                         final ElementSerialisation serialisation,
                         final boolean includeMatchedVertex) {
+        this(scanner, scan, schema, serialisation, includeMatchedVertex, null);
+    }
+
+    public QueryScanner(final RegionScanner scanner,
+                        final Scan scan,
+                        final Schema schema,
+                        final ElementSerialisation serialisation,
+                        final boolean includeMatchedVertex,
+                        final QueryResultCache cache) {
         super(scanner, serialisation, createProcessors(scan, schema, serialisation), includeMatchedVertex);
+        // Rows are only cached if each call to nextRaw returns a complete row
+        if (null != cache && scan.getBatch() <= 0) {
+            this.cache = cache;
+            this.cacheGeneration = cache.getGeneration();
+            this.fingerprint = createFingerprint(scan);
+        } else {
+            this.cache = null;
+            this.cacheGeneration = -1;
+            this.fingerprint = null;
+        }
     }
 
     protected static List<GafferScannerProcessor> createProcessors(
@@ -80,6 +110,10 @@ public class QueryScanner extends GafferScanner implements RegionScanner {
                 processors.add(new QueryAggregationProcessor(serialisation, schema, view));
             }
             processors.add(new PostAggregationFilterProcessor(view));
+            final ProjectionProcessor projectionProcessor = new ProjectionProcessor(serialisation, schema, view);
+            if (projectionProcessor.isRequired()) {
+                processors.add(projectionProcessor);
+            }
         }
 
         if (!extraProcessors.isEmpty()) {
@@ -89,6 +123,49 @@ public class QueryScanner extends GafferScanner implements RegionScanner {
         return processors;
     }
 
+    /**
+     * Creates a fingerprint of all the parts of the scan that affect the
+     * cells returned for a single row.
+     *
+     * @param scan the scan
+     * @return the scan fingerprint
+     */
+    protected static byte[] createFingerprint(final Scan scan) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            writeAttribute(out, scan.getAttribute(HBaseStoreConstants.VIEW));
+            writeAttribute(out, scan.getAttribute(HBaseStoreConstants.DIRECTED_TYPE));
+            writeAttribute(out, scan.getAttribute(HBaseStoreConstants.EXTRA_PROCESSORS));
+            writeAttribute(out, scan.getAttribute(HBaseStoreConstants.INCLUDE_MATCHED_VERTEX));
+            final Authorizations authorisations = scan.getAuthorizations();
+            if (null == authorisations) {
+                out.writeInt(-1);
+            } else {
+                final List<String> labels = new ArrayList<>(authorisations.getLabels());
+                Collections.sort(labels);
+                out.writeInt(labels.size());
+                for (final String label : labels) {
+                    out.writeUTF(label);
+                }
+            }
+            out.writeLong(scan.getTimeRange().getMin());
+            out.writeLong(scan.getTimeRange().getMax());
+            out.writeInt(scan.getMaxVersions());
+        } catch (final IOException | DeserializationException e) {
+            throw new RuntimeException("Unable to create the scan fingerprint", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeAttribute(final DataOutputStream out, final byte[] attribute) throws IOException {
+        if (null == attribute) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(attribute.length);
+            out.write(attribute);
+        }
+    }
+
     private static View getView(final Scan scan) {
         final byte[] viewJson = scan.getAttribute(HBaseStoreConstants.VIEW);
         final View view;
@@ -166,4 +243,23 @@ public class QueryScanner extends GafferScanner implements RegionScanner {
         _next(input, output);
         return shouldContinue;
     }
+
+    @Override
+    protected void _next(final List<Cell> input, final List<Cell> output) throws IOException {
+        if (null == cache || input.isEmpty()) {
+            super._next(input, output);
+            return;
+        }
+
+        final byte[] row = CellUtil.cloneRow(input.get(0));
+        final List<Cell> cachedCells = cache.get(fingerprint, row);
+        if (null != cachedCells) {
+            output.addAll(cachedCells);
+        } else {
+            final List<Cell> rowOutput = new ArrayList<>();
+            super._next(input, rowOutput);
+            cache.put(fingerprint, row, rowOutput, cacheGeneration);
+            output.addAll(rowOutput);
+        }
+    }
 }
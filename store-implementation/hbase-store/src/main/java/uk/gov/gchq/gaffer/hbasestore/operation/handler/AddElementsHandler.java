@@ -26,6 +26,8 @@ import uk.gov.gchq.gaffer.data.element.function.ElementAggregator;
 import uk.gov.gchq.gaffer.exception.SerialisationException;
 import uk.gov.gchq.gaffer.hbasestore.HBaseStore;
 import uk.gov.gchq.gaffer.hbasestore.serialisation.ElementSerialisation;
+import uk.gov.gchq.gaffer.hbasestore.utils.HBaseStoreConstants;
+import uk.gov.gchq.gaffer.hbasestore.utils.HFileBulkImporter;
 import uk.gov.gchq.gaffer.operation.OperationException;
 import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
 import uk.gov.gchq.gaffer.store.Context;
@@ -64,6 +66,11 @@ public class AddElementsHandler implements OperationHandler<AddElements> {
             return;
         }
 
+        if (Boolean.parseBoolean(addElementsOperation.getOption(HBaseStoreConstants.ADD_ELEMENTS_BULK_IMPORT))) {
+            bulkImportElements(addElementsOperation, store);
+            return;
+        }
+
         try {
             final Table table = store.getTable();
             final boolean hasAggregators = store.getSchema().isAggregationEnabled();
@@ -115,6 +122,17 @@ public class AddElementsHandler implements OperationHandler<AddElements> {
         }
     }
 
+    private void bulkImportElements(final AddElements addElementsOperation, final HBaseStore store)
+            throws OperationException {
+        try {
+            new HFileBulkImporter(store).importElements(
+                    addElementsOperation.getInput(),
+                    addElementsOperation.getOption(HBaseStoreConstants.ADD_ELEMENTS_BULK_IMPORT_PATH));
+        } catch (final StoreException e) {
+            throw new OperationException("Failed to bulk import elements", e);
+        }
+    }
+
     private List<Put> createPuts(final ElementSerialisation serialisation, final Map<ElementKey, Element> keyToElement) throws SerialisationException {
         final Collection<Element> elementBatch = keyToElement.values();
         final List<Put> puts = new ArrayList<>(elementBatch.size());
@@ -46,6 +46,7 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Set;
 
 public class ElementSerialisation {
     private static final Logger LOGGER = LoggerFactory.getLogger(ElementSerialisation.class);
@@ -147,6 +148,50 @@ public class ElementSerialisation {
         return properties;
     }
 
+    /**
+     * Creates a copy of a serialised value that only contains the given
+     * properties. The properties that are not required are replaced with
+     * empty values so the layout of the value is unchanged and it can still
+     * be deserialised using {@link #getPropertiesFromValue(String, byte[])}.
+     * The properties are not deserialised, their bytes are just skipped over.
+     *
+     * @param group            the element group
+     * @param value            the serialised value
+     * @param propertiesToKeep the names of the properties to keep
+     * @return the projected value
+     * @throws SerialisationException if the value could not be read
+     */
+    public byte[] getProjectedValue(final String group, final byte[] value, final Set<String> propertiesToKeep)
+            throws SerialisationException {
+        if (null == value || value.length == 0) {
+            return value;
+        }
+        final SchemaElementDefinition elementDefinition = schema.getElement(group);
+        if (null == elementDefinition) {
+            throw new SerialisationException("No SchemaElementDefinition found for group " + group + ", is this group in your schema or do your table iterators need updating?");
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(value.length);
+        int lastDelimiter = 0;
+        final Iterator<String> propertyNames = elementDefinition.getProperties().iterator();
+        while (propertyNames.hasNext() && lastDelimiter < value.length) {
+            final String propertyName = propertyNames.next();
+            if (isStoredInValue(propertyName, elementDefinition)) {
+                final int numBytesForLength = CompactRawSerialisationUtils.decodeVIntSize(value[lastDelimiter]);
+                final int currentPropLength = (int) CompactRawSerialisationUtils.readLong(value, lastDelimiter);
+                final int propEnd = lastDelimiter + numBytesForLength + currentPropLength;
+                if (propertiesToKeep.contains(propertyName)) {
+                    out.write(value, lastDelimiter, propEnd - lastDelimiter);
+                } else {
+                    CompactRawSerialisationUtils.write(0, out);
+                }
+                lastDelimiter = propEnd;
+            }
+        }
+
+        return out.toByteArray();
+    }
+
     public Element getPartialElement(final String group, final byte[] rowId, final boolean includeMatchedVertex) throws SerialisationException {
         return getElement(CellUtil.createCell(rowId, HBaseStoreConstants.getColFam(), getColumnQualifier(group, new Properties())), includeMatchedVertex);
     }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.hbasestore.utils;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * An external merge sort for HBase {@link Cell}s.
+ * <p>
+ * Cells are buffered in memory until the memory budget is reached, then the
+ * buffer is sorted and spilled to a run file in the temporary directory.
+ * The sorted cells are returned by merging all the runs together.
+ * If all the cells fit within the memory budget then nothing is written to disk.
+ * </p>
+ * <p>
+ * Cells are ordered using {@link KeyValue#COMPARATOR}, which is the order
+ * required when writing HFiles.
+ * </p>
+ */
+public class ExternalCellSorter implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExternalCellSorter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long memoryBudget;
+    private final File tempDir;
+    private final List<KeyValue> buffer = new ArrayList<>();
+    private final List<Run> runs = new ArrayList<>();
+    private final List<Closeable> openReaders = new ArrayList<>();
+    private long bufferedBytes;
+    private long numCells;
+
+    /**
+     * @param memoryBudget the approximate number of bytes of cells to hold in
+     *                     memory before spilling to disk
+     * @param tempDir      the local directory to write sorted runs to, if null
+     *                     the default temporary directory is used
+     */
+    public ExternalCellSorter(final long memoryBudget, final File tempDir) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("The memory budget must be greater than 0");
+        }
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+    }
+
+    public void add(final Cell cell) throws IOException {
+        final KeyValue kv = cell instanceof KeyValue ? (KeyValue) cell : KeyValueUtil.copyToNewKeyValue(cell);
+        buffer.add(kv);
+        bufferedBytes += kv.heapSize();
+        numCells++;
+        if (bufferedBytes >= memoryBudget) {
+            spill();
+        }
+    }
+
+    public long getNumCells() {
+        return numCells;
+    }
+
+    public int getNumRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Returns all the added cells in sorted order. No more cells should be
+     * added once this has been called.
+     *
+     * @return an iterator of the sorted cells
+     * @throws IOException if the sorted runs cannot be read
+     */
+    public CloseableIterator<KeyValue> sorted() throws IOException {
+        if (runs.isEmpty()) {
+            Collections.sort(buffer, KeyValue.COMPARATOR);
+            final List<KeyValue> sortedCells = new ArrayList<>(buffer);
+            buffer.clear();
+            bufferedBytes = 0;
+            return new InMemoryIterator(sortedCells);
+        }
+
+        spill();
+        return new MergeIterator();
+    }
+
+    @Override
+    public void close() {
+        for (final Closeable reader : openReaders) {
+            CloseableUtil.close(reader);
+        }
+        openReaders.clear();
+
+        for (final Run run : runs) {
+            if (!run.file.delete() && run.file.exists()) {
+                LOGGER.warn("Unable to delete sorted run file {}", run.file);
+            }
+        }
+        runs.clear();
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    private void spill() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        Collections.sort(buffer, KeyValue.COMPARATOR);
+        final File file = File.createTempFile("gaffer-cell-sort-", ".run", tempDir);
+        file.deleteOnExit();
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+            for (final KeyValue kv : buffer) {
+                KeyValue.write(kv, out);
+            }
+        }
+        runs.add(new Run(file, buffer.size()));
+        LOGGER.debug("Spilled {} cells ({} bytes) to {}", buffer.size(), bufferedBytes, file);
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    private static final class Run {
+        private final File file;
+        private final long size;
+
+        private Run(final File file, final long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    private static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        private long remaining;
+        private KeyValue current;
+
+        private RunReader(final Run run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), BUFFER_SIZE));
+            this.remaining = run.size;
+            advance();
+        }
+
+        private void advance() throws IOException {
+            if (remaining > 0) {
+                current = KeyValue.create(in);
+                remaining--;
+            } else {
+                current = null;
+                close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private final class MergeIterator implements CloseableIterator<KeyValue> {
+        private final PriorityQueue<RunReader> queue;
+
+        private MergeIterator() throws IOException {
+            queue = new PriorityQueue<>(Math.max(1, runs.size()), (left, right) -> KeyValue.COMPARATOR.compare(left.current, right.current));
+            for (final Run run : runs) {
+                final RunReader reader = new RunReader(run);
+                openReaders.add(reader);
+                if (null != reader.current) {
+                    queue.add(reader);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public KeyValue next() {
+            final RunReader reader = queue.poll();
+            if (null == reader) {
+                throw new NoSuchElementException("Reached the end of the iterator");
+            }
+
+            final KeyValue next = reader.current;
+            try {
+                reader.advance();
+            } catch (final IOException e) {
+                throw new RuntimeException("Unable to read sorted run", e);
+            }
+            if (null != reader.current) {
+                queue.add(reader);
+            }
+            return next;
+        }
+
+        @Override
+        public void close() {
+            ExternalCellSorter.this.close();
+        }
+    }
+
+    private final class InMemoryIterator implements CloseableIterator<KeyValue> {
+        private final List<KeyValue> cells;
+        private int index;
+
+        private InMemoryIterator(final List<KeyValue> cells) {
+            this.cells = cells;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < cells.size();
+        }
+
+        @Override
+        public KeyValue next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Reached the end of the iterator");
+            }
+            return cells.get(index++);
+        }
+
+        @Override
+        public void close() {
+            ExternalCellSorter.this.close();
+        }
+    }
+}
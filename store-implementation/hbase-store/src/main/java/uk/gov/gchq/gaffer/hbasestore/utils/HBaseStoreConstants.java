@@ -34,10 +34,14 @@ public final class HBaseStoreConstants {
     public static final String EXTRA_PROCESSORS = "ExtraProcessors";
     public static final String DIRECTED_TYPE = "DirectedType";
     public static final String INCLUDE_MATCHED_VERTEX = "IncludeMatchedVertex";
+    public static final String QUERY_RESULT_CACHE_SIZE = "QueryResultCacheSize";
+    public static final String QUERY_RESULT_CACHE_MAX_BYTES = "QueryResultCacheMaxBytes";
 
     // Operations options
     public static final String OPERATION_HDFS_STAGING_PATH = "hbasestore.operation.hdfs.staging.path";
     public static final String ADD_ELEMENTS_FROM_HDFS_SKIP_IMPORT = "hbasestore.operation.hdfs.skip_import";
+    public static final String ADD_ELEMENTS_BULK_IMPORT = "hbasestore.operation.bulk_import";
+    public static final String ADD_ELEMENTS_BULK_IMPORT_PATH = "hbasestore.operation.bulk_import.path";
 
     // Bytes
     public static final byte[] EMPTY_BYTES = new byte[0];
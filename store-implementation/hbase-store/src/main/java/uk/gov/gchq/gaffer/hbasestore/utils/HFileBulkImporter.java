@@ -0,0 +1,345 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.hbasestore.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.mapreduce.CellCreator;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.security.visibility.CellVisibility;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.commonutil.pair.Pair;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.hbasestore.HBaseStore;
+import uk.gov.gchq.gaffer.hbasestore.coprocessor.processor.StoreAggregationProcessor;
+import uk.gov.gchq.gaffer.hbasestore.serialisation.ElementSerialisation;
+import uk.gov.gchq.gaffer.hbasestore.serialisation.LazyElementCell;
+import uk.gov.gchq.gaffer.store.StoreException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk imports elements into HBase without running a MapReduce job.
+ * <p>
+ * The elements are converted into cells which are sorted in the JVM using an
+ * {@link ExternalCellSorter}, with the given memory budget. Cells with the same
+ * key are aggregated, in the same way they would be in a compaction. The sorted
+ * cells are written to an HFile per region and the HFiles are then loaded into
+ * the table using {@link LoadIncrementalHFiles}. This avoids the write-ahead
+ * log and memstore for large one-off loads.
+ * </p>
+ */
+public class HFileBulkImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HFileBulkImporter.class);
+
+    private final HBaseStore store;
+    private final ElementSerialisation serialisation;
+    private final StoreAggregationProcessor aggregationProcessor;
+    private final long memoryBudget;
+    private final File localTempDir;
+
+    public HFileBulkImporter(final HBaseStore store) {
+        this.store = store;
+        this.serialisation = new ElementSerialisation(store.getSchema());
+        this.aggregationProcessor = store.getSchema().isAggregationEnabled()
+                ? new StoreAggregationProcessor(serialisation, store.getSchema()) : null;
+        this.memoryBudget = store.getProperties().getBulkImportSortBufferSize();
+        final String localTempDirPath = store.getProperties().getBulkImportLocalTempDir();
+        this.localTempDir = null != localTempDirPath ? new File(localTempDirPath) : null;
+    }
+
+    /**
+     * Bulk imports the elements into the store's table.
+     *
+     * @param elements   the elements to import
+     * @param outputPath the directory in which to write the HFiles before
+     *                   they are loaded, if null a directory in the HBase
+     *                   staging directory is used
+     * @throws StoreException if the elements could not be imported
+     */
+    public void importElements(final Iterable<? extends Element> elements, final String outputPath) throws StoreException {
+        // Copy the store's configuration so concurrent imports do not see each other's settings
+        final Configuration conf = new Configuration(store.getConfiguration());
+        conf.set(LoadIncrementalHFiles.CREATE_TABLE_CONF_KEY, "no");
+        final Path hfilesPath = null != outputPath
+                ? new Path(outputPath)
+                : new Path(conf.get(HConstants.TEMPORARY_FS_DIRECTORY_KEY, HConstants.DEFAULT_TEMPORARY_HDFS_DIRECTORY),
+                "gaffer-bulk-import-" + UUID.randomUUID());
+
+        try (final ExternalCellSorter sorter = new ExternalCellSorter(memoryBudget, localTempDir)) {
+            sortCells(elements, sorter, new CellCreator(conf));
+            if (0 == sorter.getNumCells()) {
+                return;
+            }
+            LOGGER.info("Sorted {} cells using {} runs", sorter.getNumCells(), sorter.getNumRuns());
+
+            final FileSystem fs = hfilesPath.getFileSystem(conf);
+            if (fs.exists(hfilesPath)) {
+                throw new StoreException("Bulk import output path " + hfilesPath + " already exists");
+            }
+
+            try {
+                try (final RegionLocator regionLocator = store.getConnection().getRegionLocator(store.getTableName());
+                     final CloseableIterator<KeyValue> sortedCells = sorter.sorted()) {
+                    writeHFiles(sortedCells, regionLocator.getStartKeys(), fs, conf, hfilesPath);
+                }
+
+                IngestUtils.setDirectoryPermsForHbase(fs, hfilesPath);
+                IngestUtils.setDirectoryPermsForHbase(fs, new Path(hfilesPath, Bytes.toString(HBaseStoreConstants.getColFam())));
+                loadHFiles(conf, hfilesPath);
+            } finally {
+                if (fs.exists(hfilesPath)) {
+                    fs.delete(hfilesPath, true);
+                }
+            }
+        } catch (final IOException e) {
+            throw new StoreException("Failed to bulk import elements into table " + store.getTableName(), e);
+        }
+    }
+
+    private void sortCells(final Iterable<? extends Element> elements,
+                           final ExternalCellSorter sorter,
+                           final CellCreator cellCreator) throws IOException {
+        final long now = System.currentTimeMillis();
+        for (final Element element : elements) {
+            if (null == element) {
+                continue;
+            }
+
+            final Pair<Put, Put> puts = serialisation.getPuts(element);
+            addCells(puts.getFirst(), sorter, cellCreator, now);
+            if (null != puts.getSecond()) {
+                addCells(puts.getSecond(), sorter, cellCreator, now);
+            }
+        }
+    }
+
+    private void addCells(final Put put,
+                          final ExternalCellSorter sorter,
+                          final CellCreator cellCreator,
+                          final long now) throws IOException {
+        final CellVisibility cellVisibility;
+        try {
+            cellVisibility = put.getCellVisibility();
+        } catch (final DeserializationException e) {
+            throw new IOException("Unable to read cell visibility", e);
+        }
+        final String visibility = null != cellVisibility ? cellVisibility.getExpression() : null;
+
+        for (final List<Cell> cells : put.getFamilyCellMap().values()) {
+            for (final Cell cell : cells) {
+                // The server would normally set the timestamp when it is not provided
+                final long timestamp = HConstants.LATEST_TIMESTAMP == cell.getTimestamp() ? now : cell.getTimestamp();
+                sorter.add(cellCreator.create(
+                        cell.getRowArray(), cell.getRowOffset(), cell.getRowLength(),
+                        cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength(),
+                        cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength(),
+                        timestamp,
+                        cell.getValueArray(), cell.getValueOffset(), cell.getValueLength(),
+                        visibility));
+            }
+        }
+    }
+
+    private void writeHFiles(final CloseableIterator<KeyValue> sortedCells,
+                             final byte[][] regionStartKeys,
+                             final FileSystem fs,
+                             final Configuration conf,
+                             final Path hfilesPath) throws IOException {
+        final Path familyPath = new Path(hfilesPath, Bytes.toString(HBaseStoreConstants.getColFam()));
+        fs.mkdirs(familyPath);
+        final RegionWriter writer = new RegionWriter(regionStartKeys, fs, conf, familyPath);
+        try {
+            final List<Cell> sameColumnCells = new ArrayList<>();
+            while (sortedCells.hasNext()) {
+                final KeyValue cell = sortedCells.next();
+                if (!sameColumnCells.isEmpty() && !isSameColumn(sameColumnCells.get(0), cell)) {
+                    writer.append(aggregate(sameColumnCells));
+                    sameColumnCells.clear();
+                }
+                sameColumnCells.add(cell);
+            }
+
+            if (!sameColumnCells.isEmpty()) {
+                writer.append(aggregate(sameColumnCells));
+            }
+        } finally {
+            writer.close();
+        }
+        LOGGER.info("Written {} HFiles to {}", writer.numFiles, familyPath);
+    }
+
+    private boolean isSameColumn(final Cell left, final Cell right) {
+        return HBaseUtil.compareRow(left, right) == 0
+                && HBaseUtil.compareFamily(left, right) == 0
+                && HBaseUtil.compareQualifier(left, right) == 0;
+    }
+
+    /**
+     * Aggregates cells that have the same row and column, in the same way a
+     * compaction would. This is required as HBase only returns a single cell
+     * for cells with identical keys.
+     *
+     * @param cells cells with the same row and column
+     * @return the aggregated cells, sorted so they can be written to an HFile
+     */
+    private List<Cell> aggregate(final List<Cell> cells) {
+        if (1 == cells.size()) {
+            return Collections.singletonList(cells.get(0));
+        }
+
+        final List<Cell> result = new ArrayList<>();
+        if (null == aggregationProcessor) {
+            result.addAll(cells);
+        } else {
+            // Group cells with the same visibility together so they can be aggregated
+            final List<Cell> sortedCells = new ArrayList<>(cells);
+            sortedCells.sort(HBaseUtil::compareTags);
+            final List<LazyElementCell> elementCells = new ArrayList<>(sortedCells.size());
+            for (final Cell cell : sortedCells) {
+                elementCells.add(new LazyElementCell(cell, serialisation, false));
+            }
+            for (final LazyElementCell elementCell : aggregationProcessor.process(elementCells)) {
+                result.add(elementCell.getCell());
+            }
+        }
+
+        result.sort(KeyValue.COMPARATOR);
+
+        // Remove any remaining cells with identical keys and visibilities
+        final List<Cell> deduplicated = new ArrayList<>(result.size());
+        for (final Cell cell : result) {
+            if (deduplicated.isEmpty() || !isDuplicate(deduplicated.get(deduplicated.size() - 1), cell)) {
+                deduplicated.add(cell);
+            }
+        }
+        return deduplicated;
+    }
+
+    private boolean isDuplicate(final Cell left, final Cell right) {
+        return KeyValue.COMPARATOR.compare(left, right) == 0
+                && HBaseUtil.compareTags(left, right) == 0;
+    }
+
+    /**
+     * Writes sorted cells to HFiles, starting a new HFile each time the cells
+     * cross a region boundary.
+     */
+    private static final class RegionWriter {
+        private final byte[][] regionStartKeys;
+        private final FileSystem fs;
+        private final Configuration conf;
+        private final Path familyPath;
+        private final CacheConfig cacheConfig;
+        private final HFileContext fileContext;
+        private StoreFile.Writer writer;
+        private int region = -1;
+        private int numFiles;
+
+        private RegionWriter(final byte[][] regionStartKeys,
+                             final FileSystem fs,
+                             final Configuration conf,
+                             final Path familyPath) {
+            this.regionStartKeys = regionStartKeys;
+            this.fs = fs;
+            this.conf = conf;
+            this.familyPath = familyPath;
+            this.cacheConfig = new CacheConfig(conf);
+            this.fileContext = new HFileContextBuilder()
+                    .withIncludesTags(true)
+                    .build();
+        }
+
+        private void append(final List<Cell> cells) throws IOException {
+            final int cellRegion = getRegion(cells.get(0));
+            if (null == writer || cellRegion != region) {
+                close();
+                writer = new StoreFile.WriterBuilder(conf, cacheConfig, fs)
+                        .withOutputDir(familyPath)
+                        .withComparator(KeyValue.COMPARATOR)
+                        .withFileContext(fileContext)
+                        .build();
+                region = cellRegion;
+                numFiles++;
+            }
+
+            for (final Cell cell : cells) {
+                writer.append(cell);
+            }
+        }
+
+        private int getRegion(final Cell cell) {
+            final byte[] row = CellUtil.cloneRow(cell);
+            final int index = Arrays.binarySearch(regionStartKeys, row, Bytes.BYTES_COMPARATOR);
+            // If the row is not a start key then binary search returns (-(insertion point) - 1)
+            return index >= 0 ? index : -index - 2;
+        }
+
+        private void close() throws IOException {
+            if (null != writer) {
+                writer.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY, Bytes.toBytes(System.currentTimeMillis()));
+                writer.appendFileInfo(StoreFile.BULKLOAD_TASK_KEY, Bytes.toBytes(HFileBulkImporter.class.getSimpleName()));
+                writer.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(true));
+                writer.appendFileInfo(StoreFile.EXCLUDE_FROM_MINOR_COMPACTION_KEY, Bytes.toBytes(false));
+                writer.appendTrackedTimestampsToMetadata();
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+
+    private void loadHFiles(final Configuration conf, final Path hfilesPath) throws IOException {
+        Table table = null;
+        RegionLocator regionLocator = null;
+        try (final Admin admin = store.getConnection().getAdmin()) {
+            table = store.getTable();
+            regionLocator = store.getConnection().getRegionLocator(store.getTableName());
+            LOGGER.info("Loading HFiles from {} into table {}", hfilesPath, store.getTableName());
+            new LoadIncrementalHFiles(conf).doBulkLoad(hfilesPath, admin, table, regionLocator);
+            LOGGER.info("Finished loading HFiles into table {}", store.getTableName());
+        } catch (final StoreException e) {
+            throw new IOException(e);
+        } finally {
+            CloseableUtil.close(table);
+            CloseableUtil.close(regionLocator);
+        }
+    }
+}
@@ -297,8 +297,14 @@ public final class TableUtils {
     private static void addCoprocesssor(final HTableDescriptor htable, final HBaseStore store) throws IOException {
         final String schemaJson = StringUtil.escapeComma(
                 Bytes.toString(store.getSchema().toCompactJson()));
-        final Map<String, String> options = new HashMap<>(1);
+        final Map<String, String> options = new HashMap<>(3);
         options.put(HBaseStoreConstants.SCHEMA, schemaJson);
+        final int queryResultCacheSize = store.getProperties().getQueryResultCacheSize();
+        if (queryResultCacheSize > 0) {
+            options.put(HBaseStoreConstants.QUERY_RESULT_CACHE_SIZE, String.valueOf(queryResultCacheSize));
+            options.put(HBaseStoreConstants.QUERY_RESULT_CACHE_MAX_BYTES,
+                    String.valueOf(store.getProperties().getQueryResultCacheMaxBytes()));
+        }
         htable.addCoprocessor(GafferCoprocessor.class.getName(), store.getProperties().getDependencyJarsHdfsDirPath(), Coprocessor.PRIORITY_USER, options);
     }
 
@@ -17,23 +17,31 @@
 package uk.gov.gchq.gaffer.hbasestore.coprocessor;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.ObserverContext;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.MiniBatchOperationInProgress;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.regionserver.ScanType;
 import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 import uk.gov.gchq.gaffer.commonutil.StringUtil;
 import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.data.element.Entity;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.scanner.QueryScanner;
 import uk.gov.gchq.gaffer.hbasestore.coprocessor.scanner.StoreScanner;
+import uk.gov.gchq.gaffer.hbasestore.serialisation.ElementSerialisation;
 import uk.gov.gchq.gaffer.hbasestore.utils.HBaseStoreConstants;
 import uk.gov.gchq.gaffer.serialisation.implementation.StringSerialiser;
 import uk.gov.gchq.gaffer.store.schema.Schema;
@@ -43,7 +51,10 @@ import uk.gov.gchq.gaffer.store.schema.TypeDefinition;
 import uk.gov.gchq.koryphe.impl.binaryoperator.StringConcat;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
@@ -66,16 +77,17 @@ public class GafferCoprocessorTest {
             .vertexSerialiser(new StringSerialiser())
             .build();
 
+    private static final Entity ENTITY = new Entity.Builder()
+            .group(TestGroups.ENTITY)
+            .vertex("vertex")
+            .build();
+
+    private final ElementSerialisation serialisation = new ElementSerialisation(SCHEMA);
     private GafferCoprocessor coprocessor;
 
     @Before
     public void setup() throws IOException {
-        coprocessor = new GafferCoprocessor();
-        final CoprocessorEnvironment coEnv = mock(CoprocessorEnvironment.class);
-        final Configuration conf = mock(Configuration.class);
-        given(coEnv.getConfiguration()).willReturn(conf);
-        given(conf.get(HBaseStoreConstants.SCHEMA)).willReturn(StringUtil.escapeComma(Bytes.toString(SCHEMA.toCompactJson())));
-        coprocessor.start(coEnv);
+        coprocessor = startCoprocessor(0);
     }
 
     @Test
@@ -121,6 +133,87 @@ public class GafferCoprocessorTest {
         assertNotNull(storeScanner);
     }
 
+    @Test
+    public void shouldNotCacheQueryResultsByDefault() throws IOException {
+        // Given
+        scanEntity(coprocessor, 1L);
+
+        // When
+        final long timestamp = scanEntity(coprocessor, 2L);
+
+        // Then
+        assertEquals(2L, timestamp);
+    }
+
+    @Test
+    public void shouldCacheQueryResultsForEachRowScanned() throws IOException {
+        // Given
+        final GafferCoprocessor cachingCoprocessor = startCoprocessor(10);
+
+        // When
+        final long firstTimestamp = scanEntity(cachingCoprocessor, 1L);
+        final long secondTimestamp = scanEntity(cachingCoprocessor, 2L);
+
+        // Then - the first scan misses the cache and the second is served the cached row
+        assertEquals(1L, firstTimestamp);
+        assertEquals(1L, secondTimestamp);
+    }
+
+    @Test
+    public void shouldInvalidateQueryResultCacheOnFlush() throws IOException {
+        // Given
+        final GafferCoprocessor cachingCoprocessor = startCoprocessor(10);
+        scanEntity(cachingCoprocessor, 1L);
+
+        // When
+        cachingCoprocessor.postFlush(mock(ObserverContext.class), mock(Store.class), mock(StoreFile.class));
+
+        // Then
+        assertEquals(2L, scanEntity(cachingCoprocessor, 2L));
+    }
+
+    @Test
+    public void shouldInvalidateQueryResultCacheOnCompaction() throws IOException {
+        // Given
+        final GafferCoprocessor cachingCoprocessor = startCoprocessor(10);
+        scanEntity(cachingCoprocessor, 1L);
+
+        // When
+        cachingCoprocessor.postCompact(mock(ObserverContext.class), mock(Store.class), mock(StoreFile.class));
+
+        // Then
+        assertEquals(2L, scanEntity(cachingCoprocessor, 2L));
+    }
+
+    @Test
+    public void shouldInvalidateQueryResultCacheOnMutation() throws IOException {
+        // Given
+        final GafferCoprocessor cachingCoprocessor = startCoprocessor(10);
+        scanEntity(cachingCoprocessor, 1L);
+        final MiniBatchOperationInProgress<Mutation> miniBatchOp = mock(MiniBatchOperationInProgress.class);
+
+        // When
+        cachingCoprocessor.preBatchMutate(mock(ObserverContext.class), miniBatchOp);
+
+        // Then
+        assertEquals(2L, scanEntity(cachingCoprocessor, 2L));
+    }
+
+    @Test
+    public void shouldNotCacheQueryResultsFromAScannerOpenedBeforeAMutation() throws IOException {
+        // Given
+        final GafferCoprocessor cachingCoprocessor = startCoprocessor(10);
+        final QueryScanner staleScanner = openScanner(cachingCoprocessor, 1L);
+        cachingCoprocessor.preBatchMutate(mock(ObserverContext.class), mock(MiniBatchOperationInProgress.class));
+
+        // When
+        final long staleTimestamp = next(staleScanner);
+
+        // Then
+        assertEquals(1L, staleTimestamp);
+        assertEquals(2L, scanEntity(cachingCoprocessor, 2L));
+    }
+
     @Test
     public void shouldDelegatePostScannerOpenToQueryScanner() throws IOException {
         // Given
@@ -134,4 +227,40 @@ public class GafferCoprocessorTest {
         // Then
         assertNotNull(queryScanner);
     }
+
+    private GafferCoprocessor startCoprocessor(final int queryResultCacheSize) throws IOException {
+        final GafferCoprocessor gafferCoprocessor = new GafferCoprocessor();
+        final CoprocessorEnvironment coEnv = mock(CoprocessorEnvironment.class);
+        final Configuration conf = mock(Configuration.class);
+        given(coEnv.getConfiguration()).willReturn(conf);
+        given(conf.get(HBaseStoreConstants.SCHEMA)).willReturn(StringUtil.escapeComma(Bytes.toString(SCHEMA.toCompactJson())));
+        given(conf.getInt(HBaseStoreConstants.QUERY_RESULT_CACHE_SIZE, 0)).willReturn(queryResultCacheSize);
+        given(conf.getLong(Mockito.eq(HBaseStoreConstants.QUERY_RESULT_CACHE_MAX_BYTES), Mockito.anyLong())).willReturn(1024L * 1024L);
+        gafferCoprocessor.start(coEnv);
+        return gafferCoprocessor;
+    }
+
+    // Scans the row of ENTITY, when the region holds a single cell for it with the given timestamp,
+    // and returns the timestamp of the cell returned by the scan
+    private long scanEntity(final GafferCoprocessor gafferCoprocessor, final long timestamp) throws IOException {
+        return next(openScanner(gafferCoprocessor, timestamp));
+    }
+
+    private QueryScanner openScanner(final GafferCoprocessor gafferCoprocessor, final long timestamp) throws IOException {
+        final Cell cell = new KeyValue(serialisation.getRowKey(ENTITY), HBaseStoreConstants.getColFam(),
+                serialisation.getColumnQualifier(ENTITY), timestamp, serialisation.getValue(ENTITY));
+        final RegionScanner scanner = mock(RegionScanner.class);
+        given(scanner.nextRaw(Mockito.anyList())).willAnswer(invocation -> {
+            ((List<Cell>) invocation.getArguments()[0]).add(cell);
+            return false;
+        });
+        return (QueryScanner) gafferCoprocessor.postScannerOpen(mock(ObserverContext.class), new Scan(), scanner);
+    }
+
+    private static long next(final QueryScanner scanner) throws IOException {
+        final List<Cell> output = new ArrayList<>();
+        scanner.nextRaw(output);
+        assertEquals(1, output.size());
+        return output.get(0).getTimestamp();
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.hbasestore.coprocessor;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryResultCacheTest {
+    private static final byte[] FINGERPRINT = Bytes.toBytes("fingerprint");
+    private static final byte[] FAMILY = Bytes.toBytes("e");
+    private static final long MAX_BYTES = 1024L * 1024L;
+
+    @Test
+    public void shouldCacheAndGetCells() {
+        // Given
+        final QueryResultCache cache = new QueryResultCache(10, MAX_BYTES);
+        final byte[] row = Bytes.toBytes("row1");
+        final Cell cell = createCell(row, "value1");
+
+        // When
+        final boolean cached = cache.put(FINGERPRINT, row, Collections.singletonList(cell), cache.getGeneration());
+        final List<Cell> result = cache.get(Bytes.toBytes("fingerprint"), Bytes.toBytes("row1"));
+
+        // Then
+        assertTrue(cached);
+        assertEquals(1, result.size());
+        assertArrayEquals(Bytes.toBytes("value1"), CellUtil.cloneValue(result.get(0)));
+    }
+
+    @Test
+    public void shouldNotGetCellsForDifferentFingerprint() {
+        // Given
+        final QueryResultCache cache = new QueryResultCache(10, MAX_BYTES);
+        final byte[] row = Bytes.toBytes("row1");
+        cache.put(FINGERPRINT, row, Collections.singletonList(createCell(row, "value1")), cache.getGeneration());
+
+        // When
+        final List<Cell> result = cache.get(Bytes.toBytes("otherFingerprint"), row);
+
+        // Then
+        assertNull(result);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedRows() {
+        // Given
+        final QueryResultCache cache = new QueryResultCache(2, MAX_BYTES);
+        final byte[] row1 = Bytes.toBytes("row1");
+        final byte[] row2 = Bytes.toBytes("row2");
+        final byte[] row3 = Bytes.toBytes("row3");
+        cache.put(FINGERPRINT, row1, Collections.singletonList(createCell(row1, "value1")), cache.getGeneration());
+        cache.put(FINGERPRINT, row2, Collections.singletonList(createCell(row2, "value2")), cache.getGeneration());
+        cache.get(FINGERPRINT, row1);
+
+        // When
+        cache.put(FINGERPRINT, row3, Collections.singletonList(createCell(row3, "value3")), cache.getGeneration());
+
+        // Then
+        assertEquals(2, cache.size());
+        assertNull(cache.get(FINGERPRINT, row2));
+        assertEquals(1, cache.get(FINGERPRINT, row1).size());
+        assertEquals(1, cache.get(FINGERPRINT, row3).size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedRowsWhenOverTheByteLimit() {
+        // Given
+        final byte[] row1 = Bytes.toBytes("row1");
+        final byte[] row2 = Bytes.toBytes("row2");
+        final byte[] row3 = Bytes.toBytes("row3");
+        final long rowBytes = getBytes(row1, "value1");
+        final QueryResultCache cache = new QueryResultCache(10, 2 * rowBytes + rowBytes / 2);
+        cache.put(FINGERPRINT, row1, Collections.singletonList(createCell(row1, "value1")), cache.getGeneration());
+        cache.put(FINGERPRINT, row2, Collections.singletonList(createCell(row2, "value2")), cache.getGeneration());
+        cache.get(FINGERPRINT, row1);
+
+        // When
+        cache.put(FINGERPRINT, row3, Collections.singletonList(createCell(row3, "value3")), cache.getGeneration());
+
+        // Then
+        assertEquals(2, cache.size());
+        assertEquals(2 * rowBytes, cache.getBytes());
+        assertNull(cache.get(FINGERPRINT, row2));
+        assertEquals(1, cache.get(FINGERPRINT, row1).size());
+        assertEquals(1, cache.get(FINGERPRINT, row3).size());
+    }
+
+    @Test
+    public void shouldNotCacheARowLargerThanTheByteLimit() {
+        // Given
+        final byte[] row1 = Bytes.toBytes("row1");
+        final byte[] row2 = Bytes.toBytes("row2");
+        final QueryResultCache cache = new QueryResultCache(10, getBytes(row1, "value1"));
+        cache.put(FINGERPRINT, row1, Collections.singletonList(createCell(row1, "value1")), cache.getGeneration());
+
+        // When
+        final boolean cached = cache.put(FINGERPRINT, row2,
+                Arrays.asList(createCell(row2, "value2"), createCell(row2, "value3")), cache.getGeneration());
+
+        // Then
+        assertFalse(cached);
+        assertNull(cache.get(FINGERPRINT, row2));
+        assertEquals(1, cache.get(FINGERPRINT, row1).size());
+    }
+
+    @Test
+    public void shouldClearCacheOnInvalidate() {
+        // Given
+        final QueryResultCache cache = new QueryResultCache(10, MAX_BYTES);
+        final byte[] row = Bytes.toBytes("row1");
+        cache.put(FINGERPRINT, row, Collections.singletonList(createCell(row, "value1")), cache.getGeneration());
+
+        // When
+        cache.invalidate();
+
+        // Then
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertNull(cache.get(FINGERPRINT, row));
+    }
+
+    @Test
+    public void shouldNotCacheResultsFromPreviousGeneration() {
+        // Given
+        final QueryResultCache cache = new QueryResultCache(10, MAX_BYTES);
+        final byte[] row = Bytes.toBytes("row1");
+        final long generation = cache.getGeneration();
+        cache.invalidate();
+
+        // When
+        final boolean cached = cache.put(FINGERPRINT, row, Collections.singletonList(createCell(row, "value1")), generation);
+
+        // Then
+        assertFalse(cached);
+        assertNull(cache.get(FINGERPRINT, row));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowZeroMaxEntries() {
+        new QueryResultCache(0, MAX_BYTES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowZeroMaxBytes() {
+        new QueryResultCache(10, 0);
+    }
+
+    private long getBytes(final byte[] row, final String value) {
+        final QueryResultCache cache = new QueryResultCache(1, MAX_BYTES);
+        cache.put(FINGERPRINT, row, Collections.singletonList(createCell(row, value)), cache.getGeneration());
+        return cache.getBytes();
+    }
+
+    private Cell createCell(final byte[] row, final String value) {
+        return new KeyValue(row, FAMILY, Bytes.toBytes("q"), 1L, Bytes.toBytes(value));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.hbasestore.coprocessor.processor;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.commonutil.StreamUtil;
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.element.function.ElementTransformer;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.hbasestore.serialisation.ElementSerialisation;
+import uk.gov.gchq.gaffer.hbasestore.serialisation.LazyElementCell;
+import uk.gov.gchq.gaffer.hbasestore.util.CellUtil;
+import uk.gov.gchq.gaffer.hbasestore.util.HBasePropertyNames;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.koryphe.impl.function.Identity;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectionProcessorTest {
+    private static final Schema SCHEMA = Schema.fromJson(StreamUtil.schemas(ProjectionProcessorTest.class));
+
+    private final ElementSerialisation serialisation = new ElementSerialisation(SCHEMA);
+
+    @Test
+    public void shouldNotBeRequiredWhenViewHasAllProperties() {
+        // Given
+        final View view = new View.Builder()
+                .entity(TestGroups.ENTITY)
+                .edge(TestGroups.EDGE)
+                .build();
+
+        // When
+        final ProjectionProcessor processor = new ProjectionProcessor(serialisation, SCHEMA, view);
+
+        // Then
+        assertFalse(processor.isRequired());
+    }
+
+    @Test
+    public void shouldCalculatePropertiesToKeepIncludingTransformAndPostTransformFilterSelections() {
+        // Given
+        final View view = new View.Builder()
+                .entity(TestGroups.ENTITY, new ViewElementDefinition.Builder()
+                        .properties(HBasePropertyNames.PROP_1)
+                        .transformer(new ElementTransformer.Builder()
+                                .select(HBasePropertyNames.PROP_2)
+                                .execute(new Identity())
+                                .project(HBasePropertyNames.PROP_1)
+                                .build())
+                        .postTransformFilter(new ElementFilter.Builder()
+                                .select(HBasePropertyNames.PROP_3)
+                                .execute(new IsMoreThan(0))
+                                .build())
+                        .build())
+                .edge(TestGroups.EDGE, new ViewElementDefinition.Builder()
+                        .excludeProperties(HBasePropertyNames.COUNT)
+                        .build())
+                .build();
+
+        // When
+        final Map<String, Set<String>> propertiesToKeep = ProjectionProcessor.getPropertiesToKeep(SCHEMA, view);
+
+        // Then
+        assertEquals(Sets.newHashSet(HBasePropertyNames.PROP_1, HBasePropertyNames.PROP_2, HBasePropertyNames.PROP_3),
+                propertiesToKeep.get(TestGroups.ENTITY));
+        final Set<String> edgeProperties = propertiesToKeep.get(TestGroups.EDGE);
+        assertFalse(edgeProperties.contains(HBasePropertyNames.COUNT));
+        assertTrue(edgeProperties.contains(HBasePropertyNames.PROP_1));
+    }
+
+    @Test
+    public void shouldRemovePropertiesNotInView() throws Exception {
+        // Given
+        final View view = new View.Builder()
+                .entity(TestGroups.ENTITY, new ViewElementDefinition.Builder()
+                        .properties(HBasePropertyNames.PROP_1, HBasePropertyNames.COLUMN_QUALIFIER)
+                        .build())
+                .build();
+        final ProjectionProcessor processor = new ProjectionProcessor(serialisation, SCHEMA, view);
+        final Entity entity = new Entity.Builder()
+                .group(TestGroups.ENTITY)
+                .vertex("vertex1")
+                .property(HBasePropertyNames.COLUMN_QUALIFIER, 1)
+                .property(HBasePropertyNames.PROP_1, 2)
+                .property(HBasePropertyNames.PROP_2, 3)
+                .property(HBasePropertyNames.COUNT, 4)
+                .build();
+        final LazyElementCell elementCell = CellUtil.getLazyCell(entity, serialisation);
+
+        // When
+        final List<LazyElementCell> result = processor.process(Collections.singletonList(elementCell));
+
+        // Then
+        assertTrue(processor.isRequired());
+        assertEquals(1, result.size());
+        final Element element = serialisation.getElement(result.get(0).getCell(), false);
+        assertEquals(entity.getVertex(), ((Entity) element).getVertex());
+        assertEquals(1, element.getProperty(HBasePropertyNames.COLUMN_QUALIFIER));
+        assertEquals(2, element.getProperty(HBasePropertyNames.PROP_1));
+        assertNull(element.getProperty(HBasePropertyNames.PROP_2));
+        assertNull(element.getProperty(HBasePropertyNames.COUNT));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.hbasestore.integration;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.commonutil.CommonTestConstants;
+import uk.gov.gchq.gaffer.commonutil.StreamUtil;
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.graph.GraphConfig;
+import uk.gov.gchq.gaffer.hbasestore.HBaseProperties;
+import uk.gov.gchq.gaffer.hbasestore.utils.HBaseStoreConstants;
+import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
+import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
+import uk.gov.gchq.gaffer.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AddElementsBulkImportIT {
+    private static final String VERTEX_ID_PREFIX = "vertexId";
+    public static final int NUM_ENTITIES = 10;
+    public static final int DUPLICATES = 4;
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder(CommonTestConstants.TMP_DIRECTORY);
+
+    @Test
+    public void shouldBulkImportAndAggregateElements() throws Exception {
+        // Given
+        final Graph graph = createGraph("bulkImportGraph", HBaseProperties.BULK_IMPORT_SORT_BUFFER_SIZE_DEFAULT);
+
+        // When
+        bulkImport(graph);
+
+        // Then
+        assertElements(graph);
+    }
+
+    @Test
+    public void shouldBulkImportAndAggregateElementsWhenSpillingToDisk() throws Exception {
+        // Given - a tiny sort buffer so every cell is spilled in its own run
+        final Graph graph = createGraph("bulkImportSpillGraph", "1");
+
+        // When
+        bulkImport(graph);
+
+        // Then
+        assertElements(graph);
+    }
+
+    private void bulkImport(final Graph graph) throws Exception {
+        final List<Element> elements = new ArrayList<>();
+        for (int duplicates = 0; duplicates < DUPLICATES; duplicates++) {
+            for (int i = 0; i < NUM_ENTITIES; i++) {
+                elements.add(new Entity.Builder()
+                        .group(TestGroups.ENTITY)
+                        .vertex(VERTEX_ID_PREFIX + i)
+                        .property("count", 1)
+                        .build());
+            }
+        }
+
+        graph.execute(new AddElements.Builder()
+                .input(elements)
+                .option(HBaseStoreConstants.ADD_ELEMENTS_BULK_IMPORT, "true")
+                .option(HBaseStoreConstants.ADD_ELEMENTS_BULK_IMPORT_PATH, testFolder.getRoot().getAbsolutePath() + "/hfiles")
+                .build(), new User());
+    }
+
+    private void assertElements(final Graph graph) throws Exception {
+        final CloseableIterable<? extends Element> elements = graph.execute(new GetAllElements(), new User());
+        final List<Element> elementList = Lists.newArrayList(elements);
+        assertEquals(NUM_ENTITIES, elementList.size());
+        for (int i = 0; i < NUM_ENTITIES; i++) {
+            assertEquals(TestGroups.ENTITY, elementList.get(i).getGroup());
+            assertEquals(VERTEX_ID_PREFIX + i, ((Entity) elementList.get(i)).getVertex());
+            assertEquals(DUPLICATES, elementList.get(i).getProperty("count"));
+        }
+    }
+
+    private Graph createGraph(final String graphId, final String sortBufferSize) {
+        final HBaseProperties properties = HBaseProperties.loadStoreProperties(StreamUtil.storeProps(getClass()));
+        properties.set(HBaseProperties.BULK_IMPORT_SORT_BUFFER_SIZE, sortBufferSize);
+        properties.setBulkImportLocalTempDir(testFolder.getRoot().getAbsolutePath());
+        return new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId(graphId)
+                        .build())
+                .storeProperties(properties)
+                .addSchemas(StreamUtil.schemas(getClass()))
+                .build();
+    }
+}
@@ -15,6 +15,7 @@
  */
 package uk.gov.gchq.gaffer.hbasestore.serialisation;
 
+import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -48,6 +49,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -633,6 +635,32 @@ public class ElementSerialisationTest {
         assertEquals(EdgeDirection.UNDIRECTED, direction);
     }
 
+    @Test
+    public void shouldRemovePropertiesFromValueWithoutChangingLayout() throws SerialisationException {
+        // Given
+        final Entity entity = new Entity.Builder()
+                .group(TestGroups.ENTITY)
+                .vertex("1")
+                .property(HBasePropertyNames.PROP_1, 1)
+                .property(HBasePropertyNames.PROP_2, 2)
+                .property(HBasePropertyNames.PROP_3, 3)
+                .property(HBasePropertyNames.COUNT, 10)
+                .build();
+        final byte[] value = serialisation.getValue(entity);
+
+        // When
+        final byte[] projectedValue = serialisation.getProjectedValue(TestGroups.ENTITY, value,
+                Sets.newHashSet(HBasePropertyNames.PROP_2, HBasePropertyNames.COUNT));
+
+        // Then
+        final Properties properties = serialisation.getPropertiesFromValue(TestGroups.ENTITY, projectedValue);
+        assertEquals(2, properties.get(HBasePropertyNames.PROP_2));
+        assertEquals(10, properties.get(HBasePropertyNames.COUNT));
+        assertNull(properties.get(HBasePropertyNames.PROP_1));
+        assertNull(properties.get(HBasePropertyNames.PROP_3));
+        assertTrue(projectedValue.length < value.length);
+    }
+
     private Entity getExampleEntity(final int value) {
         final Entity entity = new Entity(TestGroups.ENTITY);
         entity.putProperty(HBasePropertyNames.COLUMN_QUALIFIER, value);
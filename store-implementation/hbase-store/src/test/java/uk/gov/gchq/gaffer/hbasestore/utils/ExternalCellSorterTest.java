@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.hbasestore.utils;
+
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.commonutil.CommonTestConstants;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ExternalCellSorterTest {
+    private static final byte[] FAMILY = Bytes.toBytes("e");
+    private static final byte[] QUALIFIER = Bytes.toBytes("q");
+    private static final int NUM_CELLS = 100;
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder(CommonTestConstants.TMP_DIRECTORY);
+
+    @Test
+    public void shouldSortCellsInMemory() throws Exception {
+        // Given
+        final File tempDir = testFolder.newFolder();
+        final ExternalCellSorter sorter = new ExternalCellSorter(Long.MAX_VALUE, tempDir);
+
+        // When
+        final List<String> rows = sort(sorter);
+
+        // Then
+        assertEquals(0, sorter.getNumRuns());
+        assertEquals(getExpectedRows(), rows);
+        assertEquals(0, getNumFiles(tempDir));
+    }
+
+    @Test
+    public void shouldSortCellsBySpillingRunsToDisk() throws Exception {
+        // Given
+        final File tempDir = testFolder.newFolder();
+        final ExternalCellSorter sorter = new ExternalCellSorter(1000, tempDir);
+
+        // When
+        final List<String> rows = sort(sorter);
+
+        // Then
+        assertEquals(getExpectedRows(), rows);
+        assertEquals(0, getNumFiles(tempDir));
+    }
+
+    @Test
+    public void shouldSortCellsWithSameRowByTimestampDescending() throws Exception {
+        // Given
+        final ExternalCellSorter sorter = new ExternalCellSorter(1, testFolder.newFolder());
+        sorter.add(new KeyValue(Bytes.toBytes("row"), FAMILY, QUALIFIER, 1L, Bytes.toBytes("value1")));
+        sorter.add(new KeyValue(Bytes.toBytes("row"), FAMILY, QUALIFIER, 3L, Bytes.toBytes("value3")));
+        sorter.add(new KeyValue(Bytes.toBytes("row"), FAMILY, QUALIFIER, 2L, Bytes.toBytes("value2")));
+
+        // When
+        final List<Long> timestamps = new ArrayList<>();
+        try (final CloseableIterator<KeyValue> itr = sorter.sorted()) {
+            while (itr.hasNext()) {
+                timestamps.add(itr.next().getTimestamp());
+            }
+        }
+
+        // Then
+        assertEquals(3, sorter.getNumCells());
+        assertEquals(3L, (long) timestamps.get(0));
+        assertEquals(2L, (long) timestamps.get(1));
+        assertEquals(1L, (long) timestamps.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowZeroMemoryBudget() {
+        new ExternalCellSorter(0, null);
+    }
+
+    private List<String> sort(final ExternalCellSorter sorter) throws Exception {
+        final List<String> rows = getExpectedRows();
+        Collections.shuffle(rows);
+        for (final String row : rows) {
+            sorter.add(new KeyValue(Bytes.toBytes(row), FAMILY, QUALIFIER, 1L, Bytes.toBytes("value")));
+        }
+
+        final List<String> sortedRows = new ArrayList<>();
+        try (final CloseableIterator<KeyValue> itr = sorter.sorted()) {
+            while (itr.hasNext()) {
+                final KeyValue kv = itr.next();
+                assertEquals("value", Bytes.toString(CellUtil.cloneValue(kv)));
+                sortedRows.add(Bytes.toString(CellUtil.cloneRow(kv)));
+            }
+            assertFalse(itr.hasNext());
+        }
+        return sortedRows;
+    }
+
+    private List<String> getExpectedRows() {
+        final List<String> rows = new ArrayList<>(NUM_CELLS);
+        for (int i = 0; i < NUM_CELLS; i++) {
+            rows.add(String.format("row%03d", i));
+        }
+        return rows;
+    }
+
+    private int getNumFiles(final File dir) {
+        final String[] files = dir.list();
+        return null == files ? 0 : files.length;
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.spark.SparkConf;
+import org.apache.spark.sql.SparkSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +31,7 @@ import uk.gov.gchq.gaffer.data.element.Element;
 import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
 import uk.gov.gchq.gaffer.operation.impl.get.GetElements;
 import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.index.SnapshotReferenceCounter;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.handler.AddElementsHandler;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.handler.ImportJavaRDDOfElementsHandler;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.handler.ImportRDDOfElementsHandler;
@@ -37,9 +39,13 @@ import uk.gov.gchq.gaffer.parquetstore.operation.getelements.handler.GetAdjacent
 import uk.gov.gchq.gaffer.parquetstore.operation.getelements.handler.GetAllElementsHandler;
 import uk.gov.gchq.gaffer.parquetstore.operation.getelements.handler.GetDataframeOfElementsHandler;
 import uk.gov.gchq.gaffer.parquetstore.operation.getelements.handler.GetElementsHandler;
+import uk.gov.gchq.gaffer.parquetstore.utils.AgeOffFilterConverter;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetFilterConverter;
 import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
 import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.TimePartitioner;
 import uk.gov.gchq.gaffer.serialisation.Serialiser;
+import uk.gov.gchq.gaffer.spark.SparkContextUtil;
 import uk.gov.gchq.gaffer.spark.operation.dataframe.GetDataFrameOfElements;
 import uk.gov.gchq.gaffer.spark.operation.javardd.ImportJavaRDDOfElements;
 import uk.gov.gchq.gaffer.spark.operation.scalardd.ImportRDDOfElements;
@@ -56,9 +62,18 @@ import uk.gov.gchq.gaffer.store.schema.SchemaOptimiser;
 import uk.gov.gchq.koryphe.ValidationResult;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static uk.gov.gchq.gaffer.store.StoreTrait.INGEST_AGGREGATION;
 import static uk.gov.gchq.gaffer.store.StoreTrait.ORDERED;
@@ -82,9 +97,17 @@ public class ParquetStore extends Store {
                     PRE_AGGREGATION_FILTERING
             ));
 
-    private GraphIndex graphIndex;
+    private volatile GraphIndex graphIndex;
+    private SnapshotReferenceCounter snapshotReferences;
     private SchemaUtils schemaUtils;
     private FileSystem fs;
+    private ExecutorService readerExecutorService;
+    private ExecutorService compactionExecutorService;
+    private List<ParquetFilterConverter> filterConverters;
+    private TimePartitioner timePartitioner;
+    private final Lock ingestLock = new ReentrantLock();
+    private final AtomicBoolean compactionPending = new AtomicBoolean(false);
+    private SparkSession compactionSparkSession;
 
     @Override
     public void initialise(final String graphId, final Schema schema, final StoreProperties properties) throws StoreException {
@@ -95,7 +118,12 @@ public class ParquetStore extends Store {
             throw new StoreException("Could not connect to the file system", e);
         }
         schemaUtils = new SchemaUtils(getSchema());
+        snapshotReferences = SnapshotReferenceCounter.forDataDir(fs.makeQualified(new Path(getDataDir())).toString());
+        loadFilterConverters();
+        timePartitioner = new TimePartitioner(getSchema(), getProperties());
         loadIndex();
+        addReaderExecutorService();
+        addCompactionExecutorService();
     }
 
     public FileSystem getFS() {
@@ -106,6 +134,76 @@ public class ParquetStore extends Store {
         return schemaUtils;
     }
 
+    /**
+     * Gets the thread pool that is shared by all queries on this store to read the Parquet files. The number of
+     * threads is set by {@link ParquetStoreProperties#getThreadsAvailable()}.
+     *
+     * @return the shared thread pool for reading Parquet files
+     */
+    public ExecutorService getReaderExecutorService() {
+        return readerExecutorService;
+    }
+
+    /**
+     * Gets the {@link ParquetFilterConverter}s that are used to push down the pre-aggregation filter predicates which
+     * are not natively supported by the store. These are the converters set by
+     * {@link ParquetStoreProperties#getFilterConverters()} followed by the store's own converters.
+     *
+     * @return the filter converters, in the order they should be tried
+     */
+    public List<ParquetFilterConverter> getFilterConverters() {
+        return filterConverters;
+    }
+
+    /**
+     * Gets the {@link TimePartitioner} that decides which of the groups are partitioned by time, see
+     * {@link ParquetStoreProperties#getTimePartitioningProperty(String)}.
+     *
+     * @return the time partitioner
+     */
+    public TimePartitioner getTimePartitioner() {
+        return timePartitioner;
+    }
+
+    /**
+     * Gets the lock that must be held while the data or the {@link GraphIndex} is being updated, so that an add
+     * elements operation and a compaction of the deltas never run at the same time.
+     *
+     * @return the ingest lock
+     */
+    public Lock getIngestLock() {
+        return ingestLock;
+    }
+
+    /**
+     * Runs a compaction of the deltas in the background, unless a compaction is already waiting to be run.
+     *
+     * @param compaction the compaction to run
+     */
+    public void scheduleCompaction(final Runnable compaction) {
+        if (compactionPending.compareAndSet(false, true)) {
+            compactionExecutorService.submit(() -> {
+                compactionPending.set(false);
+                compaction.run();
+            });
+        }
+    }
+
+    /**
+     * Gets the {@link SparkSession} that is owned by this store and used by the background compactions of the deltas,
+     * so that a compaction neither depends on the session of the operation that scheduled it nor changes its
+     * configuration. The session is created on first use and shares the {@link org.apache.spark.SparkContext} of the
+     * session created from the store properties.
+     *
+     * @return the Spark session for compactions
+     */
+    public synchronized SparkSession getCompactionSparkSession() {
+        if (null == compactionSparkSession) {
+            compactionSparkSession = SparkContextUtil.createSparkSession(getProperties()).newSession();
+        }
+        return compactionSparkSession;
+    }
+
     @Override
     public Set<StoreTrait> getTraits() {
         return TRAITS;
@@ -119,14 +217,127 @@ public class ParquetStore extends Store {
         return getProperties().getTempFilesDir() + "/" + getGraphId();
     }
 
+    /**
+     * Replaces the current {@link GraphIndex}. The files of the previous index which are not used by the new index are
+     * deleted once the last query reading from them has finished, if
+     * {@link ParquetStoreProperties#getDeleteUnusedSnapshots()} is set.
+     *
+     * @param graphIndex the new index
+     */
     public void setGraphIndex(final GraphIndex graphIndex) {
-        this.graphIndex = graphIndex;
+        final GraphIndex previousGraphIndex;
+        synchronized (this) {
+            previousGraphIndex = this.graphIndex;
+            if (null != graphIndex) {
+                snapshotReferences.acquire(graphIndex);
+            }
+            this.graphIndex = graphIndex;
+        }
+        if (null != previousGraphIndex) {
+            releaseGraphIndex(previousGraphIndex);
+        }
     }
 
+    /**
+     * Gets the current {@link GraphIndex}. The files of the index may be deleted once it has been replaced, so queries
+     * should use {@link #acquireGraphIndex()} instead.
+     *
+     * @return the current index, or null if there is no data
+     */
     public GraphIndex getGraphIndex() {
         return graphIndex;
     }
 
+    /**
+     * Gets the current {@link GraphIndex} and pins its snapshot, so that the files of the snapshot are not deleted
+     * until {@link #releaseGraphIndex(GraphIndex)} is called, even if new data is added in the meantime.
+     *
+     * @return the current index, or null if there is no data
+     */
+    public synchronized GraphIndex acquireGraphIndex() {
+        if (null != graphIndex) {
+            snapshotReferences.acquire(graphIndex);
+        }
+        return graphIndex;
+    }
+
+    /**
+     * Releases an index returned by {@link #acquireGraphIndex()}. If it was the last use of a snapshot or delta that
+     * has since been replaced then its files are deleted.
+     *
+     * @param index the index to release
+     */
+    public void releaseGraphIndex(final GraphIndex index) {
+        final List<String> unreferencedDirectories = snapshotReferences.release(index);
+        if (!getProperties().getDeleteUnusedSnapshots()) {
+            return;
+        }
+        for (final String directory : unreferencedDirectories) {
+            try {
+                deleteUnusedDirectory(directory);
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to delete the unused snapshot directory {}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes an unused snapshot, delta or time bucket directory, apart from any time buckets within it that are still
+     * used by a later snapshot. Once the last of those buckets is deleted the rest of the snapshot directory is too.
+     *
+     * @param directory the directory
+     * @throws IOException if the directory could not be deleted
+     */
+    private void deleteUnusedDirectory(final String directory) throws IOException {
+        final List<String> usedDirectories = snapshotReferences.getReferencedSubdirectories(directory);
+        if (usedDirectories.isEmpty()) {
+            if (fs.delete(new Path(directory), true)) {
+                LOGGER.debug("Deleted the unused snapshot directory {}", directory);
+            }
+        } else {
+            for (final FileStatus status : fs.listStatus(new Path(directory))) {
+                final String child = directory + "/" + status.getPath().getName();
+                if (usedDirectories.contains(child)) {
+                    LOGGER.debug("Keeping {} as it is used by a later snapshot", child);
+                } else if (usedDirectories.stream().anyMatch(used -> used.startsWith(child + "/"))) {
+                    deleteUnusedDirectory(child);
+                } else {
+                    fs.delete(status.getPath(), true);
+                }
+            }
+        }
+        final Path parent = new Path(directory).getParent();
+        if (ParquetStoreConstants.TIME_BUCKETS.equals(parent.getName())) {
+            // Tidy up the directory of the snapshot that the bucket was written in once nothing else is left in it
+            final String timeBucketsDir = directory.substring(0, directory.lastIndexOf('/'));
+            final String snapshotDir = timeBucketsDir.substring(0, timeBucketsDir.lastIndexOf('/'));
+            if (0 == snapshotReferences.getReferences(snapshotDir)
+                    && snapshotReferences.getReferencedSubdirectories(snapshotDir).isEmpty()
+                    && fs.exists(parent) && 0 == fs.listStatus(parent).length) {
+                fs.delete(new Path(snapshotDir), true);
+                LOGGER.debug("Deleted the unused snapshot directory {}", snapshotDir);
+            }
+        }
+    }
+
+    public static String getDeltasDirectory(final String snapshotDir) {
+        return snapshotDir + "/" + ParquetStoreConstants.DELTAS;
+    }
+
+    public static String getTimeBucketsDirectory(final String dir) {
+        return dir + "/" + ParquetStoreConstants.TIME_BUCKETS;
+    }
+
+    /**
+     * @param rootDir     the directory containing the snapshot directories, or the delta directories of a snapshot
+     * @param bucketIndex the index of a time bucket of a snapshot or delta
+     * @return the directory containing the elements of the time bucket, which may be in an earlier snapshot
+     */
+    public static String getTimeBucketDirectory(final String rootDir, final GraphIndex bucketIndex) {
+        return getTimeBucketsDirectory(rootDir + "/" + bucketIndex.getSnapshotTimestamp())
+                + "/" + bucketIndex.getTimeBucket().getDirectoryName();
+    }
+
     public static String getGroupDirectory(final String group, final String column, final String rootDir) {
         if (ParquetStoreConstants.VERTEX.equals(column) || ParquetStoreConstants.SOURCE.equals(column)) {
             return rootDir + "/" + ParquetStoreConstants.GRAPH + "/" + ParquetStoreConstants.GROUP + "=" + group;
@@ -203,13 +414,80 @@ public class ParquetStore extends Store {
                 graphIndex = new GraphIndex();
                 final long snapshot = getLatestSnapshot(rootDir);
                 graphIndex.readGroups(schemaUtils, rootDir + "/" + snapshot, fs);
+                graphIndex.readTimeBuckets(schemaUtils, rootDir + "/" + snapshot, fs);
                 graphIndex.setSnapshotTimestamp(snapshot);
+                loadDeltas(getDeltasDirectory(rootDir + "/" + snapshot));
+                snapshotReferences.acquire(graphIndex);
             }
         } catch (final IOException e) {
             throw new StoreException(e.getMessage());
         }
     }
 
+    private void loadDeltas(final String deltasDir) throws IOException, StoreException {
+        if (fs.exists(new Path(deltasDir))) {
+            final Set<Long> deltas = new TreeSet<>();
+            final Set<Long> replacedDeltas = new HashSet<>();
+            for (final FileStatus status : fs.listStatus(new Path(deltasDir))) {
+                final long delta = Long.parseLong(status.getPath().getName());
+                deltas.add(delta);
+                replacedDeltas.addAll(GraphIndex.readReplacedDeltas(deltasDir + "/" + delta, fs));
+            }
+            for (final long delta : deltas) {
+                if (!replacedDeltas.contains(delta)) {
+                    final GraphIndex deltaIndex = new GraphIndex();
+                    deltaIndex.readGroups(schemaUtils, deltasDir + "/" + delta, fs);
+                    deltaIndex.readTimeBuckets(schemaUtils, deltasDir + "/" + delta, fs);
+                    deltaIndex.setSnapshotTimestamp(delta);
+                    graphIndex.addDelta(deltaIndex);
+                }
+            }
+            LOGGER.debug("Loaded {} deltas from {}", graphIndex.getDeltas().size(), deltasDir);
+        }
+    }
+
+    private void loadFilterConverters() throws StoreException {
+        final List<ParquetFilterConverter> converters = new ArrayList<>();
+        final String converterClassNames = getProperties().getFilterConverters();
+        if (null != converterClassNames) {
+            for (final String className : converterClassNames.split(",")) {
+                if (!className.trim().isEmpty()) {
+                    try {
+                        converters.add(Class.forName(className.trim()).asSubclass(ParquetFilterConverter.class).newInstance());
+                    } catch (final ClassNotFoundException | ClassCastException | InstantiationException | IllegalAccessException e) {
+                        throw new StoreException("Unable to create the Parquet filter converter: " + className, e);
+                    }
+                }
+            }
+        }
+        converters.add(new AgeOffFilterConverter());
+        filterConverters = Collections.unmodifiableList(converters);
+    }
+
+    private void addReaderExecutorService() {
+        if (null != readerExecutorService) {
+            readerExecutorService.shutdown();
+        }
+        final Integer threadsAvailable = getProperties().getThreadsAvailable();
+        LOGGER.debug("Initialising the Parquet reader ExecutorService with {} threads", threadsAvailable);
+        readerExecutorService = Executors.newFixedThreadPool(threadsAvailable, runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void addCompactionExecutorService() {
+        if (null != compactionExecutorService) {
+            compactionExecutorService.shutdown();
+        }
+        compactionExecutorService = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     private long getLatestSnapshot(final String rootDir) throws StoreException {
         long latestSnapshot = 0L;
         try {
@@ -16,6 +16,8 @@
 
 package uk.gov.gchq.gaffer.parquetstore;
 
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.spark.SparkConf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +29,7 @@ import uk.gov.gchq.koryphe.impl.binaryoperator.StringDeduplicateConcat;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.Locale;
 
 /**
  * Stores all the user customisable properties required by the {@link ParquetStore}.
@@ -39,11 +42,28 @@ public class ParquetStoreProperties extends StoreProperties implements Serializa
     public static final String TEMP_FILES_DIR = "parquet.temp_data.dir";
     public static final String PARQUET_ROW_GROUP_SIZE_IN_BYTES = "parquet.add_elements.row_group.size";
     public static final String PARQUET_PAGE_SIZE_IN_BYTES = "parquet.add_elements.page.size";
+    public static final String PARQUET_DICTIONARY_PAGE_SIZE_IN_BYTES = "parquet.add_elements.dictionary_page.size";
+    public static final String PARQUET_DICTIONARY_ENCODING = "parquet.add_elements.dictionary_encoding";
+    public static final String PARQUET_WRITER_VERSION = "parquet.add_elements.writer_version";
     public static final String PARQUET_AGGREGATE_ON_INGEST = "parquet.add_elements.aggregate";
     public static final String PARQUET_SORT_BY_SPLITS_ON_INGEST = "parquet.add_elements.sort_by_splits";
+    public static final String PARQUET_COMPRESSION_CODEC = "parquet.add_elements.compression_codec";
     public static final String PARQUET_SPLIT_POINTS_SAMPLE_RATE = "parquet.add_elements.split_points.sample_rate";
     public static final String PARQUET_THREADS_AVAILABLE = "parquet.threadsAvailable";
     public static final String PARQUET_ADD_ELEMENTS_OUTPUT_FILES_PER_GROUP = "parquet.add_elements.output_files_per_group";
+    public static final String PARQUET_GET_ELEMENTS_QUEUE_SIZE = "parquet.get_elements.queue_size";
+    public static final String PARQUET_GET_ELEMENTS_QUEUE_TIMEOUT = "parquet.get_elements.queue_timeout";
+    public static final String PARQUET_INDEX_BLOOM_FILTER_FALSE_POSITIVE_RATE = "parquet.add_elements.index.bloom_filter.false_positive_rate";
+    public static final String PARQUET_ADD_ELEMENTS_INCREMENTAL = "parquet.add_elements.incremental";
+    public static final String PARQUET_COMPACTION_MIN_DELTAS_PER_TIER = "parquet.compaction.min_deltas_per_tier";
+    public static final String PARQUET_COMPACTION_MAX_DELTAS = "parquet.compaction.max_deltas";
+    public static final String PARQUET_COMPACTION_MAX_DELTA_RATIO = "parquet.compaction.max_delta_ratio";
+    public static final String PARQUET_FILTER_CONVERTERS = "parquet.get_elements.filter_converters";
+    public static final String PARQUET_DELETE_UNUSED_SNAPSHOTS = "parquet.snapshots.delete_unused";
+    public static final String PARQUET_TIME_PARTITIONING_PROPERTY_PREFIX = "parquet.time_partitioning.property.";
+    public static final String PARQUET_TIME_PARTITIONING_BUCKET_SIZE = "parquet.time_partitioning.bucket_size";
+    public static final String PARQUET_ADD_ELEMENTS_LOCAL = "parquet.add_elements.local";
+    public static final String PARQUET_ADD_ELEMENTS_LOCAL_SORT_BUFFER_SIZE = "parquet.add_elements.local.sort_buffer_size";
     public static final String SPARK_MASTER = "spark.master";
 
 
@@ -52,11 +72,25 @@ public class ParquetStoreProperties extends StoreProperties implements Serializa
     private static final String TEMP_FILES_DIR_DEFAULT = ".gaffer/temp_parquet_data";
     private static final String PARQUET_ROW_GROUP_SIZE_IN_BYTES_DEFAULT = "4194304"; //4MB
     private static final String PARQUET_PAGE_SIZE_IN_BYTES_DEFAULT = "1048576"; //1MB
+    private static final String PARQUET_DICTIONARY_ENCODING_DEFAULT = "true";
+    private static final String PARQUET_WRITER_VERSION_DEFAULT = "v1";
     public static final String PARQUET_AGGREGATE_ON_INGEST_DEFAULT = "true";
     public static final String PARQUET_SORT_BY_SPLITS_ON_INGEST_DEFAULT = "false";
+    private static final String PARQUET_COMPRESSION_CODEC_DEFAULT = "gzip";
     private static final String PARQUET_SPLIT_POINTS_SAMPLE_RATE_DEFAULT = "10";
     private static final String PARQUET_THREADS_AVAILABLE_DEFAULT = "3";
     private static final String PARQUET_ADD_ELEMENTS_OUTPUT_FILES_PER_GROUP_DEFAULT = "10";
+    private static final String PARQUET_GET_ELEMENTS_QUEUE_SIZE_DEFAULT = "10000";
+    private static final String PARQUET_GET_ELEMENTS_QUEUE_TIMEOUT_DEFAULT = "1000";
+    private static final String PARQUET_INDEX_BLOOM_FILTER_FALSE_POSITIVE_RATE_DEFAULT = "0.0";
+    private static final String PARQUET_ADD_ELEMENTS_INCREMENTAL_DEFAULT = "false";
+    private static final String PARQUET_COMPACTION_MIN_DELTAS_PER_TIER_DEFAULT = "4";
+    private static final String PARQUET_COMPACTION_MAX_DELTAS_DEFAULT = "16";
+    private static final String PARQUET_COMPACTION_MAX_DELTA_RATIO_DEFAULT = "0.25";
+    private static final String PARQUET_ADD_ELEMENTS_LOCAL_DEFAULT = "false";
+    private static final String PARQUET_DELETE_UNUSED_SNAPSHOTS_DEFAULT = "false";
+    private static final String PARQUET_TIME_PARTITIONING_BUCKET_SIZE_DEFAULT = "86400000"; //1 day
+    private static final String PARQUET_ADD_ELEMENTS_LOCAL_SORT_BUFFER_SIZE_DEFAULT = "100000";
     private static final String SPARK_MASTER_DEFAULT = "local[*]";
     private static final long serialVersionUID = 7695540336792378185L;
 
@@ -128,6 +162,51 @@ public class ParquetStoreProperties extends StoreProperties implements Serializa
         set(PARQUET_PAGE_SIZE_IN_BYTES, String.valueOf(pageSizeInBytes));
     }
 
+    /**
+     * The maximum size in bytes of the dictionary page of each column chunk. Once a column's dictionary reaches this
+     * size the rest of the column chunk is written without dictionary encoding.
+     *
+     * @return The dictionary page size in bytes, which defaults to the page size.
+     */
+    public Integer getDictionaryPageSize() {
+        final String dictionaryPageSize = get(PARQUET_DICTIONARY_PAGE_SIZE_IN_BYTES);
+        return null == dictionaryPageSize ? getPageSize() : Integer.parseInt(dictionaryPageSize);
+    }
+
+    public void setDictionaryPageSize(final int dictionaryPageSizeInBytes) {
+        set(PARQUET_DICTIONARY_PAGE_SIZE_IN_BYTES, String.valueOf(dictionaryPageSizeInBytes));
+    }
+
+    /**
+     * Whether the columns of the Parquet files are dictionary encoded. This greatly reduces the size of columns with
+     * many repeated values, such as the source and destination columns of graphs where some vertices have a high
+     * degree.
+     *
+     * @return true if dictionary encoding should be used.
+     */
+    public boolean getDictionaryEncoding() {
+        return Boolean.parseBoolean(get(PARQUET_DICTIONARY_ENCODING, PARQUET_DICTIONARY_ENCODING_DEFAULT));
+    }
+
+    public void setDictionaryEncoding(final boolean dictionaryEncoding) {
+        set(PARQUET_DICTIONARY_ENCODING, String.valueOf(dictionaryEncoding));
+    }
+
+    /**
+     * The version of the Parquet format that the data pages are written with, either "v1" or "v2". Version 2 uses
+     * delta encoding for integer and long columns and incremental (front coded) encoding for binary and string columns
+     * that are not dictionary encoded, which suits the sorted vertex, source and destination columns.
+     *
+     * @return The Parquet writer version.
+     */
+    public ParquetProperties.WriterVersion getWriterVersion() {
+        return ParquetProperties.WriterVersion.fromString(get(PARQUET_WRITER_VERSION, PARQUET_WRITER_VERSION_DEFAULT));
+    }
+
+    public void setWriterVersion(final ParquetProperties.WriterVersion writerVersion) {
+        set(PARQUET_WRITER_VERSION, writerVersion.getShortName());
+    }
+
     public int getAddElementsOutputFilesPerGroup() {
         return Integer.parseInt(get(PARQUET_ADD_ELEMENTS_OUTPUT_FILES_PER_GROUP, PARQUET_ADD_ELEMENTS_OUTPUT_FILES_PER_GROUP_DEFAULT));
     }
@@ -136,6 +215,214 @@ public class ParquetStoreProperties extends StoreProperties implements Serializa
         set(PARQUET_ADD_ELEMENTS_OUTPUT_FILES_PER_GROUP, String.valueOf(outputFilesPerGroup));
     }
 
+    /**
+     * The compression codec used for the sorted files of the graph, e.g. gzip, snappy or uncompressed.
+     *
+     * @return The compression codec.
+     */
+    public CompressionCodecName getCompressionCodec() {
+        return CompressionCodecName.valueOf(get(PARQUET_COMPRESSION_CODEC, PARQUET_COMPRESSION_CODEC_DEFAULT).trim().toUpperCase(Locale.ENGLISH));
+    }
+
+    public void setCompressionCodec(final CompressionCodecName compressionCodec) {
+        set(PARQUET_COMPRESSION_CODEC, compressionCodec.name().toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * The maximum number of elements that can be buffered for a single query, while waiting for them to be consumed.
+     * Once this is reached the threads reading the Parquet files for that query will wait until elements have been
+     * consumed.
+     *
+     * @return The maximum number of elements to buffer per query.
+     */
+    public int getGetElementsQueueSize() {
+        return Integer.parseInt(get(PARQUET_GET_ELEMENTS_QUEUE_SIZE, PARQUET_GET_ELEMENTS_QUEUE_SIZE_DEFAULT));
+    }
+
+    public void setGetElementsQueueSize(final int queueSize) {
+        set(PARQUET_GET_ELEMENTS_QUEUE_SIZE, String.valueOf(queueSize));
+    }
+
+    /**
+     * The maximum time in milliseconds that a thread reading a Parquet file will wait for space in the queue of a
+     * query. If the elements of a query are not consumed within this time then the thread stops reading the file,
+     * leaving it open, and is used for other queries until the elements are consumed, so that a consumer that has
+     * stopped reading does not hold on to the shared reader threads.
+     *
+     * @return The maximum time to wait for elements to be consumed before freeing the thread.
+     */
+    public long getGetElementsQueueTimeout() {
+        return Long.parseLong(get(PARQUET_GET_ELEMENTS_QUEUE_TIMEOUT, PARQUET_GET_ELEMENTS_QUEUE_TIMEOUT_DEFAULT));
+    }
+
+    public void setGetElementsQueueTimeout(final long queueTimeout) {
+        set(PARQUET_GET_ELEMENTS_QUEUE_TIMEOUT, String.valueOf(queueTimeout));
+    }
+
+    /**
+     * The false positive rate of the Bloom filters of the vertex, source and destination values that are stored in the
+     * index for each file. A value of 0, the default, means that no Bloom filters are created. When the elements are
+     * aggregated and sorted by Spark, building the Bloom filters re-reads every file of each indexed column.
+     *
+     * @return The false positive rate of the Bloom filters in the index.
+     */
+    public double getIndexBloomFilterFalsePositiveRate() {
+        return Double.parseDouble(get(PARQUET_INDEX_BLOOM_FILTER_FALSE_POSITIVE_RATE, PARQUET_INDEX_BLOOM_FILTER_FALSE_POSITIVE_RATE_DEFAULT));
+    }
+
+    public void setIndexBloomFilterFalsePositiveRate(final double falsePositiveRate) {
+        set(PARQUET_INDEX_BLOOM_FILTER_FALSE_POSITIVE_RATE, String.valueOf(falsePositiveRate));
+    }
+
+    /**
+     * If true then each add elements operation only aggregates and sorts the new elements and writes them as a delta
+     * alongside the current snapshot, rather than rewriting all of the data. The deltas are merged with the snapshot
+     * when they are queried and are compacted in the background, see {@link #getCompactionMinDeltasPerTier()},
+     * {@link #getCompactionMaxDeltas()} and {@link #getCompactionMaxDeltaRatio()}.
+     *
+     * @return true if elements should be added incrementally.
+     */
+    public boolean getAddElementsIncremental() {
+        return Boolean.parseBoolean(get(PARQUET_ADD_ELEMENTS_INCREMENTAL, PARQUET_ADD_ELEMENTS_INCREMENTAL_DEFAULT));
+    }
+
+    public void setAddElementsIncremental(final boolean incremental) {
+        set(PARQUET_ADD_ELEMENTS_INCREMENTAL, String.valueOf(incremental));
+    }
+
+    /**
+     * The number of deltas of a similar size that will be merged into a single delta by a background compaction.
+     * Deltas are considered to be of a similar size if they are within a factor of 4 of each other.
+     *
+     * @return The minimum number of deltas in a size tier before they are compacted.
+     */
+    public int getCompactionMinDeltasPerTier() {
+        return Integer.parseInt(get(PARQUET_COMPACTION_MIN_DELTAS_PER_TIER, PARQUET_COMPACTION_MIN_DELTAS_PER_TIER_DEFAULT));
+    }
+
+    public void setCompactionMinDeltasPerTier(final int minDeltasPerTier) {
+        set(PARQUET_COMPACTION_MIN_DELTAS_PER_TIER, String.valueOf(minDeltasPerTier));
+    }
+
+    /**
+     * The maximum number of deltas before all of them are compacted into a new snapshot by a background compaction.
+     *
+     * @return The maximum number of deltas.
+     */
+    public int getCompactionMaxDeltas() {
+        return Integer.parseInt(get(PARQUET_COMPACTION_MAX_DELTAS, PARQUET_COMPACTION_MAX_DELTAS_DEFAULT));
+    }
+
+    public void setCompactionMaxDeltas(final int maxDeltas) {
+        set(PARQUET_COMPACTION_MAX_DELTAS, String.valueOf(maxDeltas));
+    }
+
+    /**
+     * The maximum total size of the deltas, as a fraction of the size of the snapshot, before all of them are
+     * compacted into a new snapshot by a background compaction.
+     *
+     * @return The maximum ratio of the size of the deltas to the size of the snapshot.
+     */
+    public double getCompactionMaxDeltaRatio() {
+        return Double.parseDouble(get(PARQUET_COMPACTION_MAX_DELTA_RATIO, PARQUET_COMPACTION_MAX_DELTA_RATIO_DEFAULT));
+    }
+
+    public void setCompactionMaxDeltaRatio(final double maxDeltaRatio) {
+        set(PARQUET_COMPACTION_MAX_DELTA_RATIO, String.valueOf(maxDeltaRatio));
+    }
+
+    /**
+     * If true then the {@link uk.gov.gchq.gaffer.operation.impl.add.AddElements} operation aggregates, sorts and
+     * indexes the elements using a pool of {@link #getThreadsAvailable()} local threads rather than Spark, so that
+     * single node deployments do not need to start a Spark session to add elements.
+     *
+     * @return true if elements should be added without using Spark.
+     */
+    public boolean getAddElementsLocal() {
+        return Boolean.parseBoolean(get(PARQUET_ADD_ELEMENTS_LOCAL, PARQUET_ADD_ELEMENTS_LOCAL_DEFAULT));
+    }
+
+    public void setAddElementsLocal(final boolean local) {
+        set(PARQUET_ADD_ELEMENTS_LOCAL, String.valueOf(local));
+    }
+
+    /**
+     * The maximum number of elements that each thread holds in memory while sorting the elements when they are added
+     * without using Spark, see {@link #getAddElementsLocal()}. Once this is reached the sorted elements are written to
+     * a temporary file and are later merged with the other temporary files.
+     *
+     * @return The maximum number of elements each thread will sort in memory.
+     */
+    public int getAddElementsLocalSortBufferSize() {
+        return Integer.parseInt(get(PARQUET_ADD_ELEMENTS_LOCAL_SORT_BUFFER_SIZE, PARQUET_ADD_ELEMENTS_LOCAL_SORT_BUFFER_SIZE_DEFAULT));
+    }
+
+    public void setAddElementsLocalSortBufferSize(final int sortBufferSize) {
+        set(PARQUET_ADD_ELEMENTS_LOCAL_SORT_BUFFER_SIZE, String.valueOf(sortBufferSize));
+    }
+
+    /**
+     * A comma separated list of the class names of the
+     * {@link uk.gov.gchq.gaffer.parquetstore.utils.ParquetFilterConverter}s that are used to convert pre-aggregation
+     * filter predicates, which are not natively supported by the store, into Parquet filters. These are tried in order
+     * before the store's own converters.
+     *
+     * @return The class names of the filter converters, or null if none have been set.
+     */
+    public String getFilterConverters() {
+        return get(PARQUET_FILTER_CONVERTERS);
+    }
+
+    public void setFilterConverters(final String filterConverters) {
+        set(PARQUET_FILTER_CONVERTERS, filterConverters);
+    }
+
+    /**
+     * If true then the files of a snapshot, or of a delta, are deleted once it has been replaced by adding or compacting
+     * elements and the last query reading it has finished. The queries are only tracked within a single JVM, so this
+     * should only be set if the data directory is not read by any other processes.
+     *
+     * @return true if unused snapshots should be deleted.
+     */
+    public boolean getDeleteUnusedSnapshots() {
+        return Boolean.parseBoolean(get(PARQUET_DELETE_UNUSED_SNAPSHOTS, PARQUET_DELETE_UNUSED_SNAPSHOTS_DEFAULT));
+    }
+
+    public void setDeleteUnusedSnapshots(final boolean deleteUnusedSnapshots) {
+        set(PARQUET_DELETE_UNUSED_SNAPSHOTS, String.valueOf(deleteUnusedSnapshots));
+    }
+
+    /**
+     * The property of the given group whose value is used to partition the group's elements by time. The elements of a
+     * time partitioned group are written to a separate directory for each time bucket, so that queries which filter on
+     * that property can skip the buckets that can not match. The property must be a timestamp, stored as a
+     * {@link java.util.Date} or as a number of milliseconds, and must be one of the group by properties of the group.
+     *
+     * @param group The group.
+     * @return The name of the property, or null if the group is not partitioned by time.
+     */
+    public String getTimePartitioningProperty(final String group) {
+        return get(PARQUET_TIME_PARTITIONING_PROPERTY_PREFIX + group);
+    }
+
+    public void setTimePartitioningProperty(final String group, final String property) {
+        set(PARQUET_TIME_PARTITIONING_PROPERTY_PREFIX + group, property);
+    }
+
+    /**
+     * The length of each time bucket, in milliseconds, that the elements of the groups which are partitioned by time
+     * are split into.
+     *
+     * @return The size of the time buckets in milliseconds.
+     */
+    public long getTimePartitioningBucketSize() {
+        return Long.parseLong(get(PARQUET_TIME_PARTITIONING_BUCKET_SIZE, PARQUET_TIME_PARTITIONING_BUCKET_SIZE_DEFAULT));
+    }
+
+    public void setTimePartitioningBucketSize(final long bucketSize) {
+        set(PARQUET_TIME_PARTITIONING_BUCKET_SIZE, String.valueOf(bucketSize));
+    }
+
     /**
      * If the Spark master is set in this class then that will be used. Otherwise the Spark default config set on the
      * local machine will be used, if you run your code as a spark-submit command or from the spark-shell.
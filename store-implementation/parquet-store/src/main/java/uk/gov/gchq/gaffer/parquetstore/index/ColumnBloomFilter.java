@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.parquetstore.index;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * A Bloom filter of the parquet objects that represent a single gaffer column in a file, which is stored in the
+ * {@link ColumnIndex}. It allows a seed lookup to skip files that definitely do not contain the seed without opening
+ * them.
+ * <p>
+ * The values are hashed using a 128 bit murmur3 hash of the {@link ParquetObjectsFunnel}, and the bit positions are
+ * derived from the two halves of that hash. This class is used rather than Guava's BloomFilter so that the
+ * serialised form written to the index does not depend on the version of Guava on the classpath.
+ * <p>
+ * Bloom filters created with the same size can be merged, so that a filter of a whole file can be built from filters
+ * of each of its partitions.
+ */
+public final class ColumnBloomFilter implements Serializable {
+    private static final long serialVersionUID = -3415466021325870442L;
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final long[] bits;
+    private final int numHashFunctions;
+
+    private ColumnBloomFilter(final long[] bits, final int numHashFunctions) {
+        this.bits = bits;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    /**
+     * Creates an empty Bloom filter sized for the expected number of values and false positive rate.
+     *
+     * @param expectedInsertions the expected number of values to be added
+     * @param falsePositiveRate  the desired false positive rate, between 0 and 1 exclusive
+     * @return the Bloom filter
+     */
+    public static ColumnBloomFilter create(final long expectedInsertions, final double falsePositiveRate) {
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1, but was " + falsePositiveRate);
+        }
+        final long n = Math.max(1L, expectedInsertions);
+        final long numBits = Math.max(64L, (long) (-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        final int numHashFunctions = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        return new ColumnBloomFilter(new long[(int) Math.min(Integer.MAX_VALUE, (numBits + 63) / 64)], numHashFunctions);
+    }
+
+    public void put(final Object[] value) {
+        final long bitSize = (long) bits.length * 64L;
+        final byte[] hash = HASH_FUNCTION.newHasher().putObject(value, ParquetObjectsFunnel.INSTANCE).hash().asBytes();
+        final long hash1 = lowerEight(hash, 0);
+        final long hash2 = lowerEight(hash, 8);
+        long combinedHash = hash1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            final long index = (combinedHash & Long.MAX_VALUE) % bitSize;
+            bits[(int) (index >>> 6)] |= 1L << index;
+            combinedHash += hash2;
+        }
+    }
+
+    /**
+     * Adds all the values in another Bloom filter to this one.
+     *
+     * @param other a Bloom filter created with the same expected number of values and false positive rate
+     * @return this Bloom filter
+     */
+    public ColumnBloomFilter merge(final ColumnBloomFilter other) {
+        if (bits.length != other.bits.length || numHashFunctions != other.numHashFunctions) {
+            throw new IllegalArgumentException("Only Bloom filters of the same size can be merged");
+        }
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+        return this;
+    }
+
+    public boolean mightContain(final Object[] value) {
+        final long bitSize = (long) bits.length * 64L;
+        final byte[] hash = HASH_FUNCTION.newHasher().putObject(value, ParquetObjectsFunnel.INSTANCE).hash().asBytes();
+        final long hash1 = lowerEight(hash, 0);
+        final long hash2 = lowerEight(hash, 8);
+        long combinedHash = hash1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            final long index = (combinedHash & Long.MAX_VALUE) % bitSize;
+            if (0 == (bits[(int) (index >>> 6)] & (1L << index))) {
+                return false;
+            }
+            combinedHash += hash2;
+        }
+        return true;
+    }
+
+    public void write(final DataOutput out) throws IOException {
+        out.writeInt(numHashFunctions);
+        out.writeInt(bits.length);
+        for (final long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    public static ColumnBloomFilter read(final DataInput in) throws IOException {
+        final int numHashFunctions = in.readInt();
+        final long[] bits = new long[in.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return new ColumnBloomFilter(bits, numHashFunctions);
+    }
+
+    private static long lowerEight(final byte[] bytes, final int offset) {
+        return Longs.fromBytes(bytes[offset + 7], bytes[offset + 6], bytes[offset + 5], bytes[offset + 4],
+                bytes[offset + 3], bytes[offset + 2], bytes[offset + 1], bytes[offset]);
+    }
+}
@@ -24,22 +24,31 @@ import uk.gov.gchq.gaffer.store.StoreException;
 
 import java.io.IOException;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 /**
  * This class is used to store a file-based index for a single gaffer column, i.e. it stores a set of
  * {@link MinValuesWithPath}s. Each {@link MinValuesWithPath} contains a path to a file that has been sorted by the column this index
- * is for and contains the min and max parquet objects from that parquet file.
+ * is for and contains the min and max parquet objects from that parquet file, and optionally a
+ * {@link ColumnBloomFilter} of the values in that file.
+ * <p>
+ * Indices are written with a leading format version. Indices written before the version was added, which only
+ * contain the min parquet objects, can still be read.
  */
 public class ColumnIndex {
     private static final Comparator<MinValuesWithPath> BY_PATH =
             Comparator.comparing(MinValuesWithPath::getPath);
+    private static final int FORMAT_VERSION = 2;
     private final SortedSet<MinValuesWithPath> minValuesWithPaths;
+    private final Map<String, MinValuesWithPath> pathToMinValuesWithPath;
 
     public ColumnIndex() {
         this.minValuesWithPaths = new TreeSet<>(BY_PATH);
+        this.pathToMinValuesWithPath = new HashMap<>();
     }
 
     public boolean isEmpty() {
@@ -48,35 +57,44 @@ public class ColumnIndex {
 
     public void add(final MinValuesWithPath minValuesWithPath) {
         minValuesWithPaths.add(minValuesWithPath);
+        pathToMinValuesWithPath.put(minValuesWithPath.getPath(), minValuesWithPath);
     }
 
     public Iterator<MinValuesWithPath> getIterator() {
             return minValuesWithPaths.iterator();
         }
 
+    /**
+     * @param path the file name
+     * @return the {@link MinValuesWithPath} for the given file name, or null if the file is not in this index
+     */
+    public MinValuesWithPath get(final String path) {
+        return pathToMinValuesWithPath.get(path);
+    }
+
     public int size() {
         return minValuesWithPaths.size();
     }
 
     protected void write(final FSDataOutputStream outputFile) throws StoreException {
         try {
+            // A negative number can not be a column count, so marks this as a versioned index
+            outputFile.writeInt(-FORMAT_VERSION);
             for (final MinValuesWithPath minValuesWithPath : minValuesWithPaths) {
-                final Object[] min = minValuesWithPath.getMin();
-                final String path = minValuesWithPath.getPath();
-                outputFile.writeInt(min.length);
-                for (int colIndex = 0; colIndex < min.length; colIndex++) {
-                    final Object minCol = min[colIndex];
-                    final String minColType = minCol.getClass().getSimpleName();
-                    final byte[] columnType = StringUtil.toBytes(minColType);
-                    outputFile.writeInt(columnType.length);
-                    outputFile.write(columnType);
-                    final byte[] minValue = serialiseObject(min[colIndex]);
-                    outputFile.writeInt(minValue.length);
-                    outputFile.write(minValue);
-                }
-                byte[] filePath = StringUtil.toBytes(path);
+                writeColumns(minValuesWithPath.getMin(), outputFile);
+                byte[] filePath = StringUtil.toBytes(minValuesWithPath.getPath());
                 outputFile.writeInt(filePath.length);
                 outputFile.write(filePath);
+                final Object[] max = minValuesWithPath.getMax();
+                outputFile.writeBoolean(null != max);
+                if (null != max) {
+                    writeColumns(max, outputFile);
+                }
+                final ColumnBloomFilter bloomFilter = minValuesWithPath.getBloomFilter();
+                outputFile.writeBoolean(null != bloomFilter);
+                if (null != bloomFilter) {
+                    bloomFilter.write(outputFile);
+                }
                 outputFile.hsync();
             }
             outputFile.hsync();
@@ -86,6 +104,18 @@ public class ColumnIndex {
         }
     }
 
+    private void writeColumns(final Object[] columns, final FSDataOutputStream outputFile) throws IOException, StoreException {
+        outputFile.writeInt(columns.length);
+        for (final Object column : columns) {
+            final String columnTypeName = column.getClass().getSimpleName();
+            final byte[] columnType = StringUtil.toBytes(columnTypeName);
+            outputFile.writeInt(columnType.length);
+            outputFile.write(columnType);
+            final byte[] value = serialiseObject(column);
+            outputFile.writeInt(value.length);
+            outputFile.write(value);
+        }
+    }
     private byte[] serialiseObject(final Object value) throws StoreException {
         final String objectType = value.getClass().getSimpleName();
         if ("Long".equals(objectType)) {
@@ -107,19 +137,31 @@ public class ColumnIndex {
 
     public void read(final FSDataInputStream reader) throws StoreException {
         try {
-            while (reader.available() > 0) {
-                final int numOfCols = reader.readInt();
-                Object[] min = new Object[numOfCols];
-                for (int i = 0; i < numOfCols; i++) {
-                    final int colTypeLength = reader.readInt();
-                    final byte[] colType = readBytes(colTypeLength, reader);
-                    final int minLength = reader.readInt();
-                    final byte[] minBytes = readBytes(minLength, reader);
-                    min[i] = deserialiseColumn(colType, minBytes);
+            if (reader.available() > 0) {
+                final int firstInt = reader.readInt();
+                if (firstInt < 0) {
+                    while (reader.available() > 0) {
+                        final Object[] min = readColumns(reader.readInt(), reader);
+                        final String filePath = StringUtil.toString(readBytes(reader.readInt(), reader));
+                        final Object[] max = reader.readBoolean() ? readColumns(reader.readInt(), reader) : null;
+                        final ColumnBloomFilter bloomFilter = reader.readBoolean() ? ColumnBloomFilter.read(reader) : null;
+                        add(new MinValuesWithPath(min, max, bloomFilter, filePath));
+                    }
+                } else {
+                    // Index written before the format version was added, so the first int is the number of columns
+                    int numOfCols = firstInt;
+                    while (true) {
+                        final Object[] min = readColumns(numOfCols, reader);
+                        final int filePathLength = reader.readInt();
+                        final byte[] filePath = readBytes(filePathLength, reader);
+                        add(new MinValuesWithPath(min, StringUtil.toString(filePath)));
+                        if (reader.available() > 0) {
+                            numOfCols = reader.readInt();
+                        } else {
+                            break;
+                        }
+                    }
                 }
-                final int filePathLength = reader.readInt();
-                final byte[] filePath = readBytes(filePathLength, reader);
-                add(new MinValuesWithPath(min, StringUtil.toString(filePath)));
             }
             reader.close();
         } catch (final IOException e) {
@@ -127,6 +169,18 @@ public class ColumnIndex {
         }
     }
 
+    private Object[] readColumns(final int numOfCols, final FSDataInputStream reader) throws IOException, StoreException {
+        final Object[] columns = new Object[numOfCols];
+        for (int i = 0; i < numOfCols; i++) {
+            final int colTypeLength = reader.readInt();
+            final byte[] colType = readBytes(colTypeLength, reader);
+            final int valueLength = reader.readInt();
+            final byte[] valueBytes = readBytes(valueLength, reader);
+            columns[i] = deserialiseColumn(colType, valueBytes);
+        }
+        return columns;
+    }
+
     private byte[] readBytes(final int length, final FSDataInputStream reader) throws StoreException {
         try {
             final byte[] bytes = new byte[length];
@@ -15,29 +15,71 @@
  */
 package uk.gov.gchq.gaffer.parquetstore.index;
 
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
 import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
 import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
 import uk.gov.gchq.gaffer.store.StoreException;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * This class is used to store a file-based groupToIndex for each group, i.e. for each group it stores a {@link GroupIndex}
  * which is a set of {@link ColumnIndex}s. Each {@link ColumnIndex} contains a path to a file that contains data for
  * that group along with minimum and maximum values of the indexed columns within that file. This allows queries for
  * particular values of the indexed columns to skip files that do not contain relevant data.
+ * <p>
+ * When elements are added incrementally the index of a snapshot also holds a {@link GraphIndex} for each of the deltas
+ * that have been written alongside that snapshot, in the order they were written. The snapshot timestamp of a delta's
+ * index is the name of the delta's directory.
+ * <p>
+ * When groups are partitioned by time the index of a snapshot or delta also holds a {@link GraphIndex} for each of the
+ * {@link TimeBucket}s that it contains data for, in order of time. The elements in each bucket are stored in the
+ * same layout as a snapshot, in a sub-directory of the snapshot or delta directory named after the bucket. The snapshot
+ * timestamp of a bucket's index is the name of the snapshot or delta directory that holds the bucket's files; a bucket
+ * of a snapshot that no elements were added to when the snapshot was written is not copied, and is instead read from
+ * the directory of the earlier snapshot that it was written in, see {@link #writeReferencedTimeBuckets}.
  */
 public class GraphIndex {
     private final Map<String, GroupIndex> groupToIndex;
+    private final List<GraphIndex> deltas;
+    private final List<GraphIndex> timeBuckets;
     private long snapshot;
+    private TimeBucket timeBucket;
 
     public GraphIndex() {
         this.groupToIndex = new HashMap<>();
+        this.deltas = new ArrayList<>();
+        this.timeBuckets = new ArrayList<>();
+    }
+
+    /**
+     * Creates a copy of this index which has the given deltas rather than the deltas of this index.
+     *
+     * @param deltas the indices of the deltas
+     * @return the new {@link GraphIndex}
+     */
+    public GraphIndex withDeltas(final List<GraphIndex> deltas) {
+        final GraphIndex graphIndex = new GraphIndex();
+        graphIndex.groupToIndex.putAll(groupToIndex);
+        graphIndex.deltas.addAll(deltas);
+        graphIndex.timeBuckets.addAll(timeBuckets);
+        graphIndex.snapshot = snapshot;
+        graphIndex.timeBucket = timeBucket;
+        return graphIndex;
     }
 
     public void add(final String group, final GroupIndex groupIndex) {
@@ -55,6 +97,36 @@ public class GraphIndex {
         return groupToIndex.get(group);
     }
 
+    public void addDelta(final GraphIndex delta) {
+        deltas.add(delta);
+    }
+
+    public List<GraphIndex> getDeltas() {
+        return Collections.unmodifiableList(deltas);
+    }
+
+    public void addTimeBucket(final GraphIndex bucket) {
+        if (null == bucket.getTimeBucket()) {
+            throw new IllegalArgumentException("The index of a time bucket must have its time bucket set");
+        }
+        timeBuckets.add(bucket);
+    }
+
+    public List<GraphIndex> getTimeBuckets() {
+        return Collections.unmodifiableList(timeBuckets);
+    }
+
+    /**
+     * @return the {@link TimeBucket} that this index is for, or null if it is the index of a snapshot or delta
+     */
+    public TimeBucket getTimeBucket() {
+        return timeBucket;
+    }
+
+    public void setTimeBucket(final TimeBucket timeBucket) {
+        this.timeBucket = timeBucket;
+    }
+
     public long getSnapshotTimestamp() {
         return snapshot;
     }
@@ -88,8 +160,122 @@ public class GraphIndex {
         }
     }
 
+    /**
+     * Reads the index of each of the {@link TimeBucket}s stored in the given snapshot or delta directory, including the
+     * buckets that it references in earlier snapshots.
+     *
+     * @param schemaUtils the {@link SchemaUtils} for the graph
+     * @param rootDir     the snapshot or delta directory
+     * @param fs          the {@link FileSystem} to read from
+     * @throws StoreException if the indices could not be read
+     */
+    public void readTimeBuckets(final SchemaUtils schemaUtils, final String rootDir, final FileSystem fs) throws StoreException {
+        final Path timeBucketsDir = new Path(ParquetStore.getTimeBucketsDirectory(rootDir));
+        final String parentDir = rootDir.substring(0, rootDir.lastIndexOf('/'));
+        final Map<TimeBucket, Long> bucketToSnapshot = new TreeMap<>();
+        try {
+            if (!fs.exists(timeBucketsDir)) {
+                return;
+            }
+            final long snapshot = Long.parseLong(timeBucketsDir.getParent().getName());
+            for (final FileStatus status : fs.listStatus(timeBucketsDir)) {
+                if (status.isDirectory()) {
+                    bucketToSnapshot.put(TimeBucket.fromDirectoryName(status.getPath().getName()), snapshot);
+                }
+            }
+            final Path referencesPath = new Path(timeBucketsDir, ParquetStoreConstants.REFERENCED_TIME_BUCKETS);
+            if (fs.exists(referencesPath)) {
+                try (final FSDataInputStream in = fs.open(referencesPath)) {
+                    final int numberOfBuckets = in.readInt();
+                    for (int i = 0; i < numberOfBuckets; i++) {
+                        bucketToSnapshot.put(TimeBucket.fromDirectoryName(in.readUTF()), in.readLong());
+                    }
+                }
+            }
+        } catch (final IOException | IllegalArgumentException e) {
+            throw new StoreException(e.getMessage());
+        }
+        for (final Map.Entry<TimeBucket, Long> entry : bucketToSnapshot.entrySet()) {
+            final GraphIndex bucketIndex = new GraphIndex();
+            bucketIndex.setTimeBucket(entry.getKey());
+            bucketIndex.setSnapshotTimestamp(entry.getValue());
+            bucketIndex.readGroups(schemaUtils, ParquetStore.getTimeBucketDirectory(parentDir, bucketIndex), fs);
+            addTimeBucket(bucketIndex);
+        }
+    }
+
+    /**
+     * Records, in the directory of a new snapshot, the time buckets of the snapshot whose files are still held in the
+     * directory of an earlier snapshot, so that the buckets do not need to be copied when no elements are added to them.
+     *
+     * @param referencedBuckets the indices of the buckets, whose snapshot timestamps are those of the earlier snapshots
+     * @param snapshotDir       the directory of the new snapshot
+     * @param fs                the {@link FileSystem} to write to
+     * @throws StoreException if the file could not be written
+     */
+    public static void writeReferencedTimeBuckets(final List<GraphIndex> referencedBuckets, final String snapshotDir, final FileSystem fs) throws StoreException {
+        final Path path = new Path(ParquetStore.getTimeBucketsDirectory(snapshotDir) + "/" + ParquetStoreConstants.REFERENCED_TIME_BUCKETS);
+        try (final FSDataOutputStream out = fs.create(path)) {
+            out.writeInt(referencedBuckets.size());
+            for (final GraphIndex bucket : referencedBuckets) {
+                out.writeUTF(bucket.getTimeBucket().getDirectoryName());
+                out.writeLong(bucket.getSnapshotTimestamp());
+            }
+        } catch (final IOException e) {
+            throw new StoreException(e.getMessage());
+        }
+    }
+
+    /**
+     * Records, in the directory of a delta, which of the earlier deltas it has replaced by merging them together. The
+     * replaced deltas are then ignored when the index is next loaded.
+     *
+     * @param replacedDeltas the indices of the deltas that have been replaced
+     * @param deltaDir       the directory of the delta that replaced them
+     * @param fs             the {@link FileSystem} to write to
+     * @throws StoreException if the file could not be written
+     */
+    public static void writeReplacedDeltas(final List<GraphIndex> replacedDeltas, final String deltaDir, final FileSystem fs) throws StoreException {
+        try (final FSDataOutputStream out = fs.create(new Path(deltaDir + "/" + ParquetStoreConstants.REPLACED_DELTAS))) {
+            out.writeInt(replacedDeltas.size());
+            for (final GraphIndex replacedDelta : replacedDeltas) {
+                out.writeLong(replacedDelta.getSnapshotTimestamp());
+            }
+        } catch (final IOException e) {
+            throw new StoreException(e.getMessage());
+        }
+    }
+
+    public static Set<Long> readReplacedDeltas(final String deltaDir, final FileSystem fs) throws StoreException {
+        final Set<Long> replacedDeltas = new HashSet<>();
+        final Path path = new Path(deltaDir + "/" + ParquetStoreConstants.REPLACED_DELTAS);
+        try {
+            if (fs.exists(path)) {
+                try (final FSDataInputStream in = fs.open(path)) {
+                    final int numberOfDeltas = in.readInt();
+                    for (int i = 0; i < numberOfDeltas; i++) {
+                        replacedDeltas.add(in.readLong());
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            throw new StoreException(e.getMessage());
+        }
+        return replacedDeltas;
+    }
+
     @Override
     public String toString() {
-        return groupToIndex.toString();
+        final StringBuilder sb = new StringBuilder(groupToIndex.toString());
+        if (null != timeBucket) {
+            sb.append(", timeBucket=").append(timeBucket);
+        }
+        if (!timeBuckets.isEmpty()) {
+            sb.append(", timeBuckets=").append(timeBuckets);
+        }
+        if (!deltas.isEmpty()) {
+            sb.append(", deltas=").append(deltas);
+        }
+        return sb.toString();
     }
 }
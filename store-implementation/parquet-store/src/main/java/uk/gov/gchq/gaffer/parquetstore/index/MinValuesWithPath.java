@@ -25,15 +25,26 @@ import java.util.Arrays;
  * This class is used to store a single parquet file's path along with the first rows parquet objects that are contained in that file
  * for a specific gaffer column, i.e. if the vertex was a {@link uk.gov.gchq.gaffer.types.TypeValue} object then the Min would consist of two Strings,
  * the first representing the type and the second representing the value.
+ * <p>
+ * It can optionally also store the last rows parquet objects and a {@link ColumnBloomFilter} of all the values of the gaffer
+ * column in that file, which allow files to be skipped when looking up seeds without opening them.
  */
 public class MinValuesWithPath {
     private final Object[] min;
+    private final Object[] max;
+    private final ColumnBloomFilter bloomFilter;
     private final String path;
 
+    public MinValuesWithPath(final Object[] min, final String path) throws StoreException {
+        this(min, null, null, path);
+    }
+
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2",
             justification = "This method is only used in this package and users will not mutate the values returned.")
-    public MinValuesWithPath(final Object[] min, final String path) throws StoreException {
+    public MinValuesWithPath(final Object[] min, final Object[] max, final ColumnBloomFilter bloomFilter, final String path) throws StoreException {
         this.min = min;
+        this.max = max;
+        this.bloomFilter = bloomFilter;
         this.path = path;
     }
 
@@ -43,6 +54,32 @@ public class MinValuesWithPath {
         return min;
     }
 
+    /**
+     * @return the parquet objects of the last row in the file, or null if they were not recorded
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP",
+            justification = "This method is only used in this package and users will not mutate the values returned.")
+    public Object[] getMax() {
+        return max;
+    }
+
+    /**
+     * @return the {@link ColumnBloomFilter} of the values in the file, or null if one was not recorded
+     */
+    public ColumnBloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    /**
+     * Checks whether the file might contain the given value using the {@link ColumnBloomFilter}, if there is one.
+     *
+     * @param value the parquet objects to check for
+     * @return false if the file definitely does not contain the value
+     */
+    public boolean mightContain(final Object[] value) {
+        return null == bloomFilter || bloomFilter.mightContain(value);
+    }
+
     public String getPath() {
         return path;
     }
@@ -52,6 +89,8 @@ public class MinValuesWithPath {
         final StringBuilder sb = new StringBuilder();
         sb.append("MinValuesWithPath{ ")
                 .append("Min=").append(Arrays.toString(min))
+                .append(", Max=").append(Arrays.toString(max))
+                .append(", hasBloomFilter=").append(null != bloomFilter)
                 .append(", path=").append(path);
         return sb.toString();
     }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.parquetstore.index;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+import uk.gov.gchq.gaffer.commonutil.StringUtil;
+
+/**
+ * A {@link Funnel} for the parquet objects that represent a single gaffer column, used to add the values in a file to
+ * the {@link ColumnBloomFilter} in a {@link MinValuesWithPath}.
+ * <p>
+ * Integral and floating point numbers are widened, and Strings are funnelled as their UTF-8 bytes, so that the same
+ * value read back by Spark as a different type, e.g. a {@link Short} rather than an {@link Integer}, will still be
+ * found.
+ */
+public enum ParquetObjectsFunnel implements Funnel<Object[]> {
+    INSTANCE;
+
+    @Override
+    public void funnel(final Object[] values, final PrimitiveSink into) {
+        into.putInt(values.length);
+        for (final Object value : values) {
+            if (null == value) {
+                into.putByte((byte) 0);
+            } else if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+                into.putByte((byte) 1).putLong(((Number) value).longValue());
+            } else if (value instanceof Float || value instanceof Double) {
+                into.putByte((byte) 2).putDouble(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                into.putByte((byte) 3).putBoolean((Boolean) value);
+            } else if (value instanceof java.util.Date) {
+                into.putByte((byte) 1).putLong(((java.util.Date) value).getTime());
+            } else if (value instanceof byte[]) {
+                final byte[] bytes = (byte[]) value;
+                into.putByte((byte) 4).putInt(bytes.length).putBytes(bytes);
+            } else if (value instanceof String) {
+                final byte[] bytes = StringUtil.toBytes((String) value);
+                into.putByte((byte) 4).putInt(bytes.length).putBytes(bytes);
+            } else {
+                final byte[] bytes = StringUtil.toBytes(value.toString());
+                into.putByte((byte) 5).putInt(bytes.length).putBytes(bytes);
+            }
+        }
+    }
+}
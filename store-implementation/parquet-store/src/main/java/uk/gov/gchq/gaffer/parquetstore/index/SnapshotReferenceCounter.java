@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.index;
+
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the references to the snapshot and delta directories of a graph's data directory, so that a directory is only
+ * deleted once no {@link GraphIndex} that uses it is still in use.
+ * <p>
+ * The time buckets that a snapshot reads from the directory of an earlier snapshot, see {@link GraphIndex}, are counted
+ * separately, so that the rest of the earlier snapshot can be deleted while the buckets are still in use.
+ * <p>
+ * A {@link GraphIndex} is referenced while it is the current index of a
+ * {@link ParquetStore} and while a query is reading from it. A single counter is shared by all the stores in the JVM
+ * that use the same data directory, so a store never deletes the files of a snapshot that another store is still
+ * using.
+ */
+public final class SnapshotReferenceCounter {
+    private static final Map<String, SnapshotReferenceCounter> COUNTERS = new ConcurrentHashMap<>();
+
+    private final String dataDir;
+    private final Map<String, Integer> directoryToReferences = new HashMap<>();
+
+    private SnapshotReferenceCounter(final String dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    /**
+     * @param dataDir the fully qualified data directory of the graph
+     * @return the counter shared by all stores that use the data directory
+     */
+    public static SnapshotReferenceCounter forDataDir(final String dataDir) {
+        return COUNTERS.computeIfAbsent(dataDir, SnapshotReferenceCounter::new);
+    }
+
+    /**
+     * Adds a reference to each of the directories used by the index.
+     *
+     * @param index the index
+     */
+    public synchronized void acquire(final GraphIndex index) {
+        for (final String directory : getDirectories(index)) {
+            directoryToReferences.merge(directory, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Removes a reference to each of the directories used by the index.
+     *
+     * @param index the index
+     * @return the directories which are no longer referenced, snapshot directories first
+     */
+    public synchronized List<String> release(final GraphIndex index) {
+        final List<String> unreferenced = new ArrayList<>();
+        for (final String directory : getDirectories(index)) {
+            final Integer references = directoryToReferences.get(directory);
+            if (null == references) {
+                // Never acquired, so it is not safe to assume that nothing else is using it
+                continue;
+            }
+            if (references <= 1) {
+                directoryToReferences.remove(directory);
+                unreferenced.add(directory);
+            } else {
+                directoryToReferences.put(directory, references - 1);
+            }
+        }
+        return unreferenced;
+    }
+
+    /**
+     * @param directory a snapshot or delta directory
+     * @return the number of references to the directory
+     */
+    public synchronized int getReferences(final String directory) {
+        return directoryToReferences.getOrDefault(directory, 0);
+    }
+
+    /**
+     * @param directory a snapshot directory
+     * @return the directories within the given directory that are still referenced, which are the time buckets that
+     * later snapshots read from it
+     */
+    public synchronized List<String> getReferencedSubdirectories(final String directory) {
+        final List<String> subdirectories = new ArrayList<>();
+        for (final String referenced : directoryToReferences.keySet()) {
+            if (referenced.startsWith(directory + "/")) {
+                subdirectories.add(referenced);
+            }
+        }
+        return subdirectories;
+    }
+
+    /**
+     * @param index the index
+     * @return the snapshot directory of the index, followed by the directory of each of its time buckets that are held
+     * in an earlier snapshot and then the directory of each of its deltas
+     */
+    public List<String> getDirectories(final GraphIndex index) {
+        final List<String> directories = new ArrayList<>(index.getDeltas().size() + 1);
+        final String snapshotDir = dataDir + "/" + index.getSnapshotTimestamp();
+        directories.add(snapshotDir);
+        for (final GraphIndex bucket : index.getTimeBuckets()) {
+            if (bucket.getSnapshotTimestamp() != index.getSnapshotTimestamp()) {
+                directories.add(ParquetStore.getTimeBucketDirectory(dataDir, bucket));
+            }
+        }
+        final String deltasDir = ParquetStore.getDeltasDirectory(snapshotDir);
+        for (final GraphIndex delta : index.getDeltas()) {
+            directories.add(deltasDir + "/" + delta.getSnapshotTimestamp());
+        }
+        return directories;
+    }
+}
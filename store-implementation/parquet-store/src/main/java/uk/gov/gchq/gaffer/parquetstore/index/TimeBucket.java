@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.parquetstore.index;
+
+/**
+ * A range of time, in milliseconds since the epoch, that the elements of the groups which are partitioned by time are
+ * split into. The start of the range is inclusive and the end is exclusive. The elements in each {@link TimeBucket} are
+ * stored in their own directory, whose name is given by {@link #getDirectoryName()}.
+ */
+public final class TimeBucket implements Comparable<TimeBucket> {
+    private static final String SEPARATOR = "_";
+
+    private final long start;
+    private final long end;
+
+    public TimeBucket(final long start, final long end) {
+        if (end <= start) {
+            throw new IllegalArgumentException("The end of a time bucket must be after its start (start was " + start
+                    + ", end was " + end + ")");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param timestamp  the time in milliseconds
+     * @param bucketSize the length of each bucket in milliseconds
+     * @return the bucket of the given size that contains the timestamp
+     */
+    public static TimeBucket forTimestamp(final long timestamp, final long bucketSize) {
+        final long start = Math.floorDiv(timestamp, bucketSize) * bucketSize;
+        return new TimeBucket(start, start + bucketSize);
+    }
+
+    /**
+     * @param directoryName the name of a bucket's directory
+     * @return the bucket
+     * @throws IllegalArgumentException if the name is not that of a bucket's directory
+     */
+    public static TimeBucket fromDirectoryName(final String directoryName) {
+        final int separator = directoryName.indexOf(SEPARATOR, 1);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid time bucket directory name: " + directoryName);
+        }
+        try {
+            return new TimeBucket(Long.parseLong(directoryName.substring(0, separator)),
+                    Long.parseLong(directoryName.substring(separator + 1)));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time bucket directory name: " + directoryName, e);
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getSize() {
+        return end - start;
+    }
+
+    public String getDirectoryName() {
+        return start + SEPARATOR + end;
+    }
+
+    /**
+     * @param min the earliest time in the range, inclusive
+     * @param max the latest time in the range, inclusive
+     * @return true if any time in the given range is in this bucket
+     */
+    public boolean overlaps(final long min, final long max) {
+        return min < end && max >= start;
+    }
+
+    @Override
+    public int compareTo(final TimeBucket other) {
+        final int compareStart = Long.compare(start, other.start);
+        return 0 != compareStart ? compareStart : Long.compare(end, other.end);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (null == obj || getClass() != obj.getClass()) {
+            return false;
+        }
+        final TimeBucket other = (TimeBucket) obj;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(start) + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeBucket{start=" + start + ", end=" + end + "}";
+    }
+}
@@ -20,34 +20,67 @@ import org.apache.parquet.hadoop.api.InitContext;
 import org.apache.parquet.hadoop.api.ReadSupport;
 import org.apache.parquet.io.api.RecordMaterializer;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 
 import uk.gov.gchq.gaffer.data.element.Element;
 import uk.gov.gchq.gaffer.parquetstore.utils.GafferGroupObjectConverter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class provides the {@link ReadSupport} required by the {@link ParquetElementReader} making use of the
  * {@link ElementRecordMaterialiser} to directly build the Gaffer Elements from the parquet types.
+ * <p>
+ * If a set of Gaffer columns is provided then only the Parquet columns derived from those Gaffer columns are
+ * requested, so the column chunks of the other columns are skipped rather than decoded.
  */
 public class ElementReadSupport extends ReadSupport<Element> {
     private final boolean isEntity;
     private final GafferGroupObjectConverter converter;
+    private final Set<String> columns;
 
     public ElementReadSupport(final boolean isEntity, final GafferGroupObjectConverter converter) {
+        this(isEntity, converter, null);
+    }
+
+    public ElementReadSupport(final boolean isEntity, final GafferGroupObjectConverter converter, final Set<String> columns) {
         super();
         this.isEntity = isEntity;
         this.converter = converter;
+        this.columns = columns;
     }
 
     @Override
     public RecordMaterializer<Element> prepareForRead(final Configuration configuration, final Map<String, String> map,
                                                       final MessageType parquetSchema, final ReadContext readContext) {
-        return new ElementRecordMaterialiser(parquetSchema, isEntity, converter);
+        return new ElementRecordMaterialiser(readContext.getRequestedSchema(), isEntity, converter, columns);
     }
 
     @Override
     public ReadContext init(final InitContext context) {
-        return new ReadContext(context.getFileSchema());
+        final MessageType fileSchema = context.getFileSchema();
+        if (null == columns) {
+            return new ReadContext(fileSchema);
+        }
+        final List<Type> fields = new ArrayList<>(fileSchema.getFieldCount());
+        for (final Type field : fileSchema.getFields()) {
+            if (isRequired(field.getName())) {
+                fields.add(field);
+            }
+        }
+        return new ReadContext(new MessageType(fileSchema.getName(), fields));
+    }
+
+    private boolean isRequired(final String fieldName) {
+        for (final String column : columns) {
+            // A Gaffer column is written as a single field with the same name, or as multiple fields named <column>_<suffix>
+            if (fieldName.equals(column) || fieldName.startsWith(column + "_")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -28,23 +28,34 @@ import uk.gov.gchq.gaffer.parquetstore.utils.GafferGroupObjectConverter;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class is used by the {@link uk.gov.gchq.gaffer.parquetstore.io.reader.ElementRecordMaterialiser} to materialises
  * each element based on the objects added to the 'parquetColumnToObject' field by the {@link PrimitiveConverter}'s.
+ * <p>
+ * The element is only built when it is requested, so rows that are rejected by a Parquet filter are never
+ * converted to elements.
  */
 public class GafferElementConverter extends GroupConverter {
     private static final Logger LOGGER = LoggerFactory.getLogger(GafferElementConverter.class);
     private final boolean isEntity;
     private final GafferGroupObjectConverter gafferGroupObjectConverter;
+    private final Set<String> columns;
     private final Map<Integer, Converter> fieldToConverter;
     private final Map<String, Object[]> parquetColumnToObject;
     private final int fieldCount;
     private Element currentRecord = null;
+    private boolean built = false;
 
     public GafferElementConverter(final boolean isEntity, final MessageType schema, final GafferGroupObjectConverter gafferGroupObjectConverter) {
+        this(isEntity, schema, gafferGroupObjectConverter, null);
+    }
+
+    public GafferElementConverter(final boolean isEntity, final MessageType schema, final GafferGroupObjectConverter gafferGroupObjectConverter, final Set<String> columns) {
         super();
         this.isEntity = isEntity;
+        this.columns = columns;
         this.parquetColumnToObject = new HashMap<>(schema.getFieldCount());
         this.gafferGroupObjectConverter = gafferGroupObjectConverter;
         this.fieldCount = schema.getFieldCount();
@@ -73,18 +84,24 @@ public class GafferElementConverter extends GroupConverter {
     @Override
     public void start() {
         parquetColumnToObject.clear();
+        currentRecord = null;
+        built = false;
     }
 
     @Override
     public void end() {
-        try {
-            currentRecord = gafferGroupObjectConverter.buildElementFromParquetObjects(parquetColumnToObject, isEntity);
-        } catch (final SerialisationException e) {
-            LOGGER.warn("Failed to build the Element, skipping this Element {}", parquetColumnToObject);
-        }
+        // The element is built lazily in getCurrentRecord
     }
 
     public Element getCurrentRecord() {
+        if (!built) {
+            built = true;
+            try {
+                currentRecord = gafferGroupObjectConverter.buildElementFromParquetObjects(parquetColumnToObject, isEntity, columns);
+            } catch (final SerialisationException e) {
+                LOGGER.warn("Failed to build the Element, skipping this Element {}", parquetColumnToObject);
+            }
+        }
         return this.currentRecord;
     }
 }
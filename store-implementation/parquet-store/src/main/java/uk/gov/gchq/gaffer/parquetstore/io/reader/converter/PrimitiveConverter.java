@@ -25,11 +25,16 @@ import java.util.Map;
 /**
  * This class is used to add values from a single Parquet column to the 'parquetColumnToObject' variable which can then
  * be used by the {@link GafferElementConverter} to materialise the {@link uk.gov.gchq.gaffer.data.element.Element}.
+ * <p>
+ * When a column chunk is dictionary encoded the whole dictionary is decoded once, when it is set, so that each
+ * dictionary encoded value is just a lookup rather than being decoded again for every row. Binary values that are
+ * not UTF8 Strings are still decoded for every row, so that each element gets its own copy of the bytes.
  */
 public class PrimitiveConverter extends org.apache.parquet.io.api.PrimitiveConverter {
     private final Map<String, Object[]> parquetColumnToObject;
     private final String column;
     private Dictionary dictionary;
+    private Object[] decodedDictionary;
     private final String expectedType;
     private final String originalType;
 
@@ -63,10 +68,38 @@ public class PrimitiveConverter extends org.apache.parquet.io.api.PrimitiveConve
     @Override
     public void setDictionary(final Dictionary dictionary) {
         this.dictionary = dictionary;
+        this.decodedDictionary = null;
+        if ("Binary".equals(expectedType) && !"UTF8".equals(originalType)) {
+            return;
+        }
+        final Object[] decoded = new Object[dictionary.getMaxId() + 1];
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = decode(i);
+        }
+        this.decodedDictionary = decoded;
+    }
+
+    private Object decode(final int dictionaryId) {
+        switch (expectedType) {
+            case "Binary":  return this.dictionary.decodeToBinary(dictionaryId).toStringUsingUTF8();
+            case "boolean": return this.dictionary.decodeToBoolean(dictionaryId);
+            case "double":  return this.dictionary.decodeToDouble(dictionaryId);
+            case "float":   return this.dictionary.decodeToFloat(dictionaryId);
+            case "int":     return this.dictionary.decodeToInt(dictionaryId);
+            case "long":    return this.dictionary.decodeToLong(dictionaryId);
+            default:        return null;
+        }
     }
 
     @Override
     public void addValueFromDictionary(final int dictionaryId) {
+        if (null != decodedDictionary) {
+            final Object value = decodedDictionary[dictionaryId];
+            if (null != value) {
+                addObject(value);
+            }
+            return;
+        }
         switch (expectedType) {
             case "Binary":  final Binary binary = this.dictionary.decodeToBinary(dictionaryId);
                             addBinary(binary);
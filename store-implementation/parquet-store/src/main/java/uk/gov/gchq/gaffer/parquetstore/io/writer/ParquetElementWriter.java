@@ -25,6 +25,7 @@ import org.apache.parquet.schema.MessageType;
 import org.apache.spark.sql.types.StructType;
 
 import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
 import uk.gov.gchq.gaffer.parquetstore.utils.GafferGroupObjectConverter;
 
 import java.io.IOException;
@@ -80,6 +81,20 @@ public class ParquetElementWriter extends ParquetWriter<Element> {
             return this;
         }
 
+        /**
+         * Sets the row group size, page sizes and encodings from the {@link ParquetStoreProperties}.
+         *
+         * @param properties the properties of the store that the file is being written to
+         * @return this builder
+         */
+        public Builder withStoreProperties(final ParquetStoreProperties properties) {
+            return withRowGroupSize(properties.getRowGroupSize())
+                    .withPageSize(properties.getPageSize())
+                    .withDictionaryPageSize(properties.getDictionaryPageSize())
+                    .withDictionaryEncoding(properties.getDictionaryEncoding())
+                    .withWriterVersion(properties.getWriterVersion());
+        }
+
         @Override
         protected Builder self() {
             return this;
@@ -59,6 +59,21 @@ public class AddElementsFromRDD {
 
     protected void addElementsFromRDD(final JavaRDD<Element> input, final Context context, final ParquetStore store)
             throws OperationException {
+        final GraphIndex index = store.getGraphIndex();
+        if (store.getTimePartitioner().isPartitioned() || (null != index && !index.getTimeBuckets().isEmpty())) {
+            throw new OperationException("Importing an RDD is not supported when groups are partitioned by time, "
+                    + "use AddElements instead");
+        }
+        store.getIngestLock().lock();
+        try {
+            writeElementsFromRDD(input, context, store);
+        } finally {
+            store.getIngestLock().unlock();
+        }
+    }
+
+    private void writeElementsFromRDD(final JavaRDD<Element> input, final Context context, final ParquetStore store)
+            throws OperationException {
         try {
             final FileSystem fs = store.getFS();
             final ParquetStoreProperties parquetStoreProperties = store.getProperties();
@@ -69,8 +84,11 @@ public class AddElementsFromRDD {
                 fs.delete(tempDir, true);
                 LOGGER.warn("Temp data directory '{}' has been deleted.", tempDataDirString);
             }
-            final SparkSession spark = SparkContextUtil.getSparkSession(context, store.getProperties());
-            SparkParquetUtils.configureSparkForAddElements(spark, parquetStoreProperties);
+            final SparkSession operationSpark = SparkContextUtil.getSparkSession(context, store.getProperties());
+            SparkParquetUtils.configureSparkForAddElements(operationSpark, parquetStoreProperties);
+            // The elements are not written as a delta, so any existing deltas are compacted into the snapshot first
+            new CompactDeltas().compactAll(store, operationSpark);
+            final SparkSession spark = SparkParquetUtils.getSessionForAddElements(operationSpark, store);
             final ExecutorService pool = createThreadPool(spark, parquetStoreProperties);
             // aggregate new data and write out as unsorted data
             LOGGER.debug("Starting to write the new unsorted Parquet data after aggregation to {} split by group", tempDataDirString);
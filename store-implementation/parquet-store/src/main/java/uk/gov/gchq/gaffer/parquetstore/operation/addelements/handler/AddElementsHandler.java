@@ -22,21 +22,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 
+import uk.gov.gchq.gaffer.commonutil.iterable.ChainedIterable;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.commonutil.iterable.TransformIterable;
 import uk.gov.gchq.gaffer.data.element.Element;
 import uk.gov.gchq.gaffer.operation.OperationException;
 import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
 import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.index.TimeBucket;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.AggregateAndSortTempData;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.CalculateSplitPointsFromIndex;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.CalculateSplitPointsFromIterable;
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.DeltaElementsIterable;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.GenerateIndices;
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.LocalAggregateAndSortData;
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.WriteTimeBucketedData;
 import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.WriteUnsortedData;
 import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
 import uk.gov.gchq.gaffer.parquetstore.utils.SparkParquetUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.TimePartitioner;
 import uk.gov.gchq.gaffer.spark.SparkContextUtil;
 import uk.gov.gchq.gaffer.store.Context;
 import uk.gov.gchq.gaffer.store.Store;
@@ -46,10 +54,13 @@ import uk.gov.gchq.gaffer.store.schema.Schema;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 
@@ -58,6 +69,17 @@ import static uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreUtils.invokeSpli
 
 /**
  * An {@link OperationHandler} for the {@link AddElements} operation on the {@link ParquetStore}.
+ * <p>
+ * By default the new elements are aggregated with all the existing elements and written to a new snapshot. If
+ * {@link ParquetStoreProperties#getAddElementsIncremental()} is set then the new elements are only aggregated with
+ * each other and written as a delta of the current snapshot, and the deltas are then compacted in the background by
+ * {@link CompactDeltas} using the store's own {@link SparkSession}, see {@link ParquetStore#getCompactionSparkSession()}.
+ * <p>
+ * If {@link ParquetStoreProperties#getAddElementsLocal()} is set then the elements are aggregated and sorted on local
+ * threads by {@link LocalAggregateAndSortData} rather than by Spark.
+ * <p>
+ * The elements of the groups that are partitioned by time are written to a separate directory for each time bucket
+ * within the snapshot or delta, see {@link ParquetStoreProperties#getTimePartitioningProperty(String)}.
  */
 public class AddElementsHandler implements OperationHandler<AddElements> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AddElementsHandler.class);
@@ -66,78 +88,302 @@ public class AddElementsHandler implements OperationHandler<AddElements> {
     public Void doOperation(final AddElements operation,
                             final Context context,
                             final Store store) throws OperationException {
-        final SparkSession spark = SparkContextUtil.getSparkSession(context, store.getProperties());
         final ParquetStore parquetStore = (ParquetStore) store;
-        SparkParquetUtils.configureSparkForAddElements(spark, parquetStore.getProperties());
-        addElements(operation, parquetStore, spark);
+        final SparkSession spark;
+        if (parquetStore.getProperties().getAddElementsLocal()) {
+            spark = null;
+        } else {
+            final SparkSession operationSpark = SparkContextUtil.getSparkSession(context, store.getProperties());
+            SparkParquetUtils.configureSparkForAddElements(operationSpark, parquetStore.getProperties());
+            try {
+                spark = SparkParquetUtils.getSessionForAddElements(operationSpark, parquetStore);
+            } catch (final IOException e) {
+                throw new OperationException("Failed to read the footers of the current snapshot", e);
+            }
+        }
+        final boolean incremental = parquetStore.getProperties().getAddElementsIncremental();
+        parquetStore.getIngestLock().lock();
+        try {
+            final GraphIndex index = parquetStore.getGraphIndex();
+            if (incremental && null != index) {
+                addElements(operation.getInput(), parquetStore, spark, true, Collections.emptyList());
+            } else if (null != index && !index.getDeltas().isEmpty()) {
+                // Fold any existing deltas into the new snapshot
+                addElements(new ChainedIterable<Element>(operation.getInput(), new DeltaElementsIterable(parquetStore, index.getDeltas())),
+                        parquetStore, spark, false, Collections.emptyList());
+            } else {
+                addElements(operation.getInput(), parquetStore, spark, false, Collections.emptyList());
+            }
+        } catch (final StoreException e) {
+            throw new OperationException(e.getMessage(), e);
+        } finally {
+            parquetStore.getIngestLock().unlock();
+        }
+        if (incremental) {
+            parquetStore.scheduleCompaction(() -> {
+                try {
+                    new CompactDeltas().compactIfRequired(parquetStore,
+                            parquetStore.getProperties().getAddElementsLocal() ? null : parquetStore.getCompactionSparkSession());
+                } catch (final OperationException e) {
+                    LOGGER.error("Failed to compact the deltas", e);
+                }
+            });
+        }
         return null;
     }
 
-    private void addElements(final AddElements addElementsOperation, final ParquetStore store, final SparkSession spark)
-            throws OperationException {
+    /**
+     * Aggregates and sorts the given elements and then writes them to the store, either as a new snapshot or as a
+     * delta of the current snapshot. The caller must hold the {@link ParquetStore#getIngestLock()}.
+     *
+     * @param input          the elements to add
+     * @param store          the {@link ParquetStore}
+     * @param spark          the {@link SparkSession} to use to aggregate and sort the data, or null to aggregate and
+     *                       sort the data on local threads
+     * @param asDelta        if true the elements are written as a delta of the current snapshot, otherwise they are
+     *                       aggregated with the current snapshot and written as a new snapshot
+     * @param replacedDeltas the deltas which contain the given elements and are replaced by the new delta
+     * @throws OperationException if the elements could not be added
+     */
+    void addElements(final Iterable<? extends Element> input, final ParquetStore store, final SparkSession spark,
+                     final boolean asDelta, final List<GraphIndex> replacedDeltas) throws OperationException {
+        final ParquetStoreProperties parquetStoreProperties = store.getProperties();
+        final ExecutorService pool = null == spark ? createThreadPool(parquetStoreProperties) : createThreadPool(spark, parquetStoreProperties);
         try {
             final FileSystem fs = store.getFS();
-            final ParquetStoreProperties parquetStoreProperties = store.getProperties();
-            final Schema gafferSchema = store.getSchema();
-            final String rootDataDirString = store.getDataDir();
             final String tempDirString = store.getTempFilesDir();
-            final Path tempDir = new Path(tempDirString);
-            if (fs.exists(tempDir)) {
-                fs.delete(tempDir, true);
-                LOGGER.warn("Temp data directory '{}' has been deleted.", tempDirString);
-            }
-            // Write the data out
-            LOGGER.debug("Starting to write the input Parquet data to {} split by group and split points", tempDirString);
-            final Iterable<? extends Element> input = addElementsOperation.getInput();
-            final ExecutorService pool = createThreadPool(spark, parquetStoreProperties);
-            final List<Callable<Tuple2<String, Map<Object, Integer>>>> tasks = new ArrayList<>();
-            final Map<String, Map<Object, Integer>> groupToSplitPoints;
+            final String timeBucketsTempDirString = getTimeBucketsTempDir(store);
             final GraphIndex index = store.getGraphIndex();
-            if (null == index) {
-                groupToSplitPoints = new HashMap<>();
-                for (final String group : gafferSchema.getEdgeGroups()) {
-                    tasks.add(new CalculateSplitPointsFromIterable(parquetStoreProperties.getSampleRate(),
-                            parquetStoreProperties.getAddElementsOutputFilesPerGroup() - 1, input, group, false));
+            final GraphIndex newGraphIndex;
+            if (store.getTimePartitioner().isPartitioned() || (!asDelta && null != index && !index.getTimeBuckets().isEmpty())) {
+                newGraphIndex = aggregateAndSortTimePartitioned(input, store, spark, pool, asDelta);
+            } else {
+                newGraphIndex = aggregateAndSort(input, store, spark, pool, !asDelta, index);
+            }
+            try {
+                if (asDelta) {
+                    moveDeltaToDataDir(store, fs, tempDirString, newGraphIndex, replacedDeltas);
+                } else {
+                    moveDataToDataDir(store, fs, store.getDataDir(), tempDirString, newGraphIndex);
                 }
-                for (final String group : gafferSchema.getEntityGroups()) {
-                    tasks.add(new CalculateSplitPointsFromIterable(parquetStoreProperties.getSampleRate(),
-                            parquetStoreProperties.getAddElementsOutputFilesPerGroup() - 1, input, group, true));
+                tidyUp(fs, tempDirString);
+                if (fs.exists(new Path(timeBucketsTempDirString))) {
+                    tidyUp(fs, timeBucketsTempDirString);
                 }
-                invokeSplitPointCalculations(pool, tasks, groupToSplitPoints);
-            } else {
-                groupToSplitPoints = CalculateSplitPointsFromIndex.apply(index, store.getSchemaUtils(), parquetStoreProperties, input, pool);
+            } catch (final IOException | StoreException e) {
+                throw new OperationException("Failed to reload the indices", e);
             }
+        } catch (final IOException e) {
+            throw new OperationException("IOException: Failed to connect to the file system", e);
+        } catch (final StoreException e) {
+            throw new OperationException(e.getMessage(), e);
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-            final Iterator<? extends Element> inputIter = input.iterator();
-            new WriteUnsortedData(store, groupToSplitPoints).writeElements(inputIter);
-            if (inputIter instanceof CloseableIterator) {
-                ((CloseableIterator) inputIter).close();
+    /**
+     * Aggregates and sorts the given elements, writing them to the sorted directory of the temp files directory along
+     * with their indices.
+     *
+     * @param input              the elements to add
+     * @param store              the {@link ParquetStore}
+     * @param spark              the {@link SparkSession} to use, or null to aggregate and sort the data on local threads
+     * @param pool               the pool to run the tasks on, which is not shut down
+     * @param includeCurrentData if true the elements are aggregated with the data of the current snapshot
+     * @param splitPointIndex    the index to take the split points from, or null to calculate them from the elements
+     * @return the {@link GraphIndex} of the sorted data
+     * @throws IOException        if the file system could not be accessed
+     * @throws StoreException     if the split points could not be calculated
+     * @throws OperationException if the elements could not be written
+     */
+    private GraphIndex aggregateAndSort(final Iterable<? extends Element> input, final ParquetStore store,
+                                        final SparkSession spark, final ExecutorService pool,
+                                        final boolean includeCurrentData, final GraphIndex splitPointIndex) throws IOException, StoreException, OperationException {
+        final FileSystem fs = store.getFS();
+        final ParquetStoreProperties parquetStoreProperties = store.getProperties();
+        final Schema gafferSchema = store.getSchema();
+        final String tempDirString = store.getTempFilesDir();
+        final Path tempDir = new Path(tempDirString);
+        if (fs.exists(tempDir)) {
+            fs.delete(tempDir, true);
+            LOGGER.warn("Temp data directory '{}' has been deleted.", tempDirString);
+        }
+        // Write the data out
+        LOGGER.debug("Starting to write the input Parquet data to {} split by group and split points", tempDirString);
+        final List<Callable<Tuple2<String, Map<Object, Integer>>>> tasks = new ArrayList<>();
+        final Map<String, Map<Object, Integer>> groupToSplitPoints;
+        if (null == splitPointIndex) {
+            groupToSplitPoints = new HashMap<>();
+            for (final String group : gafferSchema.getEdgeGroups()) {
+                tasks.add(new CalculateSplitPointsFromIterable(parquetStoreProperties.getSampleRate(),
+                        parquetStoreProperties.getAddElementsOutputFilesPerGroup() - 1, input, group, false));
             }
-            if (input instanceof CloseableIterable) {
-                ((CloseableIterable) input).close();
+            for (final String group : gafferSchema.getEntityGroups()) {
+                tasks.add(new CalculateSplitPointsFromIterable(parquetStoreProperties.getSampleRate(),
+                        parquetStoreProperties.getAddElementsOutputFilesPerGroup() - 1, input, group, true));
             }
-            LOGGER.debug("Finished writing the input Parquet data to {}", tempDirString);
+            invokeSplitPointCalculations(pool, tasks, groupToSplitPoints);
+        } else {
+            groupToSplitPoints = CalculateSplitPointsFromIndex.apply(splitPointIndex, store.getSchemaUtils(), parquetStoreProperties, input, pool);
+        }
+
+        final Iterator<? extends Element> inputIter = input.iterator();
+        new WriteUnsortedData(store, groupToSplitPoints).writeElements(inputIter);
+        if (inputIter instanceof CloseableIterator) {
+            ((CloseableIterator) inputIter).close();
+        }
+        if (input instanceof CloseableIterable) {
+            ((CloseableIterable) input).close();
+        }
+        LOGGER.debug("Finished writing the input Parquet data to {}", tempDirString);
+        final GraphIndex newGraphIndex;
+        if (null == spark) {
+            // Aggregate, sort and index the data on local threads
+            LOGGER.debug("Starting to write the sorted and aggregated Parquet data and indexes to {}/sorted", tempDirString);
+            newGraphIndex = new LocalAggregateAndSortData(store, groupToSplitPoints, pool, includeCurrentData).getGraphIndex();
+            LOGGER.debug("Finished writing the sorted and aggregated Parquet data and indexes to {}/sorted", tempDirString);
+        } else {
             // Use to Spark read in all the data, aggregate and sort it
             LOGGER.debug("Starting to write the sorted and aggregated Parquet data to {}/sorted split by group", tempDirString);
-            new AggregateAndSortTempData(store, spark, groupToSplitPoints, pool);
-            pool.shutdown();
+            new AggregateAndSortTempData(store, spark, groupToSplitPoints, pool, includeCurrentData);
             LOGGER.debug("Finished writing the sorted and aggregated Parquet data to {}/sorted", tempDirString);
             // Generate the file based index
             LOGGER.debug("Starting to write the indexes");
-            final GraphIndex newGraphIndex = new GenerateIndices(store, spark).getGraphIndex();
+            newGraphIndex = new GenerateIndices(store, spark, pool).getGraphIndex();
             LOGGER.debug("Finished writing the indexes");
-            try {
-                moveDataToDataDir(store, fs, rootDataDirString, tempDirString, newGraphIndex);
-                tidyUp(fs, tempDirString);
-            } catch (final IOException | StoreException e) {
-                throw new OperationException("Failed to reload the indices", e);
+        }
+        return newGraphIndex;
+    }
+
+    /**
+     * Aggregates and sorts the given elements when some of the groups are partitioned by time, see
+     * {@link uk.gov.gchq.gaffer.parquetstore.utils.TimePartitioner}. The elements that belong in a time bucket are
+     * first written out to a directory for each bucket, and each bucket that elements were written to is then
+     * aggregated and sorted on its own, using the same pool as the rest of the ingest so that the groups and splits of
+     * each bucket are processed in parallel. The rest of the elements are aggregated and sorted as normal, and the
+     * sorted buckets are then moved into the sorted directory of the temp files directory.
+     * <p>
+     * When the elements are aggregated with the current snapshot, a bucket of the current snapshot that no elements
+     * were written to is not rewritten; the new snapshot instead refers to the bucket's files in the directory of the
+     * snapshot that they were written in, see {@link GraphIndex#writeReferencedTimeBuckets}. A bucket of the current
+     * snapshot whose size or groups are no longer partitioned the same way has its elements added again, so that they
+     * are moved to the right place.
+     *
+     * @param input   the elements to add
+     * @param store   the {@link ParquetStore}
+     * @param spark   the {@link SparkSession} to use, or null to aggregate and sort the data on local threads
+     * @param pool    the pool to run the tasks on, which is not shut down
+     * @param asDelta if true the elements are written as a delta, otherwise they are aggregated with the current
+     *                snapshot
+     * @return the {@link GraphIndex} of the sorted data, including the indices of its time buckets
+     * @throws IOException        if the file system could not be accessed
+     * @throws StoreException     if the split points could not be calculated
+     * @throws OperationException if the elements could not be written
+     */
+    private GraphIndex aggregateAndSortTimePartitioned(final Iterable<? extends Element> input, final ParquetStore store,
+                                                       final SparkSession spark, final ExecutorService pool,
+                                                       final boolean asDelta)
+            throws IOException, StoreException, OperationException {
+        final FileSystem fs = store.getFS();
+        final SchemaUtils schemaUtils = store.getSchemaUtils();
+        final TimePartitioner timePartitioner = store.getTimePartitioner();
+        final GraphIndex index = store.getGraphIndex();
+        final String tempDirString = store.getTempFilesDir();
+        final String timeBucketsTempDirString = getTimeBucketsTempDir(store);
+        final Path timeBucketsTempDir = new Path(timeBucketsTempDirString);
+        if (fs.exists(timeBucketsTempDir)) {
+            fs.delete(timeBucketsTempDir, true);
+            LOGGER.warn("Temp time buckets directory '{}' has been deleted.", timeBucketsTempDirString);
+        }
+        final String unsortedBucketsDir = timeBucketsTempDirString + "/unsorted";
+        final String sortedBucketsDir = timeBucketsTempDirString + "/" + ParquetStoreConstants.SORTED;
+
+        // Find the buckets of the current snapshot which can be carried over to the new snapshot
+        final Map<TimeBucket, GraphIndex> currentBuckets = new HashMap<>();
+        final List<Path> filesToRepartition = new ArrayList<>();
+        if (!asDelta && null != index) {
+            for (final GraphIndex bucketIndex : index.getTimeBuckets()) {
+                final TimeBucket bucket = bucketIndex.getTimeBucket();
+                boolean isCurrent = bucket.getSize() == timePartitioner.getBucketSize();
+                for (final String group : bucketIndex.groupsIndexed()) {
+                    isCurrent = isCurrent && timePartitioner.isPartitioned(group);
+                }
+                if (isCurrent) {
+                    currentBuckets.put(bucket, bucketIndex);
+                } else {
+                    LOGGER.info("Repartitioning the elements of {} as the time partitioning has changed", bucket);
+                    filesToRepartition.addAll(DeltaElementsIterable.getFiles(fs, schemaUtils, ParquetStore.getTimeBucketDirectory(store.getDataDir(), bucketIndex)));
+                }
             }
-        } catch (final IOException e) {
-            throw new OperationException("IOException: Failed to connect to the file system", e);
-        } catch (final StoreException e) {
-            throw new OperationException(e.getMessage(), e);
         }
+        final Iterable<? extends Element> allInput = filesToRepartition.isEmpty() ? input
+                : new ChainedIterable<Element>(input, new DeltaElementsIterable(schemaUtils, filesToRepartition));
 
+        // Write out the elements that belong in a bucket
+        LOGGER.debug("Starting to write the time bucketed Parquet data to {}", unsortedBucketsDir);
+        final Set<TimeBucket> writtenBuckets = new WriteTimeBucketedData(store, unsortedBucketsDir).writeElements(allInput);
+        final Set<TimeBucket> buckets = new TreeSet<>(writtenBuckets);
+        buckets.addAll(currentBuckets.keySet());
+
+        // Aggregate and sort each bucket on its own
+        final List<GraphIndex> bucketIndices = new ArrayList<>();
+        final List<GraphIndex> referencedBucketIndices = new ArrayList<>();
+        for (final TimeBucket bucket : buckets) {
+            final String bucketName = bucket.getDirectoryName();
+            final GraphIndex currentBucketIndex = currentBuckets.get(bucket);
+            final GraphIndex bucketIndex;
+            if (writtenBuckets.contains(bucket)) {
+                final List<Path> files = DeltaElementsIterable.getFiles(fs, schemaUtils, unsortedBucketsDir + "/" + bucketName);
+                if (null != currentBucketIndex) {
+                    files.addAll(DeltaElementsIterable.getFiles(fs, schemaUtils, ParquetStore.getTimeBucketDirectory(store.getDataDir(), currentBucketIndex)));
+                }
+                LOGGER.debug("Aggregating and sorting {} files of {}", files.size(), bucket);
+                bucketIndex = aggregateAndSort(new DeltaElementsIterable(schemaUtils, files), store, spark, pool, false, null);
+                final Path sortedDir = new Path(tempDirString + "/" + ParquetStoreConstants.SORTED);
+                final Path sortedBucketDir = new Path(sortedBucketsDir + "/" + bucketName);
+                fs.mkdirs(sortedBucketDir.getParent());
+                final boolean wroteBucket = fs.exists(sortedDir) && fs.rename(sortedDir, sortedBucketDir);
+                fs.delete(new Path(tempDirString), true);
+                if (!wroteBucket) {
+                    continue;
+                }
+            } else {
+                // No elements were added to the bucket so the new snapshot reads it from where it was written
+                LOGGER.debug("Referencing {} from snapshot {}", bucket, currentBucketIndex.getSnapshotTimestamp());
+                bucketIndex = currentBucketIndex.withDeltas(Collections.emptyList());
+                referencedBucketIndices.add(bucketIndex);
+            }
+            bucketIndex.setTimeBucket(bucket);
+            bucketIndices.add(bucketIndex);
+        }
+
+        // Aggregate and sort the rest of the elements, then move the buckets in with them
+        final Iterable<Element> unpartitionedInput = new TransformIterable<Element, Element>(allInput,
+                element -> null == timePartitioner.getTimeBucket(element), true, false) {
+            @Override
+            protected Element transform(final Element element) {
+                return element;
+            }
+        };
+        final GraphIndex newGraphIndex = aggregateAndSort(unpartitionedInput, store, spark, pool, !asDelta, index);
+        if (input instanceof CloseableIterable) {
+            ((CloseableIterable) input).close();
+        }
+        if (!bucketIndices.isEmpty()) {
+            final String sortedDir = tempDirString + "/" + ParquetStoreConstants.SORTED;
+            fs.mkdirs(new Path(sortedDir));
+            if (fs.exists(new Path(sortedBucketsDir))) {
+                fs.rename(new Path(sortedBucketsDir), new Path(ParquetStore.getTimeBucketsDirectory(sortedDir)));
+            }
+            if (!referencedBucketIndices.isEmpty()) {
+                GraphIndex.writeReferencedTimeBuckets(referencedBucketIndices, sortedDir, fs);
+            }
+            for (final GraphIndex bucketIndex : bucketIndices) {
+                newGraphIndex.addTimeBucket(bucketIndex);
+            }
+        }
+        return newGraphIndex;
     }
 
     private void moveDataToDataDir(final ParquetStore store, final FileSystem fs, final String dataDirString, final String tempDataDirString, final GraphIndex newGraphIndex) throws StoreException, IOException {
@@ -151,9 +397,94 @@ public class AddElementsHandler implements OperationHandler<AddElements> {
         fs.rename(new Path(tempPath), new Path(destPath));
         // Reload indices
         newGraphIndex.setSnapshotTimestamp(snapshot);
+        setTimeBucketSnapshots(newGraphIndex, snapshot);
         store.setGraphIndex(newGraphIndex);
     }
 
+    private void moveDeltaToDataDir(final ParquetStore store, final FileSystem fs, final String tempDataDirString,
+                                    final GraphIndex newDeltaIndex, final List<GraphIndex> replacedDeltas) throws StoreException, IOException {
+        final GraphIndex index = store.getGraphIndex();
+        final String tempPath = tempDataDirString + "/" + ParquetStoreConstants.SORTED;
+        if (replacedDeltas.isEmpty() && !fs.exists(new Path(tempPath))) {
+            LOGGER.debug("No elements were written so no delta will be created");
+            return;
+        }
+        final List<GraphIndex> deltas = new ArrayList<>(index.getDeltas());
+        // The deltas must be named in the order they were written, and a merged delta takes the place of the deltas
+        // it replaces
+        final long delta;
+        final int position;
+        if (replacedDeltas.isEmpty()) {
+            delta = deltas.isEmpty() ? System.currentTimeMillis()
+                    : Math.max(System.currentTimeMillis(), deltas.get(deltas.size() - 1).getSnapshotTimestamp() + 1);
+            position = deltas.size();
+        } else {
+            delta = getMergedDeltaTimestamp(store, replacedDeltas);
+            if (delta < 0) {
+                throw new StoreException("There is no name available for the delta that replaces deltas " + replacedDeltas);
+            }
+            position = deltas.indexOf(replacedDeltas.get(0));
+        }
+        final String destPath = ParquetStore.getDeltasDirectory(store.getDataDir() + "/" + index.getSnapshotTimestamp()) + "/" + delta;
+        if (!replacedDeltas.isEmpty()) {
+            GraphIndex.writeReplacedDeltas(replacedDeltas, tempPath, fs);
+        }
+        LOGGER.debug("Creating directory {}", destPath);
+        fs.mkdirs(new Path(destPath).getParent());
+        LOGGER.debug("Renaming {} to {}", tempPath, destPath);
+        fs.rename(new Path(tempPath), new Path(destPath));
+        // Reload indices
+        newDeltaIndex.setSnapshotTimestamp(delta);
+        setTimeBucketSnapshots(newDeltaIndex, delta);
+        deltas.removeAll(replacedDeltas);
+        deltas.add(position, newDeltaIndex);
+        store.setGraphIndex(index.withDeltas(deltas));
+    }
+
+    /**
+     * Gets the timestamp to name the delta that replaces the given adjacent deltas, so that it is ordered after the
+     * deltas written before them and before the deltas written after them.
+     *
+     * @param store          the {@link ParquetStore}
+     * @param replacedDeltas the adjacent deltas of the current snapshot that are being merged
+     * @return the timestamp, or -1 if there is no unused timestamp between the last replaced delta and the next delta
+     * @throws IOException if the file system could not be accessed
+     */
+    static long getMergedDeltaTimestamp(final ParquetStore store, final List<GraphIndex> replacedDeltas) throws IOException {
+        final GraphIndex index = store.getGraphIndex();
+        final List<GraphIndex> deltas = index.getDeltas();
+        final GraphIndex lastReplaced = replacedDeltas.get(replacedDeltas.size() - 1);
+        final int next = deltas.indexOf(lastReplaced) + 1;
+        final long timestamp = lastReplaced.getSnapshotTimestamp() + 1;
+        if (next < deltas.size() && timestamp >= deltas.get(next).getSnapshotTimestamp()) {
+            return -1L;
+        }
+        final String deltasDir = ParquetStore.getDeltasDirectory(store.getDataDir() + "/" + index.getSnapshotTimestamp());
+        if (store.getFS().exists(new Path(deltasDir + "/" + timestamp))) {
+            return -1L;
+        }
+        return timestamp;
+    }
+
+    /**
+     * Sets the snapshot timestamp of each time bucket that was written with a new snapshot or delta, whose timestamp is
+     * not yet set, leaving the buckets that are read from an earlier snapshot unchanged.
+     *
+     * @param index    the index of the new snapshot or delta
+     * @param snapshot the timestamp of the new snapshot or delta
+     */
+    private static void setTimeBucketSnapshots(final GraphIndex index, final long snapshot) {
+        for (final GraphIndex bucket : index.getTimeBuckets()) {
+            if (0L == bucket.getSnapshotTimestamp()) {
+                bucket.setSnapshotTimestamp(snapshot);
+            }
+        }
+    }
+
+    private static String getTimeBucketsTempDir(final ParquetStore store) {
+        return store.getTempFilesDir() + "_" + ParquetStoreConstants.TIME_BUCKETS;
+    }
+
     private void tidyUp(final FileSystem fs, final String tempDataDirString) throws IOException {
         Path tempDir = new Path(tempDataDirString);
         fs.delete(tempDir, true);
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.addelements.handler;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.spark.sql.SparkSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.DeltaElementsIterable;
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.SizeTieredCompactionPolicy;
+import uk.gov.gchq.gaffer.parquetstore.utils.SparkParquetUtils;
+import uk.gov.gchq.gaffer.store.StoreException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compacts the deltas that have been written by adding elements incrementally, see
+ * {@link uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties#getAddElementsIncremental()}.
+ * <p>
+ * Adjacent deltas of a similar size are merged into a single delta, which takes their place in the order of the
+ * deltas, and once there are too many deltas or they are too large compared to the snapshot they are all compacted
+ * into a new snapshot, as decided by the {@link SizeTieredCompactionPolicy}. Compacting the deltas into a new snapshot is the same as adding the elements in
+ * the deltas to the store without adding elements incrementally.
+ */
+public class CompactDeltas {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactDeltas.class);
+
+    /**
+     * Compacts the deltas if required by the {@link SizeTieredCompactionPolicy}.
+     *
+     * @param store the {@link ParquetStore}
+     * @param spark the {@link SparkSession} to use to aggregate and sort the data, or null to aggregate and sort the
+     *              data on local threads
+     * @throws OperationException if the compaction fails
+     */
+    public void compactIfRequired(final ParquetStore store, final SparkSession spark) throws OperationException {
+        store.getIngestLock().lock();
+        try {
+            final GraphIndex index = store.getGraphIndex();
+            if (null == index || index.getDeltas().isEmpty()) {
+                return;
+            }
+            final FileSystem fs = store.getFS();
+            final String snapshotDir = store.getDataDir() + "/" + index.getSnapshotTimestamp();
+            final String deltasDir = ParquetStore.getDeltasDirectory(snapshotDir);
+            final List<Long> deltaSizes = new ArrayList<>();
+            for (final GraphIndex delta : index.getDeltas()) {
+                deltaSizes.add(fs.getContentSummary(new Path(deltasDir + "/" + delta.getSnapshotTimestamp())).getLength());
+            }
+            final long snapshotSize = fs.getContentSummary(new Path(snapshotDir)).getLength()
+                    - fs.getContentSummary(new Path(deltasDir)).getLength();
+            final SizeTieredCompactionPolicy policy = new SizeTieredCompactionPolicy(store.getProperties());
+            if (policy.requiresFullCompaction(deltaSizes, snapshotSize)) {
+                compactAll(store, spark);
+            } else {
+                final List<Integer> deltasToMerge = policy.selectDeltasToMerge(deltaSizes);
+                if (!deltasToMerge.isEmpty()) {
+                    final List<GraphIndex> deltas = new ArrayList<>(deltasToMerge.size());
+                    for (final int i : deltasToMerge) {
+                        deltas.add(index.getDeltas().get(i));
+                    }
+                    if (AddElementsHandler.getMergedDeltaTimestamp(store, deltas) < 0) {
+                        // The merged delta can not be ordered between its neighbours, so leave the deltas to be
+                        // compacted into the next snapshot
+                        LOGGER.debug("Not merging deltas {} as there is no name available for the merged delta", deltas);
+                    } else {
+                        LOGGER.info("Merging {} deltas of snapshot {}", deltas.size(), index.getSnapshotTimestamp());
+                        new AddElementsHandler().addElements(new DeltaElementsIterable(store, deltas), store, getSessionForAddElements(store, spark), true, deltas);
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            throw new OperationException("Failed to get the sizes of the deltas", e);
+        } catch (final StoreException e) {
+            throw new OperationException(e.getMessage(), e);
+        } finally {
+            store.getIngestLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts all the deltas into a new snapshot, if there are any.
+     *
+     * @param store the {@link ParquetStore}
+     * @param spark the {@link SparkSession} to use to aggregate and sort the data, or null to aggregate and sort the
+     *              data on local threads
+     * @throws OperationException if the compaction fails
+     */
+    public void compactAll(final ParquetStore store, final SparkSession spark) throws OperationException {
+        store.getIngestLock().lock();
+        try {
+            final GraphIndex index = store.getGraphIndex();
+            if (null != index && !index.getDeltas().isEmpty()) {
+                LOGGER.info("Compacting {} deltas of snapshot {} into a new snapshot", index.getDeltas().size(), index.getSnapshotTimestamp());
+                new AddElementsHandler().addElements(new DeltaElementsIterable(store, index.getDeltas()), store,
+                        getSessionForAddElements(store, spark), false, Collections.emptyList());
+            }
+        } catch (final StoreException e) {
+            throw new OperationException(e.getMessage(), e);
+        } finally {
+            store.getIngestLock().unlock();
+        }
+    }
+
+    private SparkSession getSessionForAddElements(final ParquetStore store, final SparkSession spark) throws StoreException {
+        if (null == spark) {
+            return null;
+        }
+        SparkParquetUtils.configureSparkForAddElements(spark, store.getProperties());
+        try {
+            return SparkParquetUtils.getSessionForAddElements(spark, store);
+        } catch (final IOException e) {
+            throw new StoreException("Failed to read the footers of the current snapshot", e);
+        }
+    }
+}
@@ -49,6 +49,11 @@ import java.util.concurrent.Future;
  * had a single edge group then it will generate two tasks:
  * The first would aggregate the group's unsorted data and then sort it by the SOURCE columns.
  * The second would again aggregate the same groups data and then sort it by the DESTINATION column.
+ * <p>
+ * The unsorted data is aggregated with the data in the current snapshot, unless it is being written as a delta in
+ * which case only the unsorted data is aggregated and sorted.
+ * <p>
+ * The tasks are run on the given pool, which is left for the caller to shut down so that it can be reused.
  */
 public class AggregateAndSortTempData {
     private static final Logger LOGGER = LoggerFactory.getLogger(AggregateAndSortTempData.class);
@@ -58,11 +63,18 @@ public class AggregateAndSortTempData {
     public AggregateAndSortTempData(final ParquetStore store, final SparkSession spark,
                                     final Map<String, Map<Object, Integer>> groupToSplitPoints,
                                     final ExecutorService pool) throws OperationException, SerialisationException {
+        this(store, spark, groupToSplitPoints, pool, true);
+    }
+
+    public AggregateAndSortTempData(final ParquetStore store, final SparkSession spark,
+                                    final Map<String, Map<Object, Integer>> groupToSplitPoints,
+                                    final ExecutorService pool,
+                                    final boolean includeCurrentData) throws OperationException, SerialisationException {
         final List<Callable<OperationException>> tasks = new ArrayList<>();
         final SchemaUtils schemaUtils = store.getSchemaUtils();
         final GraphIndex index = store.getGraphIndex();
         final String currentDataDir;
-        if (null != index) {
+        if (null != index && includeCurrentData) {
             currentDataDir = store.getDataDir()
                     + "/" + index.getSnapshotTimestamp();
         } else {
@@ -125,7 +137,7 @@ public class AggregateAndSortTempData {
                     if (groupToSplitPoints.containsKey(group)) {
                         final Collection<Integer> splits = groupToSplitPoints.get(group).values();
                         for (final int i : splits) {
-                            moveData(store.getFS(), store.getTempFilesDir(), group, ParquetStoreConstants.SOURCE, String.valueOf(i));
+                            moveData(store.getFS(), store.getTempFilesDir(), group, ParquetStoreConstants.SOURCE, String.valueOf(i), props.getCompressionCodec().getExtension());
                         }
                     }
                 }
@@ -133,7 +145,7 @@ public class AggregateAndSortTempData {
                     if (groupToSplitPoints.containsKey(group)) {
                         final Collection<Integer> splits = groupToSplitPoints.get(group).values();
                         for (final int i : splits) {
-                            moveData(store.getFS(), store.getTempFilesDir(), group, ParquetStoreConstants.VERTEX, String.valueOf(i));
+                            moveData(store.getFS(), store.getTempFilesDir(), group, ParquetStoreConstants.VERTEX, String.valueOf(i), props.getCompressionCodec().getExtension());
                         }
                     }
                 }
@@ -147,7 +159,6 @@ public class AggregateAndSortTempData {
         } catch (final IOException e) {
             throw new OperationException("AggregateAndSortData had an IO exception thrown", e);
         }
-        pool.shutdown();
     }
 
     private void addAggregationTask(final String group,
@@ -175,12 +186,13 @@ public class AggregateAndSortTempData {
         }
     }
 
-    private void moveData(final FileSystem fs, final String tempFileDir, final String group, final String column, final String splitNumber) throws StoreException, IOException, OperationException {
+    private void moveData(final FileSystem fs, final String tempFileDir, final String group, final String column, final String splitNumber,
+                          final String extension) throws StoreException, IOException, OperationException {
         // Move data from temp to data
         final String sourceFile = ParquetStore.getGroupDirectory(group, column, tempFileDir) + SORTED + SPLIT + splitNumber + "/part-00000-*.parquet";
         final FileStatus[] files = fs.globStatus(new Path(sourceFile));
         if (files.length == 1) {
-            final Path destPath = new Path(ParquetStore.getGroupDirectory(group, column, tempFileDir + SORTED) + "/part-" + zeroPad(splitNumber, 5) + ".gz.parquet");
+            final Path destPath = new Path(ParquetStore.getGroupDirectory(group, column, tempFileDir + SORTED) + "/part-" + zeroPad(splitNumber, 5) + extension + ".parquet");
             fs.mkdirs(destPath.getParent());
             fs.rename(files[0].getPath(), destPath);
         } else if (files.length > 1) {
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.io.reader.ParquetElementReader;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
+import uk.gov.gchq.gaffer.store.StoreException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@link Iterable} of all the {@link Element}s in the given deltas of the current snapshot, including any time
+ * buckets of the deltas, which is used to add the elements in the deltas back in when the deltas are compacted. It can
+ * also be created from a list of files, which is used to add the elements in time buckets back in. The elements are
+ * read one file at a time without applying any filters or visibility checks.
+ */
+public class DeltaElementsIterable implements CloseableIterable<Element> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeltaElementsIterable.class);
+
+    private final SchemaUtils schemaUtils;
+    private final List<Path> files;
+
+    public DeltaElementsIterable(final ParquetStore store, final List<GraphIndex> deltas) throws StoreException {
+        this.schemaUtils = store.getSchemaUtils();
+        this.files = new ArrayList<>();
+        final FileSystem fs = store.getFS();
+        final String deltasDir = ParquetStore.getDeltasDirectory(store.getDataDir() + "/" + store.getGraphIndex().getSnapshotTimestamp());
+        try {
+            for (final GraphIndex delta : deltas) {
+                final String deltaDir = deltasDir + "/" + delta.getSnapshotTimestamp();
+                files.addAll(getFiles(fs, schemaUtils, deltaDir));
+                for (final GraphIndex bucket : delta.getTimeBuckets()) {
+                    files.addAll(getFiles(fs, schemaUtils, ParquetStore.getTimeBucketDirectory(deltasDir, bucket)));
+                }
+            }
+        } catch (final IOException e) {
+            throw new StoreException("Failed to list the files in the deltas", e);
+        }
+        LOGGER.debug("Reading the elements from {} delta files", files.size());
+    }
+
+    public DeltaElementsIterable(final SchemaUtils schemaUtils, final List<Path> files) {
+        this.schemaUtils = schemaUtils;
+        this.files = new ArrayList<>(files);
+    }
+
+    /**
+     * Lists the Parquet files that contain the elements stored in the given directory, which has the same layout as a
+     * snapshot. Only the files sorted by the vertex or source are listed, so each element is listed once.
+     *
+     * @param fs          the file system
+     * @param schemaUtils the {@link SchemaUtils} for the graph
+     * @param dir         the directory
+     * @return the Parquet files
+     * @throws IOException if the files can not be listed
+     */
+    public static List<Path> getFiles(final FileSystem fs, final SchemaUtils schemaUtils, final String dir) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        for (final String group : schemaUtils.getEntityGroups()) {
+            addFiles(fs, ParquetStore.getGroupDirectory(group, ParquetStoreConstants.VERTEX, dir), files);
+        }
+        for (final String group : schemaUtils.getEdgeGroups()) {
+            addFiles(fs, ParquetStore.getGroupDirectory(group, ParquetStoreConstants.SOURCE, dir), files);
+        }
+        return files;
+    }
+
+    private static void addFiles(final FileSystem fs, final String groupDir, final List<Path> files) throws IOException {
+        final FileStatus[] statuses = fs.globStatus(new Path(groupDir + "/*.parquet"));
+        if (null != statuses) {
+            for (final FileStatus status : statuses) {
+                files.add(status.getPath());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // Each iterator closes its own reader
+    }
+
+    @Override
+    public CloseableIterator<Element> iterator() {
+        return new DeltaElementsIterator();
+    }
+
+    private class DeltaElementsIterator implements CloseableIterator<Element> {
+        private final Iterator<Path> fileIterator = files.iterator();
+        private ParquetReader<Element> reader;
+        private Element nextElement;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (null == nextElement) {
+                    if (null == reader) {
+                        if (!fileIterator.hasNext()) {
+                            return false;
+                        }
+                        reader = openParquetReader(fileIterator.next());
+                    }
+                    nextElement = reader.read();
+                    if (null == nextElement) {
+                        reader.close();
+                        reader = null;
+                    }
+                }
+            } catch (final IOException e) {
+                close();
+                throw new RuntimeException("Failed to read the elements from the deltas", e);
+            }
+            return true;
+        }
+
+        @Override
+        public Element next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Element element = nextElement;
+            nextElement = null;
+            return element;
+        }
+
+        @Override
+        public void close() {
+            if (null != reader) {
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    LOGGER.warn("Failed to close the reader of a delta file", e);
+                }
+                reader = null;
+            }
+        }
+
+        private ParquetReader<Element> openParquetReader(final Path file) throws IOException {
+            final String group = file.getParent().getName().split("=")[1];
+            LOGGER.debug("Opening a new Parquet reader for delta file: {}", file);
+            return new ParquetElementReader.Builder<Element>(file)
+                    .isEntity(schemaUtils.getEntityGroups().contains(group))
+                    .usingConverter(schemaUtils.getConverter(group))
+                    .build();
+        }
+    }
+}
@@ -20,6 +20,14 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SparkSession;
@@ -29,6 +37,7 @@ import scala.collection.mutable.Seq$;
 
 import uk.gov.gchq.gaffer.exception.SerialisationException;
 import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.parquetstore.index.ColumnBloomFilter;
 import uk.gov.gchq.gaffer.parquetstore.index.ColumnIndex;
 import uk.gov.gchq.gaffer.parquetstore.index.MinValuesWithPath;
 import uk.gov.gchq.gaffer.store.StoreException;
@@ -36,11 +45,20 @@ import uk.gov.gchq.koryphe.tuple.n.Tuple4;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.NoSuchElementException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.concurrent.Callable;
 
 /**
- * Generates the index for a single group directory.
+ * Generates the index for a single group directory. For each file the first and last values of the indexed column,
+ * which are the min and max values as the files are sorted, are recorded along with a {@link ColumnBloomFilter} of all
+ * the values in the file if the false positive rate is greater than 0.
+ * <p>
+ * Where the indexed column is made up of plain numeric or boolean Parquet columns, the max values are taken from the
+ * statistics in the file's footer and, if there is no Bloom filter, only the first row of the file is read. Otherwise
+ * the file is summarised by a Spark job, in which each partition of the file builds a Bloom filter and records its
+ * first and last values, and the partition summaries are then merged. The footer statistics of binary columns are not
+ * used as they are not written in the same order as the files are sorted in.
  */
 public class GenerateIndexForColumnGroup implements Callable<Tuple4<String, String, ColumnIndex, OperationException>>, Serializable {
     private static final long serialVersionUID = 2287226248631201061L;
@@ -50,9 +68,16 @@ public class GenerateIndexForColumnGroup implements Callable<Tuple4<String, Stri
     private final String group;
     private final String column;
     private final SparkSession spark;
+    private final double bloomFilterFalsePositiveRate;
 
     public GenerateIndexForColumnGroup(final String directoryPath, final String[] paths, final String group, final String column, final SparkSession spark) throws OperationException,
             SerialisationException, StoreException {
+        this(directoryPath, paths, group, column, spark, 0.0);
+    }
+
+    public GenerateIndexForColumnGroup(final String directoryPath, final String[] paths, final String group, final String column, final SparkSession spark,
+                                       final double bloomFilterFalsePositiveRate) throws OperationException, SerialisationException, StoreException {
+        this.bloomFilterFalsePositiveRate = bloomFilterFalsePositiveRate;
         this.directoryPath = directoryPath;
         this.paths = paths;
         this.columnIndex = new ColumnIndex();
@@ -69,18 +94,9 @@ public class GenerateIndexForColumnGroup implements Callable<Tuple4<String, Stri
                 final FileStatus[] files = fs.listStatus(new Path(directoryPath),
                         path1 -> path1.getName().endsWith(".parquet"));
                 for (final FileStatus file : files) {
-                    final String firstColumn = paths[0];
-                    final Builder<String, Seq<String>> seqBuilder = Seq$.MODULE$.newBuilder();
-                    final int numberOfColumns = paths.length;
-                    for (int i = 1; i < numberOfColumns; i++) {
-                        seqBuilder.$plus$eq(paths[i]);
-                    }
-                    final Dataset<Row> fileData = spark.read().parquet(file.getPath().toString()).select(firstColumn, seqBuilder.result());
-                    try {
-                        final Row minRow = fileData.head();
-                        columnIndex.add(generateGafferObjectsIndex(minRow, file.getPath().getName()));
-                    } catch (final NoSuchElementException ignored) {
-                        // ignore as dataframe was empty
+                    final MinValuesWithPath minValuesWithPath = generateGafferObjectsIndex(fs, file);
+                    if (null != minValuesWithPath) {
+                        columnIndex.add(minValuesWithPath);
                     }
                 }
             }
@@ -92,12 +108,171 @@ public class GenerateIndexForColumnGroup implements Callable<Tuple4<String, Stri
         return new Tuple4<>(group, column, columnIndex, null);
     }
 
-    private MinValuesWithPath generateGafferObjectsIndex(final Row minRow, final String path) throws StoreException {
-        final int numOfCols = minRow.length();
-        final Object[] min = new Object[numOfCols];
+    private MinValuesWithPath generateGafferObjectsIndex(final FileSystem fs, final FileStatus file) throws IOException, StoreException {
+        final ParquetMetadata footer = ParquetFileReader.readFooter(fs.getConf(), file, ParquetMetadataConverter.NO_FILTER);
+        long rowCount = 0L;
+        for (final BlockMetaData block : footer.getBlocks()) {
+            rowCount += block.getRowCount();
+        }
+        if (0L == rowCount) {
+            // the file was empty
+            return null;
+        }
+
+        final String firstColumn = paths[0];
+        final Builder<String, Seq<String>> seqBuilder = Seq$.MODULE$.newBuilder();
+        final int numberOfColumns = paths.length;
+        for (int i = 1; i < numberOfColumns; i++) {
+            seqBuilder.$plus$eq(paths[i]);
+        }
+        final Dataset<Row> fileData = spark.read().parquet(file.getPath().toString()).select(firstColumn, seqBuilder.result());
+
+        final Object[] maxFromStatistics = getMaxFromStatistics(footer);
+        if (null != maxFromStatistics && bloomFilterFalsePositiveRate <= 0.0) {
+            return new MinValuesWithPath(toParquetObjects(fileData.head()), maxFromStatistics, null, file.getPath().getName());
+        }
+
+        final FileSummary summary = fileData.javaRDD()
+                .mapPartitionsWithIndex(new SummarisePartition(rowCount, bloomFilterFalsePositiveRate), false)
+                .reduce(FileSummary::merge);
+        if (null == summary.min) {
+            return null;
+        }
+        return new MinValuesWithPath(summary.min, null != maxFromStatistics ? maxFromStatistics : summary.max,
+                summary.bloomFilter, file.getPath().getName());
+    }
+
+    /**
+     * Gets the max values of the indexed column from the file's footer. Each value is the max of that Parquet column,
+     * so together they are at least as large as the last row of the file.
+     *
+     * @param footer the footer of the file
+     * @return the max values, or null if they can not be taken from the statistics
+     */
+    private Object[] getMaxFromStatistics(final ParquetMetadata footer) {
+        final MessageType fileSchema = footer.getFileMetaData().getSchema();
+        final Object[] max = new Object[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            final String[] columnPath = paths[i].split("\\.");
+            if (!fileSchema.containsPath(columnPath) || null != fileSchema.getType(columnPath).getOriginalType()) {
+                return null;
+            }
+            for (final BlockMetaData block : footer.getBlocks()) {
+                for (final ColumnChunkMetaData columnChunk : block.getColumns()) {
+                    if (columnChunk.getPath().toDotString().equals(paths[i])) {
+                        final Statistics statistics = columnChunk.getStatistics();
+                        if (!isOrderedAsSorted(columnChunk) || null == statistics || !statistics.hasNonNullValue()) {
+                            return null;
+                        }
+                        final Comparable value = statistics.genericGetMax();
+                        if (null == max[i] || value.compareTo(max[i]) > 0) {
+                            max[i] = value;
+                        }
+                    }
+                }
+            }
+            if (null == max[i]) {
+                return null;
+            }
+        }
+        return max;
+    }
+
+    private static boolean isOrderedAsSorted(final ColumnChunkMetaData columnChunk) {
+        switch (columnChunk.getType()) {
+            case INT32:
+            case INT64:
+            case FLOAT:
+            case DOUBLE:
+            case BOOLEAN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Object[] toParquetObjects(final Row row) {
+        final int numOfCols = row.length();
+        final Object[] value = new Object[numOfCols];
         for (int i = 0; i < numOfCols; i++) {
-            min[i] = minRow.get(i);
+            value[i] = row.get(i);
+        }
+        return value;
+    }
+
+    /**
+     * Summarises a partition of a file by recording its first and last values and building a Bloom filter of its
+     * values, sized for the whole file so that the Bloom filters of the partitions can be merged.
+     */
+    private static final class SummarisePartition implements Function2<Integer, Iterator<Row>, Iterator<FileSummary>> {
+        private static final long serialVersionUID = -3050454379815330587L;
+        private final long rowCount;
+        private final double bloomFilterFalsePositiveRate;
+
+        private SummarisePartition(final long rowCount, final double bloomFilterFalsePositiveRate) {
+            this.rowCount = rowCount;
+            this.bloomFilterFalsePositiveRate = bloomFilterFalsePositiveRate;
+        }
+
+        @Override
+        public Iterator<FileSummary> call(final Integer partition, final Iterator<Row> rows) {
+            Object[] first = null;
+            Object[] last = null;
+            ColumnBloomFilter bloomFilter = null;
+            while (rows.hasNext()) {
+                final Object[] value = toParquetObjects(rows.next());
+                if (null == first) {
+                    first = value;
+                    if (bloomFilterFalsePositiveRate > 0.0) {
+                        bloomFilter = ColumnBloomFilter.create(rowCount, bloomFilterFalsePositiveRate);
+                    }
+                }
+                last = value;
+                if (null != bloomFilter) {
+                    bloomFilter.put(value);
+                }
+            }
+            return Collections.singletonList(new FileSummary(partition, first, partition, last, bloomFilter)).iterator();
+        }
+    }
+
+    /**
+     * The first and last values and the Bloom filter of one or more partitions of a file.
+     */
+    private static final class FileSummary implements Serializable {
+        private static final long serialVersionUID = 6353361418549212916L;
+        private final int minPartition;
+        private final Object[] min;
+        private final int maxPartition;
+        private final Object[] max;
+        private final ColumnBloomFilter bloomFilter;
+
+        private FileSummary(final int minPartition, final Object[] min, final int maxPartition, final Object[] max,
+                            final ColumnBloomFilter bloomFilter) {
+            this.minPartition = minPartition;
+            this.min = min;
+            this.maxPartition = maxPartition;
+            this.max = max;
+            this.bloomFilter = bloomFilter;
+        }
+
+        private static FileSummary merge(final FileSummary first, final FileSummary second) {
+            // The partitions of a sorted file are in order, so its min is in the first non-empty partition and its
+            // max is in the last one
+            final boolean firstHasMin = null != first.min && (null == second.min || first.minPartition < second.minPartition);
+            final boolean firstHasMax = null != first.max && (null == second.max || first.maxPartition > second.maxPartition);
+            final ColumnBloomFilter bloomFilter;
+            if (null == first.bloomFilter) {
+                bloomFilter = second.bloomFilter;
+            } else if (null == second.bloomFilter) {
+                bloomFilter = first.bloomFilter;
+            } else {
+                bloomFilter = first.bloomFilter.merge(second.bloomFilter);
+            }
+            return new FileSummary(
+                    firstHasMin ? first.minPartition : second.minPartition, firstHasMin ? first.min : second.min,
+                    firstHasMax ? first.maxPartition : second.maxPartition, firstHasMax ? first.max : second.max,
+                    bloomFilter);
         }
-        return new MinValuesWithPath(min, path);
     }
 }
@@ -51,22 +51,34 @@ public class GenerateIndices {
     private final GraphIndex graphIndex;
 
     public GenerateIndices(final ParquetStore store, final SparkSession spark) throws OperationException, SerialisationException, StoreException {
+        this(store, spark, createPool(store, spark), true);
+    }
+
+    /**
+     * Generates the indices using the given pool, which is not shut down so that it can be reused by the caller.
+     *
+     * @param store the {@link ParquetStore}
+     * @param spark the {@link SparkSession}
+     * @param pool  the pool to run the tasks on
+     * @throws OperationException     if the indices could not be generated
+     * @throws SerialisationException if the minimum values of a file could not be serialised
+     * @throws StoreException         if the indices could not be written
+     */
+    public GenerateIndices(final ParquetStore store, final SparkSession spark, final ExecutorService pool) throws OperationException, SerialisationException, StoreException {
+        this(store, spark, pool, false);
+    }
+
+    private GenerateIndices(final ParquetStore store, final SparkSession spark, final ExecutorService pool,
+                            final boolean shutdownPool) throws OperationException, SerialisationException, StoreException {
         graphIndex = new GraphIndex();
-        final int numberOfThreads;
-        final Option<String> sparkDriverCores = spark.conf().getOption("spark.driver.cores");
-        if (sparkDriverCores.nonEmpty()) {
-            numberOfThreads = Integer.parseInt(sparkDriverCores.get());
-        } else {
-            numberOfThreads = store.getProperties().getThreadsAvailable();
-        }
-        final ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads);
+        final double bloomFilterFalsePositiveRate = store.getProperties().getIndexBloomFilterFalsePositiveRate();
         final String tempFileDir = store.getTempFilesDir();
         final SchemaUtils schemaUtils = store.getSchemaUtils();
         final String rootDir = tempFileDir + "/" + ParquetStoreConstants.SORTED;
         final List<Callable<Tuple4<String, String, ColumnIndex, OperationException>>> tasks = new ArrayList<>();
         for (final String group : schemaUtils.getEntityGroups()) {
             final String directory = ParquetStore.getGroupDirectory(group, ParquetStoreConstants.VERTEX, rootDir);
-            tasks.add(new GenerateIndexForColumnGroup(directory, schemaUtils.getPaths(group, ParquetStoreConstants.VERTEX), group, ParquetStoreConstants.VERTEX, spark));
+            tasks.add(new GenerateIndexForColumnGroup(directory, schemaUtils.getPaths(group, ParquetStoreConstants.VERTEX), group, ParquetStoreConstants.VERTEX, spark, bloomFilterFalsePositiveRate));
             LOGGER.debug("Created a task to create the graphIndex for group {} from directory {} and paths {}",
                     group, directory, schemaUtils.getPaths(group, ParquetStoreConstants.VERTEX));
         }
@@ -75,11 +87,11 @@ public class GenerateIndices {
             final String directorySource = ParquetStore.getGroupDirectory(group, ParquetStoreConstants.SOURCE, rootDir);
             LOGGER.debug("Creating a task to create the graphIndex for group {} from directory {} and paths {}",
                     group, directorySource, StringUtils.join(columnToPaths.get(ParquetStoreConstants.SOURCE)));
-            tasks.add(new GenerateIndexForColumnGroup(directorySource, columnToPaths.get(ParquetStoreConstants.SOURCE), group, ParquetStoreConstants.SOURCE, spark));
+            tasks.add(new GenerateIndexForColumnGroup(directorySource, columnToPaths.get(ParquetStoreConstants.SOURCE), group, ParquetStoreConstants.SOURCE, spark, bloomFilterFalsePositiveRate));
             final String directoryDestination = ParquetStore.getGroupDirectory(group, ParquetStoreConstants.DESTINATION, rootDir);
             LOGGER.debug("Creating a task to create the graphIndex for group {} from directory {} and paths {}",
                     group, directorySource, StringUtils.join(columnToPaths.get(ParquetStoreConstants.DESTINATION)));
-            tasks.add(new GenerateIndexForColumnGroup(directoryDestination, columnToPaths.get(ParquetStoreConstants.DESTINATION), group, ParquetStoreConstants.DESTINATION, spark));
+            tasks.add(new GenerateIndexForColumnGroup(directoryDestination, columnToPaths.get(ParquetStoreConstants.DESTINATION), group, ParquetStoreConstants.DESTINATION, spark, bloomFilterFalsePositiveRate));
         }
 
         try {
@@ -96,7 +108,9 @@ public class GenerateIndices {
                 }
             }
             graphIndex.writeGroups(rootDir, store.getFS());
-            pool.shutdown();
+            if (shutdownPool) {
+                pool.shutdown();
+            }
         } catch (final InterruptedException e) {
             throw new OperationException("GenerateIndices was interrupted", e);
         } catch (final ExecutionException e) {
@@ -104,6 +118,17 @@ public class GenerateIndices {
         }
     }
 
+    private static ExecutorService createPool(final ParquetStore store, final SparkSession spark) {
+        final int numberOfThreads;
+        final Option<String> sparkDriverCores = spark.conf().getOption("spark.driver.cores");
+        if (sparkDriverCores.nonEmpty()) {
+            numberOfThreads = Integer.parseInt(sparkDriverCores.get());
+        } else {
+            numberOfThreads = store.getProperties().getThreadsAvailable();
+        }
+        return Executors.newFixedThreadPool(numberOfThreads);
+    }
+
     private void addColumnIndexToGraphIndex(final ColumnIndex columnIndex, final String group, final String column) {
         GroupIndex groupIndex = graphIndex.getGroup(group);
         if (null == groupIndex) {
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
+import uk.gov.gchq.gaffer.store.StoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The local equivalent of {@link AggregateAndSortTempData} followed by {@link GenerateIndices}, which aggregates, sorts
+ * and indexes the unsorted data for each group on the given thread pool rather than using Spark. See
+ * {@link LocalAggregateAndSortGroup} for how each group is processed.
+ */
+public class LocalAggregateAndSortData {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalAggregateAndSortData.class);
+    private final GraphIndex graphIndex;
+
+    public LocalAggregateAndSortData(final ParquetStore store,
+                                     final Map<String, Map<Object, Integer>> groupToSplitPoints,
+                                     final ExecutorService pool,
+                                     final boolean includeCurrentData) throws OperationException, SerialisationException {
+        final SchemaUtils schemaUtils = store.getSchemaUtils();
+        final GraphIndex index = store.getGraphIndex();
+        final String currentDataDir;
+        if (null != index && includeCurrentData) {
+            currentDataDir = store.getDataDir()
+                    + "/" + index.getSnapshotTimestamp();
+        } else {
+            currentDataDir = null;
+        }
+        final List<LocalAggregateAndSortGroup> tasks = new ArrayList<>();
+        for (final String group : schemaUtils.getGroups()) {
+            if (groupToSplitPoints.containsKey(group)) {
+                tasks.add(new LocalAggregateAndSortGroup(group, store, currentDataDir, groupToSplitPoints.get(group).values()));
+            }
+        }
+        LOGGER.debug("Starting to aggregate and sort the data locally");
+        graphIndex = new GraphIndex();
+        try {
+            final List<Future<OperationException>> results = pool.invokeAll(tasks);
+            for (int i = 0; i < tasks.size(); i++) {
+                final OperationException result = results.get(i).get();
+                if (null != result) {
+                    throw result;
+                }
+                final LocalAggregateAndSortGroup task = tasks.get(i);
+                if (!task.getGroupIndex().columnsIndexed().isEmpty()) {
+                    graphIndex.add(task.getGroup(), task.getGroupIndex());
+                }
+            }
+            LOGGER.debug("Finished aggregating and sorting the data locally");
+            graphIndex.writeGroups(store.getTempFilesDir() + "/" + ParquetStoreConstants.SORTED, store.getFS());
+        } catch (final InterruptedException e) {
+            throw new OperationException("AggregateAndSort was interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new OperationException("AggregateAndSort had an execution exception thrown", e);
+        } catch (final StoreException e) {
+            throw new OperationException("Failed to write the indices", e);
+        }
+    }
+
+    public GraphIndex getGraphIndex() {
+        return graphIndex;
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.data.element.Edge;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.index.ColumnBloomFilter;
+import uk.gov.gchq.gaffer.parquetstore.index.ColumnIndex;
+import uk.gov.gchq.gaffer.parquetstore.index.GroupIndex;
+import uk.gov.gchq.gaffer.parquetstore.index.MinValuesWithPath;
+import uk.gov.gchq.gaffer.parquetstore.io.reader.ParquetElementReader;
+import uk.gov.gchq.gaffer.parquetstore.io.writer.ParquetElementWriter;
+import uk.gov.gchq.gaffer.parquetstore.utils.GafferGroupObjectConverter;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.SeedComparator;
+import uk.gov.gchq.gaffer.parquetstore.utils.SortUtils;
+import uk.gov.gchq.gaffer.store.StoreException;
+import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
+import uk.gov.gchq.gaffer.store.util.AggregatorUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+
+/**
+ * Aggregates, sorts and indexes the data for a single group without using Spark, so that each group can be processed
+ * in parallel on local threads.
+ * <p>
+ * The unsorted data for each split, along with the matching file from the current snapshot if there is one, is sorted
+ * by the vertex or source columns using an external merge sort: at most
+ * {@link ParquetStoreProperties#getAddElementsLocalSortBufferSize()} elements are sorted in memory before being
+ * written to a temporary file, and the temporary files are then merged. Elements with the same ingest group by are
+ * aggregated as they are merged and each split is written to a single sorted file. For edge groups the sorted files
+ * are then sorted again by the destination columns. The index for each sorted file is built as the file is written.
+ */
+public class LocalAggregateAndSortGroup implements Callable<OperationException> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalAggregateAndSortGroup.class);
+    private static final Comparator<Object> COMPARATOR = new SeedComparator();
+    private static final Comparator<KeyedElement> KEY_COMPARATOR = (a, b) -> COMPARATOR.compare(a.key, b.key);
+    private static final String RAW = "/raw";
+    private static final String SPLIT = "/split";
+    private static final String LOCAL_SORT = "/local_sort";
+
+    private final String group;
+    private final boolean isEntity;
+    private final boolean aggregate;
+    private final FileSystem fs;
+    private final SchemaUtils schemaUtils;
+    private final GafferGroupObjectConverter converter;
+    private final ParquetStoreProperties props;
+    private final String tempFilesDir;
+    private final String currentDataDir;
+    private final Collection<Integer> splits;
+    private final AggregatorUtil.ToIngestElementKey toElementKey;
+    private final AggregatorUtil.IngestElementBinaryOperator aggregator;
+    private final GroupIndex groupIndex;
+    private int numberOfTempFiles;
+
+    /**
+     * @param group          the group to aggregate and sort
+     * @param store          the {@link ParquetStore}
+     * @param currentDataDir the directory of the current snapshot if its data should be aggregated with the new data,
+     *                       otherwise null
+     * @param splits         the splits that the unsorted data has been written to
+     * @throws SerialisationException if the group's converter can not be created
+     */
+    public LocalAggregateAndSortGroup(final String group,
+                                      final ParquetStore store,
+                                      final String currentDataDir,
+                                      final Collection<Integer> splits) throws SerialisationException {
+        this.group = group;
+        this.schemaUtils = store.getSchemaUtils();
+        this.isEntity = schemaUtils.getEntityGroups().contains(group);
+        this.props = store.getProperties();
+        final SchemaElementDefinition groupGafferSchema = schemaUtils.getGafferSchema().getElement(group);
+        final String aggregateOnIngest = props.get(ParquetStoreProperties.PARQUET_AGGREGATE_ON_INGEST, null);
+        if (null == aggregateOnIngest) {
+            this.aggregate = groupGafferSchema.isAggregate();
+        } else {
+            this.aggregate = Boolean.valueOf(aggregateOnIngest);
+        }
+        this.fs = store.getFS();
+        this.converter = schemaUtils.getConverter(group);
+        this.tempFilesDir = store.getTempFilesDir();
+        this.currentDataDir = currentDataDir;
+        this.splits = new TreeSet<>(splits);
+        this.toElementKey = new AggregatorUtil.ToIngestElementKey(schemaUtils.getGafferSchema());
+        this.aggregator = new AggregatorUtil.IngestElementBinaryOperator(schemaUtils.getGafferSchema());
+        this.groupIndex = new GroupIndex();
+    }
+
+    @Override
+    public OperationException call() {
+        try {
+            final String column = isEntity ? ParquetStoreConstants.VERTEX : ParquetStoreConstants.SOURCE;
+            final String sortedDir = ParquetStore.getGroupDirectory(group, column, tempFilesDir + "/" + ParquetStoreConstants.SORTED);
+            final ColumnIndex columnIndex = new ColumnIndex();
+            final List<Path> sortedFiles = new ArrayList<>();
+            long numberOfElements = 0L;
+            for (final int split : splits) {
+                final List<Path> inputFiles = listFiles(ParquetStore.getGroupDirectory(group, column, tempFilesDir) + RAW + SPLIT + split + "/*.parquet");
+                if (null != currentDataDir) {
+                    inputFiles.addAll(listFiles(ParquetStore.getGroupDirectory(group, column, currentDataDir) + "/part-" + zeroPad(split) + "*.parquet"));
+                }
+                if (!inputFiles.isEmpty()) {
+                    final SortedFilesWriter writer = new SortedFilesWriter(sortedDir, column, split, Long.MAX_VALUE);
+                    numberOfElements += sortAndWrite(inputFiles, column, aggregate, writer);
+                    sortedFiles.addAll(writer.getFiles());
+                    addToIndex(columnIndex, writer.getIndex());
+                }
+            }
+            if (!columnIndex.isEmpty()) {
+                groupIndex.add(column, columnIndex);
+            }
+            if (!isEntity && numberOfElements > 0L) {
+                final String destinationDir = ParquetStore.getGroupDirectory(group, ParquetStoreConstants.DESTINATION, tempFilesDir + "/" + ParquetStoreConstants.SORTED);
+                final int numberOfFiles = Math.max(1, props.getAddElementsOutputFilesPerGroup());
+                final long elementsPerFile = (numberOfElements + numberOfFiles - 1) / numberOfFiles;
+                final SortedFilesWriter writer = new SortedFilesWriter(destinationDir, ParquetStoreConstants.DESTINATION, 0, elementsPerFile);
+                // The data sorted by source has already been aggregated
+                sortAndWrite(sortedFiles, ParquetStoreConstants.DESTINATION, false, writer);
+                final ColumnIndex destinationIndex = new ColumnIndex();
+                addToIndex(destinationIndex, writer.getIndex());
+                if (!destinationIndex.isEmpty()) {
+                    groupIndex.add(ParquetStoreConstants.DESTINATION, destinationIndex);
+                }
+            }
+            fs.delete(new Path(ParquetStore.getGroupDirectory(group, column, tempFilesDir) + LOCAL_SORT), true);
+        } catch (final IOException e) {
+            return new OperationException("IOException occurred during aggregation and sorting of data", e);
+        } catch (final StoreException e) {
+            return new OperationException(e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * @return the index of the sorted files written for this group, which is only complete once {@link #call()} has
+     * returned
+     */
+    public GroupIndex getGroupIndex() {
+        return groupIndex;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Sorts the elements in the input files by the given column, aggregating them if required, and writes them using
+     * the given writer.
+     *
+     * @param inputFiles the files to read the elements from
+     * @param column     the column to sort by
+     * @param aggregate  whether to aggregate the elements
+     * @param writer     the writer for the sorted elements
+     * @return the number of elements that were written
+     * @throws IOException    if the files can not be read or written
+     * @throws StoreException if the index for the sorted files can not be created
+     */
+    private long sortAndWrite(final List<Path> inputFiles, final String column, final boolean aggregate,
+                              final SortedFilesWriter writer) throws IOException, StoreException {
+        final int sortBufferSize = Math.max(1, props.getAddElementsLocalSortBufferSize());
+        final List<Path> tempFiles = new ArrayList<>();
+        final List<KeyedElement> buffer = new ArrayList<>();
+        long numberOfInputElements = 0L;
+        for (final Path inputFile : inputFiles) {
+            try (final ParquetReader<Element> reader = openReader(inputFile)) {
+                Element element = reader.read();
+                while (null != element) {
+                    buffer.add(new KeyedElement(element, column));
+                    numberOfInputElements++;
+                    if (buffer.size() >= sortBufferSize) {
+                        tempFiles.add(writeTempFile(buffer, column, aggregate));
+                        buffer.clear();
+                    }
+                    element = reader.read();
+                }
+            }
+        }
+        writer.setExpectedElementsPerFile(numberOfInputElements);
+        final AggregatingWriter aggregatingWriter = new AggregatingWriter(writer, aggregate);
+        try {
+            if (tempFiles.isEmpty()) {
+                buffer.sort(KEY_COMPARATOR);
+                for (final KeyedElement keyedElement : buffer) {
+                    aggregatingWriter.write(keyedElement);
+                }
+            } else {
+                if (!buffer.isEmpty()) {
+                    tempFiles.add(writeTempFile(buffer, column, aggregate));
+                    buffer.clear();
+                }
+                LOGGER.debug("Merging {} sorted temporary files for group {}", tempFiles.size(), group);
+                mergeTempFiles(tempFiles, column, aggregatingWriter);
+            }
+        } finally {
+            aggregatingWriter.close();
+            for (final Path tempFile : tempFiles) {
+                fs.delete(tempFile, false);
+            }
+        }
+        return aggregatingWriter.getNumberOfElements();
+    }
+
+    private Path writeTempFile(final List<KeyedElement> buffer, final String column, final boolean aggregate) throws IOException, StoreException {
+        buffer.sort(KEY_COMPARATOR);
+        final Path tempFile = new Path(ParquetStore.getGroupDirectory(group, isEntity ? ParquetStoreConstants.VERTEX : ParquetStoreConstants.SOURCE, tempFilesDir)
+                + LOCAL_SORT + "/" + column + "-" + numberOfTempFiles++ + ".parquet");
+        LOGGER.debug("Writing {} sorted elements to temporary file {}", buffer.size(), tempFile);
+        final AggregatingWriter writer = new AggregatingWriter(buildWriter(tempFile, CompressionCodecName.UNCOMPRESSED), aggregate);
+        try {
+            for (final KeyedElement keyedElement : buffer) {
+                writer.write(keyedElement);
+            }
+        } finally {
+            writer.close();
+        }
+        return tempFile;
+    }
+
+    private void mergeTempFiles(final List<Path> tempFiles, final String column, final AggregatingWriter writer) throws IOException, StoreException {
+        final PriorityQueue<TempFileReader> readers = new PriorityQueue<>(tempFiles.size(), (a, b) -> KEY_COMPARATOR.compare(a.current, b.current));
+        try {
+            for (final Path tempFile : tempFiles) {
+                final TempFileReader reader = new TempFileReader(openReader(tempFile), column);
+                if (reader.advance()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            while (!readers.isEmpty()) {
+                final TempFileReader reader = readers.poll();
+                writer.write(reader.current);
+                if (reader.advance()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (final TempFileReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private List<Path> listFiles(final String pathPattern) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        final FileStatus[] statuses = fs.globStatus(new Path(pathPattern));
+        if (null != statuses) {
+            for (final FileStatus status : statuses) {
+                files.add(status.getPath());
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private ParquetReader<Element> openReader(final Path file) throws IOException {
+        return new ParquetElementReader.Builder<Element>(file)
+                .isEntity(isEntity)
+                .usingConverter(converter)
+                .build();
+    }
+
+    private ParquetWriter<Element> buildWriter(final Path file, final CompressionCodecName compressionCodec) throws IOException {
+        return new ParquetElementWriter.Builder(file)
+                .isEntity(isEntity)
+                .withType(schemaUtils.getParquetSchema(group))
+                .usingConverter(converter)
+                .withSparkSchema(schemaUtils.getSparkSchema(group))
+                .withCompressionCodec(compressionCodec)
+                .withStoreProperties(props)
+                .build();
+    }
+
+    private Object[] getSortKey(final Element element, final String column) throws SerialisationException {
+        return SortUtils.getSortKey(converter, isEntity, column, element);
+    }
+
+    private int getColumnLength(final Element element, final String column) throws SerialisationException {
+        if (isEntity) {
+            return converter.gafferObjectToParquetObjects(ParquetStoreConstants.VERTEX, ((Entity) element).getVertex()).length;
+        } else if (ParquetStoreConstants.DESTINATION.equals(column)) {
+            return converter.gafferObjectToParquetObjects(ParquetStoreConstants.DESTINATION, ((Edge) element).getDestination()).length;
+        } else {
+            return converter.gafferObjectToParquetObjects(ParquetStoreConstants.SOURCE, ((Edge) element).getSource()).length;
+        }
+    }
+
+    private static void addToIndex(final ColumnIndex columnIndex, final List<MinValuesWithPath> entries) {
+        for (final MinValuesWithPath entry : entries) {
+            columnIndex.add(entry);
+        }
+    }
+
+    private static String zeroPad(final int input) {
+        final StringBuilder temp = new StringBuilder(String.valueOf(input));
+        while (temp.length() < 5) {
+            temp.insert(0, "0");
+        }
+        return temp.toString();
+    }
+
+    /**
+     * An {@link Element} along with the Parquet objects of the columns that it is sorted by.
+     */
+    private final class KeyedElement {
+        private final Element element;
+        private final Object[] key;
+        private final Object[] columnValue;
+
+        private KeyedElement(final Element element, final String column) throws SerialisationException {
+            this.element = element;
+            this.key = getSortKey(element, column);
+            this.columnValue = Arrays.copyOf(key, getColumnLength(element, column));
+        }
+
+        private KeyedElement(final Element element, final Object[] key, final Object[] columnValue) {
+            this.element = element;
+            this.key = key;
+            this.columnValue = columnValue;
+        }
+    }
+
+    /**
+     * Reads the sorted elements from a temporary file during the merge.
+     */
+    private final class TempFileReader {
+        private final ParquetReader<Element> reader;
+        private final String column;
+        private KeyedElement current;
+
+        private TempFileReader(final ParquetReader<Element> reader, final String column) {
+            this.reader = reader;
+            this.column = column;
+        }
+
+        private boolean advance() throws IOException {
+            final Element element = reader.read();
+            current = null == element ? null : new KeyedElement(element, column);
+            return null != current;
+        }
+
+        private void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Writes sorted elements, aggregating consecutive elements with the same sort key and ingest group by if required.
+     */
+    private final class AggregatingWriter {
+        private final SortedFilesWriter sortedFilesWriter;
+        private final ParquetWriter<Element> writer;
+        private final boolean aggregate;
+        private final Map<Element, KeyedElement> pending = new LinkedHashMap<>();
+        private KeyedElement pendingKey;
+        private long numberOfElements;
+
+        private AggregatingWriter(final SortedFilesWriter sortedFilesWriter, final boolean aggregate) {
+            this.sortedFilesWriter = sortedFilesWriter;
+            this.writer = null;
+            this.aggregate = aggregate;
+        }
+
+        private AggregatingWriter(final ParquetWriter<Element> writer, final boolean aggregate) {
+            this.sortedFilesWriter = null;
+            this.writer = writer;
+            this.aggregate = aggregate;
+        }
+
+        private void write(final KeyedElement keyedElement) throws IOException, StoreException {
+            if (!aggregate) {
+                writeOut(keyedElement);
+                return;
+            }
+            if (null != pendingKey && 0 != KEY_COMPARATOR.compare(pendingKey, keyedElement)) {
+                flush();
+            }
+            pendingKey = keyedElement;
+            pending.merge(toElementKey.apply(keyedElement.element), keyedElement,
+                    (a, b) -> new KeyedElement(aggregator.apply(a.element, b.element), a.key, a.columnValue));
+        }
+
+        private void flush() throws IOException, StoreException {
+            for (final KeyedElement keyedElement : pending.values()) {
+                writeOut(keyedElement);
+            }
+            pending.clear();
+            pendingKey = null;
+        }
+
+        private void writeOut(final KeyedElement keyedElement) throws IOException, StoreException {
+            numberOfElements++;
+            if (null != writer) {
+                writer.write(keyedElement.element);
+            } else {
+                sortedFilesWriter.write(keyedElement);
+            }
+        }
+
+        private long getNumberOfElements() {
+            return numberOfElements;
+        }
+
+        private void close() throws IOException, StoreException {
+            try {
+                flush();
+            } finally {
+                if (null != writer) {
+                    writer.close();
+                } else {
+                    sortedFilesWriter.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes sorted elements to one or more numbered files, starting a new file once the maximum number of elements
+     * per file has been written, and builds the index entry for each file.
+     */
+    private final class SortedFilesWriter {
+        private final String directory;
+        private final String column;
+        private final long maxElementsPerFile;
+        private final List<Path> files = new ArrayList<>();
+        private final List<MinValuesWithPath> index = new ArrayList<>();
+        private int fileNumber;
+        private long expectedElementsPerFile;
+        private ParquetWriter<Element> writer;
+        private String fileName;
+        private long elementsInFile;
+        private Object[] min;
+        private Object[] max;
+        private ColumnBloomFilter bloomFilter;
+
+        private SortedFilesWriter(final String directory, final String column, final int firstFileNumber, final long maxElementsPerFile) {
+            this.directory = directory;
+            this.column = column;
+            this.fileNumber = firstFileNumber;
+            this.maxElementsPerFile = maxElementsPerFile;
+        }
+
+        private void setExpectedElementsPerFile(final long expectedElements) {
+            this.expectedElementsPerFile = Math.max(1L, Math.min(expectedElements, maxElementsPerFile));
+        }
+
+        private void write(final KeyedElement keyedElement) throws IOException, StoreException {
+            if (null != writer && elementsInFile >= maxElementsPerFile) {
+                closeFile();
+            }
+            if (null == writer) {
+                fileName = "part-" + zeroPad(fileNumber++) + props.getCompressionCodec().getExtension() + ".parquet";
+                final Path file = new Path(directory + "/" + fileName);
+                LOGGER.debug("Writing the sorted data for group {} and column {} to {}", group, column, file);
+                writer = buildWriter(file, props.getCompressionCodec());
+                files.add(file);
+                elementsInFile = 0L;
+                min = keyedElement.columnValue;
+                final double falsePositiveRate = props.getIndexBloomFilterFalsePositiveRate();
+                bloomFilter = falsePositiveRate > 0.0 ? ColumnBloomFilter.create(expectedElementsPerFile, falsePositiveRate) : null;
+            }
+            writer.write(keyedElement.element);
+            elementsInFile++;
+            max = keyedElement.columnValue;
+            if (null != bloomFilter) {
+                bloomFilter.put(keyedElement.columnValue);
+            }
+        }
+
+        private void closeFile() throws IOException, StoreException {
+            writer.close();
+            writer = null;
+            index.add(new MinValuesWithPath(min, max, bloomFilter, fileName));
+        }
+
+        private void close() throws IOException, StoreException {
+            if (null != writer) {
+                closeFile();
+            }
+        }
+
+        private List<Path> getFiles() {
+            return files;
+        }
+
+        private List<MinValuesWithPath> getIndex() {
+            return index;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl;
+
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decides when the deltas of a snapshot should be compacted, based on their sizes.
+ * <p>
+ * Deltas are grouped into tiers, where the deltas in each tier are within a factor of 4 of each other in size. Once
+ * {@link ParquetStoreProperties#getCompactionMinDeltasPerTier()} adjacent deltas are in the same tier they are merged
+ * into a single delta, starting with the smallest tier. This keeps the number of deltas low without repeatedly rewriting the larger
+ * deltas. Once there are more than {@link ParquetStoreProperties#getCompactionMaxDeltas()} deltas, or their total size
+ * is more than {@link ParquetStoreProperties#getCompactionMaxDeltaRatio()} of the size of the snapshot, all of the
+ * deltas are compacted into a new snapshot.
+ */
+public class SizeTieredCompactionPolicy {
+    private final int minDeltasPerTier;
+    private final int maxDeltas;
+    private final double maxDeltaRatio;
+
+    public SizeTieredCompactionPolicy(final ParquetStoreProperties properties) {
+        this(properties.getCompactionMinDeltasPerTier(), properties.getCompactionMaxDeltas(), properties.getCompactionMaxDeltaRatio());
+    }
+
+    public SizeTieredCompactionPolicy(final int minDeltasPerTier, final int maxDeltas, final double maxDeltaRatio) {
+        this.minDeltasPerTier = minDeltasPerTier;
+        this.maxDeltas = maxDeltas;
+        this.maxDeltaRatio = maxDeltaRatio;
+    }
+
+    /**
+     * @param deltaSizes   the size in bytes of each delta
+     * @param snapshotSize the size in bytes of the snapshot, excluding its deltas
+     * @return true if all the deltas should be compacted into a new snapshot
+     */
+    public boolean requiresFullCompaction(final List<Long> deltaSizes, final long snapshotSize) {
+        if (deltaSizes.isEmpty()) {
+            return false;
+        }
+        if (deltaSizes.size() > maxDeltas) {
+            return true;
+        }
+        long totalDeltaSize = 0L;
+        for (final long deltaSize : deltaSizes) {
+            totalDeltaSize += deltaSize;
+        }
+        return totalDeltaSize > maxDeltaRatio * snapshotSize;
+    }
+
+    /**
+     * Only adjacent deltas are merged, so that the merged delta takes their place in the order the deltas were added
+     * in and no delta ends up ordered before a delta that was added earlier than it.
+     *
+     * @param deltaSizes the size in bytes of each delta, in the order the deltas were added
+     * @return the positions in the given list of the adjacent deltas that should be merged into a single delta, which
+     * will be empty if no deltas need merging
+     */
+    public List<Integer> selectDeltasToMerge(final List<Long> deltaSizes) {
+        if (minDeltasPerTier < 2) {
+            return Collections.emptyList();
+        }
+        int selectedStart = -1;
+        int selectedEnd = -1;
+        int selectedTier = Integer.MAX_VALUE;
+        int runStart = 0;
+        for (int i = 1; i <= deltaSizes.size(); i++) {
+            final int runTier = getTier(deltaSizes.get(runStart));
+            if (i < deltaSizes.size() && getTier(deltaSizes.get(i)) == runTier) {
+                continue;
+            }
+            if (i - runStart >= minDeltasPerTier && runTier < selectedTier) {
+                selectedStart = runStart;
+                selectedEnd = i;
+                selectedTier = runTier;
+            }
+            runStart = i;
+        }
+        if (selectedStart < 0) {
+            return Collections.emptyList();
+        }
+        final List<Integer> deltas = new ArrayList<>(selectedEnd - selectedStart);
+        for (int i = selectedStart; i < selectedEnd; i++) {
+            deltas.add(i);
+        }
+        return deltas;
+    }
+
+    private static int getTier(final long size) {
+        if (size <= 1L) {
+            return 0;
+        }
+        // The tier is log base 4 of the size
+        return (63 - Long.numberOfLeadingZeros(size)) / 2;
+    }
+}
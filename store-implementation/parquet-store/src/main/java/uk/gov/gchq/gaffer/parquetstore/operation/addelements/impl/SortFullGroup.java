@@ -26,7 +26,9 @@ import scala.collection.mutable.Builder;
 import uk.gov.gchq.gaffer.exception.SerialisationException;
 import uk.gov.gchq.gaffer.operation.OperationException;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
 import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SortUtils;
 import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
 import uk.gov.gchq.gaffer.store.schema.SchemaEntityDefinition;
 
@@ -36,6 +38,9 @@ import java.util.concurrent.Callable;
 
 /**
  * This class is used to sort the data for a single group by loading in the /aggregate folder within a group
+ * <p>
+ * The data is sorted by Spark, see {@link SortUtils#sort}, into at most the requested number of files, each range of
+ * the data being sorted by its own Spark task which spills to disk if the range does not fit in memory.
  */
 public class SortFullGroup implements Callable<OperationException> {
 
@@ -44,6 +49,7 @@ public class SortFullGroup implements Callable<OperationException> {
     private static final String SPLIT = "/split*";
     private final String inputDir;
     private final String outputDir;
+    private final ParquetStoreProperties props;
     private final Map<String, String[]> columnToPaths;
     private final boolean isEntity;
     private final SparkSession spark;
@@ -69,6 +75,7 @@ public class SortFullGroup implements Callable<OperationException> {
             this.inputDir = ParquetStore.getGroupDirectory(group, ParquetStoreConstants.SOURCE, tempFileDir) + AGGREGATED + SPLIT;
             this.outputDir = ParquetStore.getGroupDirectory(group, column, tempFileDir + SORTED);
         }
+        this.props = store.getProperties();
     }
 
     @Override
@@ -115,14 +122,7 @@ public class SortFullGroup implements Callable<OperationException> {
 
             final FileSystem fs = FileSystem.get(new Configuration());
             if (fs.exists(new Path(inputDir).getParent())) {
-                spark.read()
-                        .option("mergeSchema", true)
-                        .parquet(inputDir)
-                        .sort(firstSortColumn, groupBySeq.result())
-                        .coalesce(numberOfOutputFiles)
-                        .write()
-                        .option("compression", "gzip")
-                        .parquet(outputDir);
+                SortUtils.sort(spark, props, inputDir, outputDir, numberOfOutputFiles, firstSortColumn, groupBySeq.result());
             }
         } catch (final IOException e) {
             return new OperationException("IOException occurred during aggregation and sorting of data", e);
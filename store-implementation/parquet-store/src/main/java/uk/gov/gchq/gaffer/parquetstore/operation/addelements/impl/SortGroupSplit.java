@@ -26,7 +26,9 @@ import scala.collection.mutable.Builder;
 import uk.gov.gchq.gaffer.exception.SerialisationException;
 import uk.gov.gchq.gaffer.operation.OperationException;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
 import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SortUtils;
 import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
 import uk.gov.gchq.gaffer.store.schema.SchemaEntityDefinition;
 
@@ -36,6 +38,9 @@ import java.util.concurrent.Callable;
 
 /**
  * This class is used to sort the data for a single split of a group by loading in the /aggregate/split folder within a group
+ * <p>
+ * The data is sorted by Spark, see {@link SortUtils#sort}, into a single file, so the split is sorted by a single
+ * Spark task which spills to disk if the split does not fit in memory.
  */
 public class SortGroupSplit implements Callable<OperationException> {
 
@@ -44,6 +49,7 @@ public class SortGroupSplit implements Callable<OperationException> {
     private static final String SPLIT = "/split";
     private final String inputDir;
     private final String outputDir;
+    private final ParquetStoreProperties props;
     private final Map<String, String[]> columnToPaths;
     private final boolean isEntity;
     private final SparkSession spark;
@@ -67,6 +73,7 @@ public class SortGroupSplit implements Callable<OperationException> {
             this.inputDir = ParquetStore.getGroupDirectory(group, ParquetStoreConstants.SOURCE, tempFileDir) + AGGREGATED + SPLIT + splitNumber;
             this.outputDir = ParquetStore.getGroupDirectory(group, column, tempFileDir) + SORTED + SPLIT + splitNumber;
         }
+        this.props = store.getProperties();
     }
 
     @Override
@@ -113,14 +120,7 @@ public class SortGroupSplit implements Callable<OperationException> {
 
             final FileSystem fs = FileSystem.get(new Configuration());
             if (fs.exists(new Path(inputDir))) {
-                spark.read()
-                        .option("mergeSchema", true)
-                        .parquet(inputDir)
-                        .sort(firstSortColumn, groupBySeq.result())
-                        .coalesce(1)
-                        .write()
-                        .option("compression", "gzip")
-                        .parquet(outputDir);
+                SortUtils.sort(spark, props, inputDir, outputDir, 1, firstSortColumn, groupBySeq.result());
             }
         } catch (final IOException e) {
             return new OperationException("IOException occurred during aggregation and sorting of data", e);
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.index.TimeBucket;
+import uk.gov.gchq.gaffer.parquetstore.io.writer.ParquetElementWriter;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.TimePartitioner;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Takes an {@link Iterable} of {@link Element}s and writes the elements of the groups that are partitioned by time out
+ * into unsorted Parquet files split into a directory for each {@link TimeBucket}, see {@link TimePartitioner}. Each
+ * bucket's directory has the same layout as a snapshot, so the elements can be read back by a
+ * {@link DeltaElementsIterable}. The elements which do not belong in a bucket are skipped.
+ */
+public class WriteTimeBucketedData {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteTimeBucketedData.class);
+    private final String dir;
+    private final SchemaUtils schemaUtils;
+    private final TimePartitioner timePartitioner;
+    private final Map<TimeBucket, Map<String, ParquetWriter<Element>>> bucketGroupToWriter;
+
+    public WriteTimeBucketedData(final ParquetStore store, final String dir) {
+        this.dir = dir;
+        this.schemaUtils = store.getSchemaUtils();
+        this.timePartitioner = store.getTimePartitioner();
+        this.bucketGroupToWriter = new HashMap<>();
+    }
+
+    /**
+     * @param elements the elements to write
+     * @return the buckets that elements were written to
+     * @throws OperationException if the elements could not be written
+     */
+    public Set<TimeBucket> writeElements(final Iterable<? extends Element> elements) throws OperationException {
+        try {
+            final Iterator<? extends Element> iterator = elements.iterator();
+            while (iterator.hasNext()) {
+                final Element element = iterator.next();
+                final TimeBucket bucket = timePartitioner.getTimeBucket(element);
+                if (null != bucket) {
+                    getWriter(bucket, element.getGroup()).write(element);
+                }
+            }
+        } catch (final IOException e) {
+            throw new OperationException("Exception writing time bucketed elements to temporary directory: " + dir, e);
+        } finally {
+            // Close the writers
+            for (final Map<String, ParquetWriter<Element>> groupToWriter : bucketGroupToWriter.values()) {
+                for (final ParquetWriter<Element> writer : groupToWriter.values()) {
+                    try {
+                        writer.close();
+                    } catch (final IOException ignored) {
+                        // ignored
+                    }
+                }
+            }
+        }
+        LOGGER.debug("Wrote elements to {} time buckets in {}", bucketGroupToWriter.size(), dir);
+        return new TreeSet<>(bucketGroupToWriter.keySet());
+    }
+
+    private ParquetWriter<Element> getWriter(final TimeBucket bucket, final String group) throws IOException {
+        final Map<String, ParquetWriter<Element>> groupToWriter = bucketGroupToWriter.computeIfAbsent(bucket, b -> new HashMap<>());
+        ParquetWriter<Element> writer = groupToWriter.get(group);
+        if (null == writer) {
+            writer = buildWriter(bucket, group);
+            groupToWriter.put(group, writer);
+        }
+        return writer;
+    }
+
+    private ParquetWriter<Element> buildWriter(final TimeBucket bucket, final String group) throws IOException {
+        final boolean isEntity = schemaUtils.getEntityGroups().contains(group);
+        final String column = isEntity ? ParquetStoreConstants.VERTEX : ParquetStoreConstants.SOURCE;
+        final Path filePath = new Path(ParquetStore.getGroupDirectory(group, column,
+                dir + "/" + bucket.getDirectoryName()) + "/part-0.parquet");
+        LOGGER.debug("Creating a new writer for group {} in {}", group, bucket);
+        return new ParquetElementWriter.Builder(filePath)
+                .isEntity(isEntity)
+                .withType(schemaUtils.getParquetSchema(group))
+                .usingConverter(schemaUtils.getConverter(group))
+                .withCompressionCodec(CompressionCodecName.UNCOMPRESSED)
+                .withSparkSchema(schemaUtils.getSparkSchema(group))
+                .build();
+    }
+}
@@ -16,32 +16,61 @@
 
 package uk.gov.gchq.gaffer.parquetstore.operation.getelements.handler;
 
+import org.apache.hadoop.fs.Path;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.FilterFunction;
+import org.apache.spark.sql.Column;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.collection.JavaConversions;
 
 import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.Authorisations;
 import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.ElementVisibility;
 import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.VisibilityEvaluator;
 import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.exception.VisibilityParseException;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.jsonserialisation.JSONSerialiser;
 import uk.gov.gchq.gaffer.operation.OperationException;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.AggregateGafferRowsFunction;
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.ExtractKeyFromRow;
+import uk.gov.gchq.gaffer.parquetstore.operation.getelements.impl.ParquetElementRetriever;
 import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.SparkParquetUtils;
 import uk.gov.gchq.gaffer.spark.SparkContextUtil;
 import uk.gov.gchq.gaffer.spark.operation.dataframe.GetDataFrameOfElements;
 import uk.gov.gchq.gaffer.store.Context;
 import uk.gov.gchq.gaffer.store.Store;
 import uk.gov.gchq.gaffer.store.operation.handler.OutputOperationHandler;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
+import uk.gov.gchq.gaffer.store.util.AggregatorUtil;
 import uk.gov.gchq.gaffer.user.User;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An {@link uk.gov.gchq.gaffer.store.operation.handler.OperationHandler} for the {@link GetDataFrameOfElements}
  * operation on the {@link ParquetStore}.
+ * <p>
+ * The dataframe is read from the current snapshot and its deltas, and the rows of the aggregated groups that have data
+ * in the deltas are aggregated by Spark as part of the dataframe, so the deltas do not need to be compacted first.
  */
 public class GetDataframeOfElementsHandler implements OutputOperationHandler<GetDataFrameOfElements, Dataset<Row>>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(GetDataframeOfElementsHandler.class);
@@ -77,21 +106,32 @@ public class GetDataframeOfElementsHandler implements OutputOperationHandler<Get
                                      final String visibility) throws OperationException {
         if (operation.getView().equals(store.getSchemaUtils().getEmptyView())) {
             LOGGER.debug("Retrieving elements as a dataframe");
-            final String rootDir = store.getDataDir() + "/" + store.getGraphIndex().getSnapshotTimestamp() + "/";
+            final GraphIndex index = store.getGraphIndex();
+            final List<String> snapshotPaths = getGraphPaths(store, getSnapshotDirectories(store, index));
+            final List<String> deltaPaths = getGraphPaths(store, getDeltaDirectories(store, index));
+            final List<String> allPaths = new ArrayList<>(snapshotPaths);
+            allPaths.addAll(deltaPaths);
+            if (allPaths.isEmpty()) {
+                allPaths.add(store.getDataDir() + "/" + index.getSnapshotTimestamp() + "/" + ParquetStoreConstants.GRAPH);
+            }
+            final String[] paths = allPaths.toArray(new String[allPaths.size()]);
+            final SparkSession readSession;
+            try {
+                readSession = SparkParquetUtils.getSessionForReading(spark, store.getFS(), paths);
+            } catch (final IOException e) {
+                throw new OperationException("Failed to read the footers of the current snapshot", e);
+            }
 
-            final Dataset<Row> dataset;
+            Dataset<Row> dataset = readSession
+                    .read()
+                    .option("mergeSchema", true)
+                    .parquet(paths);
+            if (!deltaPaths.isEmpty()) {
+                dataset = aggregateDeltas(dataset, store, readSession, getAggregatedGroupsInDeltas(store, deltaPaths));
+            }
             if (!visibility.isEmpty()) {
                 final FilterFunction<Row> filter = e -> isVisible(e, visibility, auths);
-                dataset = spark
-                        .read()
-                        .option("mergeSchema", true)
-                        .parquet(rootDir + ParquetStoreConstants.GRAPH)
-                        .filter(filter);
-            } else {
-                dataset = spark
-                        .read()
-                        .option("mergeSchema", true)
-                        .parquet(rootDir + ParquetStoreConstants.GRAPH);
+                dataset = dataset.filter(filter);
             }
             LOGGER.debug("The merged schema that the data is being loaded using is: {}", dataset.schema().treeString());
             return dataset;
@@ -100,6 +140,153 @@ public class GetDataframeOfElementsHandler implements OutputOperationHandler<Get
         }
     }
 
+    /**
+     * The snapshot and each of its deltas are only aggregated within themselves, so the rows of the aggregated groups
+     * that have data in the deltas are aggregated across them in the same way as when the elements are added, see
+     * {@link uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.AggregateGroupSplit}. The rows of the other
+     * groups are returned as they are.
+     *
+     * @param data   the rows of the snapshot and of its deltas
+     * @param store  the {@link ParquetStore}
+     * @param spark  the {@link SparkSession} the data was read with
+     * @param groups the aggregated groups that have data in the deltas
+     * @return the merged rows
+     * @throws OperationException if the aggregator of a group can not be serialised
+     */
+    private Dataset<Row> aggregateDeltas(final Dataset<Row> data,
+                                         final ParquetStore store,
+                                         final SparkSession spark,
+                                         final Set<String> groups) throws OperationException {
+        if (groups.isEmpty()) {
+            return data;
+        }
+        final Column groupColumn = data.col(ParquetStoreConstants.GROUP).cast(DataTypes.StringType);
+        Dataset<Row> merged = data.filter(functions.not(groupColumn.isin(groups.toArray())));
+        for (final String group : groups) {
+            LOGGER.debug("Aggregating the rows of group {} across the snapshot and its deltas", group);
+            merged = merged.union(aggregateGroup(data.filter(groupColumn.equalTo(group)), group, store, spark, data.schema()));
+        }
+        return merged;
+    }
+
+    private Dataset<Row> aggregateGroup(final Dataset<Row> groupData,
+                                        final String group,
+                                        final ParquetStore store,
+                                        final SparkSession spark,
+                                        final StructType mergedSchema) throws OperationException {
+        final SchemaUtils schemaUtils = store.getSchemaUtils();
+        final Schema gafferSchema = store.getSchema();
+        final SchemaElementDefinition groupGafferSchema = gafferSchema.getElement(group);
+        final boolean isEntity = schemaUtils.getEntityGroups().contains(group);
+        final Set<String> groupByColumns = new HashSet<>(AggregatorUtil.getIngestGroupBy(group, gafferSchema));
+        final Map<String, String[]> columnToPaths = schemaUtils.getColumnToPaths(group);
+        final String[] gafferProperties = groupGafferSchema.getProperties().toArray(new String[groupGafferSchema.getProperties().size()]);
+        final StructType groupSchema;
+        final JavaRDD<Row> aggregatedRDD;
+        try {
+            groupSchema = schemaUtils.getSparkSchema(group);
+            final AggregateGafferRowsFunction aggregator = new AggregateGafferRowsFunction(gafferProperties, isEntity,
+                    groupByColumns, columnToPaths, JSONSerialiser.serialise(groupGafferSchema.getIngestAggregator()),
+                    schemaUtils.getConverter(group));
+            final List<Column> groupColumns = new ArrayList<>();
+            for (final String column : groupSchema.fieldNames()) {
+                groupColumns.add(groupData.col(column));
+            }
+            aggregatedRDD = groupData
+                    .select(JavaConversions.asScalaBuffer(groupColumns))
+                    .javaRDD()
+                    .keyBy(new ExtractKeyFromRow(groupByColumns, columnToPaths, isEntity))
+                    .reduceByKey(aggregator)
+                    .values();
+        } catch (final SerialisationException e) {
+            throw new OperationException("Failed to create the aggregator for group " + group, e);
+        }
+        final Dataset<Row> aggregatedData = spark.createDataFrame(aggregatedRDD, groupSchema);
+
+        // Put the columns back in the order of the merged schema so the groups can be unioned
+        final Set<String> groupFields = new HashSet<>(Arrays.asList(groupSchema.fieldNames()));
+        final List<Column> columns = new ArrayList<>();
+        for (final StructField field : mergedSchema.fields()) {
+            if (ParquetStoreConstants.GROUP.equals(field.name())) {
+                columns.add(functions.lit(group).cast(field.dataType()).as(field.name()));
+            } else if (groupFields.contains(field.name())) {
+                columns.add(aggregatedData.col(field.name()).cast(field.dataType()).as(field.name()));
+            } else {
+                columns.add(functions.lit(null).cast(field.dataType()).as(field.name()));
+            }
+        }
+        return aggregatedData.select(JavaConversions.asScalaBuffer(columns));
+    }
+
+    private Set<String> getAggregatedGroupsInDeltas(final ParquetStore store, final List<String> deltaPaths) throws OperationException {
+        final Set<String> groups = new HashSet<>();
+        try {
+            for (final String group : ParquetElementRetriever.getAggregatedGroups(store)) {
+                for (final String path : deltaPaths) {
+                    if (store.getFS().exists(new Path(path + "/" + ParquetStoreConstants.GROUP + "=" + group))) {
+                        groups.add(group);
+                        break;
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            throw new OperationException("Failed to list the directories of the deltas", e);
+        }
+        return groups;
+    }
+
+    /**
+     * @param store the {@link ParquetStore}
+     * @param index the current {@link GraphIndex}
+     * @return the directory of the current snapshot and the directories of each of its time buckets
+     */
+    private List<String> getSnapshotDirectories(final ParquetStore store, final GraphIndex index) {
+        final List<String> dirs = new ArrayList<>();
+        dirs.add(store.getDataDir() + "/" + index.getSnapshotTimestamp());
+        for (final GraphIndex bucket : index.getTimeBuckets()) {
+            dirs.add(ParquetStore.getTimeBucketDirectory(store.getDataDir(), bucket));
+        }
+        return dirs;
+    }
+
+    /**
+     * @param store the {@link ParquetStore}
+     * @param index the current {@link GraphIndex}
+     * @return the directories of the deltas of the current snapshot and of each of their time buckets
+     */
+    private List<String> getDeltaDirectories(final ParquetStore store, final GraphIndex index) {
+        final String deltasDir = ParquetStore.getDeltasDirectory(store.getDataDir() + "/" + index.getSnapshotTimestamp());
+        final List<String> dirs = new ArrayList<>();
+        for (final GraphIndex delta : index.getDeltas()) {
+            dirs.add(deltasDir + "/" + delta.getSnapshotTimestamp());
+            for (final GraphIndex bucket : delta.getTimeBuckets()) {
+                dirs.add(ParquetStore.getTimeBucketDirectory(deltasDir, bucket));
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * @param store the {@link ParquetStore}
+     * @param dirs  the directories of snapshots, deltas or time buckets
+     * @return the directories within them that exist and contain the elements sorted by the vertex or source
+     * @throws OperationException if the file system could not be accessed
+     */
+    private List<String> getGraphPaths(final ParquetStore store, final List<String> dirs) throws OperationException {
+        final List<String> paths = new ArrayList<>();
+        try {
+            for (final String dir : dirs) {
+                final String path = dir + "/" + ParquetStoreConstants.GRAPH;
+                if (store.getFS().exists(new Path(path))) {
+                    paths.add(path);
+                }
+            }
+        } catch (final IOException e) {
+            throw new OperationException("Failed to list the directories of the current snapshot", e);
+        }
+        return paths;
+    }
+
     private boolean isVisible(final Row e, final String visibility, final Authorisations auths) throws VisibilityParseException {
         if (e.getAs(visibility) != null) {
             final VisibilityEvaluator visibilityEvaluator = new VisibilityEvaluator(auths);
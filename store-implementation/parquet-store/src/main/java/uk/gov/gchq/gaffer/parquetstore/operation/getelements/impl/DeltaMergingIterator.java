@@ -0,0 +1,408 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.getelements.impl;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.IdentifierType;
+import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.element.id.DirectedType;
+import uk.gov.gchq.gaffer.data.element.id.ElementId;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewUtil;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.operation.SeedMatching;
+import uk.gov.gchq.gaffer.operation.graph.SeededGraphFilters;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.utils.GafferGroupObjectConverter;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetFilterUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.SeedComparator;
+import uk.gov.gchq.gaffer.parquetstore.utils.SortUtils;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.util.AggregatorUtil;
+import uk.gov.gchq.gaffer.user.User;
+import uk.gov.gchq.koryphe.tuple.predicate.TupleAdaptedPredicate;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Merges the elements from the deltas of a snapshot with the elements from the snapshot.
+ * <p>
+ * Each group directory of the snapshot and of the deltas is sorted by the identifiers of the elements, with the files
+ * in name order, so the matching files for the same group directory are read in order, one file of each snapshot or
+ * delta at a time, and merged with a k-way merge. The elements of aggregated groups that have the same identifiers
+ * are aggregated as they are merged, so only the elements with the current identifiers are held in memory.
+ * <p>
+ * The elements in the snapshot and in each delta are only partially aggregated, so the parts of the pre-aggregation
+ * filters that select anything other than identifiers or ingest group-by properties are not applied while reading
+ * the files, nor pushed down to Parquet, as they could give a different result for the fully aggregated element.
+ * They are applied once the elements have been merged instead.
+ * <p>
+ * The files are read on the calling thread.
+ */
+public class DeltaMergingIterator implements CloseableIterator<Element> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeltaMergingIterator.class);
+    private static final Comparator<Object> COMPARATOR = new SeedComparator();
+
+    private final View view;
+    private final Map<String, ElementFilter> postMergeFilters = new HashMap<>();
+    private final Set<String> aggregatedGroups;
+    private final SchemaUtils schemaUtils;
+    private final AggregatorUtil.ToIngestElementKey toElementKey;
+    private final AggregatorUtil.IngestElementBinaryOperator aggregator;
+    private final Deque<Element> mergedElements = new ArrayDeque<>();
+    private Iterator<GroupDirectory> remainingDirectories;
+    private PriorityQueue<Run> runs;
+    private GroupDirectory currentDirectory;
+
+    public DeltaMergingIterator(final View view,
+                                final ParquetStore store,
+                                final GraphIndex graphIndex,
+                                final Set<String> aggregatedGroups,
+                                final DirectedType directedType,
+                                final SeededGraphFilters.IncludeIncomingOutgoingType includeIncomingOutgoingType,
+                                final SeedMatching.SeedMatchingType seedMatchingType,
+                                final Iterable<? extends ElementId> seeds,
+                                final User user) throws OperationException {
+        this.view = view;
+        this.aggregatedGroups = aggregatedGroups;
+        this.schemaUtils = store.getSchemaUtils();
+        final Schema gafferSchema = store.getSchema();
+        this.toElementKey = new AggregatorUtil.ToIngestElementKey(gafferSchema);
+        this.aggregator = new AggregatorUtil.IngestElementBinaryOperator(gafferSchema);
+
+        final View readView = getReadView(view, gafferSchema);
+        final List<GraphIndex> fragments = new ArrayList<>();
+        fragments.add(graphIndex);
+        fragments.addAll(graphIndex.getDeltas());
+        final String deltasDir = ParquetStore.getDeltasDirectory(store.getDataDir() + "/" + graphIndex.getSnapshotTimestamp());
+        final SortedMap<String, GroupDirectory> directories = new TreeMap<>();
+        try {
+            for (int i = 0; i < fragments.size(); i++) {
+                final GraphIndex fragment = fragments.get(i);
+                final String rootDir = 0 == i ? store.getDataDir() : deltasDir;
+                final String fragmentsDir = new Path(rootDir).toUri().getPath();
+                final ParquetFilterUtils parquetFilterUtils = new ParquetFilterUtils(store, rootDir);
+                parquetFilterUtils.buildPathToFilterMap(readView, directedType, includeIncomingOutgoingType, seedMatchingType, seeds, fragment);
+                final boolean needsValidation = parquetFilterUtils.requiresValidation();
+                for (final Map.Entry<Path, FilterPredicate> entry : parquetFilterUtils.getPathToFilterMap().entrySet()) {
+                    final boolean isGroupDir = isGroupDirectory(entry.getKey());
+                    final Path groupDir = isGroupDir ? entry.getKey() : entry.getKey().getParent();
+                    // The path within the snapshot or delta directory, as the files of a time bucket may be held in
+                    // the directory of an earlier snapshot
+                    final String fragmentPath = groupDir.toUri().getPath().substring(fragmentsDir.length() + 1);
+                    final String relativeDir = fragmentPath.substring(fragmentPath.indexOf('/'));
+                    final GroupDirectory directory = directories.computeIfAbsent(relativeDir,
+                            k -> new GroupDirectory(groupDir, fragments.size()));
+                    final List<Path> files = isGroupDir ? listFiles(store.getFS(), groupDir) : Collections.singletonList(entry.getKey());
+                    for (final Path file : files) {
+                        directory.files.get(i).put(file.getName(), new RetrieveElementsFromFile(file, entry.getValue(),
+                                gafferSchema, needsValidation, readView, user));
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            throw new OperationException("Exception while listing the files of the snapshot and its deltas", e);
+        }
+        LOGGER.debug("Merging the snapshot {} with {} deltas across {} group directories",
+                graphIndex.getSnapshotTimestamp(), graphIndex.getDeltas().size(), directories.size());
+        this.remainingDirectories = directories.values().iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (mergedElements.isEmpty()) {
+            if (null == remainingDirectories) {
+                return false;
+            }
+            if (null == runs || runs.isEmpty()) {
+                if (!remainingDirectories.hasNext()) {
+                    close();
+                    return false;
+                }
+                openDirectory(remainingDirectories.next());
+            } else {
+                mergeNextIdentifiers();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Element next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return mergedElements.poll();
+    }
+
+    @Override
+    public void close() {
+        if (null != runs) {
+            for (final Run run : runs) {
+                run.close();
+            }
+            runs = null;
+        }
+        remainingDirectories = null;
+        currentDirectory = null;
+        mergedElements.clear();
+    }
+
+    /**
+     * Builds the view used to read the snapshot and the deltas. For each aggregated group, only the parts of the
+     * pre-aggregation filter that select identifiers or ingest group-by properties are kept, and the other parts are
+     * added to the filters applied after merging. The properties needed to aggregate the elements and to apply those
+     * filters are always read.
+     *
+     * @param view         the view of the query
+     * @param gafferSchema the schema
+     * @return the view to read the files with
+     */
+    private View getReadView(final View view, final Schema gafferSchema) {
+        final View.Builder readView = new View.Builder().merge(view);
+        for (final String group : view.getGroups()) {
+            if (!aggregatedGroups.contains(group)) {
+                continue;
+            }
+            final ViewElementDefinition elementDef = view.getElement(group);
+            final Set<String> groupBy = AggregatorUtil.getIngestGroupBy(group, gafferSchema);
+            final List<TupleAdaptedPredicate<String, ?>> readFilters = new ArrayList<>();
+            final List<TupleAdaptedPredicate<String, ?>> mergedFilters = new ArrayList<>();
+            final Set<String> requiredProperties = new HashSet<>(groupBy);
+            if (elementDef.hasPreAggregationFilters()) {
+                for (final TupleAdaptedPredicate<String, ?> filter : elementDef.getPreAggregationFilterFunctions()) {
+                    if (isUnaffectedByAggregation(filter, groupBy)) {
+                        readFilters.add(filter);
+                    } else {
+                        mergedFilters.add(filter);
+                        Collections.addAll(requiredProperties, filter.getSelection());
+                    }
+                }
+            }
+            final Set<String> properties = elementDef.getProperties();
+            final Set<String> excludeProperties = elementDef.getExcludeProperties();
+            final boolean missingProperties = null != properties
+                    ? !properties.containsAll(requiredProperties)
+                    : null != excludeProperties && !Collections.disjoint(excludeProperties, requiredProperties);
+            if (mergedFilters.isEmpty() && !missingProperties) {
+                continue;
+            }
+            final ViewElementDefinition.Builder readElementDef = new ViewElementDefinition.Builder()
+                    .merge(elementDef)
+                    .preAggregationFilterFunctions(readFilters);
+            if (null != properties) {
+                final Set<String> readProperties = new HashSet<>(properties);
+                readProperties.addAll(requiredProperties);
+                readElementDef.properties(readProperties);
+            } else if (null != excludeProperties) {
+                final Set<String> readExcludeProperties = new HashSet<>(excludeProperties);
+                readExcludeProperties.removeAll(requiredProperties);
+                readElementDef.excludeProperties(readExcludeProperties);
+            }
+            if (view.isEntity(group)) {
+                readView.entity(group, readElementDef.build());
+            } else {
+                readView.edge(group, readElementDef.build());
+            }
+            if (!mergedFilters.isEmpty()) {
+                final ElementFilter postMergeFilter = new ElementFilter();
+                postMergeFilter.getComponents().addAll(mergedFilters);
+                postMergeFilters.put(group, postMergeFilter);
+            }
+        }
+        return readView.build();
+    }
+
+    private static boolean isUnaffectedByAggregation(final TupleAdaptedPredicate<String, ?> filter, final Set<String> groupBy) {
+        for (final String selection : filter.getSelection()) {
+            if (null == IdentifierType.fromName(selection) && !groupBy.contains(selection)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isGroupDirectory(final Path path) {
+        return path.getName().startsWith(ParquetStoreConstants.GROUP + "=");
+    }
+
+    private static List<Path> listFiles(final FileSystem fs, final Path groupDir) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try {
+            for (final FileStatus status : fs.listStatus(groupDir)) {
+                if (status.getPath().getName().endsWith(".parquet")) {
+                    files.add(status.getPath());
+                }
+            }
+        } catch (final FileNotFoundException ignore) {
+            // ignore as there is no data for this group
+        }
+        return files;
+    }
+
+    private void openDirectory(final GroupDirectory directory) {
+        currentDirectory = directory;
+        runs = new PriorityQueue<>(directory.files.size(), (a, b) -> COMPARATOR.compare(a.key, b.key));
+        for (final SortedMap<String, RetrieveElementsFromFile> files : directory.files) {
+            final Run run = new Run(files.values().iterator());
+            if (run.advance()) {
+                runs.add(run);
+            }
+        }
+    }
+
+    /**
+     * Takes all the elements with the smallest identifiers from the runs, aggregates them if their group is
+     * aggregated, and adds the ones that match the filters to the merged elements.
+     */
+    private void mergeNextIdentifiers() {
+        final Run first = runs.poll();
+        final Object[] key = first.key;
+        final List<Element> elements = new ArrayList<>();
+        take(first, elements);
+        while (!runs.isEmpty() && 0 == COMPARATOR.compare(runs.peek().key, key)) {
+            take(runs.poll(), elements);
+        }
+
+        final Iterable<Element> merged;
+        if (aggregatedGroups.contains(currentDirectory.group) && elements.size() > 1) {
+            final Map<Element, Element> aggregatedElements = new LinkedHashMap<>();
+            for (final Element element : elements) {
+                aggregatedElements.merge(toElementKey.apply(element), element, aggregator);
+            }
+            merged = aggregatedElements.values();
+        } else {
+            merged = elements;
+        }
+        final ElementFilter postMergeFilter = postMergeFilters.get(currentDirectory.group);
+        for (final Element element : merged) {
+            if (null == postMergeFilter || postMergeFilter.test(element)) {
+                ViewUtil.removeProperties(view, element);
+                mergedElements.add(element);
+            }
+        }
+    }
+
+    private void take(final Run run, final List<Element> elements) {
+        elements.add(run.element);
+        if (run.advance()) {
+            runs.add(run);
+        }
+    }
+
+    /**
+     * The matching files of one group directory, from the snapshot and from each of the deltas.
+     */
+    private final class GroupDirectory {
+        private final String group;
+        private final boolean isEntity;
+        private final String column;
+        private final GafferGroupObjectConverter converter;
+        private final List<SortedMap<String, RetrieveElementsFromFile>> files;
+
+        private GroupDirectory(final Path groupDir, final int numberOfFragments) {
+            this.group = groupDir.getName().split("=")[1];
+            this.isEntity = schemaUtils.getEntityGroups().contains(group);
+            this.column = ParquetStoreConstants.GRAPH.equals(groupDir.getParent().getName())
+                    ? ParquetStoreConstants.SOURCE : ParquetStoreConstants.DESTINATION;
+            try {
+                this.converter = schemaUtils.getConverter(group);
+            } catch (final SerialisationException e) {
+                throw new RuntimeException("Unable to create the converter for group " + group, e);
+            }
+            this.files = new ArrayList<>(numberOfFragments);
+            for (int i = 0; i < numberOfFragments; i++) {
+                files.add(new TreeMap<>());
+            }
+        }
+    }
+
+    /**
+     * The current position in the matching files of one group directory of the snapshot or of a delta.
+     */
+    private final class Run {
+        private final Iterator<RetrieveElementsFromFile> files;
+        private CloseableIterator<Element> elements;
+        private Element element;
+        private Object[] key;
+
+        private Run(final Iterator<RetrieveElementsFromFile> files) {
+            this.files = files;
+        }
+
+        private boolean advance() {
+            while (null == elements || !elements.hasNext()) {
+                if (null != elements) {
+                    elements.close();
+                    elements = null;
+                }
+                if (!files.hasNext()) {
+                    element = null;
+                    key = null;
+                    return false;
+                }
+                elements = files.next().openIterator();
+            }
+            element = elements.next();
+            try {
+                key = SortUtils.getSortKey(currentDirectory.converter, currentDirectory.isEntity,
+                        currentDirectory.column, element);
+            } catch (final SerialisationException e) {
+                close();
+                throw new RuntimeException("Unable to convert the identifiers of an element to Parquet objects", e);
+            }
+            return true;
+        }
+
+        private void close() {
+            if (null != elements) {
+                elements.close();
+                elements = null;
+            }
+        }
+    }
+}
@@ -24,7 +24,7 @@ import org.slf4j.LoggerFactory;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
 import uk.gov.gchq.gaffer.data.element.Element;
-import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.element.Entity;
 import uk.gov.gchq.gaffer.data.element.id.DirectedType;
 import uk.gov.gchq.gaffer.data.element.id.ElementId;
 import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
@@ -39,21 +39,47 @@ import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
 import uk.gov.gchq.gaffer.parquetstore.utils.ParquetFilterUtils;
 import uk.gov.gchq.gaffer.store.StoreException;
 import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
 import uk.gov.gchq.gaffer.user.User;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Converts the inputs for get element operations and converts them to a mapping of files to Parquet filters which is
  * then looped over to retrieve the filtered Elements.
+ * <p>
+ * The files are read using the {@link ParquetStore}'s shared reader thread pool, with at most
+ * {@link ParquetStoreProperties#getThreadsAvailable()} files being read at once for each query. The elements are
+ * passed to the iterator through a bounded queue, the size of which is set by
+ * {@link ParquetStoreProperties#getGetElementsQueueSize()}, so files are only read as quickly as the elements are
+ * consumed. If there is no space in the queue of a query within
+ * {@link ParquetStoreProperties#getGetElementsQueueTimeout()} then the thread stops reading the file, leaving it open,
+ * and goes on to read files for other queries. Reading the file is resumed once the query's elements are consumed, so
+ * a query whose results are read slowly, or never read, does not hold on to the shared threads.
+ * <p>
+ * Each call to {@link #iterator()} returns an independent iterator, and all of the iterators are closed when this is
+ * closed.
+ * <p>
+ * If the snapshot has any deltas, see {@link ParquetStoreProperties#getAddElementsIncremental()}, then the sorted
+ * files of the snapshot and the deltas are merged by a {@link DeltaMergingIterator}.
  */
 public class ParquetElementRetriever implements CloseableIterable<Element> {
     private static final Logger LOGGER = LoggerFactory.getLogger(ParquetElementRetriever.class);
@@ -63,11 +89,15 @@ public class ParquetElementRetriever implements CloseableIterable<Element> {
     private final SeededGraphFilters.IncludeIncomingOutgoingType includeIncomingOutgoingType;
     private final SeedMatching.SeedMatchingType seedMatchingType;
     private final Iterable<? extends ElementId> seeds;
+    private final ParquetStore store;
     private final ParquetFilterUtils parquetFilterUtils;
+    private final Set<String> aggregatedGroups;
     private GraphIndex graphIndex;
     private final ParquetStoreProperties properties;
     private final Schema gafferSchema;
     private final User user;
+    private final ExecutorService executorService;
+    private final List<CloseableIterator<Element>> iterators = new ArrayList<>();
 
     public ParquetElementRetriever(final View view,
                                    final ParquetStore store,
@@ -82,32 +112,107 @@ public class ParquetElementRetriever implements CloseableIterable<Element> {
         this.includeIncomingOutgoingType = includeIncomingOutgoingType;
         this.seedMatchingType = seedMatchingType;
         this.seeds = seeds;
-        this.graphIndex = store.getGraphIndex();
-        if (null == graphIndex) {
-            throw new OperationException("Can not perform a Get operation when there is no index set, which is " +
-                    "indicative of there being no data or the data ingest failed.");
-        }
+        this.store = store;
         this.parquetFilterUtils = new ParquetFilterUtils(store);
+        acquireGraphIndex();
+        this.aggregatedGroups = getAggregatedGroups(store);
         this.properties = store.getProperties();
         this.user = user;
+        this.executorService = store.getReaderExecutorService();
     }
 
+    /**
+     * Closes the iterators and releases the snapshot that was being read, so that its files can be deleted if it
+     * has been replaced. If this is iterated over again then the latest snapshot is read.
+     */
     @Override
-    public void close() {
+    public synchronized void close() {
+        for (final CloseableIterator<Element> iterator : iterators) {
+            iterator.close();
+        }
+        iterators.clear();
+        if (null != graphIndex) {
+            store.releaseGraphIndex(graphIndex);
+            graphIndex = null;
+        }
     }
 
     @Override
-    public CloseableIterator<Element> iterator() {
-        return new ParquetIterator(view, directedType, includeIncomingOutgoingType,
-                seedMatchingType, seeds, parquetFilterUtils, graphIndex, properties, gafferSchema, user);
+    public synchronized CloseableIterator<Element> iterator() {
+        if (null == graphIndex) {
+            try {
+                acquireGraphIndex();
+            } catch (final OperationException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+        final List<GraphIndex> deltas = graphIndex.getDeltas();
+        final CloseableIterator<Element> iterator;
+        if (deltas.isEmpty()) {
+            iterator = new ParquetIterator(view, directedType, includeIncomingOutgoingType,
+                    seedMatchingType, seeds, parquetFilterUtils, graphIndex, properties, gafferSchema, user, executorService);
+        } else {
+            try {
+                iterator = new DeltaMergingIterator(view, store, graphIndex, aggregatedGroups, directedType,
+                        includeIncomingOutgoingType, seedMatchingType, seeds, user);
+            } catch (final OperationException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+        iterators.add(iterator);
+        return iterator;
+    }
+
+    /**
+     * Pins the current snapshot for this query, so that its files are not deleted while it is being read.
+     *
+     * @throws OperationException if there is no data
+     */
+    private void acquireGraphIndex() throws OperationException {
+        final GraphIndex index = store.acquireGraphIndex();
+        if (null == index) {
+            throw new OperationException("Can not perform a Get operation when there is no index set, which is " +
+                    "indicative of there being no data or the data ingest failed.");
+        }
+        this.graphIndex = index;
+    }
+
+    /**
+     * @param store the {@link ParquetStore}
+     * @return the groups whose elements are aggregated when they are added, and so must be aggregated when the
+     * snapshot and its deltas are merged
+     */
+    public static Set<String> getAggregatedGroups(final ParquetStore store) {
+        final Set<String> aggregatedGroups = new HashSet<>();
+        final String aggregateOnIngest = store.getProperties().get(ParquetStoreProperties.PARQUET_AGGREGATE_ON_INGEST, null);
+        for (final String group : store.getSchema().getGroups()) {
+            final SchemaElementDefinition elementDefinition = store.getSchema().getElement(group);
+            if (null == aggregateOnIngest ? elementDefinition.isAggregate() : Boolean.valueOf(aggregateOnIngest)) {
+                aggregatedGroups.add(group);
+            }
+        }
+        return aggregatedGroups;
     }
 
     protected static class ParquetIterator implements CloseableIterator<Element> {
-        private Boolean needsValidation;
+        /**
+         * Added to the queue by each task once it has finished reading its file.
+         */
+        private static final Element END_OF_FILE = new Entity("END_OF_FILE");
+        private static final long FAILURE_CHECK_INTERVAL_MILLIS = 1000L;
+
         private View view;
-        private ConcurrentLinkedQueue<Element> queue;
-        private List<Future<OperationException>> runningTasks;
-        private ExecutorService executorServicePool;
+        private BlockingQueue<Element> queue;
+        private Deque<RetrieveElementsFromFile> pendingTasks;
+        private Map<Future<?>, ReadTask> runningTasks;
+        private final Queue<ReadTask> suspendedTasks = new ConcurrentLinkedQueue<>();
+        private ExecutorService executorService;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long queueTimeoutMillis;
+        private int queueSize;
+        private int remainingTasks;
+        private Element nextElement;
 
         protected ParquetIterator(final View view,
                                   final DirectedType directedType,
@@ -118,107 +223,183 @@ public class ParquetElementRetriever implements CloseableIterable<Element> {
                                   final GraphIndex graphIndex,
                                   final ParquetStoreProperties properties,
                                   final Schema gafferSchema,
-                                  final User user) {
+                                  final User user,
+                                  final ExecutorService executorService) {
             try {
                 parquetFilterUtils.buildPathToFilterMap(view, directedType, includeIncomingOutgoingType, seedMatchingType, seeds, graphIndex);
                 final Map<Path, FilterPredicate> pathToFilterMap = parquetFilterUtils.getPathToFilterMap();
-                this.needsValidation = parquetFilterUtils.requiresValidation();
+                final boolean needsValidation = parquetFilterUtils.requiresValidation();
                 LOGGER.debug("pathToFilterMap: {}", pathToFilterMap);
                 if (!pathToFilterMap.isEmpty()) {
-                    queue = new ConcurrentLinkedQueue<>();
+                    queueSize = properties.getGetElementsQueueSize();
+                    queue = new ArrayBlockingQueue<>(queueSize);
                     this.view = view;
-                    executorServicePool = Executors.newFixedThreadPool(properties.getThreadsAvailable());
-                    final List<RetrieveElementsFromFile> tasks = new ArrayList<>(pathToFilterMap.size());
+                    this.executorService = executorService;
+                    this.queueTimeoutMillis = properties.getGetElementsQueueTimeout();
+                    pendingTasks = new ArrayDeque<>(pathToFilterMap.size());
                     for (final Map.Entry<Path, FilterPredicate> entry : pathToFilterMap.entrySet()) {
-                        tasks.add(new RetrieveElementsFromFile(entry.getKey(), entry.getValue(), gafferSchema, queue, needsValidation, view, user));
+                        pendingTasks.add(new RetrieveElementsFromFile(entry.getKey(), entry.getValue(), gafferSchema, queue, needsValidation,
+                                view, user, closed, queueTimeoutMillis));
+                    }
+                    remainingTasks = pendingTasks.size();
+                    runningTasks = new LinkedHashMap<>();
+                    for (int i = 0; i < properties.getThreadsAvailable() && !pendingTasks.isEmpty(); i++) {
+                        submitNextTask();
                     }
-                    runningTasks = executorServicePool.invokeAll(tasks);
                 } else {
                     LOGGER.debug("There are no results for this query");
                 }
             } catch (final OperationException | SerialisationException e) {
                 LOGGER.error("Exception while creating the mapping of file paths to Parquet filters: {}", e.getMessage());
-            } catch (final InterruptedException e) {
-                LOGGER.error(e.getMessage(), e);
             }
         }
 
+        private void submitNextTask() {
+            final RetrieveElementsFromFile task = pendingTasks.poll();
+            if (null != task) {
+                submit(new ReadTask(task, queue));
+            }
+        }
+
+        private void submit(final ReadTask task) {
+            runningTasks.keySet().removeIf(Future::isDone);
+            runningTasks.put(executorService.submit(task), task);
+        }
+
+        /**
+         * Resubmits the tasks that stopped reading because the queue was full, once at least half of the queue is
+         * free again.
+         */
+        private void resumeSuspendedTasks() {
+            if (!suspendedTasks.isEmpty() && queue.remainingCapacity() * 2 >= queueSize) {
+                for (ReadTask task = suspendedTasks.poll(); null != task; task = suspendedTasks.poll()) {
+                    submit(task);
+                }
+            }
+        }
 
         @Override
         public boolean hasNext() {
-            if (null != queue) {
-                if (queue.isEmpty()) {
-                    boolean finishedAllTasks = runningTasks.isEmpty();
-                    while (!finishedAllTasks && queue.isEmpty()) {
-                        try {
-                            finishedAllTasks = hasFinishedAllTasks();
-                            if (!finishedAllTasks) {
-                                wait(100L);
-                            }
-                        } catch (final Exception e) {
-                            LOGGER.error(e.getMessage(), e);
-                            finishedAllTasks = true;
+            if (null != nextElement) {
+                return true;
+            }
+            if (null == queue) {
+                return false;
+            }
+
+            try {
+                while (remainingTasks > 0) {
+                    final Element element = queue.poll(FAILURE_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    resumeSuspendedTasks();
+                    if (null == element) {
+                        if (null != failure.get()) {
+                            close();
+                            throw new RuntimeException("Exception while retrieving elements from Parquet files", failure.get());
                         }
+                    } else if (END_OF_FILE == element) {
+                        remainingTasks--;
+                        if (null != failure.get()) {
+                            throw new RuntimeException("Exception while retrieving elements from Parquet files", failure.get());
+                        }
+                        submitNextTask();
+                    } else {
+                        ViewUtil.removeProperties(view, element);
+                        nextElement = element;
+                        return true;
                     }
-                    return !queue.isEmpty();
-                } else {
-                    return true;
                 }
-            } else {
-                return false;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Interrupted while waiting for elements from Parquet files", e);
+            }
+            return false;
+        }
+
+        @Override
+        public Element next() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            final Element element = nextElement;
+            nextElement = null;
+            return element;
         }
 
-        private boolean hasFinishedAllTasks() throws ExecutionException, InterruptedException, OperationException {
-            final List<Future<OperationException>> completedTasks = new ArrayList<>();
-            for (final Future<OperationException> task : runningTasks) {
-                if (task.isDone()) {
-                    final OperationException taskResult = task.get();
-                    if (null != taskResult) {
-                        throw taskResult;
+        @Override
+        public void close() {
+            closed.set(true);
+            if (null != runningTasks) {
+                for (final Map.Entry<Future<?>, ReadTask> entry : runningTasks.entrySet()) {
+                    // A task that has not started may have a file left open from before it was suspended
+                    if (entry.getKey().cancel(false)) {
+                        entry.getValue().task.closeFile();
                     } else {
-                        completedTasks.add(task);
+                        entry.getKey().cancel(true);
                     }
                 }
             }
-            runningTasks.removeAll(completedTasks);
-            return runningTasks.isEmpty();
+            for (ReadTask task = suspendedTasks.poll(); null != task; task = suspendedTasks.poll()) {
+                task.task.closeFile();
+            }
+            if (null != queue) {
+                queue.clear();
+            }
+            executorService = null;
+            pendingTasks = null;
+            runningTasks = null;
+            queue = null;
+            nextElement = null;
+            remainingTasks = 0;
         }
 
+        /**
+         * Reads a file into the queue and then adds the {@link #END_OF_FILE} marker. If there is no space in the queue
+         * within the queue timeout then the task is added to the suspended tasks, so that its thread is freed, and it
+         * carries on from the same place when it is resubmitted.
+         */
+        private final class ReadTask implements Runnable {
+            private final RetrieveElementsFromFile task;
+            private final BlockingQueue<Element> taskQueue;
+            private boolean fileRead;
 
-        @Override
-        public Element next() throws NoSuchElementException {
-            Element e;
-            while (hasNext()) {
-                e = queue.poll();
-                if (null != e) {
-                    if (needsValidation) {
-                        String group = e.getGroup();
-                        ElementFilter preAggFilter = view.getElement(group).getPreAggregationFilter();
-                        if (null != preAggFilter) {
-                            if (preAggFilter.test(e)) {
-                                ViewUtil.removeProperties(view, e);
-                                return e;
-                            }
+            private ReadTask(final RetrieveElementsFromFile task, final BlockingQueue<Element> taskQueue) {
+                this.task = task;
+                this.taskQueue = taskQueue;
+            }
+
+            @Override
+            public void run() {
+                if (!fileRead) {
+                    try {
+                        if (!task.readIntoQueue()) {
+                            suspend();
+                            return;
                         }
-                    } else {
-                        ViewUtil.removeProperties(view, e);
-                        return e;
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (final Exception e) {
+                        failure.compareAndSet(null, e);
                     }
+                    fileRead = true;
+                }
+                try {
+                    RetrieveElementsFromFile.offer(taskQueue, END_OF_FILE, closed, queueTimeoutMillis);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (final TimeoutException e) {
+                    suspend();
                 }
             }
-            throw new NoSuchElementException();
-        }
 
-        @Override
-        public void close() {
-            if (null != executorServicePool) {
-                executorServicePool.shutdown();
-                executorServicePool = null;
+            private void suspend() {
+                suspendedTasks.add(this);
+                // If the iterator was closed while this was being added then it may not have seen this task
+                if (closed.get() && suspendedTasks.remove(this)) {
+                    task.closeFile();
+                }
             }
-            needsValidation = null;
-            queue = null;
-            runningTasks = null;
         }
     }
 }
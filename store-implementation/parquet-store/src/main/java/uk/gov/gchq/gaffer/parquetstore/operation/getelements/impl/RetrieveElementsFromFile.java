@@ -27,11 +27,12 @@ import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.Authorisations;
 import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.ElementVisibility;
 import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.VisibilityEvaluator;
 import uk.gov.gchq.gaffer.commonutil.elementvisibilityutil.exception.VisibilityParseException;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.commonutil.iterable.EmptyCloseableIterator;
 import uk.gov.gchq.gaffer.data.element.Element;
 import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
 import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
 import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
-import uk.gov.gchq.gaffer.operation.OperationException;
 import uk.gov.gchq.gaffer.parquetstore.io.reader.ParquetElementReader;
 import uk.gov.gchq.gaffer.parquetstore.utils.GafferGroupObjectConverter;
 import uk.gov.gchq.gaffer.parquetstore.utils.SchemaUtils;
@@ -39,29 +40,55 @@ import uk.gov.gchq.gaffer.store.schema.Schema;
 import uk.gov.gchq.gaffer.user.User;
 
 import java.io.IOException;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Used to retrieve the elements from a single file and put the elements into a shared {@link java.util.concurrent.ConcurrentLinkedQueue}
+ * Used to retrieve the elements from a single file and put the elements into a shared {@link BlockingQueue}.
+ * If the queue is full then this will wait until there is space, so the elements are only read from the file as
+ * quickly as they are consumed. It stops waiting if the query is closed, and if there is no space in the queue within
+ * the timeout then {@link #readIntoQueue()} returns with the file still open, so that the thread can be used by other
+ * queries while the elements of this query are not being consumed. Calling it again carries on from the same place.
+ * <p>
+ * The file can also be read on the calling thread, in the order the elements are stored, using
+ * {@link #openIterator()}.
+ * <p>
+ * Only the columns needed to apply the {@link View} are read from the file, see
+ * {@link SchemaUtils#getColumnsToRead(String, ViewElementDefinition)}.
  */
-public class RetrieveElementsFromFile implements Callable<OperationException> {
+public class RetrieveElementsFromFile {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RetrieveElementsFromFile.class);
+    private static final long CLOSED_CHECK_INTERVAL_MILLIS = 100L;
     private final Path filePath;
     private final FilterPredicate filter;
     private transient byte[] jsonGafferSchema;
-    private final ConcurrentLinkedQueue<Element> queue;
+    private final BlockingQueue<Element> queue;
     private transient ElementFilter elementFilter;
+    private transient ViewElementDefinition elementDefinition;
     private final byte[] elementDefinitionJson;
     private final boolean needsValidation;
     private final String group;
     private final Authorisations auths;
     private final String visibility;
+    private final AtomicBoolean closed;
+    private final long queueTimeoutMillis;
+    private CloseableIterator<Element> elements;
+    private Element pendingElement;
 
     public RetrieveElementsFromFile(final Path filePath, final FilterPredicate filter, final Schema gafferSchema,
-                                    final ConcurrentLinkedQueue<Element> queue, final boolean needsValidation,
-                                    final View view, final User user) {
+                                    final boolean needsValidation, final View view, final User user) {
+        this(filePath, filter, gafferSchema, null, needsValidation, view, user, new AtomicBoolean(), 0L);
+    }
+
+    public RetrieveElementsFromFile(final Path filePath, final FilterPredicate filter, final Schema gafferSchema,
+                                    final BlockingQueue<Element> queue, final boolean needsValidation,
+                                    final View view, final User user,
+                                    final AtomicBoolean closed, final long queueTimeoutMillis) {
         this.filePath = filePath;
         this.filter = filter;
         this.jsonGafferSchema = gafferSchema.toCompactJson();
@@ -79,6 +106,8 @@ public class RetrieveElementsFromFile implements Callable<OperationException> {
         }
 
         this.queue = queue;
+        this.closed = closed;
+        this.queueTimeoutMillis = queueTimeoutMillis;
         this.needsValidation = needsValidation;
         if (filePath.getName().contains("=")) {
             group = filePath.getName().split("=")[1];
@@ -88,56 +117,116 @@ public class RetrieveElementsFromFile implements Callable<OperationException> {
         elementDefinitionJson = view.getElement(group).toCompactJson();
     }
 
-    @Override
-    public OperationException call() throws Exception {
-        if (null == elementFilter) {
-            elementFilter = new ViewElementDefinition.Builder().json(elementDefinitionJson).build().getPreAggregationFilter();
+    /**
+     * Reads the elements from the file into the queue until the whole file has been read or the query is closed, in
+     * which case the file is closed, or until there has been no space in the queue for the queue timeout, in which
+     * case the file is left open so that reading can be carried on by calling this again.
+     *
+     * @return true if the file has been read or the query closed, false if there was no space in the queue
+     * @throws InterruptedException if interrupted while waiting for space, the file is closed
+     */
+    public boolean readIntoQueue() throws InterruptedException {
+        if (null == elements) {
+            elements = openIterator();
         }
         try {
-            final ParquetReader<Element> fileReader = openParquetReader();
-            Element e = fileReader.read();
-            while (e != null) {
-                if (!visibility.isEmpty()) {
-                    if (isVisible(e)) {
-                        if (needsValidation) {
-                            if (elementFilter.test(e)) {
-                                queue.add(e);
-                            }
-                        } else {
-                            queue.add(e);
-                        }
+            while (true) {
+                if (null == pendingElement) {
+                    if (!elements.hasNext()) {
+                        closeFile();
+                        return true;
                     }
-                } else if (needsValidation) {
-                    if (elementFilter.test(e)) {
-                        queue.add(e);
-                    }
-                } else {
-                    queue.add(e);
+                    pendingElement = elements.next();
+                }
+                if (!offer(queue, pendingElement, closed, queueTimeoutMillis)) {
+                    closeFile();
+                    return true;
                 }
-                e = fileReader.read();
+                pendingElement = null;
             }
-            fileReader.close();
+        } catch (final TimeoutException e) {
+            return false;
+        } catch (final InterruptedException | RuntimeException e) {
+            closeFile();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the file if it was left open by {@link #readIntoQueue()}. This must not be called while another thread
+     * is reading the file.
+     */
+    public void closeFile() {
+        if (null != elements) {
+            elements.close();
+        }
+        pendingElement = null;
+    }
+
+    /**
+     * Opens the file for reading on the calling thread. The elements that are visible to the user and match the
+     * filters are returned in the order they are stored in the file.
+     *
+     * @return an iterator over the matching elements, which is empty if the file does not exist
+     */
+    public CloseableIterator<Element> openIterator() {
+        if (null == elementDefinition) {
+            elementDefinition = new ViewElementDefinition.Builder().json(elementDefinitionJson).build();
+            elementFilter = elementDefinition.getPreAggregationFilter();
+        }
+        try {
+            return new FileIterator(openParquetReader());
         } catch (final IOException ignore) {
             // ignore as this file does not exist
+            return new EmptyCloseableIterator<>();
+        }
+    }
+
+    /**
+     * Adds an element to the queue of a query, waiting for space for at most the given time.
+     *
+     * @param queue         the queue of the query
+     * @param element       the element to add
+     * @param closed        set once the query has been closed
+     * @param timeoutMillis the maximum time to wait for space in the queue
+     * @return true if the element was added, false if the query was closed first
+     * @throws InterruptedException if interrupted while waiting
+     * @throws TimeoutException     if there was no space in the queue within the timeout
+     */
+    static boolean offer(final BlockingQueue<Element> queue, final Element element,
+                         final AtomicBoolean closed, final long timeoutMillis) throws InterruptedException, TimeoutException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!closed.get()) {
+            final long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new TimeoutException("The elements of the query were not consumed within " + timeoutMillis
+                        + "ms, so reading from the Parquet files has been abandoned");
+            }
+            if (queue.offer(element, Math.min(remaining, CLOSED_CHECK_INTERVAL_MILLIS), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
         }
-        return null;
+        return false;
     }
 
     private ParquetReader<Element> openParquetReader() throws IOException {
         final SchemaUtils schemaUtils = new SchemaUtils(Schema.fromJson(jsonGafferSchema));
         final boolean isEntity = schemaUtils.getEntityGroups().contains(group);
         final GafferGroupObjectConverter converter = schemaUtils.getConverter(group);
-        LOGGER.debug("Opening a new Parquet reader for file: {}", filePath);
+        final Set<String> columns = schemaUtils.getColumnsToRead(group, elementDefinition);
+        LOGGER.debug("Opening a new Parquet reader for file: {} reading columns {}", filePath, null != columns ? columns : "all");
         if (null != filter) {
             return new ParquetElementReader.Builder<Element>(filePath)
                     .isEntity(isEntity)
                     .usingConverter(converter)
+                    .withColumns(columns)
                     .withFilter(FilterCompat.get(filter))
                     .build();
         } else {
             return new ParquetElementReader.Builder<Element>(filePath)
                     .isEntity(isEntity)
                     .usingConverter(converter)
+                    .withColumns(columns)
                     .build();
         }
     }
@@ -152,4 +241,55 @@ public class RetrieveElementsFromFile implements Callable<OperationException> {
             return true;
         }
     }
+
+    private final class FileIterator implements CloseableIterator<Element> {
+        private final ParquetReader<Element> reader;
+        private Element nextElement;
+        private boolean finished;
+
+        private FileIterator(final ParquetReader<Element> reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (null == nextElement && !finished) {
+                try {
+                    final Element e = reader.read();
+                    if (null == e) {
+                        close();
+                    } else if ((visibility.isEmpty() || isVisible(e))
+                            && (!needsValidation || null == elementFilter || elementFilter.test(e))) {
+                        nextElement = e;
+                    }
+                } catch (final IOException | VisibilityParseException e) {
+                    close();
+                    throw new RuntimeException("Exception while reading elements from " + filePath, e);
+                }
+            }
+            return null != nextElement;
+        }
+
+        @Override
+        public Element next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Element element = nextElement;
+            nextElement = null;
+            return element;
+        }
+
+        @Override
+        public void close() {
+            if (!finished) {
+                finished = true;
+                try {
+                    reader.close();
+                } catch (final IOException e) {
+                    LOGGER.warn("Failed to close the Parquet reader for file: {}", filePath, e);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.koryphe.impl.predicate.AgeOff;
+
+import java.util.function.Predicate;
+
+import static org.apache.parquet.filter2.predicate.FilterApi.gt;
+import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
+
+/**
+ * A {@link ParquetFilterConverter} for the {@link AgeOff} predicate, which converts it into a filter that keeps the
+ * timestamps that are after the current time minus the age off time. As the current time will have moved on by the
+ * time the rows are read the filter is not exact, so the predicate is still applied to the elements that are read.
+ */
+public class AgeOffFilterConverter implements ParquetFilterConverter {
+
+    @Override
+    public FilterPredicate convert(final Predicate<?> predicate, final String column, final String[] paths,
+                                   final GafferGroupObjectConverter converter) throws SerialisationException {
+        if (!(predicate instanceof AgeOff) || paths.length != 1) {
+            return null;
+        }
+        final long threshold = System.currentTimeMillis() - ((AgeOff) predicate).getAgeOffTime();
+        final Object[] parquetObjects = converter.gafferObjectToParquetObjects(column, threshold);
+        if (parquetObjects.length != 1 || !(parquetObjects[0] instanceof Long)) {
+            return null;
+        }
+        return gt(longColumn(paths[0]), (Long) parquetObjects[0]);
+    }
+}
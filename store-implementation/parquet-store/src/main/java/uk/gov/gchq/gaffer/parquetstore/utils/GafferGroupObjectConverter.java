@@ -39,6 +39,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class contains the logic for converting objects between the Gaffer, Parquet and Spark types for a single Gaffer group.
@@ -245,6 +246,20 @@ public class GafferGroupObjectConverter implements Serializable {
      * @throws SerialisationException if the parquet objects can not be de-serialised
      */
     public Element buildElementFromParquetObjects(final Map<String, Object[]> parquetColumnToObject, final boolean isEntity) throws SerialisationException {
+        return buildElementFromParquetObjects(parquetColumnToObject, isEntity, null);
+    }
+
+    /**
+     * Builds an {@link Element} from the Parquet objects of a single row, only converting the given Gaffer columns.
+     *
+     * @param parquetColumnToObject a mapping from Parquet column to the Parquet objects in that column
+     * @param isEntity              true if the element is an {@link Entity}
+     * @param columns               the Gaffer columns to convert, or null to convert all the columns
+     * @return the {@link Element}
+     * @throws SerialisationException if the Parquet objects could not be converted to the Gaffer objects
+     */
+    public Element buildElementFromParquetObjects(final Map<String, Object[]> parquetColumnToObject, final boolean isEntity,
+                                                  final Set<String> columns) throws SerialisationException {
         final Element e;
         if (isEntity) {
             e = new Entity(group);
@@ -256,6 +271,9 @@ public class GafferGroupObjectConverter implements Serializable {
         boolean isDir = false;
         for (final Map.Entry<String, String[]> columnToPaths : columnToPaths.entrySet()) {
             final String column = columnToPaths.getKey();
+            if (null != columns && !columns.contains(column)) {
+                continue;
+            }
             final String[] paths = columnToPaths.getValue();
             final Object[] parquetObjectsForColumn = new Object[paths.length];
             boolean isMap = false;
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+
+import java.util.function.Predicate;
+
+/**
+ * Converts a pre-aggregation filter {@link Predicate} that is not natively supported by the {@link ParquetFilterUtils}
+ * into a Parquet {@link FilterPredicate}, so that rows, pages and row groups which cannot match the predicate are
+ * skipped when the Parquet files are read rather than after the {@link uk.gov.gchq.gaffer.data.element.Element}s have
+ * been built.
+ * <p>
+ * Implementations must have a no-argument constructor and are registered with the store by adding their class names to
+ * {@link uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties#getFilterConverters()}.
+ */
+public interface ParquetFilterConverter {
+
+    /**
+     * Converts the predicate into a Parquet filter. The filter must keep every row for which the predicate could be
+     * true, but it may also keep rows for which the predicate is false.
+     *
+     * @param predicate the predicate to convert
+     * @param column    the Gaffer column that the predicate is applied to
+     * @param paths     the Parquet columns that the Gaffer column is stored in
+     * @param converter the {@link GafferGroupObjectConverter} for the group, which can be used to convert values to
+     *                  the form in which they are stored in the Parquet columns
+     * @return the Parquet filter, or null if this converter can not convert the predicate
+     * @throws SerialisationException if a value can not be converted to the form in which it is stored
+     */
+    FilterPredicate convert(final Predicate<?> predicate, final String column, final String[] paths,
+                            final GafferGroupObjectConverter converter) throws SerialisationException;
+
+    /**
+     * @param predicate a predicate that has been converted by this converter
+     * @return true if the filter returned by {@link #convert} keeps exactly the rows for which the predicate is true,
+     * in which case the predicate does not need to be applied again once the elements have been read
+     */
+    default boolean isExact(final Predicate<?> predicate) {
+        return false;
+    }
+}
@@ -34,12 +34,15 @@ import uk.gov.gchq.gaffer.operation.data.EdgeSeed;
 import uk.gov.gchq.gaffer.operation.data.EntitySeed;
 import uk.gov.gchq.gaffer.operation.graph.SeededGraphFilters;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.index.ColumnIndex;
 import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
 import uk.gov.gchq.gaffer.parquetstore.index.GroupIndex;
 import uk.gov.gchq.gaffer.parquetstore.index.MinValuesWithPath;
+import uk.gov.gchq.gaffer.serialisation.Serialiser;
 import uk.gov.gchq.koryphe.impl.predicate.And;
 import uk.gov.gchq.koryphe.impl.predicate.IsEqual;
 import uk.gov.gchq.koryphe.impl.predicate.IsFalse;
+import uk.gov.gchq.koryphe.impl.predicate.IsIn;
 import uk.gov.gchq.koryphe.impl.predicate.IsLessThan;
 import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
 import uk.gov.gchq.koryphe.impl.predicate.IsTrue;
@@ -82,6 +85,8 @@ public final class ParquetFilterUtils {
 
     private final String rootDir;
     private final SchemaUtils schemaUtils;
+    private final List<ParquetFilterConverter> filterConverters;
+    private final TimePartitioner timePartitioner;
     private String dataDir;
     private View view;
     private DirectedType directedType;
@@ -99,8 +104,22 @@ public final class ParquetFilterUtils {
      * @param store is the {@link ParquetStore} in use
      */
     public ParquetFilterUtils(final ParquetStore store) {
-        this.rootDir = store.getDataDir();
+        this(store, store.getDataDir());
+    }
+
+    /**
+     * A constructor to generate the mapping for the data in a different root directory, such as the directory
+     * containing the deltas of a snapshot.
+     *
+     * @param store   is the {@link ParquetStore} in use
+     * @param rootDir is the directory containing the directory named by the snapshot timestamp of the
+     *                {@link GraphIndex} that will be used
+     */
+    public ParquetFilterUtils(final ParquetStore store, final String rootDir) {
+        this.rootDir = rootDir;
         this.schemaUtils = store.getSchemaUtils();
+        this.filterConverters = store.getFilterConverters();
+        this.timePartitioner = store.getTimePartitioner();
         this.pathToFilterMap = new HashMap<>();
         this.requiresValidation = false;
     }
@@ -116,6 +135,9 @@ public final class ParquetFilterUtils {
     /**
      * Takes in the various inputs to get elements operations and generates a mapping of which paths to apply which
      * Parquet filters.
+     * <p>
+     * If the {@link GraphIndex} has any time buckets then the mapping also covers the buckets, skipping any bucket of a
+     * group whose times can not match the view before any of the seeds are looked up in the bucket's index.
      *
      * @param view                          the Gaffer {@link View} to be applied
      * @param directedType                  the {@link DirectedType} to be applied
@@ -135,13 +157,53 @@ public final class ParquetFilterUtils {
             final GraphIndex graphIndex)
             throws SerialisationException, OperationException {
         // Setup global variables to build a new PathToFilter mapping
-        this.dataDir = rootDir + "/" + graphIndex.getSnapshotTimestamp();
         this.view = view;
         this.directedType = directedType;
         this.includeIncomingOutgoingType = includeIncomingOutgoingType;
         this.seedMatchingType = seedMatchingType;
         this.seeds = seeds;
-        this.graphIndex = graphIndex;
+        final String snapshotDir = rootDir + "/" + graphIndex.getSnapshotTimestamp();
+        buildPathToFilterMapForIndex(snapshotDir, graphIndex, null);
+        if (graphIndex.getTimeBuckets().isEmpty()) {
+            return;
+        }
+        // Each bucket is mapped separately, as the group filters are applied to all the paths of a group in the mapping
+        final Map<Path, FilterPredicate> allPathsToFilters = new HashMap<>(pathToFilterMap);
+        boolean anyRequiresValidation = requiresValidation;
+        for (final GraphIndex bucketIndex : graphIndex.getTimeBuckets()) {
+            final Set<String> groups = new HashSet<>();
+            for (final String group : bucketIndex.groupsIndexed()) {
+                if (timePartitioner.mayMatch(view, group, bucketIndex.getTimeBucket())) {
+                    groups.add(group);
+                }
+            }
+            if (groups.isEmpty()) {
+                LOGGER.debug("Skipping {} as the view can not match any of its elements", bucketIndex.getTimeBucket());
+                continue;
+            }
+            buildPathToFilterMapForIndex(ParquetStore.getTimeBucketDirectory(rootDir, bucketIndex), bucketIndex, groups);
+            allPathsToFilters.putAll(pathToFilterMap);
+            anyRequiresValidation = anyRequiresValidation || requiresValidation;
+        }
+        pathToFilterMap.clear();
+        pathToFilterMap.putAll(allPathsToFilters);
+        requiresValidation = anyRequiresValidation;
+    }
+
+    /**
+     * Generates the mapping of which paths to apply which Parquet filters for the data of a single {@link GraphIndex},
+     * replacing the current mapping.
+     *
+     * @param indexDataDir  the directory containing the data of the index
+     * @param index         the {@link GraphIndex} of the data
+     * @param allowedGroups the groups to include, or null to include all the groups
+     * @throws SerialisationException   If any of the Gaffer objects are unable to be serialised to Parquet objects
+     * @throws OperationException   If a serialiser is used which serialises objects to a type not supported
+     */
+    private void buildPathToFilterMapForIndex(final String indexDataDir, final GraphIndex index, final Set<String> allowedGroups)
+            throws SerialisationException, OperationException {
+        this.dataDir = indexDataDir;
+        this.graphIndex = index;
         final Set<String> edgeGroups;
         final Set<String> entityGroups;
         if (null != view) {
@@ -159,8 +221,12 @@ public final class ParquetFilterUtils {
                 }
             }
         } else {
-            edgeGroups = schemaUtils.getEdgeGroups();
-            entityGroups = schemaUtils.getEntityGroups();
+            edgeGroups = new HashSet<>(schemaUtils.getEdgeGroups());
+            entityGroups = new HashSet<>(schemaUtils.getEntityGroups());
+        }
+        if (null != allowedGroups) {
+            edgeGroups.retainAll(allowedGroups);
+            entityGroups.retainAll(allowedGroups);
         }
         this.pathToFilterMap.clear();
         this.requiresValidation = false;
@@ -276,8 +342,8 @@ public final class ParquetFilterUtils {
             throws OperationException, SerialisationException {
         final Map<Object[], Set<Path>> seedsToPaths = getIndexedPathsForSeeds(sortedSeeds, indexedColumn, group);
         for (final Map.Entry<Object[], Set<Path>> entry : seedsToPaths.entrySet()) {
-            final Set<Path> paths = entry.getValue();
             final Object[] currentSeed = entry.getKey();
+            final Set<Path> paths = removePathsNotContainingSeed(currentSeed, entry.getValue(), indexedColumn, group);
             for (final Path path : paths) {
                 addPathToSeedFilter(path, currentSeed, indexedColumn, group, seed2Parts.getOrDefault(currentSeed, null), isEntityGroup);
             }
@@ -453,6 +519,38 @@ public final class ParquetFilterUtils {
         return seedsToPaths;
     }
 
+    /**
+     * Removes the paths that can not contain the given seed, either because the seed is greater than the max value of
+     * the indexed column in that file or because the file's Bloom filter does not contain the seed. Files that do not
+     * have a max value or Bloom filter in the index are kept.
+     *
+     * @param seed          Parquet objects representing the seed
+     * @param paths         The paths that may contain the seed based on the min values in the index
+     * @param indexedColumn The name of the Gaffer column that has been indexed
+     * @param group         The name of the Gaffer group
+     * @return the paths that may contain the seed
+     */
+    private Set<Path> removePathsNotContainingSeed(final Object[] seed, final Set<Path> paths, final String indexedColumn,
+                                                   final String group) {
+        final GroupIndex groupIndex = graphIndex.getGroup(group);
+        if (null == paths || null == groupIndex || null == groupIndex.getColumn(indexedColumn)) {
+            return paths;
+        }
+        final ColumnIndex columnIndex = groupIndex.getColumn(indexedColumn);
+        final Set<Path> filteredPaths = new HashSet<>(paths.size());
+        for (final Path path : paths) {
+            final MinValuesWithPath indexEntry = columnIndex.get(path.getName());
+            final boolean mayContainSeed = null == indexEntry
+                    || ((null == indexEntry.getMax() || COMPARATOR.compare(indexEntry.getMax(), seed) >= 0) && indexEntry.mightContain(seed));
+            if (mayContainSeed) {
+                filteredPaths.add(path);
+            } else {
+                LOGGER.debug("Skipping file {} as the index shows it does not contain the seed", path);
+            }
+        }
+        return filteredPaths;
+    }
+
     private Set<Path> getIndexedPathsForSeeds(final Object[] seed, final String indexedColumn,
                                                              final String group) {
         if (graphIndex.groupsIndexed().contains(group)) {
@@ -496,7 +594,7 @@ public final class ParquetFilterUtils {
             } else {
                 if (selectBefore && !foundGivenPaths) {
                     paths.add(currentPath);
-                } else if (!selectBefore && !foundGivenPaths) {
+                } else if (!selectBefore && foundGivenPaths) {
                     paths.add(currentPath);
                 }
             }
@@ -689,6 +787,10 @@ public final class ParquetFilterUtils {
     /**
      * Builds the Parquet filters for a given Gaffer filter and the selection of which columns to apply the filter to.
      * This method handles the nested And, Or and Not's.
+     * <p>
+     * If any part of the Gaffer filter can not be converted exactly then requiresValidation is set, so that the Gaffer
+     * filter is applied again to the elements that are read. An Or can only be converted if all of its predicates can
+     * be converted, and a Not can only be converted if its predicate can be converted exactly.
      *
      * @param filterFunction    A Gaffer filter
      * @param selection         An array of column names, either the Gaffer column names of Parquet column names
@@ -702,12 +804,23 @@ public final class ParquetFilterUtils {
         } else if (filterFunction instanceof Or) {
             return addOrFilter(((Or) filterFunction).getComponents(), selection, group);
         } else if (filterFunction instanceof Not) {
+            final boolean requiredValidation = requiresValidation;
+            requiresValidation = false;
             final Pair<FilterPredicate, Set<Path>> filterResult = buildFilter(((Not) filterFunction).getPredicate(), selection, group);
-            if (null == filterResult) {
+            final boolean isExact = !requiresValidation;
+            requiresValidation = requiredValidation;
+            if (null == filterResult || !isExact) {
+                // The negation of a filter that keeps too many rows would remove rows that should be kept
+                requiresValidation = true;
                 return null;
             } else {
                 return new Pair<>(not(filterResult.getFirst()), getAllPathsForColumn(group));
             }
+        } else if (selection.length != 1) {
+            LOGGER.warn(filterFunction.getClass().getCanonicalName()
+                    + " is applied to multiple columns so can not be converted to a Parquet filter, therefore execution will take longer to perform this filter.");
+            requiresValidation = true;
+            return null;
         } else {
             final Pair<FilterPredicate, Set<Path>> filterResult = addPrimitiveFilter(filterFunction, selection[0], group);
             if (null == filterResult) {
@@ -737,7 +850,12 @@ public final class ParquetFilterUtils {
                 filterFunction = functionContext;
                 newSelections = selection;
             }
-            filter = orFilter(filter, buildFilter(filterFunction, newSelections, group), multiSelection, group);
+            final Pair<FilterPredicate, Set<Path>> componentFilter = buildFilter(filterFunction, newSelections, group);
+            if (null == componentFilter) {
+                // Leaving out one of the predicates would remove the rows that only match that predicate
+                return null;
+            }
+            filter = orFilter(filter, componentFilter, multiSelection, group);
         }
         return filter;
     }
@@ -772,25 +890,160 @@ public final class ParquetFilterUtils {
         // All supported filters will be in the if else statement below
         if (filterFunction instanceof IsEqual) {
             return addIsEqualFilter(selection, schemaUtils.getConverter(group).gafferObjectToParquetObjects(selection, ((IsEqual) filterFunction).getControlValue()), group, false);
+        } else if (filterFunction instanceof IsIn) {
+            return addIsInFilter(selection, ((IsIn) filterFunction).getAllowedValues(), group);
         } else if (filterFunction instanceof IsLessThan) {
-            if (((IsLessThan) filterFunction).getOrEqualTo()) {
-                return addIsLessThanOrEqualToFilter(selection, schemaUtils.getConverter(group).gafferObjectToParquetObjects(selection, ((IsLessThan) filterFunction).getControlValue()), group);
-            } else {
-                return addIsLessThanFilter(selection, schemaUtils.getConverter(group).gafferObjectToParquetObjects(selection, ((IsLessThan) filterFunction).getControlValue()), group);
-            }
+            final IsLessThan isLessThan = (IsLessThan) filterFunction;
+            return addRangeFilter(selection, isLessThan.getControlValue(), isLessThan.getOrEqualTo(), true, group);
         } else if (filterFunction instanceof IsMoreThan) {
-            if (((IsMoreThan) filterFunction).getOrEqualTo()) {
-                return addIsMoreThanOrEqualToFilter(selection, schemaUtils.getConverter(group).gafferObjectToParquetObjects(selection, ((IsMoreThan) filterFunction).getControlValue()), group);
-            } else {
-                return addIsMoreThanFilter(selection, schemaUtils.getConverter(group).gafferObjectToParquetObjects(selection, ((IsMoreThan) filterFunction).getControlValue()), group);
-            }
+            final IsMoreThan isMoreThan = (IsMoreThan) filterFunction;
+            return addRangeFilter(selection, isMoreThan.getControlValue(), isMoreThan.getOrEqualTo(), false, group);
         } else if (filterFunction instanceof IsTrue) {
             return new Pair<>(eq(booleanColumn(selection), Boolean.TRUE), getAllPathsForColumn(group));
         } else if (filterFunction instanceof IsFalse) {
             return new Pair<>(eq(booleanColumn(selection), Boolean.FALSE), getAllPathsForColumn(group));
         } else {
-            LOGGER.warn(filterFunction.getClass().getCanonicalName() +
-                    " is not a natively supported filter by the Parquet store, therefore execution will take longer to perform this filter.");
+            return addConvertedFilter(filterFunction, selection, group);
+        }
+    }
+
+    /**
+     * Uses the first of the {@link ParquetFilterConverter}s provided by the store that can convert the Gaffer filter
+     * to build the Parquet filter.
+     *
+     * @param filterFunction A Gaffer filter that is not natively supported
+     * @param colName        The Gaffer column name that the filter is applied to
+     * @param group          A Gaffer group name
+     * @return The Parquet filter, or null if none of the converters can convert the Gaffer filter
+     * @throws SerialisationException If any of the Gaffer objects are unable to be serialised to Parquet objects
+     */
+    private Pair<FilterPredicate, Set<Path>> addConvertedFilter(final Predicate filterFunction,
+                                                                final String colName,
+                                                                final String group) throws SerialisationException {
+        String[] paths = schemaUtils.getPaths(group, colName);
+        if (null == paths) {
+            paths = new String[1];
+            paths[0] = colName;
+        }
+        final GafferGroupObjectConverter converter = schemaUtils.getConverter(group);
+        for (final ParquetFilterConverter filterConverter : filterConverters) {
+            final FilterPredicate filter = filterConverter.convert(filterFunction, colName, paths, converter);
+            if (null != filter) {
+                LOGGER.debug("Converted {} to {} using {}", filterFunction, filter, filterConverter.getClass().getName());
+                if (!filterConverter.isExact(filterFunction)) {
+                    requiresValidation = true;
+                }
+                return new Pair<>(filter, getAllPathsForColumn(group));
+            }
+        }
+        LOGGER.warn(filterFunction.getClass().getCanonicalName() +
+                " is not a natively supported filter by the Parquet store, therefore execution will take longer to perform this filter.");
+        return null;
+    }
+
+    /**
+     * Builds the Parquet filter for an {@link IsIn} filter, which is an Or of IsEqual filters for each allowed value.
+     *
+     * @param colName       The Gaffer column name that the filter is applied to
+     * @param allowedValues The allowed values
+     * @param group         A Gaffer group name
+     * @return The Parquet filter, or null if any of the allowed values can not be converted
+     * @throws SerialisationException If any of the Gaffer objects are unable to be serialised to Parquet objects
+     */
+    private Pair<FilterPredicate, Set<Path>> addIsInFilter(final String colName,
+                                                           final Set<Object> allowedValues,
+                                                           final String group) throws SerialisationException {
+        if (null == allowedValues || allowedValues.isEmpty()) {
+            return null;
+        }
+        final GafferGroupObjectConverter converter = schemaUtils.getConverter(group);
+        Pair<FilterPredicate, Set<Path>> filter = null;
+        for (final Object allowedValue : allowedValues) {
+            if (null == allowedValue) {
+                return null;
+            }
+            final Pair<FilterPredicate, Set<Path>> isEqualFilter = addIsEqualFilter(colName,
+                    converter.gafferObjectToParquetObjects(colName, allowedValue), group, false);
+            if (null == isEqualFilter) {
+                return null;
+            }
+            filter = orFilter(filter, isEqualFilter, false, group);
+        }
+        return filter;
+    }
+
+    /**
+     * Builds the Parquet filter for an {@link IsLessThan} or {@link IsMoreThan} filter. The filter is only converted if
+     * the column's serialiser preserves the ordering of the objects. If the Gaffer column is stored in multiple
+     * Parquet columns then these are ordered lexicographically, so only the first Parquet column can be filtered on
+     * and requiresValidation is set.
+     *
+     * @param colName      The Gaffer column name that the filter is applied to
+     * @param controlValue The value to compare against
+     * @param orEqualTo    Whether values equal to the control value should be kept
+     * @param lessThan     true for an {@link IsLessThan} filter and false for an {@link IsMoreThan} filter
+     * @param group        A Gaffer group name
+     * @return The Parquet filter, or null if the filter can not be converted
+     * @throws SerialisationException If any of the Gaffer objects are unable to be serialised to Parquet objects
+     */
+    private Pair<FilterPredicate, Set<Path>> addRangeFilter(final String colName,
+                                                            final Object controlValue,
+                                                            final boolean orEqualTo,
+                                                            final boolean lessThan,
+                                                            final String group) throws SerialisationException {
+        if (null == controlValue) {
+            return null;
+        }
+        final String serialiserName = schemaUtils.getColumnToSerialiser(group).get(colName);
+        final Serialiser serialiser = null == serialiserName ? null : schemaUtils.getSerialisers().get(serialiserName);
+        if (null != serialiser && !serialiser.preservesObjectOrdering()) {
+            LOGGER.debug("The serialiser for column {} does not preserve ordering so the range filter can not be converted", colName);
+            return null;
+        }
+        final Object[] parquetObjects = schemaUtils.getConverter(group).gafferObjectToParquetObjects(colName, controlValue);
+        if (parquetObjects.length > 1) {
+            final String[] paths = schemaUtils.getPaths(group, colName);
+            if (null == paths) {
+                return null;
+            }
+            final FilterPredicate filter = buildInclusiveRangeFilter(paths[0], parquetObjects[0], lessThan);
+            if (null == filter) {
+                return null;
+            }
+            requiresValidation = true;
+            return new Pair<>(filter, getAllPathsForColumn(group));
+        }
+        if (lessThan) {
+            if (orEqualTo) {
+                return addIsLessThanOrEqualToFilter(colName, parquetObjects, group);
+            } else {
+                return addIsLessThanFilter(colName, parquetObjects, group);
+            }
+        } else {
+            if (orEqualTo) {
+                return addIsMoreThanOrEqualToFilter(colName, parquetObjects, group);
+            } else {
+                return addIsMoreThanFilter(colName, parquetObjects, group);
+            }
+        }
+    }
+
+    private static FilterPredicate buildInclusiveRangeFilter(final String path, final Object parquetObject, final boolean lessThan) {
+        if (parquetObject instanceof String) {
+            final Binary value = Binary.fromString((String) parquetObject);
+            return lessThan ? ltEq(binaryColumn(path), value) : gtEq(binaryColumn(path), value);
+        } else if (parquetObject instanceof Double) {
+            return lessThan ? ltEq(doubleColumn(path), (Double) parquetObject) : gtEq(doubleColumn(path), (Double) parquetObject);
+        } else if (parquetObject instanceof Float) {
+            return lessThan ? ltEq(floatColumn(path), (Float) parquetObject) : gtEq(floatColumn(path), (Float) parquetObject);
+        } else if (parquetObject instanceof Integer) {
+            return lessThan ? ltEq(intColumn(path), (Integer) parquetObject) : gtEq(intColumn(path), (Integer) parquetObject);
+        } else if (parquetObject instanceof Long) {
+            return lessThan ? ltEq(longColumn(path), (Long) parquetObject) : gtEq(longColumn(path), (Long) parquetObject);
+        } else if (parquetObject instanceof byte[]) {
+            final Binary value = Binary.fromReusedByteArray((byte[]) parquetObject);
+            return lessThan ? ltEq(binaryColumn(path), value) : gtEq(binaryColumn(path), value);
+        } else {
             return null;
         }
     }
@@ -888,10 +1141,11 @@ public final class ParquetFilterUtils {
                 filter = and(filter, tempFilter);
             }
         }
-        final Set<Path> filePaths = getIndexedPathsForSeeds(parquetObjects, colName, group);
         if (skipPaths) {
             return new Pair<>(filter, null);
         } else {
+            final Set<Path> filePaths = removePathsNotContainingSeed(parquetObjects,
+                    getIndexedPathsForSeeds(parquetObjects, colName, group), colName, group);
             if (null == filePaths) {
                 return new Pair<>(filter, getAllPathsForColumn(group));
             } else {
@@ -46,6 +46,10 @@ public final class ParquetStoreConstants {
     public static final String GROUP = "GROUP";
     public static final String SORTED = "sorted";
     public static final String INDEX = "_index";
+    public static final String DELTAS = "deltas";
+    public static final String REPLACED_DELTAS = "_replaced_deltas";
+    public static final String TIME_BUCKETS = "time_buckets";
+    public static final String REFERENCED_TIME_BUCKETS = "_referenced_time_buckets";
     public static final String VERTEX = IdentifierType.VERTEX.name();
     public static final String SOURCE = IdentifierType.SOURCE.name();
     public static final String DESTINATION = IdentifierType.DESTINATION.name();
@@ -52,6 +52,12 @@ public final class ParquetStoreUtils {
         return Executors.newFixedThreadPool(numberOfThreads);
     }
 
+    public static ExecutorService createThreadPool(final ParquetStoreProperties storeProperties) {
+        final int numberOfThreads = storeProperties.getThreadsAvailable();
+        LOGGER.debug("Created thread pool of size {} to aggregate and sort data", numberOfThreads);
+        return Executors.newFixedThreadPool(numberOfThreads);
+    }
+
     public static void invokeSplitPointCalculations(final ExecutorService pool,
                                                     final List<Callable<Tuple2<String, Map<Object, Integer>>>> tasks,
                                                     final Map<String, Map<Object, Integer>> groupToSplitPoints) throws OperationException {
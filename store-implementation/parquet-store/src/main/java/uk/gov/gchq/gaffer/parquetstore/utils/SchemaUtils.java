@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import uk.gov.gchq.gaffer.data.elementdefinition.exception.SchemaException;
 import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
 import uk.gov.gchq.gaffer.exception.SerialisationException;
 import uk.gov.gchq.gaffer.parquetstore.serialisation.ParquetSerialiser;
 import uk.gov.gchq.gaffer.parquetstore.serialisation.impl.BooleanParquetSerialiser;
@@ -32,9 +33,15 @@ import uk.gov.gchq.gaffer.serialisation.Serialiser;
 import uk.gov.gchq.gaffer.store.schema.Schema;
 import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
 import uk.gov.gchq.gaffer.store.schema.TypeDefinition;
+import uk.gov.gchq.gaffer.store.util.AggregatorUtil;
+import uk.gov.gchq.koryphe.tuple.function.TupleAdaptedFunction;
+import uk.gov.gchq.koryphe.tuple.predicate.TupleAdaptedPredicate;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -285,6 +292,68 @@ public class SchemaUtils {
         }
     }
 
+    /**
+     * Works out which Gaffer columns need to be read from the Parquet files for the given group so that the
+     * {@link View} can be applied. This includes the identifiers, the group by and visibility properties, the
+     * properties requested by the view and any properties selected by the view's filters and transform functions.
+     *
+     * @param group          the group
+     * @param viewElementDef the {@link ViewElementDefinition} for the group in the {@link View} to be applied
+     * @return the Gaffer columns to read, or null if all the columns need to be read
+     */
+    public Set<String> getColumnsToRead(final String group, final ViewElementDefinition viewElementDef) {
+        final SchemaElementDefinition schemaElementDef = gafferSchema.getElement(group);
+        if (null == viewElementDef || null == schemaElementDef || viewElementDef.isAllProperties()) {
+            return null;
+        }
+
+        final Set<String> columns = new HashSet<>();
+        if (null != viewElementDef.getProperties()) {
+            columns.addAll(viewElementDef.getProperties());
+        } else {
+            columns.addAll(schemaElementDef.getProperties());
+            columns.removeAll(viewElementDef.getExcludeProperties());
+        }
+        columns.addAll(AggregatorUtil.getIngestGroupBy(group, gafferSchema));
+        if (null != viewElementDef.getGroupBy()) {
+            columns.addAll(viewElementDef.getGroupBy());
+        }
+        addPredicateSelections(viewElementDef.getPreAggregationFilterFunctions(), columns);
+        addPredicateSelections(viewElementDef.getPostAggregationFilterFunctions(), columns);
+        addPredicateSelections(viewElementDef.getPostTransformFilterFunctions(), columns);
+        final List<TupleAdaptedFunction<String, ?, ?>> transformFunctions = viewElementDef.getTransformFunctions();
+        if (null != transformFunctions) {
+            for (final TupleAdaptedFunction<String, ?, ?> function : transformFunctions) {
+                addSelection(function.getSelection(), columns);
+            }
+        }
+        if (columns.containsAll(schemaElementDef.getProperties())) {
+            return null;
+        }
+        if (getEntityGroups().contains(group)) {
+            columns.add(ParquetStoreConstants.VERTEX);
+        } else {
+            columns.add(ParquetStoreConstants.SOURCE);
+            columns.add(ParquetStoreConstants.DESTINATION);
+            columns.add(ParquetStoreConstants.DIRECTED);
+        }
+        return columns;
+    }
+
+    private static void addPredicateSelections(final List<TupleAdaptedPredicate<String, ?>> predicates, final Set<String> columns) {
+        if (null != predicates) {
+            for (final TupleAdaptedPredicate<String, ?> predicate : predicates) {
+                addSelection(predicate.getSelection(), columns);
+            }
+        }
+    }
+
+    private static void addSelection(final String[] selection, final Set<String> columns) {
+        if (null != selection) {
+            Collections.addAll(columns, selection);
+        }
+    }
+
     public View getEmptyView() {
         final View.Builder viewBuilder = new View.Builder();
         viewBuilder.entities(getEntityGroups());
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.collection.Seq;
+
+import uk.gov.gchq.gaffer.data.element.Edge;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Methods used to sort the data of a group on ingest.
+ */
+public final class SortUtils {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SortUtils.class);
+
+    private SortUtils() {
+    }
+
+    /**
+     * Sorts the Parquet data in the input directory and writes it to the output directory as at most the given
+     * number of files, named {@code part-<partition number>-...} in sort order.
+     * <p>
+     * If a single file is requested the data is sorted by one Spark task. Otherwise Spark's global sort is used, so the
+     * data is range partitioned into that number of partitions and each range is sorted by its own task. In both cases
+     * the sort is done by Spark's external sorter, which spills to disk when the data does not fit in the memory
+     * available to the task, so there is no separate merge of sorted runs.
+     * <p>
+     * The global sort takes its number of partitions from {@code spark.sql.shuffle.partitions}, so it runs in a new
+     * session, sharing the {@link org.apache.spark.SparkContext} and SQL configuration of the given session, so
+     * that the sorts of different groups running at the same time, and the given session, are not affected.
+     *
+     * @param spark            the Spark session
+     * @param props            the store properties
+     * @param inputDir         the path pattern of the data to sort
+     * @param outputDir        the directory to write the sorted data to
+     * @param numberOfFiles    the maximum number of files to write
+     * @param firstSortColumn  the first column to sort by
+     * @param otherSortColumns the other columns to sort by
+     */
+    public static void sort(final SparkSession spark, final ParquetStoreProperties props, final String inputDir,
+                            final String outputDir, final int numberOfFiles, final String firstSortColumn,
+                            final Seq<String> otherSortColumns) {
+        LOGGER.debug("Sorting {} into {} files in {}", inputDir, numberOfFiles, outputDir);
+        final Dataset<Row> sorted;
+        if (numberOfFiles <= 1) {
+            sorted = spark.read()
+                    .option("mergeSchema", true)
+                    .parquet(inputDir)
+                    .coalesce(1)
+                    .sortWithinPartitions(firstSortColumn, otherSortColumns);
+        } else {
+            final SparkSession sortSession = SparkParquetUtils.newSession(spark);
+            sortSession.conf().set("spark.sql.shuffle.partitions", numberOfFiles);
+            sorted = sortSession.read()
+                    .option("mergeSchema", true)
+                    .parquet(inputDir)
+                    .sort(firstSortColumn, otherSortColumns);
+        }
+        sorted.write()
+                .option("compression", props.getCompressionCodec().name().toLowerCase(Locale.ENGLISH))
+                .parquet(outputDir);
+    }
+
+    /**
+     * Builds the key that elements are sorted by, which is the Parquet objects of the vertex for entities, or of the
+     * given column followed by the other column and the directed flag for edges.
+     *
+     * @param converter the converter for the element's group
+     * @param isEntity  true if the element is an {@link Entity}
+     * @param column    the column that the elements are sorted by
+     * @param element   the element
+     * @return the sort key
+     * @throws SerialisationException if the vertices can not be converted to Parquet objects
+     */
+    public static Object[] getSortKey(final GafferGroupObjectConverter converter, final boolean isEntity,
+                                      final String column, final Element element) throws SerialisationException {
+        if (isEntity) {
+            return converter.gafferObjectToParquetObjects(ParquetStoreConstants.VERTEX, ((Entity) element).getVertex());
+        }
+        final Edge edge = (Edge) element;
+        final Object[] source = converter.gafferObjectToParquetObjects(ParquetStoreConstants.SOURCE, edge.getSource());
+        final Object[] destination = converter.gafferObjectToParquetObjects(ParquetStoreConstants.DESTINATION, edge.getDestination());
+        final Object[] first = ParquetStoreConstants.DESTINATION.equals(column) ? destination : source;
+        final Object[] second = ParquetStoreConstants.DESTINATION.equals(column) ? source : destination;
+        final Object[] key = Arrays.copyOf(first, first.length + second.length + 1);
+        System.arraycopy(second, 0, key, first.length, second.length);
+        key[key.length - 1] = edge.isDirected();
+        return key;
+    }
+}
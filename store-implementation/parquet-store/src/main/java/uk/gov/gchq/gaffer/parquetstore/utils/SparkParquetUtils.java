@@ -17,18 +17,42 @@
 package uk.gov.gchq.gaffer.parquetstore.utils;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.spark.sql.SparkSession;
 import org.apache.spark.sql.internal.SQLConf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.collection.JavaConversions;
 
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * This is where all the Spark configure required to write out the data is set.
+ * This is where all the Spark configure required to write out and read in the data is set.
  */
 public final class SparkParquetUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(SparkParquetUtils.class);
+    private static final String VECTORIZED_READER = "spark.sql.parquet.enableVectorizedReader";
+    private static final Set<Encoding> VECTORIZED_READER_UNSUPPORTED_ENCODINGS = EnumSet.of(
+            Encoding.DELTA_BINARY_PACKED, Encoding.DELTA_LENGTH_BYTE_ARRAY, Encoding.DELTA_BYTE_ARRAY);
 
     private SparkParquetUtils() {
     }
@@ -47,13 +71,137 @@ public final class SparkParquetUtils {
         configureSparkConfForAddElements(hadoopConf, props);
     }
 
+    /**
+     * Gets the Spark session to use to read the data of an {@code AddElements} operation. Spark's vectorized Parquet
+     * reader does not support the delta encodings, which are used by the {@code v2} writer version, see
+     * {@link ParquetStoreProperties#getWriterVersion()}. If the data is written with {@code v2}, or the current
+     * snapshot contains data using those encodings, a new session with the vectorized reader disabled is returned,
+     * so the given session is not changed.
+     *
+     * @param spark the Spark session of the operation
+     * @param store the {@link ParquetStore}
+     * @return the given session, or a new session if the vectorized reader can not be used
+     * @throws IOException if the footers of the current snapshot can not be read
+     */
+    public static SparkSession getSessionForAddElements(final SparkSession spark, final ParquetStore store) throws IOException {
+        if (ParquetProperties.WriterVersion.PARQUET_2_0 == store.getProperties().getWriterVersion()) {
+            LOGGER.debug("Disabling Spark's vectorized Parquet reader as the data is written with writer version v2");
+            return getSessionWithoutVectorizedReader(spark);
+        }
+        final GraphIndex index = store.getGraphIndex();
+        if (null == index) {
+            return spark;
+        }
+        final List<String> dirs = new ArrayList<>();
+        dirs.add(store.getDataDir() + "/" + index.getSnapshotTimestamp());
+        for (final GraphIndex bucket : index.getTimeBuckets()) {
+            dirs.add(ParquetStore.getTimeBucketDirectory(store.getDataDir(), bucket));
+        }
+        return getSessionForReading(spark, store.getFS(), dirs.toArray(new String[dirs.size()]));
+    }
+
+    /**
+     * Gets the Spark session to use to read the given Parquet data. If any of the files contain a column using an
+     * encoding that Spark's vectorized Parquet reader does not support, a new session with the vectorized reader
+     * disabled is returned, so the given session is not changed. Spark then reads the files using Parquet's own
+     * reader.
+     *
+     * @param spark        the Spark session
+     * @param fs           the file system
+     * @param pathPatterns the path patterns of the directories or files that will be read
+     * @return the given session, or a new session if the vectorized reader can not be used
+     * @throws IOException if the footers can not be read
+     */
+    public static SparkSession getSessionForReading(final SparkSession spark, final FileSystem fs,
+                                                    final String... pathPatterns) throws IOException {
+        if (isVectorizedReaderSupported(fs, pathPatterns)) {
+            return spark;
+        }
+        LOGGER.debug("Disabling Spark's vectorized Parquet reader as the data uses delta encodings");
+        return getSessionWithoutVectorizedReader(spark);
+    }
+
+    /**
+     * Checks the footers of the Parquet files matching the given path patterns for the encodings that Spark's
+     * vectorized Parquet reader does not support.
+     *
+     * @param fs           the file system
+     * @param pathPatterns the path patterns of the directories or files to check
+     * @return true if the vectorized reader can read all of the files
+     * @throws IOException if the footers can not be read
+     */
+    public static boolean isVectorizedReaderSupported(final FileSystem fs, final String... pathPatterns) throws IOException {
+        for (final String pathPattern : pathPatterns) {
+            final FileStatus[] statuses = fs.globStatus(new Path(pathPattern));
+            if (null == statuses) {
+                continue;
+            }
+            for (final FileStatus status : statuses) {
+                final RemoteIterator<LocatedFileStatus> files = fs.listFiles(status.getPath(), true);
+                while (files.hasNext()) {
+                    final LocatedFileStatus file = files.next();
+                    if (file.getPath().getName().endsWith(".parquet") && usesUnsupportedEncoding(fs.getConf(), file)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a new session that shares the {@link org.apache.spark.SparkContext} of the given session and has a copy
+     * of its SQL configuration, which {@link SparkSession#newSession()} does not copy, so that settings can be changed
+     * for the store's own use without affecting the given session.
+     *
+     * @param spark the Spark session
+     * @return the new session
+     */
+    public static SparkSession newSession(final SparkSession spark) {
+        final SparkSession session = spark.newSession();
+        for (final Map.Entry<String, String> entry : JavaConversions.mapAsJavaMap(spark.conf().getAll()).entrySet()) {
+            // Static settings are shared, and can not be set, so only the settings that differ are copied
+            if (!entry.getValue().equals(session.conf().get(entry.getKey(), null))) {
+                session.conf().set(entry.getKey(), entry.getValue());
+            }
+        }
+        return session;
+    }
+
+    private static SparkSession getSessionWithoutVectorizedReader(final SparkSession spark) {
+        if (!Boolean.parseBoolean(spark.conf().get(VECTORIZED_READER, "true"))) {
+            return spark;
+        }
+        final SparkSession session = newSession(spark);
+        session.conf().set(VECTORIZED_READER, false);
+        return session;
+    }
+
+    private static boolean usesUnsupportedEncoding(final Configuration conf, final FileStatus file) throws IOException {
+        for (final BlockMetaData block : ParquetFileReader.readFooter(conf, file, ParquetMetadataConverter.NO_FILTER).getBlocks()) {
+            for (final ColumnChunkMetaData column : block.getColumns()) {
+                for (final Encoding encoding : column.getEncodings()) {
+                    if (VECTORIZED_READER_UNSUPPORTED_ENCODINGS.contains(encoding)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
     private static void configureSparkConfForAddElements(final Configuration hadoopConf, final ParquetStoreProperties props) {
         LOGGER.debug("Setting the parquet file properties");
         LOGGER.debug("Row group size: {}", props.getRowGroupSize());
         LOGGER.debug("Page size: {}", props.getPageSize());
+        LOGGER.debug("Dictionary page size: {}", props.getDictionaryPageSize());
+        LOGGER.debug("Dictionary encoding: {}", props.getDictionaryEncoding());
+        LOGGER.debug("Writer version: {}", props.getWriterVersion());
         hadoopConf.setInt("parquet.block.size", props.getRowGroupSize());
         hadoopConf.setInt("parquet.page.size", props.getPageSize());
-        hadoopConf.setInt("parquet.dictionary.page.size", props.getPageSize());
+        hadoopConf.setInt("parquet.dictionary.page.size", props.getDictionaryPageSize());
+        hadoopConf.setBoolean("parquet.enable.dictionary", props.getDictionaryEncoding());
+        hadoopConf.set("parquet.writer.version", props.getWriterVersion().getShortName());
         hadoopConf.set("mapreduce.fileoutputcommitter.marksuccessfuljobs", "false");
         hadoopConf.set("parquet.enable.summary-metadata", "false");
     }
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.index.TimeBucket;
+import uk.gov.gchq.gaffer.store.StoreException;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.schema.SchemaElementDefinition;
+import uk.gov.gchq.koryphe.impl.predicate.AgeOff;
+import uk.gov.gchq.koryphe.impl.predicate.And;
+import uk.gov.gchq.koryphe.impl.predicate.IsEqual;
+import uk.gov.gchq.koryphe.impl.predicate.IsIn;
+import uk.gov.gchq.koryphe.impl.predicate.IsLessThan;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
+import uk.gov.gchq.koryphe.impl.predicate.Or;
+import uk.gov.gchq.koryphe.tuple.predicate.TupleAdaptedPredicate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Decides which {@link TimeBucket} the elements of the groups that are partitioned by time belong in, see
+ * {@link ParquetStoreProperties#getTimePartitioningProperty(String)}, and which buckets a query could match.
+ * <p>
+ * A bucket can be skipped by a query if the pre-aggregation filters of the {@link View} restrict the group's time
+ * property to a range of times that does not overlap the bucket. The filters that restrict the range are
+ * {@link IsMoreThan}, {@link IsLessThan}, {@link IsEqual}, {@link IsIn} and {@link AgeOff}, and any combination of them
+ * using {@link And} and {@link Or}. Any other filter is assumed to match elements at any time.
+ */
+public class TimePartitioner {
+    private static final long[] UNBOUNDED = new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+
+    private final Map<String, String> groupToProperty;
+    private final long bucketSize;
+
+    public TimePartitioner(final Schema schema, final ParquetStoreProperties properties) throws StoreException {
+        final Map<String, String> partitionedGroups = new HashMap<>();
+        for (final String group : schema.getGroups()) {
+            final String property = properties.getTimePartitioningProperty(group);
+            if (null != property) {
+                validate(group, property, schema.getElement(group));
+                partitionedGroups.put(group, property);
+            }
+        }
+        this.groupToProperty = Collections.unmodifiableMap(partitionedGroups);
+        this.bucketSize = properties.getTimePartitioningBucketSize();
+        if (!partitionedGroups.isEmpty() && bucketSize <= 0L) {
+            throw new StoreException("The time partitioning bucket size must be positive (it was " + bucketSize + ")");
+        }
+    }
+
+    /**
+     * @return true if any group is partitioned by time
+     */
+    public boolean isPartitioned() {
+        return !groupToProperty.isEmpty();
+    }
+
+    public boolean isPartitioned(final String group) {
+        return groupToProperty.containsKey(group);
+    }
+
+    public String getProperty(final String group) {
+        return groupToProperty.get(group);
+    }
+
+    public long getBucketSize() {
+        return bucketSize;
+    }
+
+    /**
+     * @param element the element
+     * @return the {@link TimeBucket} the element belongs in, or null if its group is not partitioned by time or it does
+     * not have a time
+     */
+    public TimeBucket getTimeBucket(final Element element) {
+        final String property = groupToProperty.get(element.getGroup());
+        if (null == property) {
+            return null;
+        }
+        final Long timestamp = toTimestamp(element.getProperty(property));
+        if (null == timestamp) {
+            return null;
+        }
+        return TimeBucket.forTimestamp(timestamp, bucketSize);
+    }
+
+    /**
+     * @param view   the {@link View} of the query
+     * @param group  the group
+     * @param bucket the {@link TimeBucket}
+     * @return false if none of the elements of the group in the bucket can match the pre-aggregation filters of the
+     * view
+     */
+    public boolean mayMatch(final View view, final String group, final TimeBucket bucket) {
+        final String property = groupToProperty.get(group);
+        if (null == view || null == property) {
+            return true;
+        }
+        final ViewElementDefinition groupView = view.getElement(group);
+        if (null == groupView || null == groupView.getPreAggregationFilterFunctions()) {
+            return true;
+        }
+        long[] range = UNBOUNDED;
+        for (final TupleAdaptedPredicate<String, ?> filterFunction : groupView.getPreAggregationFilterFunctions()) {
+            range = intersect(range, getRange(filterFunction.getPredicate(), filterFunction.getSelection(), property));
+        }
+        return range[0] <= range[1] && bucket.overlaps(range[0], range[1]);
+    }
+
+    /**
+     * @param value the value of a time property
+     * @return the time in milliseconds, or null if the value is not a time
+     */
+    public static Long toTimestamp(final Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+
+    private static void validate(final String group, final String property, final SchemaElementDefinition elementDef)
+            throws StoreException {
+        if (!elementDef.containsProperty(property)) {
+            throw new StoreException("Group " + group + " can not be partitioned by time using property " + property
+                    + " as the group does not have that property");
+        }
+        final Class<?> propertyClass = elementDef.getPropertyClass(property);
+        if (!Date.class.isAssignableFrom(propertyClass) && !Long.class.equals(propertyClass)
+                && !Integer.class.equals(propertyClass) && !Short.class.equals(propertyClass)
+                && !Byte.class.equals(propertyClass)) {
+            throw new StoreException("Group " + group + " can not be partitioned by time using property " + property
+                    + " as the property is a " + propertyClass.getName() + " rather than a Date or whole number");
+        }
+        if (elementDef.isAggregate() && !elementDef.getGroupBy().contains(property)) {
+            throw new StoreException("Group " + group + " can not be partitioned by time using property " + property
+                    + " as the property is not one of the group by properties of the group");
+        }
+    }
+
+    private static long[] getRange(final Predicate<?> predicate, final Object[] selection, final String property) {
+        if (predicate instanceof And) {
+            long[] range = UNBOUNDED;
+            for (final Predicate<?> component : ((And<?>) predicate).getComponents()) {
+                range = intersect(range, getComponentRange(component, selection, property));
+            }
+            return range;
+        } else if (predicate instanceof Or) {
+            long[] range = null;
+            for (final Predicate<?> component : ((Or<?>) predicate).getComponents()) {
+                range = hull(range, getComponentRange(component, selection, property));
+            }
+            return null == range ? UNBOUNDED : range;
+        } else if (selection.length != 1 || !property.equals(selection[0])) {
+            return UNBOUNDED;
+        } else if (predicate instanceof IsMoreThan) {
+            final IsMoreThan isMoreThan = (IsMoreThan) predicate;
+            final Long timestamp = toTimestamp(isMoreThan.getControlValue());
+            if (null == timestamp) {
+                return UNBOUNDED;
+            }
+            final boolean inclusive = isMoreThan.getOrEqualTo() || Long.MAX_VALUE == timestamp;
+            return new long[]{inclusive ? timestamp : timestamp + 1, Long.MAX_VALUE};
+        } else if (predicate instanceof IsLessThan) {
+            final IsLessThan isLessThan = (IsLessThan) predicate;
+            final Long timestamp = toTimestamp(isLessThan.getControlValue());
+            if (null == timestamp) {
+                return UNBOUNDED;
+            }
+            final boolean inclusive = isLessThan.getOrEqualTo() || Long.MIN_VALUE == timestamp;
+            return new long[]{Long.MIN_VALUE, inclusive ? timestamp : timestamp - 1};
+        } else if (predicate instanceof IsEqual) {
+            final Long timestamp = toTimestamp(((IsEqual) predicate).getControlValue());
+            return null == timestamp ? UNBOUNDED : new long[]{timestamp, timestamp};
+        } else if (predicate instanceof IsIn) {
+            final Set<Object> allowedValues = ((IsIn) predicate).getAllowedValues();
+            if (null == allowedValues) {
+                return UNBOUNDED;
+            }
+            long[] range = null;
+            for (final Object value : allowedValues) {
+                final Long timestamp = toTimestamp(value);
+                if (null == timestamp) {
+                    return UNBOUNDED;
+                }
+                range = hull(range, new long[]{timestamp, timestamp});
+            }
+            return null == range ? UNBOUNDED : range;
+        } else if (predicate instanceof AgeOff) {
+            // The current time will have moved on by the time the elements are read, so the range is not exact
+            return new long[]{System.currentTimeMillis() - ((AgeOff) predicate).getAgeOffTime(), Long.MAX_VALUE};
+        }
+        return UNBOUNDED;
+    }
+
+    private static long[] getComponentRange(final Predicate<?> component, final Object[] selection, final String property) {
+        if (component instanceof TupleAdaptedPredicate) {
+            final Integer[] ints = (Integer[]) ((TupleAdaptedPredicate) component).getSelection();
+            final Object[] newSelection = new Object[ints.length];
+            for (int x = 0; x < ints.length; x++) {
+                newSelection[x] = selection[ints[x]];
+            }
+            return getRange(((TupleAdaptedPredicate<?, ?>) component).getPredicate(), newSelection, property);
+        }
+        return getRange(component, selection, property);
+    }
+
+    private static long[] intersect(final long[] a, final long[] b) {
+        return new long[]{Math.max(a[0], b[0]), Math.min(a[1], b[1])};
+    }
+
+    private static long[] hull(final long[] a, final long[] b) {
+        if (null == a || a[0] > a[1]) {
+            return b;
+        } else if (b[0] > b[1]) {
+            return a;
+        }
+        return new long[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])};
+    }
+}
@@ -17,6 +17,8 @@
 package uk.gov.gchq.gaffer.parquetstore;
 
 import com.fasterxml.jackson.databind.Module;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -70,6 +72,31 @@ public class ParquetStorePropertiesTest {
         assertEquals((Integer) 100000, props.getPageSize());
     }
 
+    @Test
+    public void dictionaryPageSizeTest() {
+        assertEquals((Integer) 1048576, props.getDictionaryPageSize());
+        props.setPageSize(100000);
+        assertEquals((Integer) 100000, props.getDictionaryPageSize());
+        props.setDictionaryPageSize(200000);
+        assertEquals((Integer) 200000, props.getDictionaryPageSize());
+    }
+
+    @Test
+    public void dictionaryEncodingTest() {
+        assertEquals(true, props.getDictionaryEncoding());
+        props.setDictionaryEncoding(false);
+        assertEquals(false, props.getDictionaryEncoding());
+    }
+
+    @Test
+    public void writerVersionTest() {
+        assertEquals(ParquetProperties.WriterVersion.PARQUET_1_0, props.getWriterVersion());
+        props.setWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0);
+        assertEquals(ParquetProperties.WriterVersion.PARQUET_2_0, props.getWriterVersion());
+        props.set(ParquetStoreProperties.PARQUET_WRITER_VERSION, "v1");
+        assertEquals(ParquetProperties.WriterVersion.PARQUET_1_0, props.getWriterVersion());
+    }
+
     @Test
     public void sampleRateTest(){
         assertEquals((Integer) 10, props.getSampleRate());
@@ -84,6 +111,47 @@ public class ParquetStorePropertiesTest {
         assertEquals(10000, props.getAddElementsOutputFilesPerGroup());
     }
 
+    @Test
+    public void compressionCodecTest() {
+        assertEquals(CompressionCodecName.GZIP, props.getCompressionCodec());
+        props.setCompressionCodec(CompressionCodecName.SNAPPY);
+        assertEquals(CompressionCodecName.SNAPPY, props.getCompressionCodec());
+    }
+
+    @Test
+    public void getElementsQueueSizeTest() {
+        assertEquals(10000, props.getGetElementsQueueSize());
+        props.setGetElementsQueueSize(100);
+        assertEquals(100, props.getGetElementsQueueSize());
+    }
+
+    @Test
+    public void indexBloomFilterFalsePositiveRateTest() {
+        assertEquals(0.0, props.getIndexBloomFilterFalsePositiveRate(), 0.0);
+        props.setIndexBloomFilterFalsePositiveRate(0.01);
+        assertEquals(0.01, props.getIndexBloomFilterFalsePositiveRate(), 0.0);
+    }
+
+    @Test
+    public void addElementsIncrementalTest() {
+        assertEquals(false, props.getAddElementsIncremental());
+        props.setAddElementsIncremental(true);
+        assertEquals(true, props.getAddElementsIncremental());
+    }
+
+    @Test
+    public void compactionTest() {
+        assertEquals(4, props.getCompactionMinDeltasPerTier());
+        assertEquals(16, props.getCompactionMaxDeltas());
+        assertEquals(0.25, props.getCompactionMaxDeltaRatio(), 0.0);
+        props.setCompactionMinDeltasPerTier(2);
+        props.setCompactionMaxDeltas(8);
+        props.setCompactionMaxDeltaRatio(0.5);
+        assertEquals(2, props.getCompactionMinDeltasPerTier());
+        assertEquals(8, props.getCompactionMaxDeltas());
+        assertEquals(0.5, props.getCompactionMaxDeltaRatio(), 0.0);
+    }
+
     @Test
     public void aggregateTest() {
         assertEquals(true, props.getAggregateOnIngest());
@@ -98,6 +166,17 @@ public class ParquetStorePropertiesTest {
         assertEquals(true, props.getSortBySplitsOnIngest());
     }
 
+    @Test
+    public void timePartitioningTest() {
+        assertEquals(null, props.getTimePartitioningProperty("BasicEdge"));
+        assertEquals(86400000L, props.getTimePartitioningBucketSize());
+        props.setTimePartitioningProperty("BasicEdge", "date");
+        props.setTimePartitioningBucketSize(3600000L);
+        assertEquals("date", props.getTimePartitioningProperty("BasicEdge"));
+        assertEquals(null, props.getTimePartitioningProperty("BasicEntity"));
+        assertEquals(3600000L, props.getTimePartitioningBucketSize());
+    }
+
     @Test
     public void sparkMasterTest() {
         //might fail if Spark is properly installed
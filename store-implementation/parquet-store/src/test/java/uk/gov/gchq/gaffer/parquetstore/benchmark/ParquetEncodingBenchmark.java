@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.parquet.column.ParquetProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.graph.GraphConfig;
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
+import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.testutils.DataGen;
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+import uk.gov.gchq.gaffer.spark.operation.dataframe.GetDataFrameOfElements;
+import uk.gov.gchq.gaffer.user.User;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the size on disk and the full scan rate of data stored in a
+ * {@link uk.gov.gchq.gaffer.parquetstore.ParquetStore} using the different Parquet encodings, see
+ * {@link ParquetStoreProperties#getDictionaryEncoding()} and {@link ParquetStoreProperties#getWriterVersion()}.
+ * <p>
+ * Each encoding is scanned both with {@link GetAllElements}, which reads the files with Parquet's own reader, and with
+ * {@link GetDataFrameOfElements}, which reads them with Spark and so shows the cost of not being able to use Spark's
+ * vectorized reader for the {@code v2} encodings.
+ * <p>
+ * {@link ParquetEncodingBenchmarkTest} runs this on a small number of elements as part of the build. To run it on
+ * more data use {@code ParquetEncodingBenchmark [numberOfEdges] [numberOfScans]}, the results are logged.
+ */
+public final class ParquetEncodingBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParquetEncodingBenchmark.class);
+    private static final int DEFAULT_NUMBER_OF_EDGES = 100000;
+    private static final int DEFAULT_NUMBER_OF_SCANS = 5;
+    private static final User USER = new User();
+
+    private ParquetEncodingBenchmark() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int numberOfEdges = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUMBER_OF_EDGES;
+        final int numberOfScans = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUMBER_OF_SCANS;
+        final File rootDir = Files.createTempDirectory("parquetEncodingBenchmark").toFile();
+        try {
+            LOGGER.info(String.format("%-20s %15s %12s %20s %20s", "Encoding", "Bytes on disk", "Elements",
+                    "Elements/s (Gaffer)", "Elements/s (Spark)"));
+            for (final Result result : run(rootDir, numberOfEdges, numberOfScans)) {
+                LOGGER.info(String.format("%-20s %15d %12d %20.0f %20.0f", result.getName(), result.getBytesOnDisk(),
+                        result.getNumberOfElements(), result.getScanRate(), result.getDataFrameScanRate()));
+            }
+        } finally {
+            FileUtils.deleteQuietly(rootDir);
+        }
+    }
+
+    /**
+     * Adds the same edges to a store for each encoding and scans each store.
+     *
+     * @param rootDir       the directory to create the stores in
+     * @param numberOfEdges the number of edges to add to each store
+     * @param numberOfScans the number of times to scan each store, the fastest scan is reported
+     * @return the result for each encoding
+     * @throws OperationException if the elements can not be added or scanned
+     */
+    public static List<Result> run(final File rootDir, final int numberOfEdges, final int numberOfScans) throws OperationException {
+        final List<Element> elements = getElements(numberOfEdges);
+        final List<Result> results = new ArrayList<>();
+        results.add(run("v1, dictionary", true, ParquetProperties.WriterVersion.PARQUET_1_0, elements, rootDir, numberOfScans));
+        results.add(run("v1, no dictionary", false, ParquetProperties.WriterVersion.PARQUET_1_0, elements, rootDir, numberOfScans));
+        results.add(run("v2, dictionary", true, ParquetProperties.WriterVersion.PARQUET_2_0, elements, rootDir, numberOfScans));
+        results.add(run("v2, no dictionary", false, ParquetProperties.WriterVersion.PARQUET_2_0, elements, rootDir, numberOfScans));
+        return results;
+    }
+
+    private static Result run(final String name, final boolean dictionaryEncoding,
+                              final ParquetProperties.WriterVersion writerVersion, final List<Element> elements,
+                              final File rootDir, final int numberOfScans) throws OperationException {
+        final File dir = new File(rootDir, name.replaceAll("[^a-z0-9]", ""));
+        final ParquetStoreProperties properties = TestUtils.getParquetStoreProperties();
+        properties.setDataDir(new File(dir, "data").getAbsolutePath());
+        properties.setTempFilesDir(new File(dir, "temp").getAbsolutePath());
+        properties.setDictionaryEncoding(dictionaryEncoding);
+        properties.setWriterVersion(writerVersion);
+
+        final Graph graph = new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId("parquetEncodingBenchmark")
+                        .build())
+                .addSchema(TestUtils.gafferSchema("schemaUsingLongVertexType"))
+                .storeProperties(properties)
+                .build();
+        graph.execute(new AddElements.Builder().input(elements).build(), USER);
+        final long bytesOnDisk = getParquetFileSizes(new File(properties.getDataDir()));
+
+        long numberOfElements = 0L;
+        long bestScanTime = Long.MAX_VALUE;
+        long bestDataFrameScanTime = Long.MAX_VALUE;
+        for (int i = 0; i < numberOfScans; i++) {
+            long start = System.nanoTime();
+            numberOfElements = 0L;
+            try (final CloseableIterable<? extends Element> scanned = graph.execute(new GetAllElements(), USER)) {
+                for (final Element ignored : scanned) {
+                    numberOfElements++;
+                }
+            }
+            bestScanTime = Math.min(bestScanTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final long numberOfRows = graph.execute(new GetDataFrameOfElements(), USER).count();
+            bestDataFrameScanTime = Math.min(bestDataFrameScanTime, System.nanoTime() - start);
+            if (numberOfRows != numberOfElements) {
+                throw new IllegalStateException("The data frame contained " + numberOfRows
+                        + " rows but " + numberOfElements + " elements were scanned");
+            }
+        }
+        return new Result(name, bytesOnDisk, numberOfElements, bestScanTime, bestDataFrameScanTime);
+    }
+
+    private static List<Element> getElements(final int numberOfEdges) {
+        final List<Element> elements = new ArrayList<>(numberOfEdges);
+        for (int x = 0; x < numberOfEdges; x++) {
+            elements.add(DataGen.getEdge(TestGroups.EDGE, (long) x, (long) x + 1, true, (byte) 'a', 0.2 * x, 2f,
+                    TestUtils.getTreeSet1(), 5L * x, (short) 6, TestUtils.DATE, TestUtils.getFreqMap1(), 1, null));
+        }
+        return elements;
+    }
+
+    private static long getParquetFileSizes(final File dir) {
+        long size = 0L;
+        for (final File file : FileUtils.listFiles(dir, new String[]{"parquet"}, true)) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    public static final class Result {
+        private final String name;
+        private final long bytesOnDisk;
+        private final long numberOfElements;
+        private final long bestScanNanos;
+        private final long bestDataFrameScanNanos;
+
+        private Result(final String name, final long bytesOnDisk, final long numberOfElements,
+                       final long bestScanNanos, final long bestDataFrameScanNanos) {
+            this.name = name;
+            this.bytesOnDisk = bytesOnDisk;
+            this.numberOfElements = numberOfElements;
+            this.bestScanNanos = bestScanNanos;
+            this.bestDataFrameScanNanos = bestDataFrameScanNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getBytesOnDisk() {
+            return bytesOnDisk;
+        }
+
+        public long getNumberOfElements() {
+            return numberOfElements;
+        }
+
+        /**
+         * @return the number of elements per second scanned by the fastest {@link GetAllElements}
+         */
+        public double getScanRate() {
+            return numberOfElements / (bestScanNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * @return the number of rows per second counted by the fastest {@link GetDataFrameOfElements}
+         */
+        public double getDataFrameScanRate() {
+            return numberOfElements / (bestDataFrameScanNanos / 1_000_000_000.0);
+        }
+    }
+}
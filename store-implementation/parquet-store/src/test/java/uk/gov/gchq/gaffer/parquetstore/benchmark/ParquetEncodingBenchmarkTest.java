@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.benchmark;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParquetEncodingBenchmarkTest {
+    private static final int NUMBER_OF_EDGES = 200;
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReportBytesOnDiskAndScanRateForEachEncoding() throws Exception {
+        // When
+        final List<ParquetEncodingBenchmark.Result> results = ParquetEncodingBenchmark.run(testFolder.getRoot(), NUMBER_OF_EDGES, 1);
+
+        // Then
+        assertEquals(4, results.size());
+        for (final ParquetEncodingBenchmark.Result result : results) {
+            assertEquals(result.getName(), NUMBER_OF_EDGES, result.getNumberOfElements());
+            assertTrue(result.getName(), result.getBytesOnDisk() > 0);
+            assertTrue(result.getName(), result.getScanRate() > 0);
+            assertTrue(result.getName(), result.getDataFrameScanRate() > 0);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class ColumnBloomFilterTest {
+
+    @Test
+    public void shouldContainValuesFromBothFiltersAfterMerging() {
+        // Given
+        final ColumnBloomFilter first = ColumnBloomFilter.create(1000, 0.01);
+        final ColumnBloomFilter second = ColumnBloomFilter.create(1000, 0.01);
+        for (long i = 0; i < 500; i++) {
+            first.put(new Object[]{i});
+            second.put(new Object[]{i + 500});
+        }
+
+        // When
+        final ColumnBloomFilter merged = first.merge(second);
+
+        // Then
+        for (long i = 0; i < 1000; i++) {
+            assertTrue(merged.mightContain(new Object[]{i}));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotMergeFiltersOfDifferentSizes() {
+        ColumnBloomFilter.create(1000, 0.01).merge(ColumnBloomFilter.create(10, 0.01));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.parquetstore.index;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.bytes.BytesUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.commonutil.StringUtil;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnIndexTest {
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    private FileSystem fs;
+
+    @Before
+    public void setUp() throws IOException {
+        fs = FileSystem.getLocal(new Configuration());
+    }
+
+    @Test
+    public void shouldWriteAndReadMinMaxAndBloomFilter() throws Exception {
+        // Given
+        final ColumnBloomFilter bloomFilter = ColumnBloomFilter.create(3, 0.01);
+        bloomFilter.put(new Object[]{"a"});
+        bloomFilter.put(new Object[]{"c"});
+        bloomFilter.put(new Object[]{"e"});
+        final ColumnIndex index = new ColumnIndex();
+        index.add(new MinValuesWithPath(new Object[]{"a"}, new Object[]{"e"}, bloomFilter, "part-00000.parquet"));
+        index.add(new MinValuesWithPath(new Object[]{"f"}, "part-00001.parquet"));
+        final Path path = new Path(testFolder.newFolder().getAbsolutePath(), "index");
+
+        // When
+        index.write(fs.create(path));
+        final ColumnIndex readIndex = new ColumnIndex();
+        readIndex.read(fs.open(path));
+
+        // Then
+        assertEquals(2, readIndex.size());
+        final MinValuesWithPath first = readIndex.get("part-00000.parquet");
+        assertArrayEquals(new Object[]{"a"}, first.getMin());
+        assertArrayEquals(new Object[]{"e"}, first.getMax());
+        assertTrue(first.mightContain(new Object[]{"c"}));
+        assertFalse(first.mightContain(new Object[]{"b"}));
+        final MinValuesWithPath second = readIndex.get("part-00001.parquet");
+        assertArrayEquals(new Object[]{"f"}, second.getMin());
+        assertNull(second.getMax());
+        assertNull(second.getBloomFilter());
+        assertTrue(second.mightContain(new Object[]{"z"}));
+    }
+
+    @Test
+    public void shouldReadIndexWrittenWithoutFormatVersion() throws Exception {
+        // Given
+        final Path path = new Path(testFolder.newFolder().getAbsolutePath(), "index");
+        try (final FSDataOutputStream out = fs.create(path)) {
+            writeLegacyEntry(out, 1L, "part-00000.parquet");
+            writeLegacyEntry(out, 6L, "part-00001.parquet");
+        }
+
+        // When
+        final ColumnIndex index = new ColumnIndex();
+        index.read(fs.open(path));
+
+        // Then
+        final Iterator<MinValuesWithPath> iterator = index.getIterator();
+        final MinValuesWithPath first = iterator.next();
+        assertEquals("part-00000.parquet", first.getPath());
+        assertArrayEquals(new Object[]{1L}, first.getMin());
+        assertNull(first.getMax());
+        final MinValuesWithPath second = iterator.next();
+        assertEquals("part-00001.parquet", second.getPath());
+        assertArrayEquals(new Object[]{6L}, second.getMin());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void shouldNotHaveFalseNegativesInBloomFilter() {
+        // Given
+        final ColumnBloomFilter bloomFilter = ColumnBloomFilter.create(1000, 0.01);
+
+        // When
+        for (long i = 0; i < 1000; i++) {
+            bloomFilter.put(new Object[]{"type", i});
+        }
+
+        // Then
+        for (long i = 0; i < 1000; i++) {
+            assertTrue(bloomFilter.mightContain(new Object[]{"type", i}));
+            assertTrue(bloomFilter.mightContain(new Object[]{"type", (int) i}));
+        }
+        int falsePositives = 0;
+        for (long i = 1000; i < 11000; i++) {
+            if (bloomFilter.mightContain(new Object[]{"type", i})) {
+                falsePositives++;
+            }
+        }
+        assertTrue("Too many false positives: " + falsePositives, falsePositives < 300);
+    }
+
+    private void writeLegacyEntry(final FSDataOutputStream out, final long min, final String filePath) throws IOException {
+        out.writeInt(1);
+        final byte[] type = StringUtil.toBytes("Long");
+        out.writeInt(type.length);
+        out.write(type);
+        final byte[] value = BytesUtils.longToBytes(min);
+        out.writeInt(value.length);
+        out.write(value);
+        final byte[] path = StringUtil.toBytes(filePath);
+        out.writeInt(path.length);
+        out.write(path);
+    }
+}
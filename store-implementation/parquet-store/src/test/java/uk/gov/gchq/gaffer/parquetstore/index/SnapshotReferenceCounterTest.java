@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.index;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotReferenceCounterTest {
+
+    @Test
+    public void shouldShareCounterForTheSameDataDir() {
+        assertSame(SnapshotReferenceCounter.forDataDir("file:/shouldShareCounter"),
+                SnapshotReferenceCounter.forDataDir("file:/shouldShareCounter"));
+    }
+
+    @Test
+    public void shouldOnlyReleaseSnapshotWhenLastReferenceIsReleased() {
+        // Given
+        final SnapshotReferenceCounter counter = SnapshotReferenceCounter.forDataDir("file:/shouldOnlyReleaseSnapshot");
+        final GraphIndex snapshot = getIndex(1L);
+        counter.acquire(snapshot);
+        counter.acquire(snapshot);
+
+        // When
+        final List<String> releasedFirst = counter.release(snapshot);
+        final List<String> releasedSecond = counter.release(snapshot);
+
+        // Then
+        assertTrue(releasedFirst.isEmpty());
+        assertEquals(Collections.singletonList("file:/shouldOnlyReleaseSnapshot/1"), releasedSecond);
+        assertEquals(0, counter.getReferences("file:/shouldOnlyReleaseSnapshot/1"));
+    }
+
+    @Test
+    public void shouldOnlyReleaseReplacedDeltas() {
+        // Given
+        final SnapshotReferenceCounter counter = SnapshotReferenceCounter.forDataDir("file:/shouldOnlyReleaseReplacedDeltas");
+        final GraphIndex withTwoDeltas = getIndex(1L).withDeltas(Arrays.asList(getIndex(2L), getIndex(3L)));
+        final GraphIndex withMergedDelta = withTwoDeltas.withDeltas(Collections.singletonList(getIndex(4L)));
+        counter.acquire(withTwoDeltas);
+        counter.acquire(withMergedDelta);
+
+        // When
+        final List<String> released = counter.release(withTwoDeltas);
+
+        // Then
+        assertEquals(Arrays.asList("file:/shouldOnlyReleaseReplacedDeltas/1/deltas/2", "file:/shouldOnlyReleaseReplacedDeltas/1/deltas/3"), released);
+        assertEquals(1, counter.getReferences("file:/shouldOnlyReleaseReplacedDeltas/1"));
+        assertEquals(1, counter.getReferences("file:/shouldOnlyReleaseReplacedDeltas/1/deltas/4"));
+    }
+
+    @Test
+    public void shouldKeepTimeBucketsReferencedByLaterSnapshot() {
+        // Given
+        final SnapshotReferenceCounter counter = SnapshotReferenceCounter.forDataDir("file:/shouldKeepTimeBuckets");
+        final GraphIndex earlierSnapshot = getIndex(1L);
+        final GraphIndex bucket = getIndex(1L);
+        bucket.setTimeBucket(new TimeBucket(0L, 10L));
+        earlierSnapshot.addTimeBucket(bucket);
+        final GraphIndex laterSnapshot = getIndex(2L);
+        laterSnapshot.addTimeBucket(bucket.withDeltas(Collections.emptyList()));
+        counter.acquire(earlierSnapshot);
+        counter.acquire(laterSnapshot);
+
+        // When
+        final List<String> released = counter.release(earlierSnapshot);
+
+        // Then
+        assertEquals(Collections.singletonList("file:/shouldKeepTimeBuckets/1"), released);
+        assertEquals(Collections.singletonList("file:/shouldKeepTimeBuckets/1/time_buckets/0_10"),
+                counter.getReferencedSubdirectories("file:/shouldKeepTimeBuckets/1"));
+        assertEquals(Arrays.asList("file:/shouldKeepTimeBuckets/2", "file:/shouldKeepTimeBuckets/1/time_buckets/0_10"),
+                counter.release(laterSnapshot));
+    }
+
+    @Test
+    public void shouldNotReleaseDirectoriesThatWereNeverAcquired() {
+        // Given
+        final SnapshotReferenceCounter counter = SnapshotReferenceCounter.forDataDir("file:/shouldNotReleaseDirectories");
+
+        // When
+        final List<String> released = counter.release(getIndex(1L));
+
+        // Then
+        assertTrue(released.isEmpty());
+    }
+
+    private static GraphIndex getIndex(final long snapshot) {
+        final GraphIndex index = new GraphIndex();
+        index.setSnapshotTimestamp(snapshot);
+        return index;
+    }
+}
@@ -19,6 +19,7 @@ package uk.gov.gchq.gaffer.parquetstore.operation;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.spark.sql.Row;
 import org.junit.AfterClass;
 import org.junit.Test;
 
@@ -30,6 +31,9 @@ import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
 import uk.gov.gchq.gaffer.data.element.Edge;
 import uk.gov.gchq.gaffer.data.element.Element;
 import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
 import uk.gov.gchq.gaffer.graph.Graph;
 import uk.gov.gchq.gaffer.graph.GraphConfig;
 import uk.gov.gchq.gaffer.operation.OperationException;
@@ -40,10 +44,12 @@ import uk.gov.gchq.gaffer.operation.impl.get.GetElements;
 import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
 import uk.gov.gchq.gaffer.parquetstore.testutils.DataGen;
 import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+import uk.gov.gchq.gaffer.spark.operation.dataframe.GetDataFrameOfElements;
 import uk.gov.gchq.gaffer.store.StoreException;
 import uk.gov.gchq.gaffer.store.schema.Schema;
 import uk.gov.gchq.gaffer.types.FreqMap;
 import uk.gov.gchq.gaffer.user.User;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -111,6 +117,87 @@ public class EdgeCasesTest {
         assertFalse(results.hasNext());
     }
 
+    @Test
+    public void shouldApplyPreAggregationFiltersAfterMergingDeltas() throws OperationException {
+        // Given
+        final ParquetStoreProperties parquetStoreProperties = getParquetStoreProperties();
+        parquetStoreProperties.setAddElementsIncremental(true);
+        parquetStoreProperties.setCompactionMinDeltasPerTier(100);
+        parquetStoreProperties.setCompactionMaxDeltas(100);
+        parquetStoreProperties.setCompactionMaxDeltaRatio(100.0);
+        final Graph graph = new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId("shouldApplyPreAggregationFiltersAfterMergingDeltas")
+                        .build())
+                .addSchemas(TestUtils.gafferSchema("schemaUsingStringVertexType"))
+                .storeProperties(parquetStoreProperties)
+                .build();
+        final List<Element> elements = new ArrayList<>(1);
+        elements.add(DataGen.getEntity(TestGroups.ENTITY, "vertex", (byte) 'a', 0.2, 3f, TestUtils.getTreeSet1(), 5L, (short) 6,
+                TestUtils.DATE, TestUtils.getFreqMap1(), 1, null));
+        graph.execute(new AddElements.Builder().input(elements).build(), USER);
+        graph.execute(new AddElements.Builder().input(elements).build(), USER);
+        final View view = new View.Builder()
+                .entity(TestGroups.ENTITY, new ViewElementDefinition.Builder()
+                        .preAggregationFilter(new ElementFilter.Builder()
+                                .select("count")
+                                .execute(new IsMoreThan(1))
+                                .build())
+                        .build())
+                .build();
+
+        // When
+        final List<Element> results = new ArrayList<>();
+        try (final CloseableIterable<? extends Element> data = graph.execute(new GetAllElements.Builder().view(view).build(), USER)) {
+            for (final Element element : data) {
+                results.add(element);
+            }
+        }
+
+        // Then
+        final FreqMap f2 = new FreqMap();
+        f2.upsert("A", 2L);
+        f2.upsert("B", 2L);
+        final Entity expected = DataGen.getEntity(TestGroups.ENTITY, "vertex", (byte) 'a', 0.4, 6f, TestUtils.getTreeSet1(), 10L, (short) 12,
+                TestUtils.DATE, f2, 2, "");
+        assertEquals(1, results.size());
+        assertEquals(expected, results.get(0));
+    }
+
+    @Test
+    public void shouldAggregateTheDeltasInTheDataFrameOfElements() throws OperationException {
+        // Given
+        final ParquetStoreProperties parquetStoreProperties = getParquetStoreProperties();
+        parquetStoreProperties.setAddElementsIncremental(true);
+        parquetStoreProperties.setCompactionMinDeltasPerTier(100);
+        parquetStoreProperties.setCompactionMaxDeltas(100);
+        parquetStoreProperties.setCompactionMaxDeltaRatio(100.0);
+        final Graph graph = new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId("shouldAggregateTheDeltasInTheDataFrameOfElements")
+                        .build())
+                .addSchemas(TestUtils.gafferSchema("schemaUsingStringVertexType"))
+                .storeProperties(parquetStoreProperties)
+                .build();
+        final List<Element> elements = new ArrayList<>(2);
+        elements.add(DataGen.getEntity(TestGroups.ENTITY, "vertex", (byte) 'a', 0.2, 3f, TestUtils.getTreeSet1(), 5L, (short) 6,
+                TestUtils.DATE, TestUtils.getFreqMap1(), 1, null));
+        elements.add(DataGen.getEdge(TestGroups.EDGE, "src", "dst", true, (byte) 'a', 0.2, 3f, TestUtils.getTreeSet1(), 5L, (short) 6,
+                TestUtils.DATE, TestUtils.getFreqMap1(), 1, null));
+        graph.execute(new AddElements.Builder().input(elements).build(), USER);
+        graph.execute(new AddElements.Builder().input(elements).build(), USER);
+        graph.execute(new AddElements.Builder().input(elements).build(), USER);
+
+        // When
+        final List<Row> rows = graph.execute(new GetDataFrameOfElements(), USER).collectAsList();
+
+        // Then
+        assertEquals(2, rows.size());
+        for (final Row row : rows) {
+            assertEquals(3, (int) row.getAs("count"));
+        }
+    }
+
     @Test
     public void readElementsWithZeroElementFiles() throws IOException, OperationException, StoreException {
         final List<Element> elements = new ArrayList<>(2);
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.graph.GraphConfig;
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.testutils.DataGen;
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+
+/**
+ * Runs the {@link LongVertexOperationsTest} against data that has been added without using Spark, see
+ * {@link ParquetStoreProperties#getAddElementsLocal()}.
+ */
+public class LocalIngestLongVertexOperationsTest extends LongVertexOperationsTest {
+
+    @BeforeClass
+    public static void genData() throws OperationException {
+        getGraph().execute(new AddElements.Builder().input(DataGen.generate300LongElements(false)).build(), USER);
+    }
+
+    @Before
+    @Override
+    public void setup() {
+        graph = getGraph();
+    }
+
+    private static Graph getGraph() {
+        final ParquetStoreProperties properties = TestUtils.getParquetStoreProperties();
+        properties.setAddElementsLocal(true);
+        // Use a small buffer so that the elements are sorted using temporary files
+        properties.setAddElementsLocalSortBufferSize(50);
+        return new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId("LocalIngestLongVertexOperationsTest")
+                        .build())
+                .addSchema(getSchema())
+                .storeProperties(properties)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation;
+
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.element.id.DirectedType;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.exception.SerialisationException;
+import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.graph.GraphConfig;
+import uk.gov.gchq.gaffer.operation.OperationException;
+import uk.gov.gchq.gaffer.operation.SeedMatching;
+import uk.gov.gchq.gaffer.operation.graph.SeededGraphFilters;
+import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
+import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.index.GraphIndex;
+import uk.gov.gchq.gaffer.parquetstore.index.TimeBucket;
+import uk.gov.gchq.gaffer.parquetstore.testutils.DataGen;
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetFilterUtils;
+import uk.gov.gchq.gaffer.parquetstore.utils.ParquetStoreConstants;
+import uk.gov.gchq.gaffer.store.StoreException;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the {@link LongVertexOperationsTest} against data in which the groups that have a date property are partitioned
+ * by time, see {@link ParquetStoreProperties#getTimePartitioningProperty(String)}.
+ */
+public class TimePartitionedLongVertexOperationsTest extends LongVertexOperationsTest {
+    private static final String GRAPH_ID = "TimePartitionedLongVertexOperationsTest";
+    private static final long BUCKET_SIZE = 500L;
+
+    @BeforeClass
+    public static void genData() throws OperationException {
+        getGraph().execute(new AddElements.Builder().input(DataGen.generate300LongElements(false)).build(), USER);
+    }
+
+    @Before
+    @Override
+    public void setup() {
+        graph = getGraph();
+    }
+
+    @Test
+    public void shouldOnlyReturnElementsFromMatchingTimeBuckets() throws OperationException, StoreException, SerialisationException {
+        // Given
+        final View view = new View.Builder()
+                .edge(TestGroups.EDGE, new ViewElementDefinition.Builder()
+                        .preAggregationFilter(new ElementFilter.Builder()
+                                .select("date")
+                                .execute(new IsMoreThan(TestUtils.DATE))
+                                .build())
+                        .build())
+                .build();
+
+        // When
+        final List<Element> actual = new ArrayList<>();
+        try (final CloseableIterable<? extends Element> data = graph.execute(new GetAllElements.Builder().view(view).build(), USER)) {
+            for (final Element element : data) {
+                actual.add(element);
+            }
+        }
+
+        // Then
+        final List<Element> expected = new ArrayList<>();
+        for (long x = 0; x < 25; x++) {
+            expected.add(DataGen.getEdge(TestGroups.EDGE, x, x + 1, false, (byte) 'b', 0.3, 4f, TestUtils.getTreeSet2(), 6L * x, (short) 7, TestUtils.DATE1, TestUtils.getFreqMap2(), 1, ""));
+        }
+        assertThat(expected, containsInAnyOrder(actual.toArray()));
+        // Only the files of the bucket holding TestUtils.DATE1 should have been read
+        final ParquetStore store = new ParquetStore();
+        store.initialise(GRAPH_ID, getSchema(), getProperties());
+        final Set<String> bucketsWithEdges = new HashSet<>();
+        for (final GraphIndex bucketIndex : store.getGraphIndex().getTimeBuckets()) {
+            if (bucketIndex.groupsIndexed().contains(TestGroups.EDGE)) {
+                bucketsWithEdges.add(bucketIndex.getTimeBucket().getDirectoryName());
+            }
+        }
+        final ParquetFilterUtils filterUtils = new ParquetFilterUtils(store);
+        filterUtils.buildPathToFilterMap(view, DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER,
+                SeedMatching.SeedMatchingType.EQUAL, null, store.getGraphIndex());
+        final String bucketsDir = "/" + ParquetStoreConstants.TIME_BUCKETS + "/";
+        final Set<String> bucketsRead = new HashSet<>();
+        for (final Path path : filterUtils.getPathToFilterMap().keySet()) {
+            final String pathString = path.toString();
+            assertTrue(pathString + " should be in a time bucket", pathString.contains(bucketsDir));
+            final String bucketPath = pathString.substring(pathString.indexOf(bucketsDir) + bucketsDir.length());
+            bucketsRead.add(bucketPath.substring(0, bucketPath.indexOf('/')));
+        }
+        assertTrue(bucketsWithEdges.size() > 1);
+        assertEquals(Collections.singleton(TimeBucket.forTimestamp(TestUtils.DATE1.getTime(), BUCKET_SIZE).getDirectoryName()), bucketsRead);
+    }
+
+    private static Graph getGraph() {
+        return new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId(GRAPH_ID)
+                        .build())
+                .addSchema(getSchema())
+                .storeProperties(getProperties())
+                .build();
+    }
+
+    private static ParquetStoreProperties getProperties() {
+        final ParquetStoreProperties properties = TestUtils.getParquetStoreProperties();
+        properties.setAddElementsLocal(true);
+        properties.setTimePartitioningProperty(TestGroups.ENTITY, "date");
+        properties.setTimePartitioningProperty(TestGroups.EDGE, "date");
+        // TestUtils.DATE and TestUtils.DATE1 are a second apart so are always in different buckets
+        properties.setTimePartitioningBucketSize(BUCKET_SIZE);
+        return properties;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.getelements.impl;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.data.element.id.DirectedType;
+import uk.gov.gchq.gaffer.data.element.id.ElementId;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.graph.GraphConfig;
+import uk.gov.gchq.gaffer.operation.SeedMatching;
+import uk.gov.gchq.gaffer.operation.data.EntitySeed;
+import uk.gov.gchq.gaffer.operation.graph.SeededGraphFilters;
+import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStore;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.testutils.DataGen;
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.user.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DeltaMergingIteratorTest {
+    private static final String GRAPH_ID = "DeltaMergingIteratorTest";
+    private static final User USER = new User();
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    private Schema schema;
+    private ParquetStoreProperties properties;
+    private Graph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        schema = TestUtils.gafferSchema("schemaUsingLongVertexType");
+        properties = TestUtils.getParquetStoreProperties();
+        properties.setDataDir(testFolder.newFolder("data").getAbsolutePath());
+        properties.setTempFilesDir(testFolder.newFolder("temp").getAbsolutePath());
+        properties.setAddElementsIncremental(true);
+        // Never compact the deltas, so each add after the first one writes a delta
+        properties.setCompactionMinDeltasPerTier(100);
+        properties.setCompactionMaxDeltas(100);
+        properties.setCompactionMaxDeltaRatio(100.0);
+        graph = new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId(GRAPH_ID)
+                        .build())
+                .addSchema(schema)
+                .storeProperties(properties)
+                .build();
+    }
+
+    @Test
+    public void shouldAggregateElementsAcrossTheSnapshotAndItsDeltas() throws Exception {
+        // Given
+        addEntities(1L, 2L);
+        addEntities(1L);
+        addEntities(1L, 3L);
+
+        // When
+        final List<Element> results = merge(null);
+
+        // Then
+        assertEquals(Arrays.asList(1L, 2L, 3L), getVertices(results));
+        assertEquals(3, results.get(0).getProperty("count"));
+        assertEquals(1, results.get(1).getProperty("count"));
+        assertEquals(1, results.get(2).getProperty("count"));
+    }
+
+    @Test
+    public void shouldReturnTheElementsInTheOrderOfTheirIdentifiers() throws Exception {
+        // Given
+        addEntities(5L, 1L);
+        addEntities(3L);
+        addEntities(4L, 2L);
+
+        // When
+        final List<Element> results = merge(null);
+
+        // Then
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), getVertices(results));
+    }
+
+    @Test
+    public void shouldOnlyReturnTheElementsMatchingTheSeeds() throws Exception {
+        // Given
+        addEntities(1L, 2L, 3L);
+        addEntities(3L, 4L, 5L);
+
+        // When
+        final List<Element> results = merge(Arrays.asList(new EntitySeed(3L), new EntitySeed(5L)));
+
+        // Then
+        assertEquals(Arrays.asList(3L, 5L), getVertices(results));
+        assertEquals(2, results.get(0).getProperty("count"));
+    }
+
+    @Test
+    public void shouldNotReturnAnyMoreElementsOnceClosed() throws Exception {
+        // Given
+        addEntities(1L, 2L);
+        addEntities(3L);
+        final DeltaMergingIterator iterator = createIterator(null);
+
+        // When
+        iterator.next();
+        iterator.close();
+
+        // Then
+        assertFalse(iterator.hasNext());
+    }
+
+    private void addEntities(final Long... vertices) throws Exception {
+        final List<Element> elements = new ArrayList<>();
+        for (final Long vertex : vertices) {
+            elements.add(DataGen.getEntity(TestGroups.ENTITY, vertex, (byte) 'a', 0.2, 3f, TestUtils.getTreeSet1(), 5L,
+                    (short) 6, TestUtils.DATE, TestUtils.getFreqMap1(), 1, null));
+        }
+        graph.execute(new AddElements.Builder().input(elements).build(), USER);
+    }
+
+    private DeltaMergingIterator createIterator(final Iterable<? extends ElementId> seeds) throws Exception {
+        final ParquetStore store = new ParquetStore();
+        store.initialise(GRAPH_ID, schema, properties);
+        final View view = new View.Builder().entity(TestGroups.ENTITY).build();
+        return new DeltaMergingIterator(view, store, store.getGraphIndex(), ParquetElementRetriever.getAggregatedGroups(store),
+                DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER, SeedMatching.SeedMatchingType.EQUAL,
+                seeds, USER);
+    }
+
+    private List<Element> merge(final Iterable<? extends ElementId> seeds) throws Exception {
+        final List<Element> results = new ArrayList<>();
+        try (final DeltaMergingIterator iterator = createIterator(seeds)) {
+            iterator.forEachRemaining(results::add);
+        }
+        return results;
+    }
+
+    private static List<Object> getVertices(final List<Element> elements) {
+        final List<Object> vertices = new ArrayList<>();
+        for (final Element element : elements) {
+            vertices.add(((Entity) element).getVertex());
+        }
+        return vertices;
+    }
+}
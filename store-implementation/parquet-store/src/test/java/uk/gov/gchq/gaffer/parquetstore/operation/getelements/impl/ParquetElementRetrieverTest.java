@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.getelements.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.graph.Graph;
+import uk.gov.gchq.gaffer.graph.GraphConfig;
+import uk.gov.gchq.gaffer.operation.impl.add.AddElements;
+import uk.gov.gchq.gaffer.operation.impl.get.GetAllElements;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.testutils.DataGen;
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+import uk.gov.gchq.gaffer.user.User;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParquetElementRetrieverTest {
+    private static final User USER = new User();
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test(timeout = 60000L)
+    public void shouldNotBlockOtherQueriesWhenTheResultsOfAQueryAreNotConsumed() throws Exception {
+        // Given
+        final ParquetStoreProperties properties = TestUtils.getParquetStoreProperties();
+        properties.setDataDir(testFolder.newFolder("data").getAbsolutePath());
+        properties.setTempFilesDir(testFolder.newFolder("temp").getAbsolutePath());
+        // A single reader thread and a tiny queue, so the stalled query fills its queue straight away
+        properties.setThreadsAvailable(1);
+        properties.setGetElementsQueueSize(1);
+        properties.setGetElementsQueueTimeout(100L);
+        final Graph graph = new Graph.Builder()
+                .config(new GraphConfig.Builder()
+                        .graphId("ParquetElementRetrieverTest")
+                        .build())
+                .addSchema(TestUtils.gafferSchema("schemaUsingLongVertexType"))
+                .storeProperties(properties)
+                .build();
+        graph.execute(new AddElements.Builder().input(DataGen.generate300LongElements(false)).build(), USER);
+        final int expectedNumberOfElements = Lists.newArrayList(graph.execute(new GetAllElements(), USER)).size();
+
+        try (final CloseableIterable<? extends Element> stalled = graph.execute(new GetAllElements(), USER);
+             final CloseableIterator<? extends Element> stalledIterator = stalled.iterator()) {
+            assertTrue(stalledIterator.hasNext());
+
+            // When
+            final List<Element> otherResults = Lists.newArrayList(graph.execute(new GetAllElements(), USER));
+
+            // Then
+            assertEquals(expectedNumberOfElements, otherResults.size());
+            int numberOfStalledElements = 0;
+            while (stalledIterator.hasNext()) {
+                stalledIterator.next();
+                numberOfStalledElements++;
+            }
+            assertEquals(expectedNumberOfElements, numberOfStalledElements);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.operation.getelements.impl;
+
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.data.element.Element;
+import uk.gov.gchq.gaffer.data.element.Entity;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetrieveElementsFromFileTest {
+
+    @Test
+    public void shouldAddElementWhenQueueHasSpace() throws Exception {
+        // Given
+        final BlockingQueue<Element> queue = new ArrayBlockingQueue<>(1);
+
+        // When
+        final boolean added = RetrieveElementsFromFile.offer(queue, new Entity("BasicEntity"), new AtomicBoolean(), 1000L);
+
+        // Then
+        assertTrue(added);
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void shouldStopWaitingWhenQueryIsClosed() throws Exception {
+        // Given
+        final BlockingQueue<Element> queue = new ArrayBlockingQueue<>(1);
+        queue.add(new Entity("BasicEntity"));
+        final AtomicBoolean closed = new AtomicBoolean(true);
+
+        // When
+        final boolean added = RetrieveElementsFromFile.offer(queue, new Entity("BasicEntity"), closed, 60000L);
+
+        // Then
+        assertFalse(added);
+        assertEquals(1, queue.size());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void shouldTimeOutWhenElementsAreNotConsumed() throws Exception {
+        // Given
+        final BlockingQueue<Element> queue = new ArrayBlockingQueue<>(1);
+        queue.add(new Entity("BasicEntity"));
+
+        // When
+        RetrieveElementsFromFile.offer(queue, new Entity("BasicEntity"), new AtomicBoolean(), 200L);
+    }
+}
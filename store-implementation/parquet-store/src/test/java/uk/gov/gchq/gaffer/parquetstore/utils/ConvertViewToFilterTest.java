@@ -27,20 +27,37 @@ import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
 import uk.gov.gchq.gaffer.store.StoreException;
 import uk.gov.gchq.gaffer.store.schema.Schema;
 import uk.gov.gchq.gaffer.types.TypeValue;
+import uk.gov.gchq.koryphe.impl.predicate.AgeOff;
+import uk.gov.gchq.koryphe.impl.predicate.Exists;
 import uk.gov.gchq.koryphe.impl.predicate.IsEqual;
+import uk.gov.gchq.koryphe.impl.predicate.IsIn;
+import uk.gov.gchq.koryphe.impl.predicate.IsLessThan;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
+import uk.gov.gchq.koryphe.impl.predicate.Not;
+import uk.gov.gchq.koryphe.impl.predicate.Or;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import static org.apache.parquet.filter2.predicate.FilterApi.and;
 import static org.apache.parquet.filter2.predicate.FilterApi.binaryColumn;
 import static org.apache.parquet.filter2.predicate.FilterApi.doubleColumn;
 import static org.apache.parquet.filter2.predicate.FilterApi.eq;
+import static org.apache.parquet.filter2.predicate.FilterApi.gt;
+import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.ltEq;
+import static org.apache.parquet.filter2.predicate.FilterApi.or;
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class ConvertViewToFilterTest {
     private ParquetFilterUtils filterUtils;
@@ -128,4 +145,108 @@ public class ConvertViewToFilterTest {
         assertEquals(expected, filter);
         assertThat(expectedPaths, containsInAnyOrder(groupFilterWithPaths.getSecond().toArray()));
     }
+
+    @Test
+    public void getIsInGroupFilterTest() throws OperationException, SerialisationException {
+        // Given
+        final View view = getViewWithPreAggregationFilter("long", new IsIn(Arrays.asList((Object) 1L, 2L)));
+
+        // When
+        filterUtils.buildPathToFilterMap(view, DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER, SeedMatching.SeedMatchingType.EQUAL, new ArrayList<>(), graphIndex);
+        final Pair<FilterPredicate, Set<Path>> groupFilterWithPaths = filterUtils.buildGroupFilter(TestGroups.ENTITY, true);
+
+        // Then
+        final FilterPredicate expected = or(eq(longColumn("long"), 1L), eq(longColumn("long"), 2L));
+        assertEquals(expected, groupFilterWithPaths.getFirst());
+        assertThat(expectedPaths, containsInAnyOrder(groupFilterWithPaths.getSecond().toArray()));
+        assertFalse(filterUtils.requiresValidation());
+    }
+
+    @Test
+    public void getDateRangeGroupFilterTest() throws OperationException, SerialisationException {
+        // Given
+        final View view = getViewWithPreAggregationFilter("date", new IsMoreThan(new Date(1000L)));
+
+        // When
+        filterUtils.buildPathToFilterMap(view, DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER, SeedMatching.SeedMatchingType.EQUAL, new ArrayList<>(), graphIndex);
+        final Pair<FilterPredicate, Set<Path>> groupFilterWithPaths = filterUtils.buildGroupFilter(TestGroups.ENTITY, true);
+
+        // Then
+        assertEquals(gt(longColumn("date"), 1000L), groupFilterWithPaths.getFirst());
+        assertFalse(filterUtils.requiresValidation());
+    }
+
+    @Test
+    public void getMultiColumnRangeGroupFilterTest() throws OperationException, SerialisationException {
+        // Given
+        final View view = getViewWithPreAggregationFilter(ParquetStoreConstants.VERTEX, new IsLessThan(new TypeValue("type", "value")));
+
+        // When
+        filterUtils.buildPathToFilterMap(view, DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER, SeedMatching.SeedMatchingType.EQUAL, new ArrayList<>(), graphIndex);
+        final Pair<FilterPredicate, Set<Path>> groupFilterWithPaths = filterUtils.buildGroupFilter(TestGroups.ENTITY, true);
+
+        // Then
+        assertEquals(ltEq(binaryColumn("VERTEX_type"), Binary.fromString("type")), groupFilterWithPaths.getFirst());
+        assertTrue(filterUtils.requiresValidation());
+    }
+
+    @Test
+    public void shouldNotConvertOrWithUnsupportedPredicate() throws OperationException, SerialisationException {
+        // Given
+        final View view = getViewWithPreAggregationFilter("long", new Or<>(new IsEqual(1L), new Exists()));
+
+        // When
+        filterUtils.buildPathToFilterMap(view, DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER, SeedMatching.SeedMatchingType.EQUAL, new ArrayList<>(), graphIndex);
+        final Pair<FilterPredicate, Set<Path>> groupFilterWithPaths = filterUtils.buildGroupFilter(TestGroups.ENTITY, true);
+
+        // Then
+        assertNull(groupFilterWithPaths);
+        assertTrue(filterUtils.requiresValidation());
+    }
+
+    @Test
+    public void shouldNotConvertNotOfInexactFilter() throws OperationException, SerialisationException {
+        // Given
+        final View view = getViewWithPreAggregationFilter("long", new Not<>(new AgeOff(1000L)));
+
+        // When
+        filterUtils.buildPathToFilterMap(view, DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER, SeedMatching.SeedMatchingType.EQUAL, new ArrayList<>(), graphIndex);
+        final Pair<FilterPredicate, Set<Path>> groupFilterWithPaths = filterUtils.buildGroupFilter(TestGroups.ENTITY, true);
+
+        // Then
+        assertNull(groupFilterWithPaths);
+        assertTrue(filterUtils.requiresValidation());
+    }
+
+    @Test
+    public void getAgeOffGroupFilterTest() throws OperationException, SerialisationException {
+        // Given
+        final View view = getViewWithPreAggregationFilter("long", new AgeOff(1000L));
+
+        // When
+        final long minThreshold = System.currentTimeMillis() - 1000L;
+        filterUtils.buildPathToFilterMap(view, DirectedType.EITHER, SeededGraphFilters.IncludeIncomingOutgoingType.EITHER, SeedMatching.SeedMatchingType.EQUAL, new ArrayList<>(), graphIndex);
+        final Pair<FilterPredicate, Set<Path>> groupFilterWithPaths = filterUtils.buildGroupFilter(TestGroups.ENTITY, true);
+        final long maxThreshold = System.currentTimeMillis() - 1000L;
+
+        // Then
+        final FilterPredicate filter = groupFilterWithPaths.getFirst();
+        boolean matched = false;
+        for (long threshold = minThreshold; threshold <= maxThreshold; threshold++) {
+            matched |= gt(longColumn("long"), threshold).equals(filter);
+        }
+        assertTrue("Unexpected filter: " + filter, matched);
+        assertTrue(filterUtils.requiresValidation());
+    }
+
+    private View getViewWithPreAggregationFilter(final String selection, final Predicate predicate) {
+        return new View.Builder().entity(TestGroups.ENTITY,
+                new ViewElementDefinition.Builder().preAggregationFilter(
+                        new ElementFilter.Builder()
+                                .select(selection)
+                                .execute(predicate)
+                                .build())
+                        .build())
+                .build();
+    }
 }
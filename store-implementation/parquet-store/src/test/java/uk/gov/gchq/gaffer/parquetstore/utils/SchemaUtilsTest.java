@@ -16,21 +16,26 @@
 
 package uk.gov.gchq.gaffer.parquetstore.utils;
 
+import com.google.common.collect.Sets;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
 import uk.gov.gchq.gaffer.exception.SerialisationException;
 import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
 import uk.gov.gchq.gaffer.store.StoreException;
 import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
 
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class SchemaUtilsTest {
     private SchemaUtils utils;
@@ -76,6 +81,29 @@ public class SchemaUtilsTest {
                 columnToSerialiser.get("count"));
     }
 
+    @Test
+    public void shouldReadAllColumnsWhenViewHasAllProperties() {
+        assertNull(utils.getColumnsToRead(TestGroups.ENTITY, new ViewElementDefinition.Builder().build()));
+    }
+
+    @Test
+    public void shouldOnlyReadColumnsRequiredByView() {
+        // Given
+        final ViewElementDefinition elementDef = new ViewElementDefinition.Builder()
+                .properties("count")
+                .preAggregationFilter(new ElementFilter.Builder()
+                        .select("long")
+                        .execute(new IsMoreThan(0L))
+                        .build())
+                .build();
+
+        // When
+        final Set<String> columns = utils.getColumnsToRead(TestGroups.ENTITY, elementDef);
+
+        // Then
+        assertEquals(Sets.newHashSet(ParquetStoreConstants.VERTEX, "count", "long", "date", "visibility"), columns);
+    }
+
     @Test
     public void getEntityGroupsTest() {
         final Set<String> entityGroups = utils.getEntityGroups();
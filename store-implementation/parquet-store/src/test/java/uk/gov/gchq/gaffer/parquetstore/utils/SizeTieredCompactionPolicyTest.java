@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.parquetstore.operation.addelements.impl.SizeTieredCompactionPolicy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SizeTieredCompactionPolicyTest {
+    private final SizeTieredCompactionPolicy policy = new SizeTieredCompactionPolicy(3, 5, 0.5);
+
+    @Test
+    public void shouldNotCompactWhenThereAreNoDeltas() {
+        assertFalse(policy.requiresFullCompaction(Collections.emptyList(), 1000L));
+        assertTrue(policy.selectDeltasToMerge(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void shouldMergeSmallestTierWithEnoughAdjacentDeltas() {
+        // Given
+        final List<Long> deltaSizes = Arrays.asList(5000L, 6000L, 7000L, 10L, 12L, 15L, 8000L);
+
+        // When
+        final List<Integer> deltasToMerge = policy.selectDeltasToMerge(deltaSizes);
+
+        // Then
+        assertEquals(Arrays.asList(3, 4, 5), deltasToMerge);
+    }
+
+    @Test
+    public void shouldNotMergeDeltasOfTheSameTierThatAreNotAdjacent() {
+        // Given
+        final List<Long> deltaSizes = Arrays.asList(5000L, 10L, 6000L, 12L, 7000L, 15L);
+
+        // When
+        final List<Integer> deltasToMerge = policy.selectDeltasToMerge(deltaSizes);
+
+        // Then
+        assertTrue(deltasToMerge.isEmpty());
+    }
+
+    @Test
+    public void shouldNotMergeDeltasOfDifferentSizes() {
+        // Given
+        final List<Long> deltaSizes = Arrays.asList(10L, 100L, 1000L, 10000L);
+
+        // When
+        final List<Integer> deltasToMerge = policy.selectDeltasToMerge(deltaSizes);
+
+        // Then
+        assertTrue(deltasToMerge.isEmpty());
+    }
+
+    @Test
+    public void shouldRequireFullCompactionWhenThereAreTooManyDeltas() {
+        assertFalse(policy.requiresFullCompaction(Arrays.asList(1L, 1L, 1L, 1L, 1L), 1000L));
+        assertTrue(policy.requiresFullCompaction(Arrays.asList(1L, 1L, 1L, 1L, 1L, 1L), 1000L));
+    }
+
+    @Test
+    public void shouldRequireFullCompactionWhenDeltasAreTooLarge() {
+        assertFalse(policy.requiresFullCompaction(Arrays.asList(200L, 300L), 1000L));
+        assertTrue(policy.requiresFullCompaction(Arrays.asList(200L, 301L), 1000L));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.spark.sql.Row;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import scala.collection.Seq;
+import scala.collection.Seq$;
+
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SortUtilsTest {
+    private static final int NUMBER_OF_ROWS = 100;
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    private String inputDir;
+    private ParquetStoreProperties props;
+
+    @Before
+    public void setUp() throws Exception {
+        inputDir = testFolder.getRoot().getAbsolutePath() + "/input";
+        // Write the rows out of order across several files
+        TestUtils.spark.range(0, NUMBER_OF_ROWS)
+                .selectExpr("(id * 37) % " + NUMBER_OF_ROWS + " as vertex", "id as count")
+                .repartition(4)
+                .write()
+                .parquet(inputDir);
+        props = TestUtils.getParquetStoreProperties();
+    }
+
+    @Test
+    public void shouldSortIntoAtMostTheRequestedNumberOfFilesInOrder() throws Exception {
+        // Given
+        final String outputDir = testFolder.getRoot().getAbsolutePath() + "/output";
+
+        // When
+        SortUtils.sort(TestUtils.spark, props, inputDir, outputDir, 3, "vertex", noColumns());
+
+        // Then
+        final File[] files = getOutputFiles(outputDir);
+        assertTrue(files.length <= 3);
+        assertSorted(files);
+    }
+
+    @Test
+    public void shouldSortIntoASingleFile() throws Exception {
+        // Given
+        final String outputDir = testFolder.getRoot().getAbsolutePath() + "/output";
+
+        // When
+        SortUtils.sort(TestUtils.spark, props, inputDir, outputDir, 1, "vertex", noColumns());
+
+        // Then
+        final File[] files = getOutputFiles(outputDir);
+        assertEquals(1, files.length);
+        assertSorted(files);
+    }
+
+    @Test
+    public void shouldUseTheCompressionCodecFromTheProperties() throws Exception {
+        // Given
+        final String outputDir = testFolder.getRoot().getAbsolutePath() + "/output";
+        props.setCompressionCodec(CompressionCodecName.SNAPPY);
+
+        // When
+        SortUtils.sort(TestUtils.spark, props, inputDir, outputDir, 2, "vertex", noColumns());
+
+        // Then
+        for (final File file : getOutputFiles(outputDir)) {
+            assertEquals(CompressionCodecName.SNAPPY, ParquetFileReader.readFooter(new Configuration(), new Path(file.getAbsolutePath()),
+                    ParquetMetadataConverter.NO_FILTER).getBlocks().get(0).getColumns().get(0).getCodec());
+        }
+    }
+
+    @Test
+    public void shouldNotChangeTheConfigurationOfTheGivenSession() throws Exception {
+        // Given
+        final String shufflePartitions = TestUtils.spark.conf().get("spark.sql.shuffle.partitions");
+        final String outputDir = testFolder.getRoot().getAbsolutePath() + "/output";
+
+        // When
+        SortUtils.sort(TestUtils.spark, props, inputDir, outputDir, 3, "vertex", noColumns());
+
+        // Then
+        assertEquals(shufflePartitions, TestUtils.spark.conf().get("spark.sql.shuffle.partitions"));
+    }
+
+    private static Seq<String> noColumns() {
+        return Seq$.MODULE$.<String>newBuilder().result();
+    }
+
+    private static File[] getOutputFiles(final String outputDir) {
+        final File[] files = new File(outputDir).listFiles((dir, name) -> name.startsWith("part-") && name.endsWith(".parquet"));
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static void assertSorted(final File[] files) {
+        final List<Long> vertices = new ArrayList<>();
+        for (final File file : files) {
+            for (final Row row : TestUtils.spark.read().parquet(file.getAbsolutePath()).collectAsList()) {
+                vertices.add(row.getAs("vertex"));
+            }
+        }
+        assertEquals(NUMBER_OF_ROWS, vertices.size());
+        for (int i = 0; i < NUMBER_OF_ROWS; i++) {
+            assertEquals(Long.valueOf(i), vertices.get(i));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.spark.sql.SparkSession;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SparkParquetUtilsTest {
+    private static final String VECTORIZED_READER = "spark.sql.parquet.enableVectorizedReader";
+    private static final String CASE_SENSITIVE = "spark.sql.caseSensitive";
+
+    @Rule
+    public final TemporaryFolder testFolder = new TemporaryFolder();
+
+    private FileSystem fs;
+
+    @Before
+    public void setUp() throws Exception {
+        fs = FileSystem.getLocal(new Configuration());
+    }
+
+    @Test
+    public void shouldCopyTheConfigurationToANewSession() {
+        // Given
+        final String caseSensitive = TestUtils.spark.conf().get(CASE_SENSITIVE);
+        TestUtils.spark.conf().set(CASE_SENSITIVE, !Boolean.parseBoolean(caseSensitive));
+        try {
+            // When
+            final SparkSession session = SparkParquetUtils.newSession(TestUtils.spark);
+            session.conf().set("spark.sql.shuffle.partitions", 7);
+
+            // Then
+            assertNotSame(TestUtils.spark, session);
+            assertEquals(TestUtils.spark.conf().get(CASE_SENSITIVE), session.conf().get(CASE_SENSITIVE));
+            assertFalse("7".equals(TestUtils.spark.conf().get("spark.sql.shuffle.partitions")));
+        } finally {
+            TestUtils.spark.conf().set(CASE_SENSITIVE, caseSensitive);
+        }
+    }
+
+    @Test
+    public void shouldUseTheGivenSessionToReadDataWithoutDeltaEncodings() throws Exception {
+        // Given
+        final String dir = writeData("v1");
+
+        // When
+        final SparkSession session = SparkParquetUtils.getSessionForReading(TestUtils.spark, fs, dir);
+
+        // Then
+        assertTrue(SparkParquetUtils.isVectorizedReaderSupported(fs, dir));
+        assertSame(TestUtils.spark, session);
+    }
+
+    @Test
+    public void shouldDisableTheVectorizedReaderOnANewSessionToReadDataWithDeltaEncodings() throws Exception {
+        // Given
+        final String dir = writeData("v2");
+        final String vectorizedReader = TestUtils.spark.conf().get(VECTORIZED_READER);
+
+        // When
+        final SparkSession session = SparkParquetUtils.getSessionForReading(TestUtils.spark, fs, dir);
+
+        // Then
+        assertFalse(SparkParquetUtils.isVectorizedReaderSupported(fs, dir));
+        assertNotSame(TestUtils.spark, session);
+        assertEquals("false", session.conf().get(VECTORIZED_READER));
+        assertEquals(vectorizedReader, TestUtils.spark.conf().get(VECTORIZED_READER));
+        assertEquals(100L, session.read().parquet(dir).count());
+    }
+
+    @Test
+    public void shouldIgnorePathPatternsThatDoNotMatchAnyFiles() throws Exception {
+        // When / Then
+        assertTrue(SparkParquetUtils.isVectorizedReaderSupported(fs, testFolder.getRoot().getAbsolutePath() + "/missing/*"));
+    }
+
+    private String writeData(final String writerVersion) {
+        final String dir = testFolder.getRoot().getAbsolutePath() + "/" + writerVersion;
+        TestUtils.spark.range(0, 100)
+                .selectExpr("id", "cast(id as string) as name")
+                .write()
+                .option("parquet.writer.version", writerVersion)
+                .option("parquet.enable.dictionary", "false")
+                .parquet(dir);
+        return dir;
+    }
+}
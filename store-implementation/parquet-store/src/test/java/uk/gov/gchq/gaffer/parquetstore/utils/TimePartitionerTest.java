@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017. Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.parquetstore.utils;
+
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.commonutil.TestGroups;
+import uk.gov.gchq.gaffer.data.element.Edge;
+import uk.gov.gchq.gaffer.data.element.Entity;
+import uk.gov.gchq.gaffer.data.element.function.ElementFilter;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.View;
+import uk.gov.gchq.gaffer.data.elementdefinition.view.ViewElementDefinition;
+import uk.gov.gchq.gaffer.parquetstore.ParquetStoreProperties;
+import uk.gov.gchq.gaffer.parquetstore.index.TimeBucket;
+import uk.gov.gchq.gaffer.parquetstore.testutils.TestUtils;
+import uk.gov.gchq.gaffer.store.StoreException;
+import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.koryphe.impl.predicate.And;
+import uk.gov.gchq.koryphe.impl.predicate.IsEqual;
+import uk.gov.gchq.koryphe.impl.predicate.IsLessThan;
+import uk.gov.gchq.koryphe.impl.predicate.IsMoreThan;
+import uk.gov.gchq.koryphe.impl.predicate.Not;
+import uk.gov.gchq.koryphe.impl.predicate.Or;
+
+import java.util.Date;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimePartitionerTest {
+    private static final Schema SCHEMA = TestUtils.gafferSchema("schemaUsingLongVertexType");
+    private static final TimeBucket FIRST = new TimeBucket(0L, 1000L);
+    private static final TimeBucket SECOND = new TimeBucket(1000L, 2000L);
+    private static final TimeBucket THIRD = new TimeBucket(2000L, 3000L);
+
+    @Test
+    public void shouldPutElementsInTheBucketOfTheirTime() throws StoreException {
+        // Given
+        final TimePartitioner partitioner = getPartitioner(TestGroups.EDGE, "date");
+        final Edge edge = new Edge.Builder().group(TestGroups.EDGE).source(1L).dest(2L).directed(true)
+                .property("date", new Date(1500L)).build();
+        final Edge beforeEpoch = new Edge.Builder().group(TestGroups.EDGE).source(1L).dest(2L).directed(true)
+                .property("date", new Date(-1L)).build();
+
+        // When / Then
+        assertEquals(SECOND, partitioner.getTimeBucket(edge));
+        assertEquals(new TimeBucket(-1000L, 0L), partitioner.getTimeBucket(beforeEpoch));
+    }
+
+    @Test
+    public void shouldNotPutElementsInABucketIfTheirGroupIsNotPartitionedOrTheyHaveNoTime() throws StoreException {
+        // Given
+        final TimePartitioner partitioner = getPartitioner(TestGroups.EDGE, "date");
+        final Entity entity = new Entity.Builder().group(TestGroups.ENTITY).vertex(1L)
+                .property("date", new Date(1500L)).build();
+        final Edge edge = new Edge.Builder().group(TestGroups.EDGE).source(1L).dest(2L).directed(true).build();
+
+        // When / Then
+        assertTrue(partitioner.isPartitioned());
+        assertFalse(partitioner.isPartitioned(TestGroups.ENTITY));
+        assertNull(partitioner.getTimeBucket(entity));
+        assertNull(partitioner.getTimeBucket(edge));
+    }
+
+    @Test
+    public void shouldRejectPropertiesThatCanNotBeUsedToPartition() {
+        assertInvalid(TestGroups.EDGE, "unknownProperty");
+        assertInvalid(TestGroups.EDGE, "float");
+        // The group is aggregated and the property is not a group by property
+        assertInvalid(TestGroups.EDGE_2, "date");
+    }
+
+    @Test
+    public void shouldOnlyMatchBucketsInTheRangeOfTheFilters() throws StoreException {
+        // Given
+        final TimePartitioner partitioner = getPartitioner(TestGroups.EDGE, "date");
+        final View view = getView(new And.Builder()
+                .select(0)
+                .execute(new IsMoreThan(new Date(1000L), true))
+                .select(0)
+                .execute(new IsLessThan(new Date(2000L)))
+                .build());
+
+        // When / Then
+        assertFalse(partitioner.mayMatch(view, TestGroups.EDGE, FIRST));
+        assertTrue(partitioner.mayMatch(view, TestGroups.EDGE, SECOND));
+        assertFalse(partitioner.mayMatch(view, TestGroups.EDGE, THIRD));
+    }
+
+    @Test
+    public void shouldMatchBucketsBetweenTheValuesOfAnOr() throws StoreException {
+        // Given
+        final TimePartitioner partitioner = getPartitioner(TestGroups.EDGE, "date");
+        final View view = getView(new Or.Builder()
+                .select(0)
+                .execute(new IsEqual(new Date(500L)))
+                .select(0)
+                .execute(new IsEqual(new Date(1500L)))
+                .build());
+
+        // When / Then
+        assertTrue(partitioner.mayMatch(view, TestGroups.EDGE, FIRST));
+        assertTrue(partitioner.mayMatch(view, TestGroups.EDGE, SECOND));
+        assertFalse(partitioner.mayMatch(view, TestGroups.EDGE, THIRD));
+    }
+
+    @Test
+    public void shouldMatchAllBucketsWhenTheFiltersDoNotRestrictTheTime() throws StoreException {
+        // Given
+        final TimePartitioner partitioner = getPartitioner(TestGroups.EDGE, "date");
+        final View view = getView(new Not<>(new IsLessThan(new Date(1000L))));
+
+        // When / Then
+        assertTrue(partitioner.mayMatch(null, TestGroups.EDGE, FIRST));
+        assertTrue(partitioner.mayMatch(view, TestGroups.EDGE, FIRST));
+        assertTrue(partitioner.mayMatch(view, TestGroups.EDGE, THIRD));
+    }
+
+    private static View getView(final Predicate predicate) {
+        return new View.Builder()
+                .edge(TestGroups.EDGE, new ViewElementDefinition.Builder()
+                        .preAggregationFilter(new ElementFilter.Builder()
+                                .select("date")
+                                .execute(predicate)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    private static TimePartitioner getPartitioner(final String group, final String property) throws StoreException {
+        final ParquetStoreProperties properties = new ParquetStoreProperties();
+        properties.setTimePartitioningProperty(group, property);
+        properties.setTimePartitioningBucketSize(1000L);
+        return new TimePartitioner(SCHEMA, properties);
+    }
+
+    private static void assertInvalid(final String group, final String property) {
+        try {
+            getPartitioner(group, property);
+            fail("Exception expected");
+        } catch (final StoreException e) {
+            assertTrue(e.getMessage().contains(group));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.proxystore;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.core.exception.Error;
+import uk.gov.gchq.gaffer.core.exception.GafferRuntimeException;
+import uk.gov.gchq.gaffer.jsonserialisation.JSONSerialiser;
+
+import javax.ws.rs.core.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@code ChunkedResultsIterable} lazily deserialises the results of an
+ * operation chain from the chunked output of a Gaffer REST API, in which each
+ * result is written as a separate JSON value.
+ * <p>
+ * Each result is parsed as it is read from the response, so the results are
+ * never all held in memory. As the response can only be read once, the
+ * iterable can only be iterated once. Closing the iterable, or reading all of
+ * the results, closes the response.
+ * <p>
+ * If the operation chain fails once the response has started, the Gaffer
+ * REST API writes the {@link Error} as the final result, in a JSON object with
+ * the single field {@link #ERROR_FIELD}. Reading that result throws a
+ * {@link GafferRuntimeException}, so a failure is never mistaken for the end
+ * of the results.
+ *
+ * @param <T> the type of the results
+ */
+public class ChunkedResultsIterable<T> implements CloseableIterable<T> {
+    /**
+     * The field of the final result written by the chunked endpoint of the
+     * Gaffer REST API when an operation chain fails. This must match
+     * {@code uk.gov.gchq.gaffer.rest.ServiceConstants#CHUNKED_ERROR_FIELD}.
+     */
+    public static final String ERROR_FIELD = "gafferChunkedError";
+
+    private final Response response;
+    private final JavaType resultType;
+    private boolean iterated;
+
+    /**
+     * @param response   the response from the chunked endpoint
+     * @param resultType the type of each result
+     */
+    public ChunkedResultsIterable(final Response response, final JavaType resultType) {
+        this.response = response;
+        this.resultType = resultType;
+    }
+
+    @Override
+    public void close() {
+        response.close();
+    }
+
+    @Override
+    public CloseableIterator<T> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("The results from the Gaffer REST API can only be iterated once");
+        }
+        iterated = true;
+
+        final MappingIterator<JsonNode> results;
+        try {
+            final InputStream stream = response.readEntity(InputStream.class);
+            results = JSONSerialiser.getMapper().readerFor(JsonNode.class).readValues(stream);
+        } catch (final IOException | RuntimeException e) {
+            close();
+            throw new RuntimeException("Unable to read the results from the Gaffer REST API", e);
+        }
+        return new ChunkedResultsIterator(results);
+    }
+
+    private final class ChunkedResultsIterator implements CloseableIterator<T> {
+        private final MappingIterator<JsonNode> results;
+        private final ObjectReader resultReader = JSONSerialiser.getMapper().readerFor(resultType);
+        private JsonNode nextResult;
+        private boolean closed;
+
+        private ChunkedResultsIterator(final MappingIterator<JsonNode> results) {
+            this.results = results;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null == nextResult && !closed) {
+                try {
+                    if (results.hasNextValue()) {
+                        nextResult = results.nextValue();
+                    }
+                } catch (final IOException e) {
+                    close();
+                    throw new RuntimeException("Unable to read the results from the Gaffer REST API", e);
+                }
+                if (null == nextResult) {
+                    close();
+                } else if (isError(nextResult)) {
+                    final Error error = getError(nextResult);
+                    close();
+                    throw new GafferRuntimeException("The Gaffer REST API failed to return all of the results: "
+                            + error.getSimpleMessage(), error.getStatus());
+                }
+            }
+            return null != nextResult;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final JsonNode result = nextResult;
+            nextResult = null;
+            try {
+                return resultReader.readValue(result);
+            } catch (final IOException e) {
+                close();
+                throw new RuntimeException("Unable to deserialise a result from the Gaffer REST API", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                nextResult = null;
+                CloseableUtil.close(results);
+                ChunkedResultsIterable.this.close();
+            }
+        }
+
+        private boolean isError(final JsonNode result) {
+            return result.isObject() && 1 == result.size() && result.has(ERROR_FIELD);
+        }
+
+        private Error getError(final JsonNode result) {
+            try {
+                return JSONSerialiser.getMapper().treeToValue(result.get(ERROR_FIELD), Error.class);
+            } catch (final IOException e) {
+                close();
+                throw new RuntimeException("The Gaffer REST API failed to return all of the results", e);
+            }
+        }
+    }
+}
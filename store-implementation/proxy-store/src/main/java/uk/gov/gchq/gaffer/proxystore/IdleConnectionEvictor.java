@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.proxystore;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically closes the expired and idle connections in the connection
+ * pools of all {@link ProxyStore}s, using a single daemon thread.
+ * <p>
+ * The connection managers are only weakly referenced, so a pool is no longer
+ * evicted once its ProxyStore has been garbage collected.
+ */
+final class IdleConnectionEvictor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdleConnectionEvictor.class);
+    private static final long EVICTION_INTERVAL_MILLIS = 5000L;
+    private static final Map<HttpClientConnectionManager, Long> IDLE_TIMEOUTS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static ScheduledExecutorService executor;
+
+    private IdleConnectionEvictor() {
+        // Private constructor to prevent instantiation.
+    }
+
+    /**
+     * @param connectionManager the connection pool to evict connections from
+     * @param idleTimeoutMillis the time after which an unused connection is closed,
+     *                          if 0 or less only expired connections are closed
+     */
+    static synchronized void register(final HttpClientConnectionManager connectionManager, final long idleTimeoutMillis) {
+        IDLE_TIMEOUTS.put(connectionManager, idleTimeoutMillis);
+        if (null == executor) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "proxyStoreIdleConnectionEvictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(IdleConnectionEvictor::evict,
+                    EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void evict() {
+        final Map<HttpClientConnectionManager, Long> idleTimeouts;
+        synchronized (IDLE_TIMEOUTS) {
+            idleTimeouts = new HashMap<>(IDLE_TIMEOUTS);
+        }
+        for (final Map.Entry<HttpClientConnectionManager, Long> entry : idleTimeouts.entrySet()) {
+            try {
+                entry.getKey().closeExpiredConnections();
+                if (entry.getValue() > 0) {
+                    entry.getKey().closeIdleConnections(entry.getValue(), TimeUnit.MILLISECONDS);
+                }
+            } catch (final RuntimeException e) {
+                // Carry on so one failing pool does not stop the others from being evicted
+                LOGGER.warn("Unable to close idle connections", e);
+            }
+        }
+    }
+}
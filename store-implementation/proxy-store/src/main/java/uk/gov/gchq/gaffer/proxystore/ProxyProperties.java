@@ -35,12 +35,28 @@ public class ProxyProperties extends StoreProperties {
     public static final String GAFFER_CONTEXT_ROOT = "gaffer.context-root";
     public static final String CONNECT_TIMEOUT = "gaffer.connect-timeout";
     public static final String READ_TIMEOUT = "gaffer.read-timeout";
+    public static final String CONNECTION_REQUEST_TIMEOUT = "gaffer.connection-request-timeout";
+    public static final String STREAM_RESULTS = "gaffer.stream-results";
+    public static final String BINARY_RESULTS = "gaffer.binary-results";
+    public static final String COMPRESS_RESULTS = "gaffer.compress-results";
+    public static final String MAX_CONNECTIONS = "gaffer.max-connections";
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "gaffer.max-connections-per-route";
+    public static final String CONNECTION_TIME_TO_LIVE = "gaffer.connection-time-to-live";
+    public static final String IDLE_CONNECTION_TIMEOUT = "gaffer.idle-connection-timeout";
 
     public static final String DEFAULT_GAFFER_HOST = "localhost";
     public static final String DEFAULT_GAFFER_CONTEXT_ROOT = "/rest";
     public static final int DEFAULT_GAFFER_PORT = 8080;
     public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
     public static final int DEFAULT_READ_TIMEOUT = 10000;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 10000;
+    public static final boolean DEFAULT_STREAM_RESULTS = false;
+    public static final boolean DEFAULT_BINARY_RESULTS = false;
+    public static final boolean DEFAULT_COMPRESS_RESULTS = false;
+    public static final int DEFAULT_MAX_CONNECTIONS = 100;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final long DEFAULT_CONNECTION_TIME_TO_LIVE = 300000L;
+    public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000L;
 
     private static final String GAFFER_REST_API_VERSION = "v2";
 
@@ -94,6 +110,122 @@ public class ProxyProperties extends StoreProperties {
         set(READ_TIMEOUT, String.valueOf(timeout));
     }
 
+    /**
+     * The time in milliseconds to wait for a connection from the pool when
+     * all of the pooled connections are in use. A value of 0 waits forever.
+     *
+     * @return the connection request timeout in milliseconds
+     */
+    public int getConnectionRequestTimeout() {
+        return getInt(CONNECTION_REQUEST_TIMEOUT, DEFAULT_CONNECTION_REQUEST_TIMEOUT, "connection request timeout");
+    }
+
+    public void setConnectionRequestTimeout(final int timeout) {
+        set(CONNECTION_REQUEST_TIMEOUT, String.valueOf(timeout));
+    }
+
+    /**
+     * @return the maximum number of pooled connections to the Gaffer REST API
+     */
+    public int getMaxConnections() {
+        return getInt(MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS, "maximum connections");
+    }
+
+    public void setMaxConnections(final int maxConnections) {
+        set(MAX_CONNECTIONS, String.valueOf(maxConnections));
+    }
+
+    /**
+     * @return the maximum number of pooled connections to each host and port
+     */
+    public int getMaxConnectionsPerRoute() {
+        return getInt(MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, "maximum connections per route");
+    }
+
+    public void setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+        set(MAX_CONNECTIONS_PER_ROUTE, String.valueOf(maxConnectionsPerRoute));
+    }
+
+    /**
+     * The time in milliseconds a pooled connection is kept alive for reuse
+     * after it is opened. A value of 0 or less keeps connections alive for
+     * as long as the Gaffer REST API allows.
+     *
+     * @return the time to live of pooled connections in milliseconds
+     */
+    public long getConnectionTimeToLive() {
+        return getLong(CONNECTION_TIME_TO_LIVE, DEFAULT_CONNECTION_TIME_TO_LIVE, "connection time to live");
+    }
+
+    public void setConnectionTimeToLive(final long connectionTimeToLive) {
+        set(CONNECTION_TIME_TO_LIVE, String.valueOf(connectionTimeToLive));
+    }
+
+    /**
+     * The time in milliseconds after which an unused pooled connection is
+     * closed. A value of 0 or less leaves idle connections open.
+     *
+     * @return the idle connection timeout in milliseconds
+     */
+    public long getIdleConnectionTimeout() {
+        return getLong(IDLE_CONNECTION_TIMEOUT, DEFAULT_IDLE_CONNECTION_TIMEOUT, "idle connection timeout");
+    }
+
+    public void setIdleConnectionTimeout(final long idleConnectionTimeout) {
+        set(IDLE_CONNECTION_TIMEOUT, String.valueOf(idleConnectionTimeout));
+    }
+
+    /**
+     * If true, operation chains that return an iterable are executed using
+     * the chunked endpoint of the Gaffer REST API and their results are
+     * deserialised lazily as they are read from the response.
+     * <p>
+     * If the operation chain fails once the chunked endpoint has started,
+     * the Gaffer REST API writes the error as the final result and reading it
+     * throws an exception. Versions of the Gaffer REST API that do not write
+     * the error return fewer results instead.
+     *
+     * @return true if results should be streamed from the Gaffer REST API
+     */
+    public boolean isStreamResults() {
+        return Boolean.parseBoolean(get(STREAM_RESULTS, String.valueOf(DEFAULT_STREAM_RESULTS)));
+    }
+
+    public void setStreamResults(final boolean streamResults) {
+        set(STREAM_RESULTS, String.valueOf(streamResults));
+    }
+
+    /**
+     * If true, operation chains that return elements ask the Gaffer REST API
+     * for them in a compact binary format, serialised using the serialisers
+     * in the schema, rather than JSON. If the Gaffer REST API does not
+     * support the binary format, JSON is used. Off by default.
+     *
+     * @return true if elements should be requested in the binary format
+     */
+    public boolean isBinaryResults() {
+        return Boolean.parseBoolean(get(BINARY_RESULTS, String.valueOf(DEFAULT_BINARY_RESULTS)));
+    }
+
+    public void setBinaryResults(final boolean binaryResults) {
+        set(BINARY_RESULTS, String.valueOf(binaryResults));
+    }
+
+    /**
+     * If true, elements requested in the binary format are gzip compressed
+     * by the Gaffer REST API. This reduces the size of the response at the
+     * cost of extra CPU on both ends, so is worthwhile on slower networks.
+     *
+     * @return true if binary results should be compressed
+     */
+    public boolean isCompressResults() {
+        return Boolean.parseBoolean(get(COMPRESS_RESULTS, String.valueOf(DEFAULT_COMPRESS_RESULTS)));
+    }
+
+    public void setCompressResults(final boolean compressResults) {
+        set(COMPRESS_RESULTS, String.valueOf(compressResults));
+    }
+
     public String getGafferHost() {
         return get(GAFFER_HOST, DEFAULT_GAFFER_HOST);
     }
@@ -157,6 +289,24 @@ public class ProxyProperties extends StoreProperties {
         }
     }
 
+    private int getInt(final String key, final int defaultValue, final String description) {
+        final String value = get(key, null);
+        try {
+            return null == value ? defaultValue : Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to convert gaffer " + description + " into an integer", e);
+        }
+    }
+
+    private long getLong(final String key, final long defaultValue, final String description) {
+        final String value = get(key, null);
+        try {
+            return null == value ? defaultValue : Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to convert gaffer " + description + " into a long", e);
+        }
+    }
+
     protected String addSuffix(final String suffix, final String string) {
         if (!string.endsWith(suffix)) {
             return string + suffix;
@@ -17,13 +17,23 @@
 package uk.gov.gchq.gaffer.proxystore;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.gov.gchq.gaffer.commonutil.CloseableUtil;
 import uk.gov.gchq.gaffer.commonutil.CommonConstants;
 import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterable;
+import uk.gov.gchq.gaffer.commonutil.iterable.WrappedCloseableIterable;
 import uk.gov.gchq.gaffer.data.element.Element;
 import uk.gov.gchq.gaffer.data.element.id.EntityId;
 import uk.gov.gchq.gaffer.exception.SerialisationException;
@@ -48,21 +58,29 @@ import uk.gov.gchq.gaffer.store.TypeReferenceStoreImpl;
 import uk.gov.gchq.gaffer.store.operation.handler.OperationHandler;
 import uk.gov.gchq.gaffer.store.operation.handler.OutputOperationHandler;
 import uk.gov.gchq.gaffer.store.schema.Schema;
+import uk.gov.gchq.gaffer.store.serialiser.ElementStreamSerialiser;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status.Family;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Gaffer {@code ProxyStore} implementation.
@@ -72,6 +90,9 @@ import java.util.Set;
  */
 public class ProxyStore extends Store {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProxyStore.class);
+    private static final String ELEMENTS_MEDIA_TYPE = ElementStreamSerialiser.MEDIA_TYPE;
+    private static final String JSON_FALLBACK_MEDIA_TYPE = MediaType.APPLICATION_JSON + "; q=0.1";
+    private static final String GZIP_ENCODING = "gzip";
     private Client client;
     private Set<StoreTrait> traits;
     private Schema schema;
@@ -160,14 +181,159 @@ public class ProxyStore extends Store {
             throw new OperationException("Unable to serialise operation chain into JSON.", e);
         }
 
-        final URL url = getProperties().getGafferUrl("graph/operations/execute");
         try {
+            if (getProperties().isBinaryResults() && isElementsOutput(opChain.getOutputTypeReference())) {
+                final URL url = getProperties().getGafferUrl("graph/operations/execute");
+                return (O) doPostForElements(url, opChainJson, opChain.getOutputTypeReference(), context);
+            }
+
+            if (getProperties().isStreamResults()) {
+                final JavaType resultType = getStreamedResultType(opChain.getOutputTypeReference());
+                if (null != resultType) {
+                    final URL url = getProperties().getGafferUrl("graph/operations/execute/chunked");
+                    return (O) doPostChunked(url, opChainJson, resultType, context);
+                }
+            }
+
+            final URL url = getProperties().getGafferUrl("graph/operations/execute");
             return doPost(url, opChainJson, opChain.getOutputTypeReference(), context);
         } catch (final StoreException e) {
             throw new OperationException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Gets the type of each result, if the output of an operation chain can
+     * be returned as a lazily deserialised {@link CloseableIterable}.
+     *
+     * @param outputType the output type of the operation chain
+     * @return the type of each result, or null if the output is not an iterable
+     */
+    protected JavaType getStreamedResultType(final TypeReference<?> outputType) {
+        if (null == outputType) {
+            return null;
+        }
+        final TypeFactory typeFactory = JSONSerialiser.getMapper().getTypeFactory();
+        final JavaType type = typeFactory.constructType(outputType);
+        if (!Iterable.class.isAssignableFrom(type.getRawClass())
+                || !type.getRawClass().isAssignableFrom(CloseableIterable.class)) {
+            return null;
+        }
+        final JavaType[] typeParameters = typeFactory.findTypeParameters(type, Iterable.class);
+        return null != typeParameters && 1 == typeParameters.length
+                ? typeParameters[0]
+                : typeFactory.constructType(Object.class);
+    }
+
+    /**
+     * Checks whether the output of an operation chain is an iterable of
+     * {@link Element}s that can be requested in the binary format written by
+     * an {@link ElementStreamSerialiser}.
+     *
+     * @param outputType the output type of the operation chain
+     * @return true if the output can be requested in the binary format
+     */
+    protected boolean isElementsOutput(final TypeReference<?> outputType) {
+        final JavaType resultType = getStreamedResultType(outputType);
+        return null != resultType
+                && Element.class.equals(resultType.getRawClass())
+                && ElementStreamSerialiser.canSerialise(getSchema());
+    }
+
+    /**
+     * Executes an operation chain, asking for the resulting elements in the
+     * binary format written by an {@link ElementStreamSerialiser}. If the
+     * Gaffer REST API responds with JSON instead, the JSON is deserialised
+     * as normal.
+     *
+     * @param url        the url to post the operation chain to
+     * @param jsonBody   the operation chain, serialised to JSON
+     * @param outputType the output type of the operation chain
+     * @param context    the context of the operation chain
+     * @param <O>        the output type of the operation chain
+     * @return the output of the operation chain
+     * @throws StoreException if the request fails
+     */
+    protected <O> O doPostForElements(final URL url, final String jsonBody,
+                                      final TypeReference<O> outputType,
+                                      final Context context) throws StoreException {
+        final Invocation.Builder request = createRequest(jsonBody, url, context)
+                .accept(ELEMENTS_MEDIA_TYPE, JSON_FALLBACK_MEDIA_TYPE);
+        if (getProperties().isCompressResults()) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, GZIP_ENCODING);
+        }
+
+        final Response response;
+        try {
+            response = request.post(Entity.json(jsonBody));
+        } catch (final Exception e) {
+            throw new StoreException("Failed to execute post via " +
+                    "the Gaffer URL " + url.toExternalForm(), e);
+        }
+
+        if (Family.SUCCESSFUL != response.getStatusInfo().getFamily()
+                || !ELEMENTS_MEDIA_TYPE.equals(getMediaType(response))) {
+            return handleResponse(response, outputType);
+        }
+
+        final CloseableIterable<Element> elements;
+        try {
+            InputStream stream = response.readEntity(InputStream.class);
+            if (GZIP_ENCODING.equalsIgnoreCase(response.getHeaderString(HttpHeaders.CONTENT_ENCODING))) {
+                stream = new GZIPInputStream(stream);
+            }
+            elements = new ElementStreamSerialiser(getSchema()).deserialise(stream);
+        } catch (final IOException | RuntimeException e) {
+            response.close();
+            throw new StoreException("Unable to read the elements from the Gaffer URL " + url.toExternalForm(), e);
+        }
+
+        if (getProperties().isStreamResults()) {
+            return (O) elements;
+        }
+
+        final List<Element> results = new ArrayList<>();
+        try {
+            for (final Element element : elements) {
+                results.add(element);
+            }
+        } catch (final RuntimeException e) {
+            throw new StoreException(e.getMessage(), e);
+        } finally {
+            CloseableUtil.close(elements);
+            response.close();
+        }
+        return (O) new WrappedCloseableIterable<>(results);
+    }
+
+    private static String getMediaType(final Response response) {
+        final MediaType mediaType = response.getMediaType();
+        return null == mediaType ? null : mediaType.getType() + "/" + mediaType.getSubtype();
+    }
+
+    protected <T> CloseableIterable<T> doPostChunked(final URL url, final String jsonBody,
+                                                     final JavaType resultType,
+                                                     final Context context) throws StoreException {
+        final Invocation.Builder request = createRequest(jsonBody, url, context);
+        final Response response;
+        try {
+            response = request.post(Entity.json(jsonBody));
+        } catch (final Exception e) {
+            throw new StoreException("Failed to execute post via " +
+                    "the Gaffer URL " + url.toExternalForm(), e);
+        }
+
+        if (Family.SUCCESSFUL != response.getStatusInfo().getFamily()) {
+            final String outputJson = response.hasEntity() ? response.readEntity(String.class) : null;
+            response.close();
+            LOGGER.warn("Gaffer bad status {}", response.getStatus());
+            LOGGER.warn("Detail: {}", outputJson);
+            throw new StoreException("Delegate Gaffer store returned status: " + response.getStatus() + ". Response content was: " + outputJson);
+        }
+
+        return new ChunkedResultsIterable<>(response, resultType);
+    }
+
     protected <O> O doPost(final URL url, final Object body,
                            final TypeReference<O> outputType,
                            final Context context) throws StoreException {
@@ -212,7 +378,13 @@ public class ProxyStore extends Store {
     protected <O> O handleResponse(final Response response,
                                    final TypeReference<O> outputTypeReference)
             throws StoreException {
-        final String outputJson = response.hasEntity() ? response.readEntity(String.class) : null;
+        final String outputJson;
+        try {
+            outputJson = response.hasEntity() ? response.readEntity(String.class) : null;
+        } finally {
+            // Release the connection back to the pool
+            response.close();
+        }
         if (Family.SUCCESSFUL != response.getStatusInfo().getFamily()) {
             LOGGER.warn("Gaffer bad status {}", response.getStatus());
             LOGGER.warn("Detail: {}", outputJson);
@@ -306,13 +478,37 @@ public class ProxyStore extends Store {
         return new uk.gov.gchq.gaffer.proxystore.operation.handler.OperationChainHandler<>();
     }
 
+    /**
+     * Creates the client used to send requests to the Gaffer REST API. The
+     * client keeps a pool of connections open, so concurrent operations
+     * reuse connections rather than opening a new one for each request. A
+     * request waits at most the connection request timeout for a connection
+     * when the pool is exhausted.
+     *
+     * @return the client
+     */
     protected Client createClient() {
-        final Client client = ClientBuilder.newClient();
+        final ClientConfig config = new ClientConfig()
+                .connectorProvider(new ApacheConnectorProvider())
+                .property(ApacheClientProperties.CONNECTION_MANAGER, createConnectionManager())
+                .property(ApacheClientProperties.REQUEST_CONFIG, RequestConfig.custom()
+                        .setConnectionRequestTimeout(getProperties().getConnectionRequestTimeout())
+                        .build());
+        final Client client = ClientBuilder.newClient(config);
         client.property(ClientProperties.CONNECT_TIMEOUT, getProperties().getConnectTimeout());
         client.property(ClientProperties.READ_TIMEOUT, getProperties().getReadTimeout());
         return client;
     }
 
+    protected HttpClientConnectionManager createConnectionManager() {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                getProperties().getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(getProperties().getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(getProperties().getMaxConnectionsPerRoute());
+        IdleConnectionEvictor.register(connectionManager, getProperties().getIdleConnectionTimeout());
+        return connectionManager;
+    }
+
     @Override
     protected Class<? extends Serialiser> getRequiredParentSerialiserClass() {
         return ToBytesSerialiser.class;
@@ -355,6 +551,46 @@ public class ProxyStore extends Store {
             return this;
         }
 
+        public Builder connectionRequestTimeout(final int timeout) {
+            properties.setConnectionRequestTimeout(timeout);
+            return this;
+        }
+
+        public Builder maxConnections(final int maxConnections) {
+            properties.setMaxConnections(maxConnections);
+            return this;
+        }
+
+        public Builder maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+            properties.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+            return this;
+        }
+
+        public Builder connectionTimeToLive(final long connectionTimeToLive) {
+            properties.setConnectionTimeToLive(connectionTimeToLive);
+            return this;
+        }
+
+        public Builder idleConnectionTimeout(final long idleConnectionTimeout) {
+            properties.setIdleConnectionTimeout(idleConnectionTimeout);
+            return this;
+        }
+
+        public Builder streamResults(final boolean streamResults) {
+            properties.setStreamResults(streamResults);
+            return this;
+        }
+
+        public Builder binaryResults(final boolean binaryResults) {
+            properties.setBinaryResults(binaryResults);
+            return this;
+        }
+
+        public Builder compressResults(final boolean compressResults) {
+            properties.setCompressResults(compressResults);
+            return this;
+        }
+
         public Builder jsonSerialiser(final Class<? extends JSONSerialiser> serialiserClass) {
             properties.setJsonSerialiserClass(serialiserClass);
             return this;
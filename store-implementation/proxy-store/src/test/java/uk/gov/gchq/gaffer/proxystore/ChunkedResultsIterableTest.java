@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.gov.gchq.gaffer.proxystore;
+
+import com.fasterxml.jackson.databind.JavaType;
+import org.junit.Test;
+
+import uk.gov.gchq.gaffer.commonutil.CommonConstants;
+import uk.gov.gchq.gaffer.commonutil.iterable.CloseableIterator;
+import uk.gov.gchq.gaffer.core.exception.Error;
+import uk.gov.gchq.gaffer.core.exception.GafferRuntimeException;
+import uk.gov.gchq.gaffer.core.exception.Status;
+import uk.gov.gchq.gaffer.jsonserialisation.JSONSerialiser;
+import uk.gov.gchq.gaffer.rest.ServiceConstants;
+
+import javax.ws.rs.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ChunkedResultsIterableTest {
+    private static final JavaType LONG_TYPE = JSONSerialiser.getMapper().getTypeFactory().constructType(Long.class);
+    private static final JavaType MAP_TYPE = JSONSerialiser.getMapper().getTypeFactory().constructType(Map.class);
+
+    @Test
+    public void shouldDeserialiseEachChunkAndCloseTheResponseOnceAllHaveBeenRead() throws Exception {
+        // Given
+        final Response response = givenResponse("1\r\n2\r\n3\r\n");
+
+        // When
+        final List<Object> results = new ArrayList<>();
+        for (final Object result : new ChunkedResultsIterable<>(response, LONG_TYPE)) {
+            results.add(result);
+        }
+
+        // Then
+        assertEquals(Arrays.asList(1L, 2L, 3L), results);
+        verify(response).close();
+    }
+
+    @Test
+    public void shouldThrowWhenTheFinalChunkIsAnError() throws Exception {
+        // Given
+        final Error error = new Error.ErrorBuilder()
+                .status(Status.INTERNAL_SERVER_ERROR)
+                .simpleMessage("Failed to read the next result")
+                .build();
+        final String errorChunk = new String(JSONSerialiser.serialise(
+                Collections.singletonMap(ChunkedResultsIterable.ERROR_FIELD, error)), CommonConstants.UTF_8);
+        final Response response = givenResponse("1\r\n" + errorChunk + "\r\n");
+        final CloseableIterator<Long> iterator = new ChunkedResultsIterable<Long>(response, LONG_TYPE).iterator();
+        assertEquals(1L, (long) iterator.next());
+
+        // When
+        try {
+            iterator.hasNext();
+            fail("Exception expected");
+        } catch (final GafferRuntimeException e) {
+            // Then
+            assertTrue(e.getMessage().contains("Failed to read the next result"));
+            assertEquals(Status.INTERNAL_SERVER_ERROR, e.getStatus());
+        }
+        verify(response).close();
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void shouldReturnResultsWithTheErrorFieldAndOtherFieldsAsResults() throws Exception {
+        // Given
+        final Response response = givenResponse("{\"" + ChunkedResultsIterable.ERROR_FIELD + "\":\"value\",\"other\":1}\r\n");
+
+        // When
+        final List<Object> results = new ArrayList<>();
+        for (final Object result : new ChunkedResultsIterable<>(response, MAP_TYPE)) {
+            results.add(result);
+        }
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals("value", ((Map) results.get(0)).get(ChunkedResultsIterable.ERROR_FIELD));
+    }
+
+    @Test
+    public void shouldUseTheSameErrorFieldAsTheRestApi() {
+        // When / Then
+        assertEquals(ServiceConstants.CHUNKED_ERROR_FIELD, ChunkedResultsIterable.ERROR_FIELD);
+    }
+
+    private static Response givenResponse(final String body) throws Exception {
+        final Response response = mock(Response.class);
+        given(response.readEntity(InputStream.class)).willReturn(new ByteArrayInputStream(body.getBytes(CommonConstants.UTF_8)));
+        return response;
+    }
+}
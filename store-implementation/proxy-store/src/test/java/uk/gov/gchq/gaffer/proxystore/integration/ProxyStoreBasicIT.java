@@ -17,6 +17,7 @@
 package uk.gov.gchq.gaffer.proxystore.integration;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -52,6 +53,7 @@ import uk.gov.gchq.gaffer.user.User;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.hamcrest.Matchers.hasItems;
@@ -139,6 +141,75 @@ public class ProxyStoreBasicIT {
         assertThat((CloseableIterable<Element>) results, hasItems(DEFAULT_ELEMENTS));
     }
 
+    @Test
+    public void shouldAddElementsAndStreamAllElements() throws Exception {
+        // Given
+        addDefaultElements();
+        final Graph streamingGraph = new Graph.Builder()
+                .store(new ProxyStore.Builder()
+                        .graphId("graph2")
+                        .host("localhost")
+                        .port(8080)
+                        .contextRoot("rest")
+                        .streamResults(true)
+                        .binaryResults(false)
+                        .build())
+                .build();
+
+        // When
+        final CloseableIterable<? extends Element> results = streamingGraph.execute(new GetAllElements(), USER);
+
+        // Then
+        final List<Element> resultList = Lists.newArrayList(results);
+        assertEquals(DEFAULT_ELEMENTS.length, resultList.size());
+        assertThat(resultList, hasItems(DEFAULT_ELEMENTS));
+    }
+
+    @Test
+    public void shouldAddElementsAndGetAllElementsInCompressedBinaryFormat() throws Exception {
+        // Given
+        addDefaultElements();
+        final Graph compressingGraph = new Graph.Builder()
+                .store(new ProxyStore.Builder()
+                        .graphId("graph3")
+                        .host("localhost")
+                        .port(8080)
+                        .contextRoot("rest")
+                        .binaryResults(true)
+                        .compressResults(true)
+                        .build())
+                .build();
+
+        // When
+        final CloseableIterable<? extends Element> results = compressingGraph.execute(new GetAllElements(), USER);
+
+        // Then
+        assertEquals(DEFAULT_ELEMENTS.length, Iterables.size(results));
+        assertThat((CloseableIterable<Element>) results, hasItems(DEFAULT_ELEMENTS));
+    }
+
+    @Test
+    public void shouldReleasePooledConnectionsAfterEachRequest() throws Exception {
+        // Given
+        addDefaultElements();
+        final Graph singleConnectionGraph = new Graph.Builder()
+                .store(new ProxyStore.Builder()
+                        .graphId("graph4")
+                        .host("localhost")
+                        .port(8080)
+                        .contextRoot("rest")
+                        .maxConnections(1)
+                        .maxConnectionsPerRoute(1)
+                        .build())
+                .build();
+
+        // When / Then - a connection that was not released would block the next request
+        for (int i = 0; i < 10; i++) {
+            final CloseableIterable<? extends Element> results = singleConnectionGraph.execute(new GetAllElements(), USER);
+            assertEquals(DEFAULT_ELEMENTS.length, Iterables.size(results));
+        }
+    }
+
     @Test
     public void shouldAddElementsAndGetRelatedElements() throws Exception {
         // Given